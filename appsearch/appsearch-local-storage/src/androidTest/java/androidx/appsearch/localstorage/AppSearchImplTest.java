@@ -27,6 +27,7 @@ import static org.junit.Assert.assertThrows;
 
 import android.content.Context;
 
+import androidx.appsearch.app.AppSearchBatchResult;
 import androidx.appsearch.app.AppSearchResult;
 import androidx.appsearch.app.AppSearchSchema;
 import androidx.appsearch.app.GenericDocument;
@@ -2818,6 +2819,80 @@ public class AppSearchImplTest {
                 "Package \"package\" exceeded limit of 1 documents");
     }
 
+    @Test
+    public void testLimitConfig_batchPutDocuments() throws Exception {
+        // Create a new mAppSearchImpl with a lower limit
+        mAppSearchImpl.close();
+        mAppSearchImpl = AppSearchImpl.create(
+                mTemporaryFolder.newFolder(),
+                new LimitConfig() {
+                    @Override
+                    public int getMaxDocumentSizeBytes() {
+                        return 80;
+                    }
+
+                    @Override
+                    public int getMaxDocumentCount() {
+                        return 2;
+                    }
+
+                    @Override
+                    public int getMaxSuggestionCount() {
+                        return Integer.MAX_VALUE;
+                    }
+                },
+                /*initStatsBuilder=*/ null, ALWAYS_OPTIMIZE,
+                /*visibilityChecker=*/null);
+
+        // Insert schema
+        List<AppSearchSchema> schemas =
+                Collections.singletonList(new AppSearchSchema.Builder("type").build());
+        InternalSetSchemaResponse internalSetSchemaResponse = mAppSearchImpl.setSchema(
+                "package",
+                "database",
+                schemas,
+                /*visibilityDocuments=*/ Collections.emptyList(),
+                /*forceOverride=*/ false,
+                /*version=*/ 0,
+                /* setSchemaStatsBuilder= */ null);
+        assertThat(internalSetSchemaResponse.isSuccess()).isTrue();
+
+        // Insert a batch with a document which is too large, and more documents than allowed
+        AppSearchBatchResult<String, Void> result = mAppSearchImpl.batchPutDocuments(
+                "package",
+                "database",
+                ImmutableList.of(
+                        new GenericDocument.Builder<>(
+                                "this_namespace_is_long_to_make_the_doc_big", "id", "type")
+                                .build(),
+                        new GenericDocument.Builder<>("namespace", "id2", "type").build(),
+                        new GenericDocument.Builder<>("namespace", "id3", "type").build(),
+                        new GenericDocument.Builder<>("namespace", "id4", "type").build()),
+                /*sendChangeNotifications=*/ false,
+                /*logger=*/ null,
+                PersistType.Code.LITE);
+
+        // Only the documents over the limits failed, the large one didn't count towards the
+        // number of documents.
+        assertThat(result.getSuccesses().keySet()).containsExactly("id2", "id3");
+        assertThat(result.getFailures().keySet()).containsExactly("id", "id4");
+        AppSearchResult<Void> failure = result.getFailures().get("id");
+        assertThat(failure.getResultCode()).isEqualTo(AppSearchResult.RESULT_OUT_OF_SPACE);
+        assertThat(failure.getErrorMessage()).contains(
+                "Document \"id\" for package \"package\" serialized to 99 bytes, which exceeds"
+                        + " limit of 80 bytes");
+        failure = result.getFailures().get("id4");
+        assertThat(failure.getResultCode()).isEqualTo(AppSearchResult.RESULT_OUT_OF_SPACE);
+        assertThat(failure.getErrorMessage()).contains(
+                "Package \"package\" exceeded limit of 2 documents");
+
+        // The successful documents were indexed
+        assertThat(mAppSearchImpl.getDocument("package", "database", "namespace", "id2",
+                /*typePropertyPaths=*/ Collections.emptyMap())).isNotNull();
+        assertThat(mAppSearchImpl.getDocument("package", "database", "namespace", "id3",
+                /*typePropertyPaths=*/ Collections.emptyMap())).isNotNull();
+    }
+
     @Test
     public void testLimitConfig_Init() throws Exception {
         // Create a new mAppSearchImpl with a lower limit
@@ -4377,6 +4452,63 @@ public class AppSearchImplTest {
                         ImmutableSet.of("id1")));
     }
 
+    @Test
+    public void testDispatchObserver_batchPutDocuments() throws Exception {
+        // Add a schema type
+        InternalSetSchemaResponse internalSetSchemaResponse = mAppSearchImpl.setSchema(
+                mContext.getPackageName(),
+                "database1",
+                ImmutableList.of(new AppSearchSchema.Builder("Type1").build()),
+                /*visibilityDocuments=*/ Collections.emptyList(),
+                /*forceOverride=*/ false,
+                /*version=*/ 0,
+                /*setSchemaStatsBuilder=*/ null);
+        assertThat(internalSetSchemaResponse.isSuccess()).isTrue();
+
+        // Register an observer
+        TestObserverCallback observer = new TestObserverCallback();
+        mAppSearchImpl.registerObserverCallback(
+                /*listeningPackageAccess=*/mSelfCallerAccess,
+                /*targetPackageName=*/mContext.getPackageName(),
+                new ObserverSpec.Builder().build(),
+                MoreExecutors.directExecutor(),
+                observer);
+
+        // Insert a batch of docs, one of which has no schema
+        AppSearchBatchResult<String, Void> result = mAppSearchImpl.batchPutDocuments(
+                mContext.getPackageName(),
+                "database1",
+                ImmutableList.of(
+                        new GenericDocument.Builder<>("namespace1", "id1", "Type1").build(),
+                        new GenericDocument.Builder<>("namespace1", "id2", "Type1").build(),
+                        new GenericDocument.Builder<>("namespace2", "id3", "Type1").build(),
+                        new GenericDocument.Builder<>("namespace1", "id4", "Type2").build()),
+                /*sendChangeNotifications=*/ true,
+                /*logger=*/ null,
+                PersistType.Code.LITE);
+        assertThat(result.getSuccesses().keySet()).containsExactly("id1", "id2", "id3");
+        assertThat(result.getFailures().keySet()).containsExactly("id4");
+        assertThat(observer.getSchemaChanges()).isEmpty();
+        assertThat(observer.getDocumentChanges()).isEmpty();
+
+        // Dispatch notifications, only for the successful docs
+        mAppSearchImpl.dispatchAndClearChangeNotifications();
+        assertThat(observer.getSchemaChanges()).isEmpty();
+        assertThat(observer.getDocumentChanges()).containsExactly(
+                new DocumentChangeInfo(
+                        mContext.getPackageName(),
+                        "database1",
+                        "namespace1",
+                        "Type1",
+                        ImmutableSet.of("id1", "id2")),
+                new DocumentChangeInfo(
+                        mContext.getPackageName(),
+                        "database1",
+                        "namespace2",
+                        "Type1",
+                        ImmutableSet.of("id3")));
+    }
+
     @Test
     public void testDispatchObserver_samePackage_withVisStore_accept() throws Exception {
         // Make a visibility checker that rejects everything
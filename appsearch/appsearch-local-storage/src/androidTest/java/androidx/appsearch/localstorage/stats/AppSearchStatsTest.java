@@ -77,6 +77,7 @@ public class AppSearchStatsTest {
 
     @Test
     public void testAppSearchStats_PutDocumentStats() {
+        final int documentCount = 9;
         final int generateDocumentProtoLatencyMillis = 1;
         final int rewriteDocumentTypesLatencyMillis = 2;
         final int nativeLatencyMillis = 3;
@@ -90,6 +91,7 @@ public class AppSearchStatsTest {
                 new PutDocumentStats.Builder(TEST_PACKAGE_NAME, TEST_DATA_BASE)
                         .setStatusCode(TEST_STATUS_CODE)
                         .setTotalLatencyMillis(TEST_TOTAL_LATENCY_MILLIS)
+                        .setDocumentCount(documentCount)
                         .setGenerateDocumentProtoLatencyMillis(generateDocumentProtoLatencyMillis)
                         .setRewriteDocumentTypesLatencyMillis(rewriteDocumentTypesLatencyMillis)
                         .setNativeLatencyMillis(nativeLatencyMillis)
@@ -106,6 +108,7 @@ public class AppSearchStatsTest {
         assertThat(pStats.getStatusCode()).isEqualTo(TEST_STATUS_CODE);
         assertThat(pStats.getTotalLatencyMillis()).isEqualTo(
                 TEST_TOTAL_LATENCY_MILLIS);
+        assertThat(pStats.getDocumentCount()).isEqualTo(documentCount);
         assertThat(pStats.getGenerateDocumentProtoLatencyMillis()).isEqualTo(
                 generateDocumentProtoLatencyMillis);
         assertThat(pStats.getRewriteDocumentTypesLatencyMillis()).isEqualTo(
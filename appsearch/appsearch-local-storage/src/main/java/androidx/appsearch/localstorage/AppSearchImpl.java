@@ -18,6 +18,7 @@ package androidx.appsearch.localstorage;
 
 import static androidx.appsearch.app.AppSearchResult.RESULT_INTERNAL_ERROR;
 import static androidx.appsearch.app.AppSearchResult.RESULT_SECURITY_ERROR;
+import static androidx.appsearch.app.AppSearchResult.throwableToFailedResult;
 import static androidx.appsearch.app.InternalSetSchemaResponse.newFailedSetSchemaResponse;
 import static androidx.appsearch.app.InternalSetSchemaResponse.newSuccessfulSetSchemaResponse;
 import static androidx.appsearch.localstorage.util.PrefixUtil.addPrefixToDocument;
@@ -37,6 +38,7 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
+import androidx.appsearch.app.AppSearchBatchResult;
 import androidx.appsearch.app.AppSearchResult;
 import androidx.appsearch.app.AppSearchSchema;
 import androidx.appsearch.app.GenericDocument;
@@ -101,6 +103,7 @@ import com.google.android.icing.proto.OptimizeResultProto;
 import com.google.android.icing.proto.PersistToDiskResultProto;
 import com.google.android.icing.proto.PersistType;
 import com.google.android.icing.proto.PropertyConfigProto;
+import com.google.android.icing.proto.PutDocumentStatsProto;
 import com.google.android.icing.proto.PutResultProto;
 import com.google.android.icing.proto.ReportUsageResultProto;
 import com.google.android.icing.proto.ResetResultProto;
@@ -990,6 +993,8 @@ public final class AppSearchImpl implements Closeable {
         if (logger != null) {
             pStatsBuilder = new PutDocumentStats.Builder(packageName, databaseName);
         }
+        PutDocumentStatsProto.Builder nativeStatsBuilder = null;
+        int statusCode = AppSearchResult.RESULT_OK;
         long totalStartTimeMillis = SystemClock.elapsedRealtime();
 
         mReadWriteLock.writeLock().lock();
@@ -1009,35 +1014,24 @@ public final class AppSearchImpl implements Closeable {
             long rewriteDocumentTypeEndTimeMillis = SystemClock.elapsedRealtime();
             DocumentProto finalDocument = documentBuilder.build();
 
-            // Check limits
-            int newDocumentCount = enforceLimitConfigLocked(
-                    packageName, finalDocument.getUri(), finalDocument.getSerializedSize());
-
-            // Insert document
-            LogUtil.piiTrace(TAG, "putDocument, request", finalDocument.getUri(), finalDocument);
-            PutResultProto putResultProto = mIcingSearchEngineLocked.put(finalDocument);
-            LogUtil.piiTrace(
-                    TAG, "putDocument, response", putResultProto.getStatus(), putResultProto);
-
-            // Update caches
-            addToMap(mNamespaceMapLocked, prefix, finalDocument.getNamespace());
-            mDocumentCountMapLocked.put(packageName, newDocumentCount);
-
-            // Logging stats
             if (pStatsBuilder != null) {
                 pStatsBuilder
-                        .setStatusCode(statusProtoToResultCode(putResultProto.getStatus()))
                         .setGenerateDocumentProtoLatencyMillis(
                                 (int) (generateDocumentProtoEndTimeMillis
                                         - generateDocumentProtoStartTimeMillis))
                         .setRewriteDocumentTypesLatencyMillis(
                                 (int) (rewriteDocumentTypeEndTimeMillis
                                         - rewriteDocumentTypeStartTimeMillis));
-                AppSearchLoggerHelper.copyNativeStats(putResultProto.getPutDocumentStats(),
-                        pStatsBuilder);
+                nativeStatsBuilder = PutDocumentStatsProto.newBuilder();
             }
 
-            checkSuccess(putResultProto.getStatus());
+            // Check limits and insert document
+            try {
+                putDocumentProtoLocked(packageName, prefix, finalDocument, nativeStatsBuilder);
+            } catch (AppSearchException e) {
+                statusCode = e.getResultCode();
+                throw e;
+            }
 
             // Prepare notifications
             if (sendChangeNotifications) {
@@ -1054,14 +1048,205 @@ public final class AppSearchImpl implements Closeable {
             mReadWriteLock.writeLock().unlock();
 
             if (pStatsBuilder != null && logger != null) {
+                if (nativeStatsBuilder != null) {
+                    AppSearchLoggerHelper.copyNativeStats(nativeStatsBuilder.build(),
+                            pStatsBuilder);
+                }
+                long totalEndTimeMillis = SystemClock.elapsedRealtime();
+                pStatsBuilder
+                        .setStatusCode(statusCode)
+                        .setTotalLatencyMillis(
+                                (int) (totalEndTimeMillis - totalStartTimeMillis));
+                logger.logStats(pStatsBuilder.build());
+            }
+        }
+    }
+
+    /**
+     * Adds a batch of documents to the AppSearch index.
+     *
+     * <p>This is equivalent to calling {@link #putDocument} for each document, except that the
+     * documents are converted to protos and rewritten with the database prefix before the write
+     * lock is taken, and then all of them are committed to Icing under a single hold of the write
+     * lock, followed by a persist to disk of the given {@code persistType}. Readers are therefore
+     * blocked once per batch instead of once per document.
+     *
+     * <p>A failure to put an individual document is recorded in the returned result and does not
+     * affect the rest of the batch.
+     *
+     * <p>If {@code logger} is provided, a single {@link PutDocumentStats} is logged for the whole
+     * batch. Its latencies, document sizes and token counts are summed over all documents, and its
+     * status code is the code of the first failed document, or {@link AppSearchResult#RESULT_OK}
+     * if all of them succeeded.
+     *
+     * @param packageName             The package name that owns this document.
+     * @param databaseName            The databaseName this document resides in.
+     * @param documents               The documents to index.
+     * @param sendChangeNotifications Whether to dispatch
+     *                                {@link androidx.appsearch.observer.DocumentChangeInfo}
+     *                                messages to observers for these changes.
+     * @param logger                  The logger to log the batch stats to, or {@code null}.
+     * @param persistType             The amount of data to persist once the batch is written.
+     * @return a result keyed by document ID for every document of the batch.
+     * @throws AppSearchException if this instance is closed or the persist to disk fails.
+     */
+    @NonNull
+    public AppSearchBatchResult<String, Void> batchPutDocuments(
+            @NonNull String packageName,
+            @NonNull String databaseName,
+            @NonNull List<GenericDocument> documents,
+            boolean sendChangeNotifications,
+            @Nullable AppSearchLogger logger,
+            @NonNull PersistType.Code persistType)
+            throws AppSearchException {
+        Preconditions.checkNotNull(packageName);
+        Preconditions.checkNotNull(databaseName);
+        Preconditions.checkNotNull(documents);
+        Preconditions.checkNotNull(persistType);
+
+        PutDocumentStats.Builder pStatsBuilder = null;
+        PutDocumentStatsProto.Builder nativeStatsBuilder = null;
+        if (logger != null) {
+            pStatsBuilder = new PutDocumentStats.Builder(packageName, databaseName)
+                    .setDocumentCount(documents.size());
+            nativeStatsBuilder = PutDocumentStatsProto.newBuilder();
+        }
+        long totalStartTimeMillis = SystemClock.elapsedRealtime();
+        AppSearchBatchResult.Builder<String, Void> resultBuilder =
+                new AppSearchBatchResult.Builder<>();
+        int firstFailureCode = AppSearchResult.RESULT_OK;
+
+        try {
+            // Generate and rewrite the document protos before taking the lock. Neither step reads
+            // any state guarded by mReadWriteLock.
+            String prefix = createPrefix(packageName, databaseName);
+            DocumentProto[] finalDocuments = new DocumentProto[documents.size()];
+            long generateDocumentProtoLatencyMillis = 0;
+            long rewriteDocumentTypeLatencyMillis = 0;
+            for (int i = 0; i < documents.size(); i++) {
+                GenericDocument document = documents.get(i);
+                try {
+                    long generateDocumentProtoStartTimeMillis = SystemClock.elapsedRealtime();
+                    DocumentProto.Builder documentBuilder =
+                            GenericDocumentToProtoConverter.toDocumentProto(document).toBuilder();
+                    long rewriteDocumentTypeStartTimeMillis = SystemClock.elapsedRealtime();
+                    addPrefixToDocument(documentBuilder, prefix);
+                    long rewriteDocumentTypeEndTimeMillis = SystemClock.elapsedRealtime();
+                    finalDocuments[i] = documentBuilder.build();
+                    generateDocumentProtoLatencyMillis +=
+                            rewriteDocumentTypeStartTimeMillis
+                                    - generateDocumentProtoStartTimeMillis;
+                    rewriteDocumentTypeLatencyMillis +=
+                            rewriteDocumentTypeEndTimeMillis - rewriteDocumentTypeStartTimeMillis;
+                } catch (Throwable t) {
+                    AppSearchResult<Void> failure = throwableToFailedResult(t);
+                    if (firstFailureCode == AppSearchResult.RESULT_OK) {
+                        firstFailureCode = failure.getResultCode();
+                    }
+                    resultBuilder.setResult(document.getId(), failure);
+                }
+            }
+            if (pStatsBuilder != null) {
+                pStatsBuilder
+                        .setGenerateDocumentProtoLatencyMillis(
+                                (int) generateDocumentProtoLatencyMillis)
+                        .setRewriteDocumentTypesLatencyMillis(
+                                (int) rewriteDocumentTypeLatencyMillis);
+            }
+
+            mReadWriteLock.writeLock().lock();
+            try {
+                throwIfClosedLocked();
+
+                for (int i = 0; i < finalDocuments.length; i++) {
+                    DocumentProto finalDocument = finalDocuments[i];
+                    if (finalDocument == null) {
+                        // Conversion failed, the failure has already been recorded.
+                        continue;
+                    }
+                    GenericDocument document = documents.get(i);
+                    try {
+                        putDocumentProtoLocked(packageName, prefix, finalDocument,
+                                nativeStatsBuilder);
+                        if (sendChangeNotifications) {
+                            mObserverManager.onDocumentChange(
+                                    packageName,
+                                    databaseName,
+                                    document.getNamespace(),
+                                    document.getSchemaType(),
+                                    document.getId(),
+                                    mVisibilityStoreLocked,
+                                    mVisibilityCheckerLocked);
+                        }
+                        resultBuilder.setSuccess(document.getId(), /*value=*/ null);
+                    } catch (Throwable t) {
+                        AppSearchResult<Void> failure = throwableToFailedResult(t);
+                        if (firstFailureCode == AppSearchResult.RESULT_OK) {
+                            firstFailureCode = failure.getResultCode();
+                        }
+                        resultBuilder.setResult(document.getId(), failure);
+                    }
+                }
+
+                // Persist the whole batch while we still hold the lock.
+                persistToDisk(persistType);
+            } finally {
+                mReadWriteLock.writeLock().unlock();
+            }
+            return resultBuilder.build();
+        } catch (AppSearchException e) {
+            if (firstFailureCode == AppSearchResult.RESULT_OK) {
+                firstFailureCode = e.getResultCode();
+            }
+            throw e;
+        } finally {
+            if (pStatsBuilder != null && logger != null) {
+                AppSearchLoggerHelper.copyNativeStats(nativeStatsBuilder.build(), pStatsBuilder);
                 long totalEndTimeMillis = SystemClock.elapsedRealtime();
-                pStatsBuilder.setTotalLatencyMillis(
-                        (int) (totalEndTimeMillis - totalStartTimeMillis));
+                pStatsBuilder
+                        .setStatusCode(firstFailureCode)
+                        .setTotalLatencyMillis(
+                                (int) (totalEndTimeMillis - totalStartTimeMillis));
                 logger.logStats(pStatsBuilder.build());
             }
         }
     }
 
+    /**
+     * Checks the limits for and inserts a single, already prefixed document into Icing, and
+     * updates the namespace and document count caches.
+     *
+     * @param nativeStatsBuilder if provided, the native stats of the put are added to it.
+     */
+    @GuardedBy("mReadWriteLock")
+    private void putDocumentProtoLocked(
+            @NonNull String packageName,
+            @NonNull String prefix,
+            @NonNull DocumentProto finalDocument,
+            @Nullable PutDocumentStatsProto.Builder nativeStatsBuilder)
+            throws AppSearchException {
+        // Check limits
+        int newDocumentCount = enforceLimitConfigLocked(
+                packageName, finalDocument.getUri(), finalDocument.getSerializedSize());
+
+        // Insert document
+        LogUtil.piiTrace(TAG, "putDocument, request", finalDocument.getUri(), finalDocument);
+        PutResultProto putResultProto = mIcingSearchEngineLocked.put(finalDocument);
+        LogUtil.piiTrace(
+                TAG, "putDocument, response", putResultProto.getStatus(), putResultProto);
+
+        // Update caches
+        addToMap(mNamespaceMapLocked, prefix, finalDocument.getNamespace());
+        mDocumentCountMapLocked.put(packageName, newDocumentCount);
+
+        if (nativeStatsBuilder != null) {
+            AppSearchLoggerHelper.addNativeStats(putResultProto.getPutDocumentStats(),
+                    nativeStatsBuilder);
+        }
+
+        checkSuccess(putResultProto.getStatus());
+    }
+
     /**
      * Checks that a new document can be added to the given packageName with the given serialized
      * size without violating our {@link LimitConfig}.
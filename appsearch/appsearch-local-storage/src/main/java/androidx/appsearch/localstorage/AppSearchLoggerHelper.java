@@ -67,6 +67,35 @@ public final class AppSearchLoggerHelper {
                         fromNativeStats.getTokenizationStats().getNumTokensIndexed());
     }
 
+    /**
+     * Adds native PutDocument stats to the running totals in a builder, for stats covering a batch
+     * of documents.
+     *
+     * @param fromNativeStats stats added from
+     * @param toNativeStatsBuilder stats added to
+     */
+    static void addNativeStats(@NonNull PutDocumentStatsProto fromNativeStats,
+            @NonNull PutDocumentStatsProto.Builder toNativeStatsBuilder) {
+        Preconditions.checkNotNull(fromNativeStats);
+        Preconditions.checkNotNull(toNativeStatsBuilder);
+        toNativeStatsBuilder
+                .setLatencyMs(toNativeStatsBuilder.getLatencyMs()
+                        + fromNativeStats.getLatencyMs())
+                .setDocumentStoreLatencyMs(toNativeStatsBuilder.getDocumentStoreLatencyMs()
+                        + fromNativeStats.getDocumentStoreLatencyMs())
+                .setIndexLatencyMs(toNativeStatsBuilder.getIndexLatencyMs()
+                        + fromNativeStats.getIndexLatencyMs())
+                .setIndexMergeLatencyMs(toNativeStatsBuilder.getIndexMergeLatencyMs()
+                        + fromNativeStats.getIndexMergeLatencyMs())
+                .setDocumentSize(toNativeStatsBuilder.getDocumentSize()
+                        + fromNativeStats.getDocumentSize())
+                .setTokenizationStats(toNativeStatsBuilder.getTokenizationStats().toBuilder()
+                        .setNumTokensIndexed(
+                                toNativeStatsBuilder.getTokenizationStats().getNumTokensIndexed()
+                                        + fromNativeStats.getTokenizationStats()
+                                        .getNumTokensIndexed()));
+    }
+
     /**
      * Copies native Initialize stats to builder.
      *
@@ -353,31 +353,22 @@ class SearchSessionImpl implements AppSearchSession {
         Preconditions.checkNotNull(request);
         Preconditions.checkState(!mIsClosed, "AppSearchSession has already been closed");
         ListenableFuture<AppSearchBatchResult<String, Void>> future = execute(() -> {
-            AppSearchBatchResult.Builder<String, Void> resultBuilder =
-                    new AppSearchBatchResult.Builder<>();
-            for (int i = 0; i < request.getGenericDocuments().size(); i++) {
-                GenericDocument document = request.getGenericDocuments().get(i);
-                try {
-                    mAppSearchImpl.putDocument(
-                            mPackageName,
-                            mDatabaseName,
-                            document,
-                            /*sendChangeNotifications=*/ true,
-                            mLogger);
-                    resultBuilder.setSuccess(document.getId(), /*value=*/ null);
-                } catch (Throwable t) {
-                    resultBuilder.setResult(document.getId(), throwableToFailedResult(t));
-                }
-            }
-            // Now that the batch has been written. Persist the newly written data.
-            mAppSearchImpl.persistToDisk(PersistType.Code.LITE);
+            // Write the whole batch and persist the newly written data under a single hold of
+            // the write lock.
+            AppSearchBatchResult<String, Void> result = mAppSearchImpl.batchPutDocuments(
+                    mPackageName,
+                    mDatabaseName,
+                    request.getGenericDocuments(),
+                    /*sendChangeNotifications=*/ true,
+                    mLogger,
+                    PersistType.Code.LITE);
             mIsMutated = true;
 
             // Schedule a task to dispatch change notifications. See requirements for where the
             // method is called documented in the method description.
             dispatchChangeNotifications();
 
-            return resultBuilder.build();
+            return result;
         });
 
         // The existing documents with same ID will be deleted, so there may be some resources that
@@ -23,7 +23,11 @@ import androidx.core.util.Preconditions;
 
 /**
  * A class for holding detailed stats to log for each individual document put by a
- * {@link androidx.appsearch.app.AppSearchSession#putAsync} call.
+ * {@link androidx.appsearch.app.AppSearchSession#putAsync} call, or for a whole batch of
+ * documents put together.
+ *
+ * <p>For a batch, the latencies, document size and number of tokens are summed over all the
+ * documents in the batch.
  *
  * @hide
  */
@@ -41,6 +45,9 @@ public final class PutDocumentStats {
     private final int mStatusCode;
     private final int mTotalLatencyMillis;
 
+    /** Number of documents covered by these stats. */
+    private final int mDocumentCount;
+
     /** Time used to generate a document proto from a Bundle. */
     private final int mGenerateDocumentProtoLatencyMillis;
 
@@ -71,6 +78,7 @@ public final class PutDocumentStats {
         mDatabase = builder.mDatabase;
         mStatusCode = builder.mStatusCode;
         mTotalLatencyMillis = builder.mTotalLatencyMillis;
+        mDocumentCount = builder.mDocumentCount;
         mGenerateDocumentProtoLatencyMillis = builder.mGenerateDocumentProtoLatencyMillis;
         mRewriteDocumentTypesLatencyMillis = builder.mRewriteDocumentTypesLatencyMillis;
         mNativeLatencyMillis = builder.mNativeLatencyMillis;
@@ -104,6 +112,11 @@ public final class PutDocumentStats {
         return mTotalLatencyMillis;
     }
 
+    /** Returns number of documents covered by these stats, 1 for a single putDocument. */
+    public int getDocumentCount() {
+        return mDocumentCount;
+    }
+
     /** Returns time spent on generating document proto, in milliseconds. */
     public int getGenerateDocumentProtoLatencyMillis() {
         return mGenerateDocumentProtoLatencyMillis;
@@ -153,6 +166,7 @@ public final class PutDocumentStats {
         @AppSearchResult.ResultCode
         int mStatusCode;
         int mTotalLatencyMillis;
+        int mDocumentCount = 1;
         int mGenerateDocumentProtoLatencyMillis;
         int mRewriteDocumentTypesLatencyMillis;
         int mNativeLatencyMillis;
@@ -182,6 +196,13 @@ public final class PutDocumentStats {
             return this;
         }
 
+        /** Sets number of documents covered by these stats. */
+        @NonNull
+        public Builder setDocumentCount(int documentCount) {
+            mDocumentCount = documentCount;
+            return this;
+        }
+
         /** Sets how much time we spend for generating document proto, in milliseconds. */
         @NonNull
         public Builder setGenerateDocumentProtoLatencyMillis(
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.car.app.benchmark.serialization
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.car.app.model.ItemList
+import androidx.car.app.model.ListTemplate
+import androidx.car.app.model.Row
+import androidx.car.app.serialization.Bundleable
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class BundlerBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val template = createListTemplate(ROW_COUNT)
+
+    @Test
+    fun toBundle_largeListTemplate() {
+        benchmarkRule.measureRepeated {
+            Bundleable.create(template)
+        }
+    }
+
+    @Test
+    fun fromBundle_largeListTemplate() {
+        val bundleable = Bundleable.create(template)
+        benchmarkRule.measureRepeated {
+            bundleable.get()
+        }
+    }
+
+    @Test
+    fun roundTrip_largeListTemplate() {
+        benchmarkRule.measureRepeated {
+            Bundleable.create(template).get()
+        }
+    }
+
+    private fun createListTemplate(rowCount: Int): ListTemplate {
+        val itemList = ItemList.Builder()
+        for (i in 0 until rowCount) {
+            itemList.addItem(
+                Row.Builder()
+                    .setTitle("Row $i")
+                    .addText("Text of row $i")
+                    .build()
+            )
+        }
+        return ListTemplate.Builder()
+            .setTitle("Title")
+            .setSingleList(itemList.build())
+            .build()
+    }
+
+    companion object {
+        private const val ROW_COUNT = 300
+    }
+}
@@ -27,6 +27,7 @@ import android.os.IInterface;
 import android.os.Parcelable;
 import android.util.ArrayMap;
 import android.util.Log;
+import android.util.LruCache;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -93,6 +94,16 @@ public final class Bundler {
             initUnobfuscatedTypeNames();
     private static final Map<Integer, String> BUNDLED_TYPE_NAMES = initBundledTypeNames();
 
+    /** Maximum number of classes whose field tables are kept in {@link #CLASS_INFOS}. */
+    private static final int MAX_CLASS_INFOS = 256;
+
+    /**
+     * Field tables of the most recently used custom object classes, so that the class hierarchy
+     * is only walked reflectively once per class.
+     */
+    private static final LruCache<Class<?>, ClassInfo> CLASS_INFOS =
+            new LruCache<>(MAX_CLASS_INFOS);
+
     private static final String TAG_CLASS_NAME = "tag_class_name";
     private static final String TAG_CLASS_TYPE = "tag_class_type";
     private static final String TAG_VALUE = "tag_value";
@@ -366,22 +377,21 @@ public final class Bundler {
     }
 
     private static Bundle serializeObject(Object obj, Trace trace) throws BundlerException {
-        String className = obj.getClass().getName();
-        try {
-            obj.getClass().getDeclaredConstructor();
-        } catch (NoSuchMethodException e) {
+        ClassInfo classInfo = getClassInfo(obj.getClass());
+        String className = classInfo.mClassName;
+        if (classInfo.mConstructor == null) {
             throw new TracedBundlerException(
                     "Class to deserialize is missing a no args constructor: " + className, trace,
-                    e);
+                    classInfo.mConstructorException);
         }
-        List<Field> fields = getFields(obj.getClass());
-        Bundle bundle = new Bundle(fields.size() + 2);
+        Field[] fields = classInfo.mFields;
+        Bundle bundle = new Bundle(fields.length + 2);
 
         bundle.putInt(TAG_CLASS_TYPE, OBJECT);
         bundle.putString(TAG_CLASS_NAME, className);
-        for (Field field : fields) {
-            field.setAccessible(true);
-            String fieldName = getFieldName(field);
+        for (int i = 0; i < fields.length; i++) {
+            Field field = fields[i];
+            String fieldName = classInfo.mFieldKeys[i];
 
             Object value = null;
             try {
@@ -564,20 +574,24 @@ public final class Bundler {
         }
 
         try {
-            Class<?> clazz = Class.forName(className);
-            Constructor<?> constructor = clazz.getDeclaredConstructor();
-            constructor.setAccessible(true);
+            ClassInfo classInfo = getClassInfo(Class.forName(className));
+            Constructor<?> constructor = classInfo.mConstructor;
+            if (constructor == null) {
+                throw new TracedBundlerException(
+                        "Object missing no args constructor: " + className, trace,
+                        classInfo.mConstructorException);
+            }
             Object obj = constructor.newInstance();
 
-            for (Field field : getFields(clazz)) {
-                field.setAccessible(true);
-                String fieldName = getFieldName(field);
+            Field[] fields = classInfo.mFields;
+            for (int i = 0; i < fields.length; i++) {
+                Field field = fields[i];
+                String fieldName = classInfo.mFieldKeys[i];
 
                 Object value = bundle.get(fieldName);
                 if (value == null) {
                     // If we don't find the field in the bundle, try dejetifying it.
-                    value = bundle.get(
-                            fieldName.replaceAll(ICON_COMPAT_ANDROIDX, ICON_COMPAT_SUPPORT));
+                    value = bundle.get(classInfo.mDejetifiedFieldKeys[i]);
                 }
 
                 if (value instanceof Bundle) {
@@ -591,9 +605,6 @@ public final class Bundler {
             return obj;
         } catch (ClassNotFoundException e) {
             throw new TracedBundlerException("Object for unknown class: " + className, trace, e);
-        } catch (NoSuchMethodException e) {
-            throw new TracedBundlerException(
-                    "Object missing no args constructor: " + className, trace, e);
         } catch (ReflectiveOperationException e) {
             // Should not happen since we set it as accessible.
             throw new TracedBundlerException(
@@ -613,6 +624,16 @@ public final class Bundler {
         return className + fieldName;
     }
 
+    private static ClassInfo getClassInfo(Class<?> clazz) {
+        ClassInfo classInfo = CLASS_INFOS.get(clazz);
+        if (classInfo == null) {
+            // Racing threads may build the same table more than once, which is harmless.
+            classInfo = new ClassInfo(clazz);
+            CLASS_INFOS.put(clazz, classInfo);
+        }
+        return classInfo;
+    }
+
     private static List<Field> getFields(@Nullable Class<?> clazz) {
         List<Field> fields = new ArrayList<>();
         if (clazz == null || clazz == Object.class) {
@@ -718,6 +739,50 @@ public final class Bundler {
                 || obj instanceof String;
     }
 
+    /**
+     * The no args constructor and the non-static fields of a custom object class, made accessible
+     * once, together with the keys of the fields in the {@link Bundle}.
+     */
+    private static final class ClassInfo {
+        final String mClassName;
+        @Nullable
+        final Constructor<?> mConstructor;
+        @Nullable
+        final NoSuchMethodException mConstructorException;
+        final Field[] mFields;
+        final String[] mFieldKeys;
+        final String[] mDejetifiedFieldKeys;
+
+        ClassInfo(Class<?> clazz) {
+            mClassName = clazz.getName();
+
+            Constructor<?> constructor = null;
+            NoSuchMethodException constructorException = null;
+            try {
+                constructor = clazz.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                constructorException = e;
+            }
+            mConstructor = constructor;
+            mConstructorException = constructorException;
+
+            List<Field> fields = getFields(clazz);
+            int count = fields.size();
+            mFields = new Field[count];
+            mFieldKeys = new String[count];
+            mDejetifiedFieldKeys = new String[count];
+            for (int i = 0; i < count; i++) {
+                Field field = fields.get(i);
+                field.setAccessible(true);
+                mFields[i] = field;
+                mFieldKeys[i] = getFieldName(field);
+                mDejetifiedFieldKeys[i] =
+                        mFieldKeys[i].replaceAll(ICON_COMPAT_ANDROIDX, ICON_COMPAT_SUPPORT);
+            }
+        }
+    }
+
     /** Represents a named frame in the serialization stack tracked by a {@link Trace} instance. */
     private static class Frame {
         private final Object mObj;
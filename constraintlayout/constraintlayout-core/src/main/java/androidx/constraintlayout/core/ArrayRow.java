@@ -621,7 +621,7 @@ public class ArrayRow implements LinearSystem.Row {
         if (removeFromDefinition) {
             definition.mVariable.removeFromRow(this);
         }
-        if (LinearSystem.SIMPLIFY_SYNONYMS
+        if (system.simplifySynonyms
                 && mVariable != null && variables.getCurrentSize() == 0) {
             mIsSimpleDefinition = true;
             system.hasSimpleDefinition = true;
@@ -642,7 +642,7 @@ public class ArrayRow implements LinearSystem.Row {
         if (removeFromDefinition) {
             variable.removeFromRow(this);
         }
-        if (LinearSystem.SIMPLIFY_SYNONYMS
+        if (system.simplifySynonyms
                 && variables.getCurrentSize() == 0) {
             mIsSimpleDefinition = true;
             system.hasSimpleDefinition = true;
@@ -664,7 +664,7 @@ public class ArrayRow implements LinearSystem.Row {
         }
         variables.add(system.mCache.mIndexedVariables[variable.mSynonym],
                 value, removeFromDefinition);
-        if (LinearSystem.SIMPLIFY_SYNONYMS
+        if (system.simplifySynonyms
                 && variables.getCurrentSize() == 0) {
             mIsSimpleDefinition = true;
             system.hasSimpleDefinition = true;
@@ -804,7 +804,7 @@ public class ArrayRow implements LinearSystem.Row {
                 done = true;
             }
         }
-        if (LinearSystem.SIMPLIFY_SYNONYMS
+        if (system.simplifySynonyms
                 && mVariable != null && variables.getCurrentSize() == 0) {
             mIsSimpleDefinition = true;
             system.hasSimpleDefinition = true;
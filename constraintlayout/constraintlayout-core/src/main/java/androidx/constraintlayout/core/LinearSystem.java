@@ -34,6 +34,11 @@ public class LinearSystem {
 
     private static final boolean DEBUG_CONSTRAINTS = FULL_DEBUG;
 
+    /*
+     * Default configuration of new systems. Each system takes a copy of these flags when it is
+     * created (see the matching instance fields), so changing them does not affect systems that
+     * are already being solved, possibly on other threads.
+     */
     public static boolean USE_DEPENDENCY_ORDERING = false;
     public static boolean USE_BASIC_SYNONYMS = true;
     public static boolean SIMPLIFY_SYNONYMS = true;
@@ -44,9 +49,19 @@ public class LinearSystem {
     /*
      * Default size for the object pools
      */
-    private static int sPoolSize = 1000;
+    private static final int POOL_SIZE = 1000;
+    private int mPoolSize = POOL_SIZE;
     public boolean hasSimpleDefinition = false;
 
+    // Per-system configuration, initialized from the static defaults
+    public boolean useDependencyOrdering = USE_DEPENDENCY_ORDERING;
+    public boolean useBasicSynonyms = USE_BASIC_SYNONYMS;
+    public boolean simplifySynonyms = SIMPLIFY_SYNONYMS;
+    public boolean useSynonyms = USE_SYNONYMS;
+    public boolean skipColumns = SKIP_COLUMNS;
+    // Fixed for the lifetime of the system, as rows are pooled per row type
+    private final boolean mOptimizedEngine = OPTIMIZED_ENGINE;
+
     /*
      * Variable counter
      */
@@ -79,10 +94,15 @@ public class LinearSystem {
 
     final Cache mCache;
 
-    private SolverVariable[] mPoolVariables = new SolverVariable[sPoolSize];
+    private SolverVariable[] mPoolVariables = new SolverVariable[mPoolSize];
     private int mPoolVariablesCount = 0;
 
+    /*
+     * Metrics of the last system that had metrics set through fillMetrics(). Systems only ever
+     * update their own mMetrics; this is only kept for getMetrics().
+     */
     public static Metrics sMetrics;
+    private Metrics mMetrics;
     private Row mTempGoal;
 
     static class ValuesRow extends ArrayRow {
@@ -96,22 +116,36 @@ public class LinearSystem {
         releaseRows();
         mCache = new Cache();
         mGoal = new PriorityGoalRow(mCache);
-        if (OPTIMIZED_ENGINE) {
+        if (mOptimizedEngine) {
             mTempGoal = new ValuesRow(mCache);
         } else {
             mTempGoal = new ArrayRow(mCache);
         }
     }
 
-    // @TODO: add description
+    /**
+     * Sets the metrics object this system reports to, {@code null} to disable metrics.
+     */
     public void fillMetrics(Metrics metrics) {
+        mMetrics = metrics;
         sMetrics = metrics;
     }
 
+    /**
+     * Returns the metrics that were last set on any system through {@link #fillMetrics(Metrics)}.
+     * Prefer {@link #getSystemMetrics()} when several systems are used concurrently.
+     */
     public static Metrics getMetrics() {
         return sMetrics;
     }
 
+    /**
+     * Returns the metrics this system reports to, or {@code null}.
+     */
+    public Metrics getSystemMetrics() {
+        return mMetrics;
+    }
+
     interface Row {
         SolverVariable getPivotCandidate(LinearSystem system, boolean[] avoid);
 
@@ -154,10 +188,10 @@ public class LinearSystem {
         mAlreadyTestedCandidates = new boolean[mTableSize];
         mMaxColumns = mTableSize;
         mMaxRows = mTableSize;
-        if (sMetrics != null) {
-            sMetrics.tableSizeIncrease++;
-            sMetrics.maxTableSize = Math.max(sMetrics.maxTableSize, mTableSize);
-            sMetrics.lastTableSize = sMetrics.maxTableSize;
+        if (mMetrics != null) {
+            mMetrics.tableSizeIncrease++;
+            mMetrics.maxTableSize = Math.max(mMetrics.maxTableSize, mTableSize);
+            mMetrics.lastTableSize = mMetrics.maxTableSize;
         }
     }
 
@@ -165,7 +199,7 @@ public class LinearSystem {
      * Release ArrayRows back to their pool
      */
     private void releaseRows() {
-        if (OPTIMIZED_ENGINE) {
+        if (mOptimizedEngine) {
             for (int i = 0; i < mNumRows; i++) {
                 ArrayRow row = mRows[i];
                 if (row != null) {
@@ -216,7 +250,7 @@ public class LinearSystem {
         }
         releaseRows();
         mNumRows = 0;
-        if (OPTIMIZED_ENGINE) {
+        if (mOptimizedEngine) {
             mTempGoal = new ValuesRow(mCache);
         } else {
             mTempGoal = new ArrayRow(mCache);
@@ -258,17 +292,23 @@ public class LinearSystem {
         return variable;
     }
 
+    /*
+     * Process wide counters of created rows; only updated when debugging, as concurrent solves
+     * would race on them.
+     */
     public static long ARRAY_ROW_CREATION = 0;
     public static long OPTIMIZED_ARRAY_ROW_CREATION = 0;
 
     // @TODO: add description
     public ArrayRow createRow() {
         ArrayRow row;
-        if (OPTIMIZED_ENGINE) {
+        if (mOptimizedEngine) {
             row = mCache.mOptimizedArrayRowPool.acquire();
             if (row == null) {
                 row = new ValuesRow(mCache);
-                OPTIMIZED_ARRAY_ROW_CREATION++;
+                if (DEBUG) {
+                    OPTIMIZED_ARRAY_ROW_CREATION++;
+                }
             } else {
                 row.reset();
             }
@@ -276,7 +316,9 @@ public class LinearSystem {
             row = mCache.mArrayRowPool.acquire();
             if (row == null) {
                 row = new ArrayRow(mCache);
-                ARRAY_ROW_CREATION++;
+                if (DEBUG) {
+                    ARRAY_ROW_CREATION++;
+                }
             } else {
                 row.reset();
             }
@@ -287,8 +329,8 @@ public class LinearSystem {
 
     // @TODO: add description
     public SolverVariable createSlackVariable() {
-        if (sMetrics != null) {
-            sMetrics.slackvariables++;
+        if (mMetrics != null) {
+            mMetrics.slackvariables++;
         }
         if (mNumColumns + 1 >= mMaxColumns) {
             increaseTableSize();
@@ -303,8 +345,8 @@ public class LinearSystem {
 
     // @TODO: add description
     public SolverVariable createExtraVariable() {
-        if (sMetrics != null) {
-            sMetrics.extravariables++;
+        if (mMetrics != null) {
+            mMetrics.extravariables++;
         }
         if (mNumColumns + 1 >= mMaxColumns) {
             increaseTableSize();
@@ -340,8 +382,8 @@ public class LinearSystem {
     }
 
     private SolverVariable createVariable(String name, SolverVariable.Type type) {
-        if (sMetrics != null) {
-            sMetrics.variables++;
+        if (mMetrics != null) {
+            mMetrics.variables++;
         }
         if (mNumColumns + 1 >= mMaxColumns) {
             increaseTableSize();
@@ -361,8 +403,8 @@ public class LinearSystem {
 
     // @TODO: add description
     public SolverVariable createErrorVariable(int strength, String prefix) {
-        if (sMetrics != null) {
-            sMetrics.errors++;
+        if (mMetrics != null) {
+            mMetrics.errors++;
         }
         if (mNumColumns + 1 >= mMaxColumns) {
             increaseTableSize();
@@ -392,9 +434,9 @@ public class LinearSystem {
             variable.reset();
             variable.setType(type, prefix);
         }
-        if (mPoolVariablesCount >= sPoolSize) {
-            sPoolSize *= 2;
-            mPoolVariables = Arrays.copyOf(mPoolVariables, sPoolSize);
+        if (mPoolVariablesCount >= mPoolSize) {
+            mPoolSize *= 2;
+            mPoolVariables = Arrays.copyOf(mPoolVariables, mPoolSize);
         }
         mPoolVariables[mPoolVariablesCount++] = variable;
         return variable;
@@ -466,8 +508,8 @@ public class LinearSystem {
      * Minimize the current goal of the system.
      */
     public void minimize() throws Exception {
-        if (sMetrics != null) {
-            sMetrics.minimize++;
+        if (mMetrics != null) {
+            mMetrics.minimize++;
         }
         if (mGoal.isEmpty()) {
             if (DEBUG) {
@@ -480,8 +522,8 @@ public class LinearSystem {
             System.out.println("\n*** MINIMIZE ***\n");
         }
         if (graphOptimizer || newgraphOptimizer) {
-            if (sMetrics != null) {
-                sMetrics.graphOptimizer++;
+            if (mMetrics != null) {
+                mMetrics.graphOptimizer++;
             }
             boolean fullySolved = true;
             for (int i = 0; i < mNumRows; i++) {
@@ -494,8 +536,8 @@ public class LinearSystem {
             if (!fullySolved) {
                 minimizeGoal(mGoal);
             } else {
-                if (sMetrics != null) {
-                    sMetrics.fullySolved++;
+                if (mMetrics != null) {
+                    mMetrics.fullySolved++;
                 }
                 computeValues();
             }
@@ -513,10 +555,10 @@ public class LinearSystem {
      * @param goal the goal to minimize.
      */
     void minimizeGoal(Row goal) throws Exception {
-        if (sMetrics != null) {
-            sMetrics.minimizeGoal++;
-            sMetrics.maxVariables = Math.max(sMetrics.maxVariables, mNumColumns);
-            sMetrics.maxRows = Math.max(sMetrics.maxRows, mNumRows);
+        if (mMetrics != null) {
+            mMetrics.minimizeGoal++;
+            mMetrics.maxVariables = Math.max(mMetrics.maxVariables, mNumColumns);
+            mMetrics.maxRows = Math.max(mMetrics.maxRows, mNumRows);
         }
         // First, let's make sure that the system is in Basic Feasible Solved Form (BFS), i.e.
         // all the constants of the restricted variables should be positive.
@@ -557,7 +599,7 @@ public class LinearSystem {
                 mRows[mNumRows - 1] = null;
                 mNumRows--;
                 i--;
-                if (OPTIMIZED_ENGINE) {
+                if (mOptimizedEngine) {
                     mCache.mOptimizedArrayRowPool.release(current);
                 } else {
                     mCache.mArrayRowPool.release(current);
@@ -576,10 +618,10 @@ public class LinearSystem {
         if (row == null) {
             return;
         }
-        if (sMetrics != null) {
-            sMetrics.constraints++;
+        if (mMetrics != null) {
+            mMetrics.constraints++;
             if (row.mIsSimpleDefinition) {
-                sMetrics.simpleconstraints++;
+                mMetrics.simpleconstraints++;
             }
         }
         if (mNumRows + 1 >= mMaxRows || mNumColumns + 1 >= mMaxColumns) {
@@ -625,8 +667,8 @@ public class LinearSystem {
                             // move extra to be parametric
                             SolverVariable pivotCandidate = row.pickPivot(extra);
                             if (pivotCandidate != null) {
-                                if (sMetrics != null) {
-                                    sMetrics.pivots++;
+                                if (mMetrics != null) {
+                                    mMetrics.pivots++;
                                 }
                                 row.pivot(pivotCandidate);
                             }
@@ -634,7 +676,7 @@ public class LinearSystem {
                         if (!row.mIsSimpleDefinition) {
                             row.mVariable.updateReferencesWithNewDefinition(this, row);
                         }
-                        if (OPTIMIZED_ENGINE) {
+                        if (mOptimizedEngine) {
                             mCache.mOptimizedArrayRowPool.release(row);
                         } else {
                             mCache.mArrayRowPool.release(row);
@@ -659,7 +701,7 @@ public class LinearSystem {
     }
 
     private void addRow(ArrayRow row) {
-        if (SIMPLIFY_SYNONYMS && row.mIsSimpleDefinition) {
+        if (simplifySynonyms && row.mIsSimpleDefinition) {
             row.mVariable.setFinalValue(this, row.mConstantValue);
         } else {
             mRows[mNumRows] = row;
@@ -672,7 +714,7 @@ public class LinearSystem {
             System.out.println("here is the system:");
             displayReadableRows();
         }
-        if (SIMPLIFY_SYNONYMS && hasSimpleDefinition) {
+        if (simplifySynonyms && hasSimpleDefinition) {
             // compact the rows...
             for (int i = 0; i < mNumRows; i++) {
                 if (mRows[i] == null) {
@@ -681,7 +723,7 @@ public class LinearSystem {
                 if (mRows[i] != null && mRows[i].mIsSimpleDefinition) {
                     ArrayRow removedRow = mRows[i];
                     removedRow.mVariable.setFinalValue(this, removedRow.mConstantValue);
-                    if (OPTIMIZED_ENGINE) {
+                    if (mOptimizedEngine) {
                         mCache.mOptimizedArrayRowPool.release(removedRow);
                     } else {
                         mCache.mArrayRowPool.release(removedRow);
@@ -722,7 +764,7 @@ public class LinearSystem {
             if (!row.mVariable.isFinalValue) {
                 row.mVariable.setFinalValue(this, row.mConstantValue);
             }
-            if (OPTIMIZED_ENGINE) {
+            if (mOptimizedEngine) {
                 mCache.mOptimizedArrayRowPool.release(row);
             } else {
                 mCache.mArrayRowPool.release(row);
@@ -737,8 +779,8 @@ public class LinearSystem {
      * @return number of iterations.
      */
     private int optimize(Row goal, boolean b) {
-        if (sMetrics != null) {
-            sMetrics.optimize++;
+        if (mMetrics != null) {
+            mMetrics.optimize++;
         }
         boolean done = false;
         int tries = 0;
@@ -755,8 +797,8 @@ public class LinearSystem {
         }
 
         while (!done) {
-            if (sMetrics != null) {
-                sMetrics.iterations++;
+            if (mMetrics != null) {
+                mMetrics.iterations++;
             }
             tries++;
             if (DEBUG) {
@@ -845,8 +887,8 @@ public class LinearSystem {
                     }
                     ArrayRow pivotEquation = mRows[pivotRowIndex];
                     pivotEquation.mVariable.mDefinitionId = -1;
-                    if (sMetrics != null) {
-                        sMetrics.pivots++;
+                    if (mMetrics != null) {
+                        mMetrics.pivots++;
                     }
                     pivotEquation.pivot(pivotCandidate);
                     pivotEquation.mVariable.mDefinitionId = pivotRowIndex;
@@ -927,8 +969,8 @@ public class LinearSystem {
             done = false;
             tries = 0;
             while (!done) {
-                if (sMetrics != null) {
-                    sMetrics.bfs++;
+                if (mMetrics != null) {
+                    mMetrics.bfs++;
                 }
                 tries++;
                 if (DEBUG) {
@@ -955,7 +997,7 @@ public class LinearSystem {
                         if (DEBUG) {
                             System.out.println("looking at pivoting on row " + current);
                         }
-                        if (SKIP_COLUMNS) {
+                        if (skipColumns) {
                             final int size = current.variables.getCurrentSize();
                             for (int j = 0; j < size; j++) {
                                 SolverVariable candidate = current.variables.getVariable(j);
@@ -1008,8 +1050,8 @@ public class LinearSystem {
                                 + mCache.mIndexedVariables[pivotColumnIndex]);
                     }
                     pivotEquation.mVariable.mDefinitionId = -1;
-                    if (sMetrics != null) {
-                        sMetrics.pivots++;
+                    if (mMetrics != null) {
+                        mMetrics.pivots++;
                     }
                     pivotEquation.pivot(mCache.mIndexedVariables[pivotColumnIndex]);
                     pivotEquation.mVariable.mDefinitionId = pivotRowIndex;
@@ -1394,10 +1436,10 @@ public class LinearSystem {
      * @param strength strength used
      */
     public ArrayRow addEquality(SolverVariable a, SolverVariable b, int margin, int strength) {
-        if (sMetrics != null) {
-            sMetrics.mSimpleEquations++;
+        if (mMetrics != null) {
+            mMetrics.mSimpleEquations++;
         }
-        if (USE_BASIC_SYNONYMS && strength == SolverVariable.STRENGTH_FIXED
+        if (useBasicSynonyms && strength == SolverVariable.STRENGTH_FIXED
                 && b.isFinalValue && a.mDefinitionId == -1) {
             if (DEBUG_CONSTRAINTS) {
                 System.out.println("=> " + a + " = " + b + (margin != 0 ? " + " + margin : "")
@@ -1406,7 +1448,7 @@ public class LinearSystem {
             a.setFinalValue(this, b.computedValue + margin);
             return null;
         }
-        if (DO_NOT_USE && USE_SYNONYMS && strength == SolverVariable.STRENGTH_FIXED
+        if (DO_NOT_USE && useSynonyms && strength == SolverVariable.STRENGTH_FIXED
                 && a.mDefinitionId == -1 && margin == 0) {
             if (DEBUG_CONSTRAINTS) {
                 System.out.println("(S) -> " + a + " = " + b + (margin != 0 ? " + " + margin : "")
@@ -1444,10 +1486,10 @@ public class LinearSystem {
      * @param value the value we set
      */
     public void addEquality(SolverVariable a, int value) {
-        if (sMetrics != null) {
-            sMetrics.mSimpleEquations++;
+        if (mMetrics != null) {
+            mMetrics.mSimpleEquations++;
         }
-        if (USE_BASIC_SYNONYMS && a.mDefinitionId == -1) {
+        if (useBasicSynonyms && a.mDefinitionId == -1) {
             if (DEBUG_CONSTRAINTS) {
                 System.out.println("=> " + a + " = " + value + " (Synonym)");
             }
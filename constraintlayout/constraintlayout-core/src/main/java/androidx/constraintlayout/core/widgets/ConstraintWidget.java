@@ -22,6 +22,7 @@ import static androidx.constraintlayout.core.widgets.ConstraintWidget.DimensionB
 
 import androidx.constraintlayout.core.Cache;
 import androidx.constraintlayout.core.LinearSystem;
+import androidx.constraintlayout.core.Metrics;
 import androidx.constraintlayout.core.SolverVariable;
 import androidx.constraintlayout.core.state.WidgetFrame;
 import androidx.constraintlayout.core.widgets.analyzer.ChainRun;
@@ -2568,8 +2569,9 @@ public class ConstraintWidget {
             }
         }
 
-        if (LinearSystem.sMetrics != null) {
-            LinearSystem.sMetrics.widgets++;
+        Metrics metrics = system.getSystemMetrics();
+        if (metrics != null) {
+            metrics.widgets++;
         }
         if (FULL_DEBUG) {
             if (optimize && mHorizontalRun != null && mVerticalRun != null) {
@@ -2583,8 +2585,8 @@ public class ConstraintWidget {
                 && mHorizontalRun.start.resolved && mHorizontalRun.end.resolved
                 && mVerticalRun.start.resolved && mVerticalRun.end.resolved) {
 
-            if (LinearSystem.sMetrics != null) {
-                LinearSystem.sMetrics.graphSolved++;
+            if (metrics != null) {
+                metrics.graphSolved++;
             }
             system.addEquality(left, mHorizontalRun.start.value);
             system.addEquality(right, mHorizontalRun.end.value);
@@ -2607,8 +2609,8 @@ public class ConstraintWidget {
             mResolvedVertical = false;
             return; // we are done here
         }
-        if (LinearSystem.sMetrics != null) {
-            LinearSystem.sMetrics.linearSolved++;
+        if (metrics != null) {
+            metrics.linearSolved++;
         }
 
         boolean inHorizontalChain = false;
@@ -2875,9 +2877,9 @@ public class ConstraintWidget {
         }
         mResolvedHorizontal = false;
         mResolvedVertical = false;
-        if (LinearSystem.sMetrics != null) {
-            LinearSystem.sMetrics.mEquations = system.getNumEquations();
-            LinearSystem.sMetrics.mVariables = system.getNumVariables();
+        if (metrics != null) {
+            metrics.mEquations = system.getNumEquations();
+            metrics.mVariables = system.getNumVariables();
         }
 
     }
@@ -2993,8 +2995,8 @@ public class ConstraintWidget {
         SolverVariable beginTarget = system.createObjectVariable(beginAnchor.getTarget());
         SolverVariable endTarget = system.createObjectVariable(endAnchor.getTarget());
 
-        if (system.getMetrics() != null) {
-            system.getMetrics().nonresolvedWidgets++;
+        if (system.getSystemMetrics() != null) {
+            system.getSystemMetrics().nonresolvedWidgets++;
         }
 
         boolean isBeginConnected = beginAnchor.isConnected();
@@ -33,6 +33,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * A container of ConstraintWidget that can layout its children
@@ -148,6 +152,8 @@ public class ConstraintWidgetContainer extends WidgetContainer {
     }
 
     protected LinearSystem mSystem = new LinearSystem();
+    // Scratch flags used while solving, see Optimizer.FLAG_*
+    private final boolean[] mFlags = new boolean[Optimizer.FLAGS_COUNT];
 
     int mPaddingLeft;
     int mPaddingTop;
@@ -216,7 +222,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
      */
     public void setOptimizationLevel(int value) {
         mOptimizationLevel = value;
-        mSystem.USE_DEPENDENCY_ORDERING = optimizeFor(Optimizer.OPTIMIZATION_DEPENDENCY_ORDERING);
+        mSystem.useDependencyOrdering = optimizeFor(Optimizer.OPTIMIZATION_DEPENDENCY_ORDERING);
     }
 
     /**
@@ -390,7 +396,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             }
         }
 
-        if (LinearSystem.USE_DEPENDENCY_ORDERING) {
+        if (system.useDependencyOrdering) {
             HashSet<ConstraintWidget> widgetsToAdd = new HashSet<>();
             for (int i = 0; i < count; i++) {
                 ConstraintWidget widget = mChildren.get(i);
@@ -660,6 +666,45 @@ public class ConstraintWidgetContainer extends WidgetContainer {
 
     static int sMyCounter = 0;
 
+    /**
+     * Layout several independent containers concurrently, and wait for all of them to be done.
+     * Each container is solved with its own {@link LinearSystem}, the containers must not share
+     * any widgets.
+     *
+     * @param containers the containers to layout
+     * @param executor   the executor used to layout the containers
+     * @throws RuntimeException if the layout of one of the containers failed
+     */
+    public static void layoutConcurrently(List<ConstraintWidgetContainer> containers,
+            Executor executor) {
+        ArrayList<FutureTask<Void>> tasks = new ArrayList<>(containers.size());
+        for (final ConstraintWidgetContainer container : containers) {
+            FutureTask<Void> task = new FutureTask<>(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    container.layout();
+                    return null;
+                }
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+        for (FutureTask<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
     /**
      * Layout the tree of widgets
      */
@@ -879,7 +924,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
                 System.out.println("EXCEPTION : " + e);
             }
             if (needsSolving) {
-                needsSolving = updateChildrenFromSolver(mSystem, Optimizer.sFlags);
+                needsSolving = updateChildrenFromSolver(mSystem, mFlags);
             } else {
                 updateFromSolver(mSystem, optimize);
                 for (int i = 0; i < count; i++) {
@@ -890,7 +935,7 @@ public class ConstraintWidgetContainer extends WidgetContainer {
             }
 
             if (hasWrapContent && countSolve < MAX_ITERATIONS
-                    && Optimizer.sFlags[Optimizer.FLAG_RECOMPUTE_BOUNDS]) {
+                    && mFlags[Optimizer.FLAG_RECOMPUTE_BOUNDS]) {
                 // let's get the new bounds
                 int maxX = 0;
                 int maxY = 0;
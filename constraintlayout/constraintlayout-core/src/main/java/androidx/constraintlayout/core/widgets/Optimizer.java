@@ -48,7 +48,7 @@ public class Optimizer {
             /* | OPTIMIZATION_DIMENSIONS */;
 
     // Internal use.
-    static boolean[] sFlags = new boolean[3];
+    static final int FLAGS_COUNT = 3;
     static final int FLAG_USE_OPTIMIZE = 0; // simple enough to use optimizer
     static final int FLAG_CHAIN_DANGLING = 1;
     static final int FLAG_RECOMPUTE_BOUNDS = 2;
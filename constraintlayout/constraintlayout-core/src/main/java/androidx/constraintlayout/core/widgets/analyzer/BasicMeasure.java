@@ -22,7 +22,6 @@ import static androidx.constraintlayout.core.widgets.ConstraintWidget.MATCH_CONS
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.MATCH_CONSTRAINT_WRAP;
 import static androidx.constraintlayout.core.widgets.ConstraintWidget.VERTICAL;
 
-import androidx.constraintlayout.core.LinearSystem;
 import androidx.constraintlayout.core.widgets.Barrier;
 import androidx.constraintlayout.core.widgets.ConstraintAnchor;
 import androidx.constraintlayout.core.widgets.ConstraintWidget;
@@ -225,8 +224,8 @@ public class BasicMeasure {
             }
         }
 
-        if (optimize && LinearSystem.sMetrics != null) {
-            LinearSystem.sMetrics.measures++;
+        if (optimize && layout.mMetrics != null) {
+            layout.mMetrics.measures++;
         }
 
         boolean allSolved = false;
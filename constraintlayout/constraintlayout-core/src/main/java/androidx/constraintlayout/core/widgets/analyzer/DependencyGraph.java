@@ -653,6 +653,7 @@ public class DependencyGraph {
     }
 
     ArrayList<RunGroup> mGroups = new ArrayList<>();
+    private int mGroupCount = 0;
 
     // @TODO: add description
     public void buildGraph() {
@@ -662,7 +663,7 @@ public class DependencyGraph {
         if (USE_GROUPS) {
             mGroups.clear();
             // Then get the horizontal and vertical groups
-            RunGroup.index = 0;
+            mGroupCount = 0;
             findGroup(mWidgetcontainer.mHorizontalRun, HORIZONTAL, mGroups);
             findGroup(mWidgetcontainer.mVerticalRun, VERTICAL, mGroups);
         }
@@ -750,7 +751,7 @@ public class DependencyGraph {
         }
 
         if (group == null) {
-            group = new RunGroup(run, direction);
+            group = new RunGroup(run, direction, mGroupCount++);
             groups.add(group);
         }
 
@@ -905,7 +906,7 @@ public class DependencyGraph {
             definition.append(" [");
             definition.append(runGroup.mGroupIndex + 1);
             definition.append("/");
-            definition.append(RunGroup.index);
+            definition.append(mGroupCount);
             definition.append("]");
         }
         definition.append(" </TD>");
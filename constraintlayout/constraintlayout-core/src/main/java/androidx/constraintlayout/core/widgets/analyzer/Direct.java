@@ -43,7 +43,6 @@ public class Direct {
 
     private static final boolean DEBUG = LinearSystem.FULL_DEBUG;
     private static final boolean APPLY_MATCH_PARENT = false;
-    private static BasicMeasure.Measure sMeasure = new BasicMeasure.Measure();
     private static final boolean EARLY_TERMINATION = true; // feature flag -- remove after release.
 
     private static int sHcount = 0;
@@ -59,10 +58,10 @@ public class Direct {
             BasicMeasure.Measurer measurer) {
         ConstraintWidget.DimensionBehaviour horizontal = layout.getHorizontalDimensionBehaviour();
         ConstraintWidget.DimensionBehaviour vertical = layout.getVerticalDimensionBehaviour();
-        sHcount = 0;
-        sVcount = 0;
         long time = 0;
         if (DEBUG) {
+            sHcount = 0;
+            sVcount = 0;
             time = System.nanoTime();
             System.out.println("#### SOLVING PASS (horiz " + horizontal
                     + ", vert " + vertical + ") ####");
@@ -249,11 +248,12 @@ public class Direct {
             System.out.println("\n#### LAST PASS ####");
         }
         // We can do a last pass to see any widget that could still be measured
+        BasicMeasure.Measure measure = new BasicMeasure.Measure();
         for (int i = 0; i < count; i++) {
             ConstraintWidget child = children.get(i);
             if (child.isMeasureRequested() && canMeasure(0, child)) {
                 ConstraintWidgetContainer.measure(0, child,
-                        measurer, sMeasure, BasicMeasure.Measure.SELF_DIMENSIONS);
+                        measurer, measure, BasicMeasure.Measure.SELF_DIMENSIONS);
                 if (child instanceof Guideline) {
                     if (((Guideline) child).getOrientation() == Guideline.HORIZONTAL) {
                         verticalSolvingPass(0, child, measurer);
@@ -323,8 +323,8 @@ public class Direct {
             }
             return;
         }
-        sHcount++;
         if (DEBUG) {
+            sHcount++;
             System.out.println(ls(level) + "HORIZONTAL SOLVING PASS ON " + layout.getDebugName());
         }
 
@@ -475,8 +475,8 @@ public class Direct {
             }
             return;
         }
-        sVcount++;
         if (DEBUG) {
+            sVcount++;
             System.out.println(ls(level) + "VERTICAL SOLVING PASS ON " + layout.getDebugName());
         }
 
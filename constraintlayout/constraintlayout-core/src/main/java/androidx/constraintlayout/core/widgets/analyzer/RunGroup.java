@@ -28,8 +28,6 @@ class RunGroup {
     public static final int END = 1;
     public static final int BASELINE = 2;
 
-    public static int index;
-
     public int position = 0;
     public boolean dual = false;
 
@@ -40,9 +38,8 @@ class RunGroup {
     int mGroupIndex = 0;
     int mDirection;
 
-    RunGroup(WidgetRun run, int dir) {
-        mGroupIndex = index;
-        index++;
+    RunGroup(WidgetRun run, int dir, int groupIndex) {
+        mGroupIndex = groupIndex;
         mFirstRun = run;
         mLastRun = run;
         mDirection = dir;
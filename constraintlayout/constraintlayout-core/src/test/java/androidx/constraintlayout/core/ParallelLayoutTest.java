@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.constraintlayout.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import androidx.constraintlayout.core.widgets.ConstraintAnchor;
+import androidx.constraintlayout.core.widgets.ConstraintWidget;
+import androidx.constraintlayout.core.widgets.ConstraintWidgetContainer;
+import androidx.constraintlayout.core.widgets.Optimizer;
+import androidx.constraintlayout.core.widgets.analyzer.BasicMeasure;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ParallelLayoutTest {
+
+    private static final int CONTAINERS = 64;
+    private static final int ROUNDS = 10;
+
+    private static final int[] OPTIMIZATION_LEVELS = {
+            Optimizer.OPTIMIZATION_NONE,
+            Optimizer.OPTIMIZATION_STANDARD,
+            Optimizer.OPTIMIZATION_GRAPH | Optimizer.OPTIMIZATION_DIMENSIONS,
+            Optimizer.OPTIMIZATION_STANDARD | Optimizer.OPTIMIZATION_GROUPING
+                    | Optimizer.OPTIMIZATION_DEPENDENCY_ORDERING,
+    };
+
+    /**
+     * Stateless measurer that keeps the current size of non fixed widgets, so it can be shared by
+     * containers laid out on different threads.
+     */
+    private static final BasicMeasure.Measurer MEASURER = new BasicMeasure.Measurer() {
+        @Override
+        public void measure(ConstraintWidget widget, BasicMeasure.Measure measure) {
+            if (measure.horizontalBehavior == ConstraintWidget.DimensionBehaviour.FIXED) {
+                measure.measuredWidth = measure.horizontalDimension;
+            } else {
+                measure.measuredWidth = widget.getWidth();
+            }
+            if (measure.verticalBehavior == ConstraintWidget.DimensionBehaviour.FIXED) {
+                measure.measuredHeight = measure.verticalDimension;
+            } else {
+                measure.measuredHeight = widget.getHeight();
+            }
+        }
+
+        @Override
+        public void didMeasures() {
+        }
+    };
+
+    @Test
+    public void testParallelLayoutIsDeterministic() {
+        checkParallelLayout(false);
+    }
+
+    @Test
+    public void testParallelLayoutWithMeasurerIsDeterministic() {
+        checkParallelLayout(true);
+    }
+
+    private static void checkParallelLayout(boolean withMeasurer) {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                ArrayList<ConstraintWidgetContainer> containers = new ArrayList<>();
+                for (int i = 0; i < CONTAINERS; i++) {
+                    containers.add(createLayout(i, withMeasurer));
+                }
+                ConstraintWidgetContainer.layoutConcurrently(containers, executor);
+
+                for (int i = 0; i < CONTAINERS; i++) {
+                    ConstraintWidgetContainer expected = createLayout(i, withMeasurer);
+                    expected.layout();
+                    assertSameLayout(expected, containers.get(i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSystemsDoNotShareMetrics() {
+        ConstraintWidgetContainer first = createLayout(0, false);
+        ConstraintWidgetContainer second = createLayout(1, false);
+        Metrics firstMetrics = new Metrics();
+        Metrics secondMetrics = new Metrics();
+        first.fillMetrics(firstMetrics);
+        second.fillMetrics(secondMetrics);
+
+        first.layout();
+
+        assertNotSame(first.getSystem().getSystemMetrics(), second.getSystem().getSystemMetrics());
+        assertEquals(0, secondMetrics.widgets);
+        assertEquals(true, firstMetrics.widgets > 0);
+    }
+
+    private static void assertSameLayout(ConstraintWidgetContainer expected,
+            ConstraintWidgetContainer actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        ArrayList<ConstraintWidget> expectedChildren = expected.getChildren();
+        ArrayList<ConstraintWidget> actualChildren = actual.getChildren();
+        assertEquals(expectedChildren.size(), actualChildren.size());
+        for (int i = 0; i < expectedChildren.size(); i++) {
+            ConstraintWidget expectedChild = expectedChildren.get(i);
+            ConstraintWidget actualChild = actualChildren.get(i);
+            String name = expectedChild.getDebugName();
+            assertEquals(name, expectedChild.getX(), actualChild.getX());
+            assertEquals(name, expectedChild.getY(), actualChild.getY());
+            assertEquals(name, expectedChild.getWidth(), actualChild.getWidth());
+            assertEquals(name, expectedChild.getHeight(), actualChild.getHeight());
+        }
+    }
+
+    /**
+     * Creates a layout with a spread chain, a ratio widget and a wrap content root, whose
+     * dimensions depend on the given seed. When {@code withMeasurer} is set, the layout uses
+     * {@link #MEASURER} with the standard optimizations, so the direct solving pass is taken.
+     */
+    private static ConstraintWidgetContainer createLayout(int seed, boolean withMeasurer) {
+        ConstraintWidgetContainer root = new ConstraintWidgetContainer(0, 0, 400 + seed * 7,
+                800);
+        root.setDebugName("root");
+        if (withMeasurer) {
+            root.setMeasurer(MEASURER);
+            root.setOptimizationLevel(Optimizer.OPTIMIZATION_STANDARD);
+        } else {
+            root.setOptimizationLevel(OPTIMIZATION_LEVELS[seed % OPTIMIZATION_LEVELS.length]);
+        }
+        root.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.WRAP_CONTENT);
+
+        ConstraintWidget a = new ConstraintWidget(100 + seed, 20);
+        ConstraintWidget b = new ConstraintWidget(100, 20 + seed);
+        ConstraintWidget c = new ConstraintWidget(50, 50);
+        ConstraintWidget d = new ConstraintWidget(80, 30);
+        a.setDebugName("A");
+        b.setDebugName("B");
+        c.setDebugName("C");
+        d.setDebugName("D");
+        root.add(a);
+        root.add(b);
+        root.add(c);
+        root.add(d);
+
+        a.connect(ConstraintAnchor.Type.LEFT, root, ConstraintAnchor.Type.LEFT);
+        a.connect(ConstraintAnchor.Type.RIGHT, b, ConstraintAnchor.Type.LEFT);
+        b.connect(ConstraintAnchor.Type.LEFT, a, ConstraintAnchor.Type.RIGHT);
+        b.connect(ConstraintAnchor.Type.RIGHT, root, ConstraintAnchor.Type.RIGHT);
+        a.connect(ConstraintAnchor.Type.TOP, root, ConstraintAnchor.Type.TOP, 10);
+        b.connect(ConstraintAnchor.Type.TOP, a, ConstraintAnchor.Type.TOP);
+        if (seed % 2 == 0) {
+            b.setHorizontalDimensionBehaviour(
+                    ConstraintWidget.DimensionBehaviour.MATCH_CONSTRAINT);
+        }
+
+        c.connect(ConstraintAnchor.Type.LEFT, root, ConstraintAnchor.Type.LEFT);
+        c.connect(ConstraintAnchor.Type.RIGHT, root, ConstraintAnchor.Type.RIGHT);
+        c.connect(ConstraintAnchor.Type.TOP, b, ConstraintAnchor.Type.BOTTOM, seed % 13);
+        c.setHorizontalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.MATCH_CONSTRAINT);
+        c.setVerticalDimensionBehaviour(ConstraintWidget.DimensionBehaviour.MATCH_CONSTRAINT);
+        c.setDimensionRatio("16:" + (9 + seed % 5));
+
+        d.connect(ConstraintAnchor.Type.LEFT, c, ConstraintAnchor.Type.LEFT);
+        d.connect(ConstraintAnchor.Type.RIGHT, c, ConstraintAnchor.Type.RIGHT);
+        d.connect(ConstraintAnchor.Type.TOP, c, ConstraintAnchor.Type.BOTTOM);
+        d.connect(ConstraintAnchor.Type.BOTTOM, root, ConstraintAnchor.Type.BOTTOM);
+        d.setHorizontalBiasPercent((seed % 10) / 10f);
+        return root;
+    }
+}
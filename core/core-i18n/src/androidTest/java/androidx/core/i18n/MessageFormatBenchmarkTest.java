@@ -69,4 +69,25 @@ public class MessageFormatBenchmarkTest {
             MessageFormat.format(appContext, Locale.US, msg, arguments);
         }
     }
+
+    @Test @MediumTest
+    public void testTimePluralsUncached() throws Exception {
+        // Baseline for testTimePlurals: parses the pattern and loads the plural rules every time.
+        final Locale sr = new Locale("sr");
+        final Map<String, Object> arguments = new HashMap<>();
+        arguments.put("name", "Peter");
+
+        for (int i = 0; i < REPEAT_COUNT; ++i) {
+            String msg = "{num,plural,offset:1" +
+                "  =1    {only {name}}" +
+                "  =2    {{name} and one other}" +
+                "  one   {{name} and #-one others}" +
+                "  few   {{name} and #-few others}" +
+                "  other {{name} and #... others}" +
+                "}";
+            arguments.put("num", i % 9);
+            new androidx.core.i18n.messageformat_icu.simple.MessageFormat(appContext, msg, sr)
+                .format(arguments, new StringBuffer(), null);
+        }
+    }
 }
@@ -153,4 +153,21 @@ public class SimpleMessageFormatTest {
         Assert.assertEquals("11", "11th floor",
                 MessageFormat.format(appContext, msg, ImmutableMap.of("num", 11)));
     }
+
+    @Test @SmallTest
+    public void testSamePatternDifferentLocales() {
+        // The same pattern is cached separately for each locale.
+        String msg = "{num,plural, one {# book} few {# few books} other {# books}}";
+        Locale sr = new Locale("sr");
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals("en 3", "3 books",
+                    MessageFormat.format(appContext, Locale.ENGLISH, msg,
+                            ImmutableMap.of("num", 3)));
+            Assert.assertEquals("sr 3", "3 few books",
+                    MessageFormat.format(appContext, sr, msg, ImmutableMap.of("num", 3)));
+            Assert.assertEquals("de 1000", "1.000 books",
+                    MessageFormat.format(appContext, Locale.GERMAN, msg,
+                            ImmutableMap.of("num", 1000)));
+        }
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.i18n.messageformat_icu.simple;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@RunWith(AndroidJUnit4.class)
+public class MessageFormatCacheTest {
+    private static final String PLURAL_PATTERN = "{0,plural,one{# file}other{# files}}";
+
+    private final Context mAppContext =
+            InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    @Test @SmallTest
+    public void testReleasedFormatIsReused() {
+        MessageFormatCache cache = new MessageFormatCache(MessageFormatCache.DEFAULT_MAX_SIZE);
+
+        MessageFormat format = cache.acquire(mAppContext, Locale.US, PLURAL_PATTERN);
+        Assert.assertEquals(0, cache.size());
+        cache.release(format);
+        Assert.assertEquals(1, cache.size());
+
+        Assert.assertSame(format, cache.acquire(mAppContext, Locale.US, PLURAL_PATTERN));
+        Assert.assertEquals(0, cache.size());
+        // Same pattern in another locale.
+        Assert.assertNotSame(format, cache.acquire(mAppContext, Locale.FRANCE, PLURAL_PATTERN));
+    }
+
+    @Test @SmallTest
+    public void testLeastRecentlyUsedFormatIsEvicted() {
+        MessageFormatCache cache = new MessageFormatCache(2);
+
+        MessageFormat first = cache.acquire(mAppContext, Locale.US, "first {0}");
+        MessageFormat second = cache.acquire(mAppContext, Locale.US, "second {0}");
+        MessageFormat third = cache.acquire(mAppContext, Locale.US, "third {0}");
+        cache.release(first);
+        cache.release(second);
+        cache.release(third);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotSame(first, cache.acquire(mAppContext, Locale.US, "first {0}"));
+        Assert.assertSame(second, cache.acquire(mAppContext, Locale.US, "second {0}"));
+        Assert.assertSame(third, cache.acquire(mAppContext, Locale.US, "third {0}"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test @SmallTest
+    public void testContextDependentFormatIsNotCached() {
+        MessageFormatCache cache = new MessageFormatCache(MessageFormatCache.DEFAULT_MAX_SIZE);
+
+        // Date / time skeletons honor the user preferences of the Context.
+        MessageFormat format = cache.acquire(mAppContext, Locale.US, "{0,date,::yMMMdE}");
+        cache.release(format);
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNotSame(format, cache.acquire(mAppContext, Locale.US, "{0,date,::yMMMdE}"));
+    }
+
+    @Test @SmallTest
+    public void testCheckedOutFormatIsExclusive() throws Exception {
+        final MessageFormatCache cache = new MessageFormatCache(2);
+        final Set<MessageFormat> checkedOut =
+                Collections.synchronizedSet(
+                        Collections.newSetFromMap(new IdentityHashMap<MessageFormat, Boolean>()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < 1000; i++) {
+                            MessageFormat format =
+                                    cache.acquire(mAppContext, Locale.US, PLURAL_PATTERN);
+                            // No other thread holds this object while it is checked out.
+                            Assert.assertTrue(checkedOut.add(format));
+                            String result = format.format(new Object[] {i},
+                                    new StringBuffer(), null).toString();
+                            Assert.assertEquals(i == 1 ? "1 file" : i + " files", result);
+                            Assert.assertTrue(checkedOut.remove(format));
+                            cache.release(format);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // All the formats were handed back, at most one of them is kept for the pattern.
+        Assert.assertEquals(1, cache.size());
+    }
+}
@@ -24,7 +24,8 @@ class MessageFormat private constructor() {
         /**
          * Formats a message pattern string with a variable number of name/value pair arguments.
          * Creates an ICU MessageFormat for the locale and pattern,
-         * and formats with the arguments.
+         * and formats with the arguments. Parsed patterns are cached per locale,
+         * so formatting the same message repeatedly is cheap.
          *
          * @param context Android context object. Used to retrieve user preferences.
          * @param locale Locale for number formatting and plural selection etc.
@@ -38,9 +39,7 @@ class MessageFormat private constructor() {
             msg: String,
             namedArguments: Map<String, Any>
         ): String {
-            val result: StringBuffer = StringBuffer()
-            return MessageFormat(context, msg, locale)
-                .format(namedArguments, result, null).toString()
+            return MessageFormat.format(context, locale, msg, namedArguments)
         }
 
         /**
@@ -953,6 +953,38 @@ public class MessageFormat extends Format {
         return result;
     }
 
+    /**
+     * Same as {@link #format(Object[], StringBuffer, FieldPosition)}, but appends to a
+     * <code>StringBuilder</code>, which avoids the synchronization of <code>StringBuffer</code>.
+     *
+     * @param arguments an array of objects to be formatted and substituted.
+     * @param result where text is appended.
+     * @param pos On input: an alignment field, if desired.
+     *            On output: the offsets of the alignment field.
+     * @return the passed-in StringBuilder
+     */
+    public final StringBuilder format(Object[] arguments, StringBuilder result,
+                                      FieldPosition pos) {
+        format(arguments, null, new AppendableWrapper(result), pos);
+        return result;
+    }
+
+    /**
+     * Same as {@link #format(Map, StringBuffer, FieldPosition)}, but appends to a
+     * <code>StringBuilder</code>, which avoids the synchronization of <code>StringBuffer</code>.
+     *
+     * @param arguments a map of objects to be formatted and substituted.
+     * @param result where text is appended.
+     * @param pos On input: an alignment field, if desired.
+     *            On output: the offsets of the alignment field.
+     * @return the passed-in StringBuilder
+     */
+    public final StringBuilder format(Map<String, Object> arguments, StringBuilder result,
+                                      FieldPosition pos) {
+        format(null, arguments, new AppendableWrapper(result), pos);
+        return result;
+    }
+
     /**
      * Creates a MessageFormat with the given pattern and uses it
      * to format the given arguments. This is equivalent to
@@ -970,8 +1002,11 @@ public class MessageFormat extends Format {
      * icu_annot::stable ICU 3.0
      */
     public static String format(Context context, String pattern, Object... arguments) {
-        MessageFormat temp = new MessageFormat(context, pattern);
-        return temp.format(arguments);
+        Locale locale = Locale.getDefault();
+        MessageFormat temp = MessageFormatCache.sInstance.acquire(context, locale, pattern);
+        String result = temp.format(arguments, new StringBuilder(), null).toString();
+        MessageFormatCache.sInstance.release(temp);
+        return result;
     }
 
     /**
@@ -988,8 +1023,28 @@ public class MessageFormat extends Format {
      * icu_annot::stable ICU 3.8
      */
     public static String format(Context context, String pattern, Map<String, Object> arguments) {
-        MessageFormat temp = new MessageFormat(context, pattern);
-        return temp.format(arguments);
+        return format(context, Locale.getDefault(), pattern, arguments);
+    }
+
+    /**
+     * Formats the given arguments with a MessageFormat for the given locale and pattern.
+     * The pattern must identify arguments by name instead of by number.
+     * <p>
+     * Parsed patterns are cached by locale and pattern, so formatting the same message
+     * repeatedly doesn't parse it again.
+     *
+     * @throws IllegalArgumentException if the pattern is invalid
+     * @throws IllegalArgumentException if a value in the
+     *         <code>arguments</code> map is not of the type
+     *         expected by the corresponding argument or custom Format object.
+     * @see #format(Context, String, Map)
+     */
+    public static String format(Context context, Locale locale, String pattern,
+            Map<String, Object> arguments) {
+        MessageFormat temp = MessageFormatCache.sInstance.acquire(context, locale, pattern);
+        String result = temp.format(arguments, new StringBuilder(), null).toString();
+        MessageFormatCache.sInstance.release(temp);
+        return result;
     }
 
     /**
@@ -1516,6 +1571,51 @@ public class MessageFormat extends Format {
     private transient PluralSelectorProvider pluralProvider;
     private transient PluralSelectorProvider ordinalProvider;
 
+    /**
+     * True if a formatter was created that depends on context_, for example a date / time
+     * skeleton honoring the user preferences. Such objects must not be shared through
+     * MessageFormatCache, since the preferences may change.
+     */
+    private transient boolean usesContext;
+
+    /**
+     * Returns true if this object can be reused through MessageFormatCache for other
+     * Context objects.
+     */
+    boolean isCacheable() {
+        return !usesContext && customFormatArgStarts == null;
+    }
+
+    /**
+     * Drops the reference to the Context once this object is cached.
+     * Only valid if {@link #isCacheable()}.
+     */
+    void clearContext() {
+        context_ = null;
+    }
+
+    /**
+     * Creates the plural selectors used by the pattern and loads their rules up front,
+     * so that formatting doesn't need to go through PluralRulesLoader.
+     */
+    void precompilePluralSelectors() {
+        int count = msgPattern.countParts();
+        for (int i = 0; i < count; ++i) {
+            Part part = msgPattern.getPart(i);
+            if (part.getType() != Part.Type.ARG_START) {
+                continue;
+            }
+            ArgType argType = part.getArgType();
+            if (argType == ArgType.PLURAL && pluralProvider == null) {
+                pluralProvider = new PluralSelectorProvider(this, PluralType.CARDINAL);
+                pluralProvider.loadRules();
+            } else if (argType == ArgType.SELECTORDINAL && ordinalProvider == null) {
+                ordinalProvider = new PluralSelectorProvider(this, PluralType.ORDINAL);
+                ordinalProvider.loadRules();
+            }
+        }
+    }
+
     private DateFormat getStockDateFormatter() {
         if (stockDateFormatter == null) {
             stockDateFormatter = DateFormat.getDateTimeInstance(
@@ -2023,11 +2123,14 @@ public class MessageFormat extends Format {
             msgFormat = mf;
             this.type = type;
         }
-        @Override
-        public String select(Object ctx, double number) {
+        void loadRules() {
             if(rules == null) {
                 rules = PluralRules.forLocale(msgFormat.locale_, type);
             }
+        }
+        @Override
+        public String select(Object ctx, double number) {
+            loadRules();
             // Select a sub-message according to how the number is formatted,
             // which is specified in the selected sub-message.
             // We avoid this circle by looking at how
@@ -2086,6 +2189,7 @@ public class MessageFormat extends Format {
     }
 
     private void resetPattern() {
+        usesContext = false;
         if (msgPattern != null) {
             msgPattern.clear();
         }
@@ -2128,6 +2232,7 @@ public class MessageFormat extends Format {
         // Ignore leading whitespace when looking for "::", the skeleton signal sequence
         int i = PatternProps.skipWhiteSpace(style, 0);
         if (style.regionMatches(i, "::", 0, 2)) { // Skeleton
+            usesContext = true;
             DateTimeFormatter df = new DateTimeFormatter(context_,
                 DateTimeFormatterSkeletonOptions.fromString(style.substring(i + 2)),
                 locale_);
@@ -2309,6 +2414,7 @@ public class MessageFormat extends Format {
             cachedFormatters.clear();
         }
         customFormatArgStarts = null;
+        usesContext = false;
         // The last two "parts" can at most be ARG_LIMIT and MSG_LIMIT
         // which we need not examine.
         int limit = msgPattern.countParts() - 2;
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.core.i18n.messageformat_icu.simple;
+
+import android.content.Context;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A bounded cache of parsed {@link MessageFormat} objects, keyed by locale and pattern.
+ *
+ * <p>A MessageFormat is not thread safe, so cached objects are checked out with
+ * {@link #acquire} and handed back with {@link #release} once the caller is done formatting.
+ * While an object is checked out, other threads asking for the same locale and pattern get a
+ * freshly parsed one. Only objects that don't depend on the {@link Context} they were created
+ * with (for instance through date / time skeletons honoring user preferences) are cached.
+ */
+final class MessageFormatCache {
+    static final int DEFAULT_MAX_SIZE = 64;
+
+    static final MessageFormatCache sInstance = new MessageFormatCache(DEFAULT_MAX_SIZE);
+
+    private final int mMaxSize;
+    private final LinkedHashMap<Key, MessageFormat> mIdle;
+
+    MessageFormatCache(int maxSize) {
+        mMaxSize = maxSize;
+        mIdle = new LinkedHashMap<Key, MessageFormat>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, MessageFormat> eldest) {
+                return size() > mMaxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns a MessageFormat for the locale and pattern, which the caller has exclusive use of
+     * until it passes it to {@link #release}.
+     *
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    MessageFormat acquire(Context context, Locale locale, String pattern) {
+        Key key = new Key(locale, pattern);
+        synchronized (mIdle) {
+            MessageFormat format = mIdle.remove(key);
+            if (format != null) {
+                return format;
+            }
+        }
+        MessageFormat format = new MessageFormat(context, pattern, locale);
+        format.precompilePluralSelectors();
+        return format;
+    }
+
+    /**
+     * Makes a MessageFormat obtained from {@link #acquire} available to later callers.
+     * The caller must not use it anymore.
+     */
+    void release(MessageFormat format) {
+        if (!format.isCacheable()) {
+            return;
+        }
+        // The Context is only used while parsing the pattern, don't keep it alive.
+        format.clearContext();
+        Key key = new Key(format.getLocale(), format.toPattern());
+        synchronized (mIdle) {
+            mIdle.put(key, format);
+        }
+    }
+
+    /** Returns the number of idle MessageFormat objects in the cache. */
+    int size() {
+        synchronized (mIdle) {
+            return mIdle.size();
+        }
+    }
+
+    private static final class Key {
+        private final Locale mLocale;
+        private final String mPattern;
+        private final int mHashCode;
+
+        Key(Locale locale, String pattern) {
+            mLocale = locale;
+            mPattern = pattern;
+            mHashCode = 31 * locale.hashCode() + pattern.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mHashCode == other.mHashCode
+                    && mLocale.equals(other.mLocale)
+                    && mPattern.equals(other.mPattern);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+}
@@ -169,6 +169,21 @@ public class FrameMetricsAggregator {
      */
     public static final int EVERY_DURATION          = 0x1ff;
 
+    /**
+     * An aggregation mode in which the number of samples at each millisecond value is counted in
+     * a SparseIntArray per metric, as returned by {@link #getMetrics()}. This is the default.
+     * @see #FrameMetricsAggregator(int, int)
+     */
+    public static final int AGGREGATION_MODE_MILLIS = 0;
+    /**
+     * An aggregation mode in which samples are recorded in a fixed-size
+     * {@link FrameMetricsHistogram} per metric, as returned by {@link #getHistograms()}.
+     * Recording samples in this mode doesn't allocate, and the histograms can be queried for
+     * percentiles, merged, and reset without stopping the aggregator.
+     * @see #FrameMetricsAggregator(int, int)
+     */
+    public static final int AGGREGATION_MODE_HISTOGRAM = 1;
+
     private final FrameMetricsBaseImpl mInstance;
 
     /** @hide */
@@ -190,6 +205,12 @@ public class FrameMetricsAggregator {
             })
     public @interface MetricType {}
 
+    /** @hide */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({AGGREGATION_MODE_MILLIS, AGGREGATION_MODE_HISTOGRAM})
+    public @interface AggregationMode {}
+
     /**
      * Constructs a FrameMetricsAggregator object that will track {@link #TOTAL_DURATION}
      * metrics. If more fine-grained metrics are needed, use {@link #FrameMetricsAggregator(int)}
@@ -210,8 +231,32 @@ public class FrameMetricsAggregator {
      * be recorded.
      */
     public FrameMetricsAggregator(@MetricType int metricTypeFlags) {
+        this(metricTypeFlags, AGGREGATION_MODE_MILLIS);
+    }
+
+    /**
+     * Constructs a FrameMetricsAggregator object that will track the metrics specified by
+     * {@code metricTypeFlags}, as in {@link #FrameMetricsAggregator(int)}, and aggregate them
+     * as specified by {@code aggregationMode}.
+     * <p>
+     * With {@link #AGGREGATION_MODE_HISTOGRAM}, the metrics are returned by
+     * {@link #getHistograms()} and {@link #snapshotAndResetHistograms()}, and the methods
+     * returning SparseIntArray objects always return null.
+     *
+     * @param metricTypeFlags A bitwise collection of flags indicating which metrics should
+     * be recorded.
+     * @param aggregationMode How the recorded metrics are aggregated, either
+     * {@link #AGGREGATION_MODE_MILLIS} or {@link #AGGREGATION_MODE_HISTOGRAM}.
+     */
+    public FrameMetricsAggregator(@MetricType int metricTypeFlags,
+            @AggregationMode int aggregationMode) {
+        if (aggregationMode != AGGREGATION_MODE_MILLIS
+                && aggregationMode != AGGREGATION_MODE_HISTOGRAM) {
+            throw new IllegalArgumentException("Unknown aggregation mode: " + aggregationMode);
+        }
         if (Build.VERSION.SDK_INT >= 24) {
-            mInstance = new FrameMetricsApi24Impl(metricTypeFlags);
+            mInstance = new FrameMetricsApi24Impl(metricTypeFlags,
+                    aggregationMode == AGGREGATION_MODE_HISTOGRAM);
         } else {
             mInstance = new FrameMetricsBaseImpl();
         }
@@ -301,6 +346,40 @@ public class FrameMetricsAggregator {
         return mInstance.getMetrics();
     }
 
+    /**
+     * Returns the histograms that metrics are being recorded in, for an aggregator created with
+     * {@link #AGGREGATION_MODE_HISTOGRAM}. As for {@link #getMetrics()}, the index of the array
+     * indicates which metric's data is stored in that histogram, and the histogram at an index
+     * is null if that metric is not being tracked.
+     * <p>
+     * The histograms are live: they keep recording samples until the aggregator is stopped, and
+     * can be queried from any thread while they do.
+     * <p>
+     * The return value is null in the default aggregation mode, before {@link #add(Activity)}
+     * is first called, and on releases earlier than API 24.
+     *
+     * @return An array whose index refers to the type of metric stored in that item's
+     * histogram, e.g., data for {@code TOTAL_DURATION} is stored in the {@code [TOTAL_INDEX]}
+     * item.
+     */
+    @Nullable
+    public FrameMetricsHistogram[] getHistograms() {
+        return mInstance.getHistograms();
+    }
+
+    /**
+     * Moves the samples recorded so far out of the histograms returned by
+     * {@link #getHistograms()}, and returns them. Recording continues into the now empty
+     * histograms, and no sample recorded concurrently is lost or counted twice.
+     *
+     * @return An array laid out as {@link #getHistograms()} with the samples recorded since
+     * the last reset, or null whenever {@link #getHistograms()} would return null.
+     */
+    @Nullable
+    public FrameMetricsHistogram[] snapshotAndResetHistograms() {
+        return mInstance.snapshotAndResetHistograms();
+    }
+
     /**
      * Base implementation noops everything - there's no data to return on pre-API24 releases.
      */
@@ -327,6 +406,14 @@ public class FrameMetricsAggregator {
         public SparseIntArray[] reset() {
             return null;
         }
+
+        public FrameMetricsHistogram[] getHistograms() {
+            return null;
+        }
+
+        public FrameMetricsHistogram[] snapshotAndResetHistograms() {
+            return null;
+        }
     }
 
     @RequiresApi(24)
@@ -336,13 +423,18 @@ public class FrameMetricsAggregator {
         // rounding value adds half a millisecond, for rounding to nearest ms
         private static final int NANOS_ROUNDING_VALUE = NANOS_PER_MS / 2;
         int mTrackingFlags;
+        final boolean mUseHistograms;
         SparseIntArray[] mMetrics = new SparseIntArray[LAST_INDEX + 1];
+        // Only set in histogram mode. The histograms are never replaced once created, so the
+        // listener can record into them while they are read from other threads.
+        volatile FrameMetricsHistogram[] mHistograms;
         private final ArrayList<WeakReference<Activity>> mActivities = new ArrayList<>();
         private static HandlerThread sHandlerThread = null;
         private static Handler sHandler = null;
 
-        FrameMetricsApi24Impl(int trackingFlags) {
+        FrameMetricsApi24Impl(int trackingFlags, boolean useHistograms) {
             mTrackingFlags = trackingFlags;
+            mUseHistograms = useHistograms;
         }
 
         Window.OnFrameMetricsAvailableListener mListener =
@@ -351,50 +443,61 @@ public class FrameMetricsAggregator {
             public void onFrameMetricsAvailable(Window window,
                     android.view.FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
                 if ((mTrackingFlags & TOTAL_DURATION) != 0) {
-                    addDurationItem(mMetrics[TOTAL_INDEX],
+                    addDuration(TOTAL_INDEX,
                             frameMetrics.getMetric(android.view.FrameMetrics.TOTAL_DURATION));
                 }
                 if ((mTrackingFlags & INPUT_DURATION) != 0) {
-                    addDurationItem(mMetrics[INPUT_INDEX],
+                    addDuration(INPUT_INDEX,
                             frameMetrics.getMetric(
                                     android.view.FrameMetrics.INPUT_HANDLING_DURATION));
                 }
                 if ((mTrackingFlags & LAYOUT_MEASURE_DURATION) != 0) {
-                    addDurationItem(mMetrics[LAYOUT_MEASURE_INDEX],
+                    addDuration(LAYOUT_MEASURE_INDEX,
                             frameMetrics.getMetric(
                                     android.view.FrameMetrics.LAYOUT_MEASURE_DURATION));
                 }
                 if ((mTrackingFlags & DRAW_DURATION) != 0) {
-                    addDurationItem(mMetrics[DRAW_INDEX],
+                    addDuration(DRAW_INDEX,
                             frameMetrics.getMetric(android.view.FrameMetrics.DRAW_DURATION));
                 }
                 if ((mTrackingFlags & SYNC_DURATION) != 0) {
-                    addDurationItem(mMetrics[SYNC_INDEX],
+                    addDuration(SYNC_INDEX,
                             frameMetrics.getMetric(android.view.FrameMetrics.SYNC_DURATION));
                 }
                 if ((mTrackingFlags & SWAP_DURATION) != 0) {
-                    addDurationItem(mMetrics[SWAP_INDEX],
+                    addDuration(SWAP_INDEX,
                             frameMetrics.getMetric(
                                     android.view.FrameMetrics.SWAP_BUFFERS_DURATION));
                 }
                 if ((mTrackingFlags & COMMAND_DURATION) != 0) {
-                    addDurationItem(mMetrics[COMMAND_INDEX],
+                    addDuration(COMMAND_INDEX,
                             frameMetrics.getMetric(
                                     android.view.FrameMetrics.COMMAND_ISSUE_DURATION));
                 }
                 if ((mTrackingFlags & DELAY_DURATION) != 0) {
-                    addDurationItem(mMetrics[DELAY_INDEX],
+                    addDuration(DELAY_INDEX,
                             frameMetrics.getMetric(
                                     android.view.FrameMetrics.UNKNOWN_DELAY_DURATION));
                 }
                 if ((mTrackingFlags & ANIMATION_DURATION) != 0) {
-                    addDurationItem(mMetrics[ANIMATION_INDEX],
+                    addDuration(ANIMATION_INDEX,
                             frameMetrics.getMetric(
                                     android.view.FrameMetrics.ANIMATION_DURATION));
                 }
             }
         };
 
+        void addDuration(int index, long duration) {
+            if (mUseHistograms) {
+                FrameMetricsHistogram histogram = mHistograms[index];
+                if (histogram != null) {
+                    histogram.record(duration);
+                }
+            } else {
+                addDurationItem(mMetrics[index], duration);
+            }
+        }
+
         void addDurationItem(SparseIntArray buckets, long duration) {
             if (buckets != null) {
                 int durationMs = (int) ((duration + NANOS_ROUNDING_VALUE) / NANOS_PER_MS);
@@ -413,9 +516,22 @@ public class FrameMetricsAggregator {
                 sHandlerThread.start();
                 sHandler = new Handler(sHandlerThread.getLooper());
             }
-            for (int i = 0; i <= LAST_INDEX; ++i) {
-                if (mMetrics[i] == null && (mTrackingFlags & (1 << i)) != 0) {
-                    mMetrics[i] = new SparseIntArray();
+            if (mUseHistograms) {
+                if (mHistograms == null) {
+                    FrameMetricsHistogram[] histograms =
+                            new FrameMetricsHistogram[LAST_INDEX + 1];
+                    for (int i = 0; i <= LAST_INDEX; ++i) {
+                        if ((mTrackingFlags & (1 << i)) != 0) {
+                            histograms[i] = new FrameMetricsHistogram();
+                        }
+                    }
+                    mHistograms = histograms;
+                }
+            } else {
+                for (int i = 0; i <= LAST_INDEX; ++i) {
+                    if (mMetrics[i] == null && (mTrackingFlags & (1 << i)) != 0) {
+                        mMetrics[i] = new SparseIntArray();
+                    }
                 }
             }
             activity.getWindow().addOnFrameMetricsAvailableListener(mListener, sHandler);
@@ -431,7 +547,7 @@ public class FrameMetricsAggregator {
                 }
             }
             activity.getWindow().removeOnFrameMetricsAvailableListener(mListener);
-            return mMetrics;
+            return getMetrics();
         }
 
         @Override
@@ -445,21 +561,45 @@ public class FrameMetricsAggregator {
                     mActivities.remove(i);
                 }
             }
-            return mMetrics;
+            return getMetrics();
         }
 
         @Override
         public SparseIntArray[] getMetrics() {
-            return mMetrics;
+            return mUseHistograms ? null : mMetrics;
         }
 
         @Override
         public SparseIntArray[] reset() {
+            if (mUseHistograms) {
+                snapshotAndResetHistograms();
+                return null;
+            }
             SparseIntArray[] returnVal = mMetrics;
             mMetrics = new SparseIntArray[LAST_INDEX + 1];
             return returnVal;
         }
 
+        @Override
+        public FrameMetricsHistogram[] getHistograms() {
+            return mHistograms;
+        }
+
+        @Override
+        public FrameMetricsHistogram[] snapshotAndResetHistograms() {
+            FrameMetricsHistogram[] histograms = mHistograms;
+            if (histograms == null) {
+                return null;
+            }
+            FrameMetricsHistogram[] snapshot = new FrameMetricsHistogram[LAST_INDEX + 1];
+            for (int i = 0; i <= LAST_INDEX; ++i) {
+                if (histograms[i] != null) {
+                    snapshot[i] = histograms[i].snapshotAndReset();
+                }
+            }
+            return snapshot;
+        }
+
     }
 
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.app;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A fixed-size histogram of frame durations, as collected by a {@link FrameMetricsAggregator}
+ * created with {@link FrameMetricsAggregator#AGGREGATION_MODE_HISTOGRAM}.
+ * <p>
+ * Durations are stored in log-linear buckets: every power of two range of durations is split
+ * into 32 equally sized buckets, so any recorded duration is reported back with an error of at
+ * most about 3%, down to a resolution of about one microsecond. Durations longer than about
+ * 67 seconds are counted in the last bucket.
+ * <p>
+ * Recording is lock-free and doesn't allocate, and all the methods of this class can be called
+ * from any thread. Queries made while durations are being recorded see each recorded duration
+ * either entirely or not at all, but may not see all of them.
+ */
+public final class FrameMetricsHistogram {
+    // Recorded durations are in units of 1024ns, about one microsecond.
+    private static final int UNIT_SHIFT = 10;
+    // Every power of two range is split into 1 << SUB_BUCKET_BITS buckets.
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // The largest duration, in units, that gets its own bucket.
+    private static final int MAX_EXPONENT = 25;
+    private static final long MAX_UNITS = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKET_COUNT = bucketIndex(MAX_UNITS) + 1;
+
+    private final AtomicIntegerArray mCounts = new AtomicIntegerArray(BUCKET_COUNT);
+
+    /** Constructs an empty histogram. */
+    public FrameMetricsHistogram() {
+    }
+
+    /**
+     * Records one sample. Negative durations are ignored.
+     *
+     * @param durationNanos The duration to record, in nanoseconds.
+     */
+    public void record(long durationNanos) {
+        if (durationNanos < 0) {
+            // ignore values < 0; something must have gone wrong
+            return;
+        }
+        long units = Math.min(durationNanos >>> UNIT_SHIFT, MAX_UNITS);
+        mCounts.incrementAndGet(bucketIndex(units));
+    }
+
+    /**
+     * Returns the number of samples recorded in this histogram.
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += mCounts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the duration that {@code percentile} percent of the recorded samples are shorter
+     * than or equal to. For example, {@code getValueAtPercentile(90)} returns the 90th percentile
+     * duration. The returned value is the middle of the bucket that holds that sample.
+     *
+     * @param percentile The percentile to query, from 0 to 100.
+     * @return The duration at {@code percentile}, in nanoseconds, or 0 if no samples have been
+     * recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException(
+                    "percentile must be between 0 and 100, was " + percentile);
+        }
+        long total = getTotalCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        int lastNonEmpty = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            int count = mCounts.get(i);
+            if (count == 0) {
+                continue;
+            }
+            lastNonEmpty = i;
+            seen += count;
+            if (seen >= rank) {
+                return bucketMidpointNanos(i);
+            }
+        }
+        // Buckets were reset while counting; report the largest sample that is left.
+        return bucketMidpointNanos(lastNonEmpty);
+    }
+
+    /**
+     * Adds all the samples recorded in {@code other} to this histogram.
+     *
+     * @param other The histogram to add the samples of.
+     */
+    public void merge(@NonNull FrameMetricsHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            int count = other.mCounts.get(i);
+            if (count != 0) {
+                mCounts.addAndGet(i, count);
+            }
+        }
+    }
+
+    /**
+     * Moves all the samples recorded in this histogram to a new histogram, and returns it. Each
+     * sample recorded concurrently ends up in exactly one of the two histograms.
+     *
+     * @return A histogram holding the samples that were recorded in this histogram.
+     */
+    @NonNull
+    public FrameMetricsHistogram snapshotAndReset() {
+        FrameMetricsHistogram snapshot = new FrameMetricsHistogram();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (mCounts.get(i) != 0) {
+                snapshot.mCounts.set(i, mCounts.getAndSet(i, 0));
+            }
+        }
+        return snapshot;
+    }
+
+    /** Returns the bucket that {@code units}, between 0 and {@link #MAX_UNITS}, is counted in. */
+    static int bucketIndex(long units) {
+        if (units < SUB_BUCKET_COUNT) {
+            return (int) units;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(units);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (units >>> shift);
+    }
+
+    /** Returns the lowest duration, in units, that is counted in bucket {@code index}. */
+    static long bucketLowerBound(int index) {
+        int shift = Math.max(0, (index >> SUB_BUCKET_BITS) - 1);
+        return (long) (index - (shift << SUB_BUCKET_BITS)) << shift;
+    }
+
+    private static long bucketMidpointNanos(int index) {
+        int shift = Math.max(0, (index >> SUB_BUCKET_BITS) - 1);
+        long width = 1L << (shift + UNIT_SHIFT);
+        return (bucketLowerBound(index) << UNIT_SHIFT) + width / 2;
+    }
+}
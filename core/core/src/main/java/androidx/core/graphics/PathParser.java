@@ -20,9 +20,11 @@ package androidx.core.graphics;
 import android.graphics.Path;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * This class is a duplicate from the PathParser.java of frameworks/base, with slight
@@ -34,6 +36,22 @@ import java.util.ArrayList;
 public class PathParser {
     private static final String LOGTAG = "PathParser";
 
+    // Number of distinct path data strings whose parsed form is kept around.
+    private static final int PACKED_PATH_DATA_CACHE_SIZE = 256;
+
+    // The same path strings are parsed over and over, e.g. every time an icon is inflated.
+    private static final LruCache<String, PackedPathData> sPackedPathDataCache =
+            new LruCache<>(PACKED_PATH_DATA_CACHE_SIZE);
+
+    // Numbers are parsed directly when their digits, as an integer, and the power of ten to
+    // scale it by are both exact floats: the scaling is then a single correctly rounded float
+    // operation (Clinger's fast path). Other numbers fall back to Float.parseFloat.
+    private static final long MAX_FAST_PATH_MANTISSA = 1 << 24;
+
+    private static final float[] POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
     // Copy from Arrays.copyOfRange() which is only available from API level 9.
 
     /**
@@ -70,17 +88,17 @@ public class PathParser {
      * @return the generated Path object.
      */
     public static Path createPathFromPathData(String pathData) {
+        if (pathData == null) {
+            return null;
+        }
         Path path = new Path();
-        PathDataNode[] nodes = createNodesFromPathData(pathData);
-        if (nodes != null) {
-            try {
-                PathDataNode.nodesToPath(nodes, path);
-            } catch (RuntimeException e) {
-                throw new RuntimeException("Error in parsing " + pathData, e);
-            }
-            return path;
+        PackedPathData data = parsePathData(pathData);
+        try {
+            data.toPath(path);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error in parsing " + pathData, e);
         }
-        return null;
+        return path;
     }
 
     /**
@@ -91,25 +109,25 @@ public class PathParser {
         if (pathData == null) {
             return null;
         }
-        int start = 0;
-        int end = 1;
-
-        ArrayList<PathDataNode> list = new ArrayList<PathDataNode>();
-        while (end < pathData.length()) {
-            end = nextStart(pathData, end);
-            String s = pathData.substring(start, end).trim();
-            if (s.length() > 0) {
-                float[] val = getFloats(s);
-                addNode(list, s.charAt(0), val);
-            }
+        return parsePathData(pathData).toNodes();
+    }
 
-            start = end;
-            end++;
-        }
-        if ((end - start) == 1 && start < pathData.length()) {
-            addNode(list, pathData.charAt(start), new float[0]);
+    /**
+     * Parses path data into its packed form. The result is cached, and shared with every
+     * caller parsing the same string, so it must not be modified: use
+     * {@link PackedPathData#copy()} to get an instance that can be interpolated into.
+     *
+     * @param pathData The string representing a path, the same as "d" string in svg file.
+     * @return the parsed path data.
+     */
+    @NonNull
+    public static PackedPathData parsePathData(@NonNull String pathData) {
+        PackedPathData data = sPackedPathDataCache.get(pathData);
+        if (data == null) {
+            data = parse(pathData);
+            sPackedPathDataCache.put(pathData, data);
         }
-        return list.toArray(new PathDataNode[list.size()]);
+        return data;
     }
 
     /**
@@ -186,117 +204,155 @@ public class PathParser {
         return end;
     }
 
-    private static void addNode(ArrayList<PathDataNode> list, char cmd, float[] val) {
-        list.add(new PathDataNode(cmd, val));
-    }
-
-    private static class ExtractFloatResult {
-        // We need to return the position of the next separator and whether the
-        // next float starts with a '-' or a '.'.
-        int mEndPosition;
-        boolean mEndWithNegOrDot;
-
-        ExtractFloatResult() {
-        }
-    }
-
     /**
-     * Parse the floats in the string.
-     * This is an optimized version of parseFloat(s.split(",|\\s"));
-     *
-     * @param s the string containing a command and list of floats
-     * @return array of floats
+     * Parses path data in a single pass, writing the command types and all of their parameters
+     * into packed arrays.
      */
-    private static float[] getFloats(String s) {
-        if (s.charAt(0) == 'z' || s.charAt(0) == 'Z') {
-            return new float[0];
-        }
-        try {
-            float[] results = new float[s.length()];
-            int count = 0;
-            int startPosition = 1;
-            int endPosition = 0;
-
-            ExtractFloatResult result = new ExtractFloatResult();
-            int totalLength = s.length();
-
-            // The startPosition should always be the first character of the
-            // current number, and endPosition is the character after the current
-            // number.
-            while (startPosition < totalLength) {
-                extract(s, startPosition, result);
-                endPosition = result.mEndPosition;
-
-                if (startPosition < endPosition) {
-                    results[count++] = Float.parseFloat(
-                            s.substring(startPosition, endPosition));
-                }
+    private static PackedPathData parse(String s) {
+        int length = s.length();
+        char[] types = new char[16];
+        int[] offsets = new int[17];
+        float[] params = new float[Math.max(16, length / 2)];
+        int commandCount = 0;
+        int paramCount = 0;
+
+        int commandStart = nextStart(s, 0);
+        while (commandStart < length) {
+            char type = s.charAt(commandStart);
+            int commandEnd = nextStart(s, commandStart + 1);
+            if (commandCount == types.length) {
+                types = Arrays.copyOf(types, commandCount * 2);
+                offsets = Arrays.copyOf(offsets, commandCount * 2 + 1);
+            }
+            types[commandCount] = type;
+            offsets[commandCount] = paramCount;
+            commandCount++;
+
+            // Closing a path takes no parameters, ignore anything that follows.
+            if (type != 'z' && type != 'Z') {
+                // The start position is always the first character of the current number,
+                // and the end position is the character after the current number.
+                int startPosition = commandStart + 1;
+                while (startPosition < commandEnd) {
+                    int endPosition = startPosition;
+                    boolean endWithNegOrDot = false;
+                    boolean secondDot = false;
+                    boolean isExponential = false;
+                    for (; endPosition < commandEnd; endPosition++) {
+                        boolean isPrevExponential = isExponential;
+                        isExponential = false;
+                        char c = s.charAt(endPosition);
+                        if (c == ',' || c <= ' ') {
+                            break;
+                        } else if (c == '-') {
+                            // The negative sign following a 'e' or 'E' is not a separator.
+                            if (endPosition != startPosition && !isPrevExponential) {
+                                endWithNegOrDot = true;
+                                break;
+                            }
+                        } else if (c == '.') {
+                            if (secondDot) {
+                                // This is the second dot, and it is considered as a separator.
+                                endWithNegOrDot = true;
+                                break;
+                            }
+                            secondDot = true;
+                        } else if (c == 'e' || c == 'E') {
+                            isExponential = true;
+                        }
+                    }
+
+                    if (startPosition < endPosition) {
+                        if (paramCount == params.length) {
+                            params = Arrays.copyOf(params, paramCount * 2);
+                        }
+                        try {
+                            params[paramCount++] = parseFloat(s, startPosition, endPosition);
+                        } catch (NumberFormatException e) {
+                            throw new RuntimeException("error in parsing \""
+                                    + s.substring(commandStart, commandEnd).trim() + "\"", e);
+                        }
+                    }
 
-                if (result.mEndWithNegOrDot) {
                     // Keep the '-' or '.' sign with next number.
-                    startPosition = endPosition;
-                } else {
-                    startPosition = endPosition + 1;
+                    startPosition = endWithNegOrDot ? endPosition : endPosition + 1;
                 }
             }
-            return copyOfRange(results, 0, count);
-        } catch (NumberFormatException e) {
-            throw new RuntimeException("error in parsing \"" + s + "\"", e);
+            commandStart = commandEnd;
         }
+        offsets[commandCount] = paramCount;
+        return new PackedPathData(Arrays.copyOf(types, commandCount),
+                Arrays.copyOf(offsets, commandCount + 1), Arrays.copyOf(params, paramCount),
+                true);
     }
 
     /**
-     * Calculate the position of the next comma or space or negative sign
-     *
-     * @param s      the string to search
-     * @param start  the position to start searching
-     * @param result the result of the extraction, including the position of the
-     *               the starting position of next number, whether it is ending with a '-'.
+     * Parses the number between {@code start} and {@code end} in {@code s} as
+     * {@link Float#parseFloat(String)} would, without allocating in the common cases.
      */
-    private static void extract(String s, int start, ExtractFloatResult result) {
-        // Now looking for ' ', ',', '.' or '-' from the start.
-        int currentIndex = start;
-        boolean foundSeparator = false;
-        result.mEndWithNegOrDot = false;
-        boolean secondDot = false;
-        boolean isExponential = false;
-        for (; currentIndex < s.length(); currentIndex++) {
-            boolean isPrevExponential = isExponential;
-            isExponential = false;
-            char currentChar = s.charAt(currentIndex);
-            switch (currentChar) {
-                case ' ':
-                case ',':
-                    foundSeparator = true;
-                    break;
-                case '-':
-                    // The negative sign following a 'e' or 'E' is not a separator.
-                    if (currentIndex != start && !isPrevExponential) {
-                        foundSeparator = true;
-                        result.mEndWithNegOrDot = true;
-                    }
-                    break;
-                case '.':
-                    if (!secondDot) {
-                        secondDot = true;
-                    } else {
-                        // This is the second dot, and it is considered as a separator.
-                        foundSeparator = true;
-                        result.mEndWithNegOrDot = true;
-                    }
-                    break;
-                case 'e':
-                case 'E':
-                    isExponential = true;
-                    break;
+    private static float parseFloat(String s, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        char c = s.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        boolean sawDigit = false;
+        boolean exact = true;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            c = s.charAt(i);
+            if (c == '.' && !fraction) {
+                fraction = true;
+                continue;
             }
-            if (foundSeparator) {
+            if (c < '0' || c > '9') {
                 break;
             }
+            sawDigit = true;
+            if (mantissa <= MAX_FAST_PATH_MANTISSA) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction) {
+                    exponent--;
+                }
+            } else {
+                exact = false;
+            }
+        }
+        if (sawDigit && i < end && (c == 'e' || c == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negativeExponent = s.charAt(i) == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int explicitExponent = 0;
+            for (; i < end; i++) {
+                c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                // Saturate, anything this large falls back to Float.parseFloat anyway.
+                explicitExponent = Math.min(explicitExponent * 10 + (c - '0'), 1000);
+            }
+            if (i == exponentStart) {
+                exact = false;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (!sawDigit || i != end || !exact || mantissa > MAX_FAST_PATH_MANTISSA
+                || Math.abs(exponent) >= POWERS_OF_TEN.length) {
+            // Malformed, or beyond what can be parsed exactly here.
+            return Float.parseFloat(s.substring(start, end));
         }
-        // When there is nothing found, then we put the end position to the end
-        // of the string.
-        result.mEndPosition = currentIndex;
+        float value = exponent >= 0
+                ? mantissa * POWERS_OF_TEN[exponent]
+                : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
     }
 
     /**
@@ -332,6 +388,133 @@ public class PathParser {
         return true;
     }
 
+    /**
+     * Returns whether {@code from} can morph into {@code to}, i.e. whether they have the same
+     * commands with the same number of parameters.
+     *
+     * @param from The source path data
+     * @param to   The target path data
+     * @return whether <code>from</code> can morph into <code>to</code>
+     */
+    public static boolean canMorph(@Nullable PackedPathData from, @Nullable PackedPathData to) {
+        if (from == null || to == null) {
+            return false;
+        }
+        return from.mTypes == to.mTypes
+                || (Arrays.equals(from.mTypes, to.mTypes)
+                && Arrays.equals(from.mParamOffsets, to.mParamOffsets));
+    }
+
+    /**
+     * Interpolate between two packed path data with the given fraction, and store the results
+     * in the first parameter.
+     *
+     * @param target The resulting path data, which must not be shared
+     * @param from The path data when fraction is 0
+     * @param to The path data when the fraction is 1
+     * @param fraction A float fraction value in the range of 0 to 1
+     * @return whether it's possible to interpolate between the two path data
+     * @see #canMorph(PackedPathData, PackedPathData)
+     */
+    public static boolean interpolatePathData(@NonNull PackedPathData target,
+            @NonNull PackedPathData from, @NonNull PackedPathData to, float fraction) {
+        if (target.mShared) {
+            throw new IllegalArgumentException("The resulting path data is shared and cannot"
+                    + " be modified, use a copy() of it");
+        }
+        if (!canMorph(from, to)) {
+            return false;
+        }
+        if (!canMorph(target, from)) {
+            throw new IllegalArgumentException("The path data to be interpolated and resulting"
+                    + " path data must have the same commands");
+        }
+        float[] fromParams = from.mParams;
+        float[] toParams = to.mParams;
+        float[] targetParams = target.mParams;
+        for (int i = 0; i < targetParams.length; i++) {
+            targetParams[i] = fromParams[i] * (1 - fraction) + toParams[i] * fraction;
+        }
+        return true;
+    }
+
+    /**
+     * Path data in packed form: the type of each command, and the parameters of all the
+     * commands back to back in a single array. Compared to an array of {@link PathDataNode},
+     * parsing and drawing it doesn't allocate per command.
+     */
+    public static final class PackedPathData {
+        final char[] mTypes;
+        // The parameters of command i are mParams[mParamOffsets[i]] to
+        // mParams[mParamOffsets[i + 1] - 1]. mTypes and mParamOffsets are never modified, so
+        // copies share them.
+        final int[] mParamOffsets;
+        final float[] mParams;
+        // Whether this instance is shared through the parsed path cache.
+        final boolean mShared;
+
+        PackedPathData(char[] types, int[] paramOffsets, float[] params, boolean shared) {
+            mTypes = types;
+            mParamOffsets = paramOffsets;
+            mParams = params;
+            mShared = shared;
+        }
+
+        /**
+         * @return the number of commands in the path data.
+         */
+        public int getCommandCount() {
+            return mTypes.length;
+        }
+
+        /**
+         * @param index The index of the command, from 0 to {@link #getCommandCount()} - 1.
+         * @return the type of the command, e.g. 'M' for an absolute moveto.
+         */
+        public char getCommand(int index) {
+            return mTypes[index];
+        }
+
+        /**
+         * @return a copy of this path data, which can be the target of
+         * {@link PathParser#interpolatePathData(PackedPathData, PackedPathData, PackedPathData,
+         * float)}.
+         */
+        @NonNull
+        public PackedPathData copy() {
+            return new PackedPathData(mTypes, mParamOffsets,
+                    Arrays.copyOf(mParams, mParams.length), false);
+        }
+
+        /**
+         * Adds the commands of this path data to a Path.
+         *
+         * @param path The target Path object.
+         */
+        public void toPath(@NonNull Path path) {
+            float[] current = new float[6];
+            char previousCommand = 'm';
+            for (int i = 0; i < mTypes.length; i++) {
+                PathDataNode.addCommand(path, current, previousCommand, mTypes[i], mParams,
+                        mParamOffsets[i], mParamOffsets[i + 1]);
+                previousCommand = mTypes[i];
+            }
+        }
+
+        /**
+         * @return a new array of PathDataNode with the same commands as this path data.
+         */
+        @NonNull
+        PathDataNode[] toNodes() {
+            PathDataNode[] nodes = new PathDataNode[mTypes.length];
+            for (int i = 0; i < mTypes.length; i++) {
+                nodes[i] = new PathDataNode(mTypes[i],
+                        copyOfRange(mParams, mParamOffsets[i], mParamOffsets[i + 1]));
+            }
+            return nodes;
+        }
+    }
+
     /**
      * Each PathDataNode represents one command in the "d" attribute of the svg
      * file.
@@ -369,7 +552,8 @@ public class PathParser {
             float[] current = new float[6];
             char previousCommand = 'm';
             for (int i = 0; i < node.length; i++) {
-                addCommand(path, current, previousCommand, node[i].mType, node[i].mParams);
+                addCommand(path, current, previousCommand, node[i].mType, node[i].mParams, 0,
+                        node[i].mParams.length);
                 previousCommand = node[i].mType;
             }
         }
@@ -392,8 +576,8 @@ public class PathParser {
             }
         }
 
-        private static void addCommand(Path path, float[] current,
-                char previousCmd, char cmd, float[] val) {
+        static void addCommand(Path path, float[] current,
+                char previousCmd, char cmd, float[] val, int start, int end) {
 
             int incr = 2;
             float currentX = current[0];
@@ -404,10 +588,12 @@ public class PathParser {
             float currentSegmentStartY = current[5];
             float reflectiveCtrlPointX;
             float reflectiveCtrlPointY;
+            boolean readsParams = true;
 
             switch (cmd) {
                 case 'z':
                 case 'Z':
+                    readsParams = false;
                     path.close();
                     // Path is closed here, but we need to move the pen to the
                     // closed position. So we cache the segment's starting position,
@@ -446,14 +632,22 @@ public class PathParser {
                 case 'A':
                     incr = 7;
                     break;
+                default:
+                    readsParams = false;
+                    break;
             }
 
-            for (int k = 0; k < val.length; k += incr) {
+            if (readsParams && (end - start) % incr != 0) {
+                // Parameters are read in groups of incr, don't run into the next command's.
+                throw new ArrayIndexOutOfBoundsException(
+                        "Wrong number of parameters for command " + cmd + ": " + (end - start));
+            }
+            for (int k = start; k < end; k += incr) {
                 switch (cmd) {
                     case 'm': // moveto - Start a new sub-path (relative)
                         currentX += val[k + 0];
                         currentY += val[k + 1];
-                        if (k > 0) {
+                        if (k > start) {
                             // According to the spec, if a moveto is followed by multiple
                             // pairs of coordinates, the subsequent pairs are treated as
                             // implicit lineto commands.
@@ -467,7 +661,7 @@ public class PathParser {
                     case 'M': // moveto - Start a new sub-path
                         currentX = val[k + 0];
                         currentY = val[k + 1];
-                        if (k > 0) {
+                        if (k > start) {
                             // According to the spec, if a moveto is followed by multiple
                             // pairs of coordinates, the subsequent pairs are treated as
                             // implicit lineto commands.
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.app;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.internal.DoNotInstrument;
+
+import java.util.Random;
+
+/** Unit test for {@link FrameMetricsHistogram}. */
+@RunWith(RobolectricTestRunner.class)
+@DoNotInstrument
+public class FrameMetricsHistogramTest {
+    private static final long NANOS_PER_MS = 1000000;
+    // Relative error allowed on a reported duration.
+    private static final double MAX_ERROR = 1.0 / 32;
+
+    @Test
+    public void empty_reportsZero() {
+        FrameMetricsHistogram histogram = new FrameMetricsHistogram();
+
+        assertThat(histogram.getTotalCount()).isEqualTo(0);
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(0);
+    }
+
+    @Test
+    public void record_negativeDurationIgnored() {
+        FrameMetricsHistogram histogram = new FrameMetricsHistogram();
+
+        histogram.record(-1);
+
+        assertThat(histogram.getTotalCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getValueAtPercentile_outOfRange_throws() {
+        FrameMetricsHistogram histogram = new FrameMetricsHistogram();
+
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(-1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+        assertThrows(IllegalArgumentException.class,
+                () -> histogram.getValueAtPercentile(Double.NaN));
+    }
+
+    @Test
+    public void getValueAtPercentile_withinRelativeError() {
+        FrameMetricsHistogram histogram = new FrameMetricsHistogram();
+        // 1ms to 100ms
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * NANOS_PER_MS);
+        }
+
+        assertThat(histogram.getTotalCount()).isEqualTo(100);
+        assertWithinError(histogram.getValueAtPercentile(0), 1 * NANOS_PER_MS);
+        assertWithinError(histogram.getValueAtPercentile(50), 50 * NANOS_PER_MS);
+        assertWithinError(histogram.getValueAtPercentile(90), 90 * NANOS_PER_MS);
+        assertWithinError(histogram.getValueAtPercentile(99), 99 * NANOS_PER_MS);
+        assertWithinError(histogram.getValueAtPercentile(100), 100 * NANOS_PER_MS);
+    }
+
+    @Test
+    public void record_everyDurationInItsBucket() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            long duration = (long) (Math.exp(random.nextDouble() * 17) * 1024);
+            FrameMetricsHistogram histogram = new FrameMetricsHistogram();
+            histogram.record(duration);
+
+            assertWithinError(histogram.getValueAtPercentile(50), duration);
+        }
+    }
+
+    @Test
+    public void bucketIndex_contiguous() {
+        int previous = FrameMetricsHistogram.bucketIndex(0);
+        assertThat(previous).isEqualTo(0);
+        for (int index = 1; index < FrameMetricsHistogram.BUCKET_COUNT; index++) {
+            long lowerBound = FrameMetricsHistogram.bucketLowerBound(index);
+            assertThat(FrameMetricsHistogram.bucketIndex(lowerBound)).isEqualTo(index);
+            assertThat(FrameMetricsHistogram.bucketIndex(lowerBound - 1)).isEqualTo(index - 1);
+        }
+    }
+
+    @Test
+    public void record_hugeDuration_countedInLastBucket() {
+        FrameMetricsHistogram histogram = new FrameMetricsHistogram();
+
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.getTotalCount()).isEqualTo(1);
+        assertThat(histogram.getValueAtPercentile(100)).isGreaterThan(60000 * NANOS_PER_MS);
+    }
+
+    @Test
+    public void merge_addsCounts() {
+        FrameMetricsHistogram fast = new FrameMetricsHistogram();
+        FrameMetricsHistogram slow = new FrameMetricsHistogram();
+        for (int i = 0; i < 90; i++) {
+            fast.record(8 * NANOS_PER_MS);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.record(40 * NANOS_PER_MS);
+        }
+
+        fast.merge(slow);
+
+        assertThat(fast.getTotalCount()).isEqualTo(100);
+        assertThat(slow.getTotalCount()).isEqualTo(10);
+        assertWithinError(fast.getValueAtPercentile(90), 8 * NANOS_PER_MS);
+        assertWithinError(fast.getValueAtPercentile(91), 40 * NANOS_PER_MS);
+    }
+
+    @Test
+    public void snapshotAndReset_movesCounts() {
+        FrameMetricsHistogram histogram = new FrameMetricsHistogram();
+        histogram.record(16 * NANOS_PER_MS);
+        histogram.record(33 * NANOS_PER_MS);
+
+        FrameMetricsHistogram snapshot = histogram.snapshotAndReset();
+        histogram.record(5 * NANOS_PER_MS);
+
+        assertThat(snapshot.getTotalCount()).isEqualTo(2);
+        assertWithinError(snapshot.getValueAtPercentile(100), 33 * NANOS_PER_MS);
+        assertThat(histogram.getTotalCount()).isEqualTo(1);
+        assertWithinError(histogram.getValueAtPercentile(100), 5 * NANOS_PER_MS);
+    }
+
+    @Test
+    public void snapshotAndReset_concurrentRecords_noneLost() throws InterruptedException {
+        final FrameMetricsHistogram histogram = new FrameMetricsHistogram();
+        final int recordCount = 100000;
+        Thread recorder = new Thread(() -> {
+            for (int i = 0; i < recordCount; i++) {
+                histogram.record((i % 50) * NANOS_PER_MS);
+            }
+        });
+        FrameMetricsHistogram total = new FrameMetricsHistogram();
+
+        recorder.start();
+        while (recorder.isAlive()) {
+            total.merge(histogram.snapshotAndReset());
+        }
+        recorder.join();
+        total.merge(histogram.snapshotAndReset());
+
+        assertThat(total.getTotalCount()).isEqualTo(recordCount);
+    }
+
+    private static void assertWithinError(long actual, long expected) {
+        // Durations shorter than the histogram resolution are reported within one unit.
+        double tolerance = Math.max(expected * MAX_ERROR, 1024);
+        assertThat((double) actual).isWithin(tolerance).of((double) expected);
+    }
+}
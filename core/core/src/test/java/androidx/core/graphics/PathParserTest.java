@@ -0,0 +1,188 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.graphics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.internal.DoNotInstrument;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+/** Unit test for {@link PathParser}. */
+@RunWith(RobolectricTestRunner.class)
+@DoNotInstrument
+public class PathParserTest {
+
+    @Test
+    public void createNodesFromPathData_splitsCommands() {
+        PathParser.PathDataNode[] nodes =
+                PathParser.createNodesFromPathData("  M1,2 L3 4c1,2,3,4,5,6Z");
+
+        assertThat(nodes).hasLength(4);
+        assertThat(nodes[0].mType).isEqualTo('M');
+        assertThat(nodes[0].mParams).isEqualTo(new float[]{1, 2});
+        assertThat(nodes[1].mType).isEqualTo('L');
+        assertThat(nodes[1].mParams).isEqualTo(new float[]{3, 4});
+        assertThat(nodes[2].mType).isEqualTo('c');
+        assertThat(nodes[2].mParams).isEqualTo(new float[]{1, 2, 3, 4, 5, 6});
+        assertThat(nodes[3].mType).isEqualTo('Z');
+        assertThat(nodes[3].mParams).isEqualTo(new float[0]);
+    }
+
+    @Test
+    public void createNodesFromPathData_signsAndDotsSeparateNumbers() {
+        PathParser.PathDataNode[] nodes =
+                PathParser.createNodesFromPathData("M1e2-1.5e-3.5.5-.5");
+
+        assertThat(nodes).hasLength(1);
+        assertThat(nodes[0].mParams).isEqualTo(new float[]{100f, -1.5e-3f, .5f, .5f, -.5f});
+    }
+
+    @Test
+    public void createNodesFromPathData_closeIgnoresParameters() {
+        PathParser.PathDataNode[] nodes = PathParser.createNodesFromPathData("M1 2z3 4");
+
+        assertThat(nodes).hasLength(2);
+        assertThat(nodes[1].mType).isEqualTo('z');
+        assertThat(nodes[1].mParams).isEqualTo(new float[0]);
+    }
+
+    @Test
+    public void createNodesFromPathData_matchesParseFloat() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            float value = (float) ((random.nextDouble() - 0.5)
+                    * Math.pow(10, random.nextInt(16) - 8));
+            String number = random.nextBoolean() ? Float.toString(value)
+                    : String.format("%." + random.nextInt(9) + "f", value);
+
+            PathParser.PathDataNode[] nodes =
+                    PathParser.createNodesFromPathData("M" + number + " 0");
+
+            assertThat(nodes[0].mParams[0]).isEqualTo(Float.parseFloat(number));
+        }
+    }
+
+    @Test
+    public void createNodesFromPathData_nearMidpoints_matchesParseFloat() {
+        String[] numbers = {"8.2697415138e-8", "8.12919743852e+19", "16777216", "16777217",
+                "167772161", "0.0000000001", "-0", "1e10", "3.4028235e38", "1.4e-45"};
+        for (String number : numbers) {
+            PathParser.PathDataNode[] nodes =
+                    PathParser.createNodesFromPathData("M" + number + " 0");
+
+            assertThat(nodes[0].mParams[0]).isEqualTo(Float.parseFloat(number));
+        }
+
+        // Decimals close to the midpoint between two adjacent floats, where rounding twice
+        // gives a different result than rounding once.
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            float value = Float.intBitsToFloat(random.nextInt() & 0x7f7ffffe);
+            BigDecimal midpoint = new BigDecimal(value)
+                    .add(new BigDecimal(Math.nextUp(value)))
+                    .divide(BigDecimal.valueOf(2));
+            BigDecimal rounded = midpoint.round(new MathContext(1 + random.nextInt(12)));
+            String number = random.nextBoolean() || rounded.scale() < -20
+                    || rounded.scale() > 20 ? rounded.toString() : rounded.toPlainString();
+
+            PathParser.PathDataNode[] nodes =
+                    PathParser.createNodesFromPathData("M" + number + " 0");
+
+            assertThat(nodes[0].mParams[0]).isEqualTo(Float.parseFloat(number));
+        }
+    }
+
+    @Test
+    public void createNodesFromPathData_longNumbers() {
+        PathParser.PathDataNode[] nodes = PathParser.createNodesFromPathData(
+                "M0.1234567890123456789 123456789012345678901 1e-30");
+
+        assertThat(nodes[0].mParams).isEqualTo(new float[]{
+                Float.parseFloat("0.1234567890123456789"),
+                Float.parseFloat("123456789012345678901"),
+                1e-30f});
+    }
+
+    @Test
+    public void createNodesFromPathData_invalidNumber_throws() {
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> PathParser.createNodesFromPathData("M1 2L1e 2"));
+
+        assertThat(e).hasMessageThat().isEqualTo("error in parsing \"L1e 2\"");
+        assertThat(e).hasCauseThat().isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    public void createNodesFromPathData_returnsUnsharedNodes() {
+        String pathData = "M0 0L10 10";
+        PathParser.PathDataNode[] nodes = PathParser.createNodesFromPathData(pathData);
+        nodes[1].mParams[0] = 5;
+
+        assertThat(PathParser.createNodesFromPathData(pathData)[1].mParams[0]).isEqualTo(10);
+    }
+
+    @Test
+    public void parsePathData_cached() {
+        String pathData = "M0 0L24 24";
+
+        PathParser.PackedPathData data = PathParser.parsePathData(pathData);
+
+        assertThat(PathParser.parsePathData(new String(pathData))).isSameInstanceAs(data);
+        assertThat(data.getCommandCount()).isEqualTo(2);
+        assertThat(data.getCommand(0)).isEqualTo('M');
+        assertThat(data.getCommand(1)).isEqualTo('L');
+    }
+
+    @Test
+    public void interpolatePathData() {
+        PathParser.PackedPathData from = PathParser.parsePathData("M0 0L10 10");
+        PathParser.PackedPathData to = PathParser.parsePathData("M10 10L20 0");
+        PathParser.PackedPathData target = from.copy();
+
+        assertThat(PathParser.canMorph(from, to)).isTrue();
+        assertThat(PathParser.interpolatePathData(target, from, to, 0.5f)).isTrue();
+
+        assertThat(target.mParams).isEqualTo(new float[]{5, 5, 15, 5});
+        assertThat(from.mParams).isEqualTo(new float[]{0, 0, 10, 10});
+    }
+
+    @Test
+    public void interpolatePathData_differentCommands_returnsFalse() {
+        PathParser.PackedPathData from = PathParser.parsePathData("M0 0L10 10");
+        PathParser.PackedPathData to = PathParser.parsePathData("M0 0H10");
+
+        assertThat(PathParser.canMorph(from, to)).isFalse();
+        assertThat(PathParser.interpolatePathData(from.copy(), from, to, 0.5f)).isFalse();
+    }
+
+    @Test
+    public void interpolatePathData_sharedTarget_throws() {
+        PathParser.PackedPathData from = PathParser.parsePathData("M0 0L10 10");
+        PathParser.PackedPathData to = PathParser.parsePathData("M10 10L20 0");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PathParser.interpolatePathData(from, from, to, 0.5f));
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.emoji2.benchmark.text
+
+import android.content.Context
+import android.graphics.Typeface
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.emoji2.text.MetadataRepo
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import java.nio.ByteBuffer
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+@SdkSuppress(minSdkVersion = 19)
+class MetadataRepoCreateBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    /**
+     * Measures reading the metadata of the bundled font and building the emoji trie, without the
+     * cost of loading the font file.
+     */
+    @Test
+    fun createFromBundledFont() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        val bytes = context.assets.open("NotoColorEmojiCompat.ttf").use { it.readBytes() }
+        val buffer = ByteBuffer.wrap(bytes)
+        benchmarkRule.measureRepeated {
+            MetadataRepo.create(Typeface.DEFAULT, buffer.duplicate())
+        }
+    }
+}
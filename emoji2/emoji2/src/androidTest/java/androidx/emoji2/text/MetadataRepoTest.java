@@ -96,19 +96,11 @@ public class MetadataRepoTest {
     }
 
     final TypefaceEmojiRasterizer getNode(final int[] codepoints) {
-        return getNode(mMetadataRepo.getRootNode(), codepoints, 0);
-    }
-
-    final TypefaceEmojiRasterizer getNode(
-            MetadataRepo.Node node,
-            final int[] codepoints,
-            int start
-    ) {
-        if (codepoints.length < start) return null;
-        if (codepoints.length == start) return node.getData();
-
-        final MetadataRepo.Node childNode = node.get(codepoints[start]);
-        if (childNode == null) return null;
-        return getNode(childNode, codepoints, start + 1);
+        int node = MetadataRepo.ROOT_NODE;
+        for (int codepoint : codepoints) {
+            node = mMetadataRepo.getChild(node, codepoint);
+            if (node == MetadataRepo.NO_NODE) return null;
+        }
+        return mMetadataRepo.getData(node);
     }
 }
@@ -159,7 +159,7 @@ final class EmojiProcessor {
     @EmojiCompat.CodepointSequenceMatchResult
     int getEmojiMatch(@NonNull final CharSequence charSequence,
             final int metadataVersion) {
-        final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getRootNode(),
+        final ProcessorSm sm = new ProcessorSm(mMetadataRepo,
                 mUseEmojiAsDefaultStyle, mEmojiAsDefaultStyleExceptions);
         final int end = charSequence.length();
         int currentOffset = 0;
@@ -364,7 +364,7 @@ final class EmojiProcessor {
             @IntRange(from = 0) int end, @IntRange(from = 0) int maxEmojiCount,
             final boolean processAll, final EmojiProcessCallback<T> emojiProcessCallback) {
         int addedCount = 0;
-        final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getRootNode(),
+        final ProcessorSm sm = new ProcessorSm(mMetadataRepo,
                 mUseEmojiAsDefaultStyle, mEmojiAsDefaultStyleExceptions);
 
         int currentOffset = start;
@@ -607,20 +607,20 @@ final class EmojiProcessor {
         private int mState = STATE_DEFAULT;
 
         /**
-         * Root of the trie
+         * Repo holding the trie
          */
-        private final MetadataRepo.Node mRootNode;
+        private final MetadataRepo mMetadataRepo;
 
         /**
          * Pointer to the node after last codepoint.
          */
-        private MetadataRepo.Node mCurrentNode;
+        private int mCurrentNode = MetadataRepo.ROOT_NODE;
 
         /**
          * The node where ACTION_FLUSH is called. Required since after flush action is
          * returned mCurrentNode is reset to be the root.
          */
-        private MetadataRepo.Node mFlushNode;
+        private int mFlushNode = MetadataRepo.NO_NODE;
 
         /**
          * The code point that was checked.
@@ -642,10 +642,9 @@ final class EmojiProcessor {
          */
         private final int[] mEmojiAsDefaultStyleExceptions;
 
-        ProcessorSm(MetadataRepo.Node rootNode, boolean useEmojiAsDefaultStyle,
+        ProcessorSm(MetadataRepo metadataRepo, boolean useEmojiAsDefaultStyle,
                 int[] emojiAsDefaultStyleExceptions) {
-            mRootNode = rootNode;
-            mCurrentNode = rootNode;
+            mMetadataRepo = metadataRepo;
             mUseEmojiAsDefaultStyle = useEmojiAsDefaultStyle;
             mEmojiAsDefaultStyleExceptions = emojiAsDefaultStyleExceptions;
         }
@@ -653,10 +652,10 @@ final class EmojiProcessor {
         @Action
         int check(final int codePoint) {
             final int action;
-            MetadataRepo.Node node = mCurrentNode.get(codePoint);
+            final int node = mMetadataRepo.getChild(mCurrentNode, codePoint);
             switch (mState) {
                 case STATE_WALKING:
-                    if (node != null) {
+                    if (node != MetadataRepo.NO_NODE) {
                         mCurrentNode = node;
                         mCurrentDepth += 1;
                         action = ACTION_ADVANCE_END;
@@ -665,7 +664,7 @@ final class EmojiProcessor {
                             action = reset();
                         } else if (isEmojiStyle(codePoint)) {
                             action = ACTION_ADVANCE_END;
-                        } else if (mCurrentNode.getData() != null) {
+                        } else if (mMetadataRepo.getData(mCurrentNode) != null) {
                             if (mCurrentDepth == 1) {
                                 if (shouldUseEmojiPresentationStyleForSingleCodepoint()) {
                                     mFlushNode = mCurrentNode;
@@ -686,7 +685,7 @@ final class EmojiProcessor {
                     break;
                 case STATE_DEFAULT:
                 default:
-                    if (node == null) {
+                    if (node == MetadataRepo.NO_NODE) {
                         action = reset();
                     } else {
                         mState = STATE_WALKING;
@@ -704,7 +703,7 @@ final class EmojiProcessor {
         @Action
         private int reset() {
             mState = STATE_DEFAULT;
-            mCurrentNode = mRootNode;
+            mCurrentNode = MetadataRepo.ROOT_NODE;
             mCurrentDepth = 0;
             return ACTION_ADVANCE_BOTH;
         }
@@ -713,14 +712,14 @@ final class EmojiProcessor {
          * @return the metadata node when ACTION_FLUSH is returned
          */
         TypefaceEmojiRasterizer getFlushMetadata() {
-            return mFlushNode.getData();
+            return mMetadataRepo.getData(mFlushNode);
         }
 
         /**
          * @return current pointer to the metadata node in the trie
          */
         TypefaceEmojiRasterizer getCurrentMetadata() {
-            return mCurrentNode.getData();
+            return mMetadataRepo.getData(mCurrentNode);
         }
 
         /**
@@ -731,12 +730,12 @@ final class EmojiProcessor {
          * @return whether the current state requires an emoji to be added
          */
         boolean isInFlushableState() {
-            return mState == STATE_WALKING && mCurrentNode.getData() != null
+            return mState == STATE_WALKING && mMetadataRepo.getData(mCurrentNode) != null
                     && (mCurrentDepth > 1 || shouldUseEmojiPresentationStyleForSingleCodepoint());
         }
 
         private boolean shouldUseEmojiPresentationStyleForSingleCodepoint() {
-            if (mCurrentNode.getData().isDefaultEmoji()) {
+            if (mMetadataRepo.getData(mCurrentNode).isDefaultEmoji()) {
                 // The codepoint is emoji style by default.
                 return true;
             }
@@ -750,7 +749,7 @@ final class EmojiProcessor {
                 if (mEmojiAsDefaultStyleExceptions == null) {
                     return true;
                 }
-                final int codepoint = mCurrentNode.getData().getCodepointAt(0);
+                final int codepoint = mMetadataRepo.getData(mCurrentNode).getCodepointAt(0);
                 final int index = Arrays.binarySearch(mEmojiAsDefaultStyleExceptions, codepoint);
                 if (index < 0) {
                     // Index is negative, so the codepoint was not found in the array of exceptions.
@@ -17,10 +17,10 @@ package androidx.emoji2.text;
 
 import android.content.res.AssetManager;
 import android.graphics.Typeface;
-import android.util.SparseArray;
 
 import androidx.annotation.AnyThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
@@ -31,6 +31,7 @@ import androidx.emoji2.text.flatbuffer.MetadataList;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * Class to hold the emoji metadata required to process and draw emojis.
@@ -39,9 +40,15 @@ import java.nio.ByteBuffer;
 @RequiresApi(19)
 public final class MetadataRepo {
     /**
-     * The default children size of the root node.
+     * Index of the root node of the trie.
      */
-    private static final int DEFAULT_ROOT_SIZE = 1024;
+    static final int ROOT_NODE = 0;
+
+    /**
+     * Returned by {@link #getChild(int, int)} when a node has no child for a codepoint.
+     */
+    static final int NO_NODE = -1;
+
     private static final String S_TRACE_CREATE_REPO = "EmojiCompat.MetadataRepo.create";
 
     /**
@@ -57,9 +64,28 @@ public final class MetadataRepo {
     private final @NonNull char[] mEmojiCharArray;
 
     /**
-     * Empty root node of the trie.
+     * All TypefaceEmojiRasterizer's in the trie. The first {@link #mRasterizerCount} elements are
+     * used.
+     */
+    private @NonNull TypefaceEmojiRasterizer[] mRasterizers;
+
+    private int mRasterizerCount;
+
+    /**
+     * Trie over the codepoints of the emojis, stored in primitive arrays. Nodes are numbered in
+     * breadth-first order, starting with the root at {@link #ROOT_NODE}. The children of node
+     * {@code n} are reached through the edges {@code e} in
+     * {@code [mChildrenStart[n], mChildrenStart[n + 1])}, sorted by their codepoint
+     * {@code mChildCodepoints[e]}, and edge {@code e} leads to node {@code e + 1}.
+     */
+    private @NonNull int[] mChildrenStart;
+
+    private @NonNull int[] mChildCodepoints;
+
+    /**
+     * Index in {@link #mRasterizers} of the emoji ending at each node, or -1.
      */
-    private final @NonNull Node mRootNode;
+    private @NonNull int[] mNodeData;
 
     /**
      * Typeface to be used to render emojis.
@@ -76,8 +102,8 @@ public final class MetadataRepo {
             @NonNull final MetadataList metadataList) {
         mTypeface = typeface;
         mMetadataList = metadataList;
-        mRootNode = new Node(DEFAULT_ROOT_SIZE);
         mEmojiCharArray = new char[mMetadataList.listLength() * 2];
+        mRasterizers = new TypefaceEmojiRasterizer[mMetadataList.listLength()];
         constructIndex(mMetadataList);
     }
 
@@ -165,8 +191,129 @@ public final class MetadataRepo {
             //chars wide
             //noinspection ResultOfMethodCallIgnored
             Character.toChars(metadata.getId(), mEmojiCharArray, i * 2);
-            put(metadata);
+            Preconditions.checkArgument(metadata.getCodepointsLength() > 0,
+                    "invalid metadata codepoint length");
+            mRasterizers[i] = metadata;
+        }
+        mRasterizerCount = length;
+        buildTrie();
+    }
+
+    /**
+     * Builds the trie from {@link #mRasterizers} in a single pass over the emojis sorted by their
+     * codepoints. The codepoints of each emoji with the same sequence as a later one are ignored.
+     */
+    private void buildTrie() {
+        final int count = mRasterizerCount;
+        // Copy the codepoints of all emojis to a single array, emoji i being stored in
+        // [sequenceStart[i], sequenceStart[i + 1]).
+        final int[] sequenceStart = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            sequenceStart[i + 1] = sequenceStart[i] + mRasterizers[i].getCodepointsLength();
+        }
+        final int[] codepoints = new int[sequenceStart[count]];
+        for (int i = 0; i < count; i++) {
+            final TypefaceEmojiRasterizer rasterizer = mRasterizers[i];
+            for (int j = sequenceStart[i]; j < sequenceStart[i + 1]; j++) {
+                codepoints[j] = rasterizer.getCodepointAt(j - sequenceStart[i]);
+            }
+        }
+
+        // Sort the emojis by their codepoint sequence. The sort is stable so that the last of
+        // several emojis with the same sequence wins, as when adding them one by one.
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        order = mergeSort(order, new int[count], codepoints, sequenceStart);
+
+        // Every node but the root is reached by one codepoint of at least one emoji.
+        final int maxNodeCount = codepoints.length + 1;
+        final int[] childrenStart = new int[maxNodeCount + 1];
+        final int[] childCodepoints = new int[maxNodeCount - 1];
+        final int[] nodeData = new int[maxNodeCount];
+        // The emojis in [rangeStart[n], rangeEnd[n]) of order share the depth[n] codepoints
+        // leading to node n.
+        final int[] rangeStart = new int[maxNodeCount];
+        final int[] rangeEnd = new int[maxNodeCount];
+        final int[] depth = new int[maxNodeCount];
+        rangeEnd[ROOT_NODE] = count;
+        int nodeCount = 1;
+        int edgeCount = 0;
+        // Nodes are created, and therefore visited, in breadth-first order.
+        for (int node = 0; node < nodeCount; node++) {
+            childrenStart[node] = edgeCount;
+            nodeData[node] = -1;
+            final int nodeDepth = depth[node];
+            final int end = rangeEnd[node];
+            int i = rangeStart[node];
+            // Emojis ending at this node are sorted before the longer ones.
+            while (i < end && sequenceStart[order[i] + 1] - sequenceStart[order[i]] == nodeDepth) {
+                nodeData[node] = order[i];
+                i++;
+            }
+            while (i < end) {
+                final int codepoint = codepoints[sequenceStart[order[i]] + nodeDepth];
+                final int childRangeStart = i;
+                do {
+                    i++;
+                } while (i < end && codepoints[sequenceStart[order[i]] + nodeDepth] == codepoint);
+                childCodepoints[edgeCount++] = codepoint;
+                rangeStart[nodeCount] = childRangeStart;
+                rangeEnd[nodeCount] = i;
+                depth[nodeCount] = nodeDepth + 1;
+                nodeCount++;
+            }
+        }
+        childrenStart[nodeCount] = edgeCount;
+
+        mChildrenStart = Arrays.copyOf(childrenStart, nodeCount + 1);
+        mChildCodepoints = Arrays.copyOf(childCodepoints, edgeCount);
+        mNodeData = Arrays.copyOf(nodeData, nodeCount);
+    }
+
+    /**
+     * Stable merge sort of the emoji indices in {@code order} by their codepoint sequences.
+     *
+     * @return the sorted indices, which are either in {@code order} or in {@code buffer}
+     */
+    private static int[] mergeSort(int[] order, int[] buffer, final int[] codepoints,
+            final int[] sequenceStart) {
+        final int count = order.length;
+        for (int width = 1; width < count; width *= 2) {
+            for (int low = 0; low < count; low += 2 * width) {
+                final int mid = Math.min(low + width, count);
+                final int high = Math.min(low + 2 * width, count);
+                int left = low;
+                int right = mid;
+                for (int k = low; k < high; k++) {
+                    if (left < mid && (right >= high || compareSequences(codepoints,
+                            sequenceStart, order[left], order[right]) <= 0)) {
+                        buffer[k] = order[left++];
+                    } else {
+                        buffer[k] = order[right++];
+                    }
+                }
+            }
+            final int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+
+    private static int compareSequences(final int[] codepoints, final int[] sequenceStart,
+            final int first, final int second) {
+        final int firstEnd = sequenceStart[first + 1];
+        final int secondEnd = sequenceStart[second + 1];
+        int i = sequenceStart[first];
+        int j = sequenceStart[second];
+        for (; i < firstEnd && j < secondEnd; i++, j++) {
+            if (codepoints[i] != codepoints[j]) {
+                return codepoints[i] < codepoints[j] ? -1 : 1;
+            }
         }
+        return (firstEnd - i) - (secondEnd - j);
     }
 
     /**
@@ -187,12 +334,45 @@ public final class MetadataRepo {
     }
 
     /**
+     * Returns the child of a node of the trie for the given codepoint.
+     *
+     * @param node a node of the trie, starting with {@link #ROOT_NODE}
+     * @param codePoint the codepoint following the ones leading to {@code node}
+     * @return the child node, or {@link #NO_NODE} if there is none
      * @hide
      */
-    @NonNull
     @RestrictTo(RestrictTo.Scope.LIBRARY)
-    Node getRootNode() {
-        return mRootNode;
+    int getChild(final int node, final int codePoint) {
+        final int[] childCodepoints = mChildCodepoints;
+        int low = mChildrenStart[node];
+        int high = mChildrenStart[node + 1] - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midCodepoint = childCodepoints[mid];
+            if (midCodepoint < codePoint) {
+                low = mid + 1;
+            } else if (midCodepoint > codePoint) {
+                high = mid - 1;
+            } else {
+                return mid + 1;
+            }
+        }
+        return NO_NODE;
+    }
+
+    /**
+     * Returns the emoji whose codepoints lead to a node of the trie.
+     *
+     * @param node a node of the trie
+     * @return the emoji, or {@code null} if the codepoints leading to the node are only a prefix of
+     * other emojis
+     * @hide
+     */
+    @Nullable
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    TypefaceEmojiRasterizer getData(final int node) {
+        final int index = mNodeData[node];
+        return index < 0 ? null : mRasterizers[index];
     }
 
     /**
@@ -214,7 +394,8 @@ public final class MetadataRepo {
     }
 
     /**
-     * Add a TypefaceEmojiRasterizer to the index.
+     * Add a TypefaceEmojiRasterizer to the index. This rebuilds the whole trie, and is only meant
+     * to be used from tests.
      *
      * @hide
      */
@@ -225,51 +406,10 @@ public final class MetadataRepo {
         Preconditions.checkArgument(data.getCodepointsLength() > 0,
                 "invalid metadata codepoint length");
 
-        mRootNode.put(data, 0, data.getCodepointsLength() - 1);
-    }
-
-    /**
-     * Trie node that holds mapping from emoji codepoint(s) to TypefaceEmojiRasterizer.
-     *
-     * A single codepoint emoji is represented by a child of the root node.
-     *
-     * @hide
-     */
-    @RestrictTo(RestrictTo.Scope.LIBRARY)
-    static class Node {
-        private final SparseArray<Node> mChildren;
-        private TypefaceEmojiRasterizer mData;
-
-        private Node() {
-            this(1);
-        }
-
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        Node(final int defaultChildrenSize) {
-            mChildren = new SparseArray<>(defaultChildrenSize);
-        }
-
-        Node get(final int key) {
-            return mChildren == null ? null : mChildren.get(key);
-        }
-
-        final TypefaceEmojiRasterizer getData() {
-            return mData;
-        }
-
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        void put(@NonNull final TypefaceEmojiRasterizer data, final int start, final int end) {
-            Node node = get(data.getCodepointAt(start));
-            if (node == null) {
-                node = new Node();
-                mChildren.put(data.getCodepointAt(start), node);
-            }
-
-            if (end > start) {
-                node.put(data, start + 1, end);
-            } else {
-                node.mData = data;
-            }
+        if (mRasterizerCount == mRasterizers.length) {
+            mRasterizers = Arrays.copyOf(mRasterizers, Math.max(1, mRasterizerCount * 2));
         }
+        mRasterizers[mRasterizerCount++] = data;
+        buildTrie();
     }
 }
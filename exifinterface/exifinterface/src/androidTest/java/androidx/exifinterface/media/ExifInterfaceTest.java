@@ -64,9 +64,12 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -512,6 +515,80 @@ public class ExifInterfaceTest {
         writeToFilesWithoutExif(WEBP_WITHOUT_EXIF_WITH_LOSSLESS_AND_ALPHA);
     }
 
+    @Test
+    @LargeTest
+    public void testReadTagSubset() throws Throwable {
+        Set<String> tags = new HashSet<>(Arrays.asList(
+                ExifInterface.TAG_ORIENTATION,
+                ExifInterface.TAG_DATETIME,
+                ExifInterface.TAG_MAKE,
+                ExifInterface.TAG_GPS_LATITUDE,
+                ExifInterface.TAG_IMAGE_WIDTH,
+                ExifInterface.TAG_IMAGE_LENGTH));
+        String[] fileNames = new String[] {
+                JPEG_WITH_EXIF_BYTE_ORDER_II,
+                JPEG_WITH_EXIF_BYTE_ORDER_MM,
+                JPEG_WITH_EXIF_WITH_XMP,
+                PNG_WITH_EXIF_BYTE_ORDER_II,
+                WEBP_WITH_EXIF};
+        for (String fileName : fileNames) {
+            File imageFile = getFileFromExternalDir(fileName);
+            ExifInterface fullExif = new ExifInterface(imageFile);
+            ExifInterface subsetExif = new ExifInterface(imageFile, tags);
+
+            // The requested tags have the same values as when reading all the tags.
+            for (String tag : tags) {
+                assertEquals(fileName + ": " + tag, fullExif.getAttribute(tag),
+                        subsetExif.getAttribute(tag));
+            }
+            // Other tags and the thumbnail are not read.
+            assertNull(subsetExif.getAttribute(ExifInterface.TAG_MODEL));
+            assertFalse(subsetExif.hasThumbnail());
+            try {
+                subsetExif.saveAttributes();
+                fail("Saving attributes should not be supported when reading a subset of tags");
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    @LargeTest
+    public void testSaveAttributesInPlace() throws Throwable {
+        File srcFile = getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_MM);
+        File imageFile = clone(srcFile);
+        // Write the Exif data in the layout produced by ExifInterface first.
+        ExifInterface exifInterface = new ExifInterface(imageFile.getAbsolutePath());
+        exifInterface.saveAttributes();
+        long fileLength = imageFile.length();
+
+        // An edit which doesn't change the size of the Exif data is written in place.
+        exifInterface = new ExifInterface(imageFile.getAbsolutePath());
+        exifInterface.setAttribute(ExifInterface.TAG_ORIENTATION,
+                String.valueOf(ExifInterface.ORIENTATION_ROTATE_90));
+        exifInterface.saveAttributes();
+        assertTrue(exifInterface.isLastSaveInPlace());
+        assertEquals(fileLength, imageFile.length());
+        exifInterface = new ExifInterface(imageFile.getAbsolutePath());
+        assertEquals(ExifInterface.ORIENTATION_ROTATE_90, exifInterface.getAttributeInt(
+                ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_UNDEFINED));
+        assertBitmapsEquivalent(srcFile, imageFile);
+
+        // Exif data which doesn't fit into the original segment makes the file be rewritten.
+        char[] description = new char[10000];
+        Arrays.fill(description, 'a');
+        exifInterface.setAttribute(ExifInterface.TAG_IMAGE_DESCRIPTION, new String(description));
+        exifInterface.saveAttributes();
+        assertFalse(exifInterface.isLastSaveInPlace());
+        exifInterface = new ExifInterface(imageFile.getAbsolutePath());
+        assertEquals(new String(description),
+                exifInterface.getAttribute(ExifInterface.TAG_IMAGE_DESCRIPTION));
+        assertEquals(ExifInterface.ORIENTATION_ROTATE_90, exifInterface.getAttributeInt(
+                ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_UNDEFINED));
+        assertBitmapsEquivalent(srcFile, imageFile);
+    }
+
     /**
      * Support for retrieving EXIF from HEIF was added in SDK 28.
      */
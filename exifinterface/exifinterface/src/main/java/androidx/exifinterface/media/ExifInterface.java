@@ -61,10 +61,12 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
@@ -3903,6 +3905,24 @@ public class ExifInterface {
     // XMP data can be contained as either part of the EXIF data (tag number 700), or as a
     // separate data marker (a separate MARKER_APP1).
     private boolean mXmpIsFromSeparateMarker;
+    // Offset of the marker and value of the length field of the EXIF APP1 segment of a JPEG file,
+    // and the number of such segments. Used to update the segment in place when saving.
+    private int mJpegExifSegmentOffset = -1;
+    private int mJpegExifSegmentLength;
+    private int mJpegExifSegmentCount;
+    // Whether the last call to saveAttributes() updated the EXIF data in place.
+    private boolean mIsLastSaveInPlace;
+    // Names of the tags to read if only a subset of the tags was requested, null if all the tags
+    // are read.
+    @Nullable
+    private Set<String> mTagsToRead;
+    // Requested tags which have not been found yet. Only set while loading a subset of the tags.
+    @Nullable
+    private Set<String> mTagsNotYetRead;
+    // Whether an IFD of each type may contain any of the requested tags. Only set while loading a
+    // subset of the tags.
+    @Nullable
+    private boolean[] mIfdTypesToRead;
 
     // Pattern to check non zero timestamp
     private static final Pattern NON_ZERO_TIME_PATTERN = Pattern.compile(".*[1-9].*");
@@ -3947,6 +3967,56 @@ public class ExifInterface {
         initForFilename(filename);
     }
 
+    /**
+     * Reads only the given Exif tags from the specified image file.
+     *
+     * <p>This is cheaper than {@link #ExifInterface(File)} when only a few tags are needed, e.g.
+     * when scanning a large number of images for their {@link #TAG_ORIENTATION} or
+     * {@link #TAG_DATETIME}. Reading stops as soon as all the requested tags have been found,
+     * image file directories which cannot contain any of them are skipped, and thumbnails are
+     * never read. For JPEG files, only the headers of the segments preceding the EXIF data are
+     * read from the file, using positioned reads on its {@link java.nio.channels.FileChannel}.
+     *
+     * <p>Attributes of the tags which were not requested are generally not available, apart from
+     * the default values which are always provided for compatibility. Thumbnails are not available
+     * and attribute mutation is not supported. Image formats other than JPEG, PNG, WebP and HEIF
+     * are always read in full.
+     *
+     * @param file the file of the image data
+     * @param tags the names of the tags to read, e.g. {@link #TAG_ORIENTATION}
+     * @throws NullPointerException if file or tags is null
+     * @throws IOException if an I/O error occurs while opening the file.
+     */
+    public ExifInterface(@NonNull File file, @NonNull Set<String> tags) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("file cannot be null");
+        }
+        if (tags == null) {
+            throw new NullPointerException("tags cannot be null");
+        }
+        mAssetInputStream = null;
+        mSeekableFileDescriptor = null;
+        mFilename = null;
+        mTagsToRead = new HashSet<>(tags);
+        if (mTagsToRead.contains(TAG_DATETIME)) {
+            // DateTime falls back to DateTimeOriginal, see addDefaultValuesForCompatibility().
+            mTagsToRead.add(TAG_DATETIME_ORIGINAL);
+        }
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            FileChannel channel = in.getChannel();
+            if (isJpegFormat(channel)) {
+                loadJpegAttributes(channel);
+            } else {
+                // Positioned reads on the channel do not move the stream.
+                loadAttributes(in);
+            }
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
     /**
      * Reads Exif tags from the specified image file descriptor. Attribute mutation is supported
      * for writable and seekable file descriptors only. This constructor will not rewind the offset
@@ -4567,6 +4637,15 @@ public class ExifInterface {
                 in = new BufferedInputStream(in, SIGNATURE_CHECK_SIZE);
                 mMimeType = getMimeType((BufferedInputStream) in);
             }
+            if (mTagsToRead != null) {
+                if (isSupportedFormatForReadingTagSubset(mMimeType)) {
+                    prepareTagsToRead();
+                } else {
+                    // The tags of these formats also determine how the rest of the file is
+                    // parsed, so read all of them.
+                    mTagsToRead = null;
+                }
+            }
 
             if (shouldSupportSeek(mMimeType)) {
                 SeekableByteOrderedDataInputStream inputStream =
@@ -4587,8 +4666,10 @@ public class ExifInterface {
                     }
                 }
                 // Set thumbnail image offset and length
-                inputStream.seek(mOffsetToExifData);
-                setThumbnailData(inputStream);
+                if (mTagsToRead == null) {
+                    inputStream.seek(mOffsetToExifData);
+                    setThumbnailData(inputStream);
+                }
             } else {
                 ByteOrderedDataInputStream inputStream = new ByteOrderedDataInputStream(in);
                 if (mMimeType == IMAGE_TYPE_JPEG) {
@@ -4611,6 +4692,118 @@ public class ExifInterface {
                         + "or a corrupted JPEG file to ExifInterface.", e);
             }
         } finally {
+            mTagsNotYetRead = null;
+            mIfdTypesToRead = null;
+            addDefaultValuesForCompatibility();
+
+            if (DEBUG) {
+                printAttributes();
+            }
+        }
+    }
+
+    /**
+     * Reads the requested subset of the tags of a JPEG file. The JPEG segments are walked with
+     * positioned reads on the given channel, reading only their headers, and stopping as soon as
+     * all the requested tags have been found.
+     */
+    private void loadJpegAttributes(@NonNull FileChannel channel) {
+        try {
+            // Initialize mAttributes.
+            for (int i = 0; i < EXIF_TAGS.length; ++i) {
+                mAttributes[i] = new HashMap<>();
+            }
+            mMimeType = IMAGE_TYPE_JPEG;
+            prepareTagsToRead();
+
+            // JPEG stores the image size in its SOF segment, which overrides the EXIF values.
+            final boolean readImageSize = mTagsToRead.contains(TAG_IMAGE_LENGTH)
+                    || mTagsToRead.contains(TAG_IMAGE_WIDTH);
+            boolean isImageSizeRead = false;
+            final long start = channel.position();
+            final byte[] header = new byte[4];
+            // Skip the SOI marker, which has been checked by isJpegFormat().
+            long position = 2;
+            while (!mTagsNotYetRead.isEmpty() || (readImageSize && !isImageSizeRead)) {
+                readFully(channel, start + position, header);
+                if (header[0] != MARKER) {
+                    throw new IOException(
+                            "Invalid marker:" + Integer.toHexString(header[0] & 0xff));
+                }
+                byte marker = header[1];
+                // EOI indicates the end of an image and in case of SOS, JPEG image stream starts
+                // and the image data will terminate right after.
+                if (marker == MARKER_EOI || marker == MARKER_SOS) {
+                    break;
+                }
+                int length = (((header[2] & 0xff) << 8) | (header[3] & 0xff)) - 2;
+                if (length < 0) {
+                    throw new IOException("Invalid length");
+                }
+                final long segmentStart = position + header.length;
+                switch (marker) {
+                    case MARKER_APP1: {
+                        readJpegApp1Segment(channel, start, segmentStart, length);
+                        break;
+                    }
+
+                    case MARKER_COM: {
+                        if (mTagsNotYetRead.contains(TAG_USER_COMMENT)) {
+                            byte[] bytes = new byte[length];
+                            readFully(channel, start + segmentStart, bytes);
+                            mAttributes[IFD_TYPE_EXIF].put(TAG_USER_COMMENT,
+                                    ExifAttribute.createString(new String(bytes, ASCII)));
+                            mTagsNotYetRead.remove(TAG_USER_COMMENT);
+                        }
+                        break;
+                    }
+
+                    case MARKER_SOF0:
+                    case MARKER_SOF1:
+                    case MARKER_SOF2:
+                    case MARKER_SOF3:
+                    case MARKER_SOF5:
+                    case MARKER_SOF6:
+                    case MARKER_SOF7:
+                    case MARKER_SOF9:
+                    case MARKER_SOF10:
+                    case MARKER_SOF11:
+                    case MARKER_SOF13:
+                    case MARKER_SOF14:
+                    case MARKER_SOF15: {
+                        if (readImageSize && length >= 5) {
+                            byte[] bytes = new byte[5];
+                            readFully(channel, start + segmentStart, bytes);
+                            mAttributes[IFD_TYPE_PRIMARY].put(TAG_IMAGE_LENGTH,
+                                    ExifAttribute.createULong(
+                                            ((bytes[1] & 0xff) << 8) | (bytes[2] & 0xff),
+                                            mExifByteOrder));
+                            mAttributes[IFD_TYPE_PRIMARY].put(TAG_IMAGE_WIDTH,
+                                    ExifAttribute.createULong(
+                                            ((bytes[3] & 0xff) << 8) | (bytes[4] & 0xff),
+                                            mExifByteOrder));
+                            mTagsNotYetRead.remove(TAG_IMAGE_LENGTH);
+                            mTagsNotYetRead.remove(TAG_IMAGE_WIDTH);
+                            isImageSizeRead = true;
+                        }
+                        break;
+                    }
+
+                    default: {
+                        break;
+                    }
+                }
+                position = segmentStart + length;
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            // Ignore exceptions in order to keep the compatibility with the old versions of
+            // ExifInterface.
+            if (DEBUG) {
+                Log.w(TAG, "Invalid image: ExifInterface got a corrupted JPEG file.", e);
+            }
+        } finally {
+            mTagsNotYetRead = null;
+            mIfdTypesToRead = null;
             addDefaultValuesForCompatibility();
 
             if (DEBUG) {
@@ -4619,6 +4812,70 @@ public class ExifInterface {
         }
     }
 
+    // Reads the EXIF data, or the XMP data if requested, of a JPEG APP1 segment.
+    private void readJpegApp1Segment(FileChannel channel, long start, long segmentStart,
+            int length) throws IOException {
+        final byte[] identifier = new byte[Math.min(length, IDENTIFIER_XMP_APP1.length)];
+        readFully(channel, start + segmentStart, identifier);
+        if (startsWith(identifier, IDENTIFIER_EXIF_APP1)) {
+            final byte[] value = new byte[length - IDENTIFIER_EXIF_APP1.length];
+            readFully(channel, start + segmentStart + IDENTIFIER_EXIF_APP1.length, value);
+            // Save offset to EXIF data for handling attribute offsets.
+            mOffsetToExifData = (int) segmentStart + IDENTIFIER_EXIF_APP1.length;
+            readExifSegment(value, IFD_TYPE_PRIMARY);
+        } else if (startsWith(identifier, IDENTIFIER_XMP_APP1)
+                && mTagsToRead.contains(TAG_XMP) && getAttribute(TAG_XMP) == null) {
+            // See XMP Specification Part 3: Storage in Files, 1.1.3 JPEG, Table 6
+            final int offset = (int) segmentStart + IDENTIFIER_XMP_APP1.length;
+            final byte[] value = new byte[length - IDENTIFIER_XMP_APP1.length];
+            readFully(channel, start + offset, value);
+            mAttributes[IFD_TYPE_PRIMARY].put(TAG_XMP, new ExifAttribute(
+                    IFD_FORMAT_BYTE, value.length, offset, value));
+            mXmpIsFromSeparateMarker = true;
+            mTagsNotYetRead.remove(TAG_XMP);
+        }
+    }
+
+    // Computes which tags and IFDs remain to be read when only a subset of the tags is requested.
+    private void prepareTagsToRead() {
+        mTagsNotYetRead = new HashSet<>(mTagsToRead);
+        mIfdTypesToRead = new boolean[EXIF_TAGS.length];
+        for (int ifdType = 0; ifdType < EXIF_TAGS.length; ++ifdType) {
+            for (String tag : mTagsToRead) {
+                if (sExifTagMapsForWriting[ifdType].containsKey(tag)) {
+                    mIfdTypesToRead[ifdType] = true;
+                    break;
+                }
+            }
+        }
+        // The interoperability IFD is pointed to from the EXIF IFD.
+        if (mIfdTypesToRead[IFD_TYPE_INTEROPERABILITY]) {
+            mIfdTypesToRead[IFD_TYPE_EXIF] = true;
+        }
+    }
+
+    // Reads bytes.length bytes at the given position of the channel, without changing the position
+    // of the channel.
+    private static void readFully(FileChannel channel, long position, byte[] bytes)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    // Writes all the given bytes at the given position of the channel, without changing the
+    // position of the channel.
+    private static void writeFully(FileChannel channel, long position, byte[] bytes)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
     private static boolean isSeekableFD(FileDescriptor fd) {
         if (Build.VERSION.SDK_INT >= 21) {
             try {
@@ -4652,6 +4909,10 @@ public class ExifInterface {
      * other. It's best to use {@link #setAttribute(String,String)} to set all attributes to write
      * and make a single call rather than multiple calls for each attribute.
      * <p>
+     * For JPEG files, when the new Exif data fits into the original Exif APP1 segment, e.g. after
+     * changing the orientation or a date, the segment is overwritten in place instead, which
+     * avoids copying the image data. {@link #isLastSaveInPlace()} tells which way was used.
+     * <p>
      * This method is supported for JPEG, PNG, and WebP formats.
      * <p class="note">
      * Note: after calling this method, any attempts to obtain range information
@@ -4670,6 +4931,10 @@ public class ExifInterface {
             throw new IOException("ExifInterface only supports saving attributes for JPEG, PNG, "
                     + "and WebP formats.");
         }
+        if (mTagsToRead != null) {
+            throw new IOException("ExifInterface does not support saving attributes when only a "
+                    + "subset of the tags was read.");
+        }
         if (mSeekableFileDescriptor == null && mFilename == null) {
             throw new IOException(
                     "ExifInterface does not support saving attributes for the current input.");
@@ -4686,6 +4951,13 @@ public class ExifInterface {
         // Keep the thumbnail in memory
         mThumbnailBytes = getThumbnail();
 
+        mIsLastSaveInPlace = mMimeType == IMAGE_TYPE_JPEG && saveJpegAttributesInPlace();
+        if (mIsLastSaveInPlace) {
+            // Discard the thumbnail in memory
+            mThumbnailBytes = null;
+            return;
+        }
+
         FileInputStream in = null;
         FileOutputStream out = null;
         File tempFile;
@@ -4774,6 +5046,15 @@ public class ExifInterface {
         mThumbnailBytes = null;
     }
 
+    /**
+     * Returns whether the last call to {@link #saveAttributes()} overwrote the Exif data in place,
+     * without rewriting the rest of the image file. Returns {@code false} if the attributes have
+     * not been saved yet.
+     */
+    public boolean isLastSaveInPlace() {
+        return mIsLastSaveInPlace;
+    }
+
     /**
      * Returns true if the image file has a thumbnail.
      */
@@ -5346,6 +5627,20 @@ public class ExifInterface {
         return IMAGE_TYPE_UNKNOWN;
     }
 
+    /**
+     * Checks whether the data at the current position of the channel is a JPEG file, without
+     * changing the position of the channel.
+     */
+    private static boolean isJpegFormat(FileChannel channel) throws IOException {
+        byte[] signatureCheckBytes = new byte[JPEG_SIGNATURE.length];
+        try {
+            readFully(channel, channel.position(), signatureCheckBytes);
+        } catch (EOFException e) {
+            return false;
+        }
+        return isJpegFormat(signatureCheckBytes);
+    }
+
     /**
      * This method looks at the first 3 bytes to determine if this file is a JPEG file.
      * See http://www.media.mit.edu/pia/Research/deepview/exif.html, "JPEG format and Marker"
@@ -5610,6 +5905,14 @@ public class ExifInterface {
                         mOffsetToExifData = offsetToJpeg
                                 + /* offset to EXIF from JPEG start */ start
                                 + IDENTIFIER_EXIF_APP1.length;
+                        if (mMimeType == IMAGE_TYPE_JPEG && offsetToJpeg == 0
+                                && imageType == IFD_TYPE_PRIMARY) {
+                            // Save the location of the segment for updating it in place.
+                            if (mJpegExifSegmentCount++ == 0) {
+                                mJpegExifSegmentOffset = start - 4;
+                                mJpegExifSegmentLength = bytes.length + 2;
+                            }
+                        }
                         readExifSegment(value, imageType);
 
                         setThumbnailData(new ByteOrderedDataInputStream(value));
@@ -6256,6 +6559,100 @@ public class ExifInterface {
         }
     }
 
+    // Overwrites the EXIF APP1 segment of the JPEG file with the new EXIF data if it fits into it,
+    // padding the rest of the segment with zeros, and leaves the rest of the file untouched.
+    // Returns whether the attributes were saved. If not, the file has not been modified.
+    private boolean saveJpegAttributesInPlace() throws IOException {
+        if (mJpegExifSegmentCount != 1) {
+            // Either there is no EXIF segment to overwrite, or there are several ones, which are
+            // merged by a full rewrite.
+            return false;
+        }
+        if (mFilename == null && Build.VERSION.SDK_INT < 21) {
+            // mSeekableFileDescriptor will be non-null only for SDK_INT >= 21.
+            return false;
+        }
+
+        // XMP data from a separate marker stays in its own segment, see saveJpegAttributes().
+        ExifAttribute xmpAttribute = null;
+        if (getAttribute(TAG_XMP) != null && mXmpIsFromSeparateMarker) {
+            xmpAttribute = mAttributes[IFD_TYPE_PRIMARY].remove(TAG_XMP);
+        }
+        ByteArrayOutputStream exifOutputStream = new ByteArrayOutputStream();
+        try {
+            // This writes the segment starting with its length field.
+            writeExifSegment(new ByteOrderedDataOutputStream(exifOutputStream, BIG_ENDIAN));
+        } finally {
+            if (xmpAttribute != null) {
+                mAttributes[IFD_TYPE_PRIMARY].put(TAG_XMP, xmpAttribute);
+            }
+        }
+        byte[] exifBytes = exifOutputStream.toByteArray();
+        if (exifBytes.length > mJpegExifSegmentLength) {
+            if (DEBUG) {
+                Log.d(TAG, "New Exif data (" + exifBytes.length + " bytes) does not fit into the "
+                        + "original segment (" + mJpegExifSegmentLength + " bytes)");
+            }
+            return false;
+        }
+        // Keep the original segment length, with trailing zeros after the TIFF data.
+        byte[] segmentBytes = Arrays.copyOf(exifBytes, mJpegExifSegmentLength);
+        segmentBytes[0] = (byte) (mJpegExifSegmentLength >> 8);
+        segmentBytes[1] = (byte) mJpegExifSegmentLength;
+
+        RandomAccessFile file = null;
+        FileInputStream in = null;
+        FileOutputStream out = null;
+        try {
+            FileChannel readChannel;
+            FileChannel writeChannel;
+            if (mFilename != null) {
+                file = new RandomAccessFile(mFilename, "rw");
+                readChannel = file.getChannel();
+                writeChannel = readChannel;
+            } else {
+                in = new FileInputStream(mSeekableFileDescriptor);
+                out = new FileOutputStream(mSeekableFileDescriptor);
+                readChannel = in.getChannel();
+                writeChannel = out.getChannel();
+            }
+
+            // Make sure that the file still has the segment which was parsed, and keep it in
+            // order to restore it on failure.
+            byte[] originalBytes = new byte[2 + mJpegExifSegmentLength];
+            try {
+                readFully(readChannel, mJpegExifSegmentOffset, originalBytes);
+            } catch (EOFException e) {
+                return false;
+            }
+            if (originalBytes[0] != MARKER || originalBytes[1] != MARKER_APP1
+                    || (((originalBytes[2] & 0xff) << 8) | (originalBytes[3] & 0xff))
+                            != mJpegExifSegmentLength
+                    || !startsWith(Arrays.copyOfRange(originalBytes, 4, originalBytes.length),
+                            IDENTIFIER_EXIF_APP1)) {
+                return false;
+            }
+
+            try {
+                writeFully(writeChannel, mJpegExifSegmentOffset + 2, segmentBytes);
+            } catch (IOException e) {
+                try {
+                    // Restore original segment
+                    writeFully(writeChannel, mJpegExifSegmentOffset, originalBytes);
+                } catch (IOException exception) {
+                    throw new IOException("Failed to save new file. Failed to restore the "
+                            + "original Exif data", exception);
+                }
+                throw new IOException("Failed to save new file", e);
+            }
+        } finally {
+            closeQuietly(file);
+            closeQuietly(in);
+            closeQuietly(out);
+        }
+        return true;
+    }
+
     // Stores a new JPEG image with EXIF attributes into a given output stream.
     private void saveJpegAttributes(InputStream inputStream, OutputStream outputStream)
             throws IOException {
@@ -6287,7 +6684,9 @@ public class ExifInterface {
         // Write EXIF APP1 segment
         dataOutputStream.writeByte(MARKER);
         dataOutputStream.writeByte(MARKER_APP1);
-        writeExifSegment(dataOutputStream);
+        mJpegExifSegmentLength = writeExifSegment(dataOutputStream);
+        mJpegExifSegmentOffset = 2;
+        mJpegExifSegmentCount = 1;
 
         // Re-add previously removed XMP data.
         if (xmpAttribute != null) {
@@ -6788,6 +7187,10 @@ public class ExifInterface {
 
         // See TIFF 6.0 Section 2: TIFF Structure, "Image File Directory".
         for (short i = 0; i < numberOfDirectoryEntry; ++i) {
+            if (mTagsNotYetRead != null && mTagsNotYetRead.isEmpty()) {
+                // All the requested tags have been read.
+                return;
+            }
             int tagNumber = dataInputStream.readUnsignedShort();
             int dataFormat = dataInputStream.readUnsignedShort();
             int numberOfComponents = dataInputStream.readInt();
@@ -6837,6 +7240,18 @@ public class ExifInterface {
                 dataInputStream.seek(nextEntryOffset);
                 continue;
             }
+            if (mTagsToRead != null) {
+                Integer pointedIfdType = sExifPointerTagMap.get(tagNumber);
+                if (pointedIfdType == null
+                        ? !mTagsToRead.contains(tag.name)
+                        : !mIfdTypesToRead[pointedIfdType]) {
+                    if (DEBUG) {
+                        Log.d(TAG, "Skip the tag entry since it was not requested: " + tag.name);
+                    }
+                    dataInputStream.seek(nextEntryOffset);
+                    continue;
+                }
+            }
 
             // Read a value from data field or seek to the value offset which is stored in data
             // field if the size of the entry value is bigger than 4.
@@ -6937,6 +7352,9 @@ public class ExifInterface {
             ExifAttribute attribute = new ExifAttribute(dataFormat, numberOfComponents,
                     bytesOffset, bytes);
             mAttributes[ifdType].put(tag.name, attribute);
+            if (mTagsNotYetRead != null) {
+                mTagsNotYetRead.remove(tag.name);
+            }
 
             // DNG files have a DNG Version tag specifying the version of specifications that the
             // image file is following.
@@ -6961,6 +7379,11 @@ public class ExifInterface {
             }
         }
 
+        if (mIfdTypesToRead != null && !mIfdTypesToRead[IFD_TYPE_THUMBNAIL]
+                && !mIfdTypesToRead[IFD_TYPE_PREVIEW]) {
+            // The next IFD can only be the thumbnail or the preview IFD.
+            return;
+        }
         int nextIfdOffset = dataInputStream.readInt();
         if (DEBUG) {
             Log.d(TAG, String.format("nextIfdOffset: %d", nextIfdOffset));
@@ -7030,6 +7453,10 @@ public class ExifInterface {
 
     // Sets thumbnail offset & length attributes based on JpegInterchangeFormat or StripOffsets tags
     private void setThumbnailData(ByteOrderedDataInputStream in) throws IOException {
+        if (mTagsToRead != null) {
+            // Thumbnails are not read when only a subset of the tags is requested.
+            return;
+        }
         HashMap<String, ExifAttribute> thumbnailData = mAttributes[IFD_TYPE_THUMBNAIL];
 
         ExifAttribute compressionAttribute =
@@ -8076,6 +8503,11 @@ public class ExifInterface {
         return true;
     }
 
+    private static boolean isSupportedFormatForReadingTagSubset(int mimeType) {
+        return mimeType == IMAGE_TYPE_JPEG || mimeType == IMAGE_TYPE_PNG
+                || mimeType == IMAGE_TYPE_WEBP || mimeType == IMAGE_TYPE_HEIF;
+    }
+
     private static boolean isSupportedFormatForSavingAttributes(int mimeType) {
         if (mimeType == IMAGE_TYPE_JPEG || mimeType == IMAGE_TYPE_PNG
                 || mimeType == IMAGE_TYPE_WEBP) {
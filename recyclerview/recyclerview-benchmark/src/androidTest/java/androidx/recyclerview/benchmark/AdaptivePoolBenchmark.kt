@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.benchmark
+
+import android.graphics.Color
+import android.view.View
+import android.view.ViewGroup
+import android.widget.LinearLayout
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.recyclerview.widget.RecyclerView
+import androidx.test.annotation.UiThreadTest
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Scrolls through a feed made of runs of [RUN_LENGTH] items of the same type, with
+ * [VIEW_TYPE_COUNT] view types. Each run fills more than the screen, so more holders of a type
+ * leave the screen than the default pool keeps, and they have to be created again when the type
+ * comes back.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class AdaptivePoolBenchmark {
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    @Suppress("DEPRECATION")
+    @get:Rule
+    val activityRule = androidx.test.rule.ActivityTestRule(RecyclerViewActivity::class.java)
+
+    @UiThreadTest
+    @Test
+    fun defaultPool() {
+        scroll(RecyclerView.RecycledViewPool())
+    }
+
+    @UiThreadTest
+    @Test
+    fun adaptivePool() {
+        scroll(RecyclerView.RecycledViewPool().apply { isAdaptiveSizingEnabled = true })
+    }
+
+    /**
+     * Checks, outside of the measurements, that the adaptive pool saves holder creations over
+     * the same scroll distance, which is what the difference between the benchmarks comes from.
+     */
+    @UiThreadTest
+    @Test
+    fun adaptivePoolCreatesFewerHolders() {
+        val defaultAdapter = scrollSteps(RecyclerView.RecycledViewPool())
+        val adaptiveAdapter =
+            scrollSteps(RecyclerView.RecycledViewPool().apply { isAdaptiveSizingEnabled = true })
+        assertTrue(
+            "adaptive pool created ${adaptiveAdapter.createCount} holders, default pool " +
+                "created ${defaultAdapter.createCount}",
+            adaptiveAdapter.createCount < defaultAdapter.createCount
+        )
+    }
+
+    private fun setUpRecyclerView(pool: RecyclerView.RecycledViewPool): HeterogeneousAdapter {
+        val rv = activityRule.activity.recyclerView
+        val adapter = HeterogeneousAdapter()
+        rv.setRecycledViewPool(pool)
+        rv.adapter = adapter
+        return adapter
+    }
+
+    private fun scroll(pool: RecyclerView.RecycledViewPool) {
+        setUpRecyclerView(pool)
+        val rv = activityRule.activity.recyclerView
+        benchmarkRule.measureRepeated {
+            rv.scrollBy(0, 50)
+        }
+    }
+
+    private fun scrollSteps(pool: RecyclerView.RecycledViewPool): HeterogeneousAdapter {
+        val adapter = setUpRecyclerView(pool)
+        val rv = activityRule.activity.recyclerView
+        repeat(SCROLL_STEPS) {
+            rv.scrollBy(0, 50)
+        }
+        return adapter
+    }
+
+    private companion object {
+        const val SCROLL_STEPS = 1000
+        const val VIEW_TYPE_COUNT = 4
+        const val RUN_LENGTH = 15
+    }
+
+    private class HeterogeneousAdapter : RecyclerView.Adapter<RecyclerView.ViewHolder>() {
+        var createCount = 0
+        var bindCount = 0
+
+        override fun getItemViewType(position: Int) = (position / RUN_LENGTH) % VIEW_TYPE_COUNT
+
+        override fun onCreateViewHolder(
+            parent: ViewGroup,
+            viewType: Int
+        ): RecyclerView.ViewHolder {
+            createCount++
+            // each type has a different, non trivial hierarchy, so creating holders is costly
+            val item = LinearLayout(parent.context)
+            item.layoutParams = RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 10)
+            repeat(10 * (viewType + 1)) {
+                val child = View(parent.context)
+                child.layoutParams =
+                    LinearLayout.LayoutParams(1, ViewGroup.LayoutParams.MATCH_PARENT)
+                item.addView(child)
+            }
+            return object : RecyclerView.ViewHolder(item) {}
+        }
+
+        override fun onBindViewHolder(holder: RecyclerView.ViewHolder, position: Int) {
+            bindCount++
+            val color = position % 256
+            holder.itemView.setBackgroundColor(Color.rgb(color, color, color))
+        }
+
+        override fun getItemCount() = Integer.MAX_VALUE
+    }
+}
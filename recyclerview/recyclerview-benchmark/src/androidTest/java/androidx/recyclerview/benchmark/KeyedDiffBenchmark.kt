@@ -0,0 +1,136 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+import androidx.test.filters.LargeTest
+import java.util.Random
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Compares [DiffUtil.calculateDiff] with [DiffUtil.calculateKeyedDiff] on large lists.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class KeyedDiffBenchmark(
+    val input: Input
+) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    @Test
+    fun runDiff() {
+        benchmarkRule.measureRepeated {
+            val result = if (input.keyed) {
+                DiffUtil.calculateKeyedDiff(input.callback)
+            } else {
+                DiffUtil.calculateDiff(input.callback)
+            }
+            result.dispatchUpdatesTo(dummyUpdateCallback)
+        }
+    }
+
+    companion object {
+        private const val SIZE = 10_000
+
+        private val dummyUpdateCallback = object : ListUpdateCallback {
+            override fun onChanged(position: Int, count: Int, payload: Any?) {
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+            }
+
+            override fun onInserted(position: Int, count: Int) {
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+            }
+        }
+
+        private fun shuffled(list: List<Int>, fraction: Double): List<Int> {
+            val random = Random(42)
+            val result = list.toMutableList()
+            repeat((list.size * fraction).toInt()) {
+                val from = random.nextInt(result.size)
+                val to = random.nextInt(result.size)
+                result[from] = result[to].also { result[to] = result[from] }
+            }
+            return result
+        }
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "input_{0}")
+        fun params() = listOf(
+            Input(
+                name = "mostly_unchanged",
+                before = (0 until SIZE).toList(),
+                after = (0 until SIZE).filter { it % 1000 != 0 }
+            ),
+            Input(
+                name = "append",
+                before = (0 until SIZE).toList(),
+                after = (0 until SIZE + SIZE / 10).toList()
+            ),
+            Input(
+                name = "shuffle_1_percent",
+                before = (0 until SIZE).toList(),
+                after = shuffled((0 until SIZE).toList(), 0.01)
+            ),
+            Input(
+                name = "shuffle_10_percent",
+                before = (0 until SIZE).toList(),
+                after = shuffled((0 until SIZE).toList(), 0.1)
+            )
+        ).flatMap {
+            listOf(
+                it,
+                it.copy(keyed = true)
+            )
+        }
+    }
+
+    data class Input(
+        val name: String,
+        val before: List<Int>,
+        val after: List<Int>,
+        val keyed: Boolean = false
+    ) {
+        val callback = object : DiffUtil.KeyedCallback() {
+            override fun getOldItemKey(oldItemPosition: Int) = before[oldItemPosition]
+
+            override fun getNewItemKey(newItemPosition: Int) = after[newItemPosition]
+
+            override fun getOldListSize() = before.size
+
+            override fun getNewListSize() = after.size
+
+            override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                before[oldItemPosition] == after[newItemPosition]
+        }
+
+        override fun toString() = name +
+            "_keyed_$keyed" +
+            "_size_[${before.size}_${after.size}]"
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.selection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public final class LongKeySetTest {
+
+    @Test
+    public void testAddRemove() {
+        LongKeySet keys = new LongKeySet();
+        assertTrue(keys.add(5L));
+        assertTrue(keys.add(0L));
+        assertTrue(keys.add(-7L));
+        assertFalse(keys.add(5L));
+
+        assertEquals(3, keys.size());
+        assertTrue(keys.contains(0L));
+        assertTrue(keys.contains(-7L));
+        assertFalse(keys.contains(6L));
+        assertFalse(keys.contains("5"));
+
+        assertTrue(keys.remove(0L));
+        assertFalse(keys.remove(0L));
+        assertEquals(2, keys.size());
+        assertFalse(keys.contains(0L));
+    }
+
+    @Test
+    public void testContiguousKeysCompressed() {
+        LongKeySet keys = new LongKeySet();
+        for (long key = 0; key < 100_000; key++) {
+            keys.add(key);
+        }
+
+        assertEquals(100_000, keys.size());
+        assertEquals(1, keys.getRangeCount());
+        assertTrue(keys.contains(0L));
+        assertTrue(keys.contains(99_999L));
+        assertFalse(keys.contains(100_000L));
+    }
+
+    @Test
+    public void testRunsCompressedInAnyOrder() {
+        LongKeySet keys = new LongKeySet();
+        for (long key = 100; key > 0; key -= 2) {
+            keys.add(key);
+        }
+        assertEquals(0, keys.getRangeCount());
+        for (long key = 99; key > 0; key -= 2) {
+            keys.add(key);
+        }
+
+        assertEquals(100, keys.size());
+        assertEquals(1, keys.getRangeCount());
+    }
+
+    @Test
+    public void testRemoveSplitsRange() {
+        LongKeySet keys = new LongKeySet();
+        for (long key = 0; key < 20; key++) {
+            keys.add(key);
+        }
+
+        assertTrue(keys.remove(10L));
+        assertEquals(2, keys.getRangeCount());
+        assertEquals(19, keys.size());
+        assertFalse(keys.contains(10L));
+        assertTrue(keys.contains(9L));
+        assertTrue(keys.contains(11L));
+
+        assertTrue(keys.add(10L));
+        assertEquals(1, keys.getRangeCount());
+        assertEquals(20, keys.size());
+    }
+
+    @Test
+    public void testIterationAndArray() {
+        LongKeySet keys = new LongKeySet();
+        Set<Long> expected = new HashSet<>();
+        for (long key = -4; key < 20; key++) {
+            keys.add(key);
+            expected.add(key);
+        }
+        keys.add(1000L);
+        expected.add(1000L);
+
+        Set<Long> iterated = new HashSet<>();
+        for (Long key : keys) {
+            assertTrue(iterated.add(key));
+        }
+        assertEquals(expected, iterated);
+
+        Set<Long> copied = new HashSet<>();
+        for (long key : keys.toLongArray()) {
+            copied.add(key);
+        }
+        assertEquals(expected, copied);
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        Random random = new Random(42);
+        LongKeySet keys = new LongKeySet();
+        Set<Long> expected = new HashSet<>();
+        for (long key = 0; key < 100; key++) {
+            keys.add(key);
+            expected.add(key);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            long key = random.nextLong();
+            keys.add(key);
+            expected.add(key);
+        }
+
+        // Every key is returned once, even those the removals move within the table
+        Set<Long> iterated = new HashSet<>();
+        int removed = 0;
+        Iterator<Long> iterator = keys.iterator();
+        while (iterator.hasNext()) {
+            Long key = iterator.next();
+            assertTrue(iterated.add(key));
+            if (random.nextBoolean()) {
+                iterator.remove();
+                assertFalse(keys.contains(key));
+                expected.remove(key);
+                removed++;
+            }
+        }
+
+        assertEquals(expected.size() + removed, iterated.size());
+        assertEquals(expected.size(), keys.size());
+        assertEquals(expected, keys);
+
+        assertTrue(keys.retainAll(Collections.singleton(expected.iterator().next())));
+        assertEquals(1, keys.size());
+    }
+
+    @Test
+    public void testMatchesHashSet() {
+        Random random = new Random(42);
+        LongKeySet keys = new LongKeySet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(500) - 250;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), keys.remove(key));
+            } else {
+                assertEquals(expected.add(key), keys.add(key));
+            }
+        }
+
+        assertEquals(expected.size(), keys.size());
+        assertEquals(expected, keys);
+        assertEquals(keys, expected);
+        assertEquals(expected.hashCode(), keys.hashCode());
+    }
+
+    @Test
+    public void testAddAll() {
+        LongKeySet source = new LongKeySet();
+        for (long key = 0; key < 50; key++) {
+            source.add(key * 3);
+            source.add(1000 + key);
+        }
+
+        LongKeySet copy = new LongKeySet();
+        assertTrue(copy.addAll(source));
+        assertEquals(source, copy);
+
+        LongKeySet merged = new LongKeySet();
+        merged.add(-1L);
+        assertTrue(merged.addAll(source));
+        assertEquals(source.size() + 1, merged.size());
+        assertTrue(merged.containsAll(source));
+    }
+
+    @Test
+    public void testClear() {
+        LongKeySet keys = new LongKeySet();
+        for (long key = 0; key < 100; key++) {
+            keys.add(key * 2);
+        }
+        keys.clear();
+
+        assertTrue(keys.isEmpty());
+        assertFalse(keys.contains(0L));
+        assertFalse(keys.iterator().hasNext());
+    }
+}
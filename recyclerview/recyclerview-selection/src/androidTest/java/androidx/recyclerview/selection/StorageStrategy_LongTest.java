@@ -51,4 +51,19 @@ public final class StorageStrategy_LongTest {
 
         assertEquals(orig, restored);
     }
+
+    @Test
+    public void testReadWrite_CompressedSelection() {
+        MutableSelection<Long> orig = mStorage.createMutableSelection();
+        for (long key = 0; key < 1000; key++) {
+            orig.add(key);
+        }
+        orig.add(5000L);
+
+        Bundle parceled = Bundles.forceParceling(mStorage.asBundle(orig));
+        Selection<Long> restored = mStorage.asSelection(parceled);
+
+        assertEquals(1001, restored.size());
+        assertEquals(orig, restored);
+    }
 }
@@ -55,7 +55,7 @@ public class DefaultSelectionTracker<K> extends SelectionTracker<K> implements R
     private static final String TAG = "DefaultSelectionTracker";
     private static final String EXTRA_SELECTION_PREFIX = "androidx.recyclerview.selection";
 
-    private final Selection<K> mSelection = new Selection<>();
+    private final Selection<K> mSelection;
     private final List<SelectionObserver<K>> mObservers = new ArrayList<>(1);
     private final ItemKeyProvider<K> mKeyProvider;
     private final SelectionPredicate<K> mSelectionPredicate;
@@ -92,6 +92,7 @@ public class DefaultSelectionTracker<K> extends SelectionTracker<K> implements R
         mKeyProvider = keyProvider;
         mSelectionPredicate = selectionPredicate;
         mStorage = storage;
+        mSelection = storage.createSelection();
 
         mRangeCallbacks = new RangeCallbacks();
 
@@ -191,7 +192,7 @@ public class DefaultSelectionTracker<K> extends SelectionTracker<K> implements R
     private Selection<K> clearSelectionQuietly() {
         mRange = null;
 
-        MutableSelection<K> prevSelection = new MutableSelection<>();
+        MutableSelection<K> prevSelection = mStorage.createMutableSelection();
         if (hasSelection()) {
             copySelection(prevSelection);
             mSelection.clear();
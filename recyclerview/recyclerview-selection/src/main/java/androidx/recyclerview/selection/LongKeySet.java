@@ -0,0 +1,538 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.selection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of {@code long} keys backing the {@link Selection} of trackers using
+ * {@link StorageStrategy#createLongStorage()}.
+ *
+ * <p>
+ * Keys are stored without boxing. Runs of at least {@link #MIN_RANGE_LENGTH} consecutive keys,
+ * like the ones produced by selecting all items of an adapter with stable ids, are compressed
+ * into sorted, disjoint ranges. Other keys are kept in an open-addressing hash table with linear
+ * probing. No key held by the table is adjacent to a range, so a key that extends a range is
+ * always merged into it.
+ *
+ * <p>
+ * Unlike the {@link java.util.LinkedHashSet} used for other key types, iteration order is
+ * unspecified: ranges are iterated in ascending order, followed by the other keys in table order.
+ */
+final class LongKeySet extends AbstractSet<Long> {
+
+    /**
+     * Runs of consecutive keys at least this long are stored as a range.
+     */
+    static final int MIN_RANGE_LENGTH = 8;
+
+    private static final int MIN_TABLE_CAPACITY = 16;
+
+    // Marks free slots of the table. The key itself is tracked by mHasFreeKey.
+    private static final long FREE_KEY = 0;
+
+    private long[] mTable = new long[MIN_TABLE_CAPACITY];
+    private boolean mHasFreeKey;
+    // Number of keys held by the table, including FREE_KEY
+    private int mTableSize;
+
+    // Inclusive bounds of the ranges, sorted and never adjacent to each other
+    private long[] mRangeStarts = new long[0];
+    private long[] mRangeEnds = new long[0];
+    private int mRangeCount;
+
+    private int mSize;
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public boolean contains(@Nullable Object o) {
+        return o instanceof Long && containsKey((Long) o);
+    }
+
+    @Override
+    public boolean add(@NonNull Long key) {
+        return addKey(key);
+    }
+
+    @Override
+    public boolean remove(@Nullable Object o) {
+        return o instanceof Long && removeKey((Long) o);
+    }
+
+    @Override
+    public boolean addAll(@NonNull Collection<? extends Long> c) {
+        if (c instanceof LongKeySet) {
+            LongKeySet other = (LongKeySet) c;
+            if (isEmpty()) {
+                copyFrom(other);
+                return !other.isEmpty();
+            }
+            boolean modified = false;
+            for (int i = 0; i < other.mRangeCount; i++) {
+                final long start = other.mRangeStarts[i];
+                final long length = other.mRangeEnds[i] - start + 1;
+                for (long offset = 0; offset < length; offset++) {
+                    modified |= addKey(start + offset);
+                }
+            }
+            if (other.mHasFreeKey) {
+                modified |= addKey(FREE_KEY);
+            }
+            for (long key : other.mTable) {
+                if (key != FREE_KEY) {
+                    modified |= addKey(key);
+                }
+            }
+            return modified;
+        }
+        return super.addAll(c);
+    }
+
+    @Override
+    public void clear() {
+        if (mTable.length != MIN_TABLE_CAPACITY) {
+            mTable = new long[MIN_TABLE_CAPACITY];
+        } else {
+            Arrays.fill(mTable, FREE_KEY);
+        }
+        mHasFreeKey = false;
+        mTableSize = 0;
+        mRangeCount = 0;
+        mSize = 0;
+    }
+
+    @Override
+    public @NonNull Iterator<Long> iterator() {
+        return new KeyIterator();
+    }
+
+    @Override
+    public int hashCode() {
+        // Same as the sum of the Long.hashCode of each key, as specified by Set
+        int hashCode = 0;
+        for (int i = 0; i < mRangeCount; i++) {
+            final long start = mRangeStarts[i];
+            final long length = mRangeEnds[i] - start + 1;
+            for (long offset = 0; offset < length; offset++) {
+                final long key = start + offset;
+                hashCode += (int) (key ^ (key >>> 32));
+            }
+        }
+        for (long key : mTable) {
+            hashCode += (int) (key ^ (key >>> 32));
+        }
+        return hashCode;
+    }
+
+    /**
+     * @return a new array holding all keys, in unspecified order.
+     */
+    @NonNull
+    long[] toLongArray() {
+        long[] keys = new long[mSize];
+        int i = 0;
+        for (int r = 0; r < mRangeCount; r++) {
+            final long start = mRangeStarts[r];
+            final long length = mRangeEnds[r] - start + 1;
+            for (long offset = 0; offset < length; offset++) {
+                keys[i++] = start + offset;
+            }
+        }
+        if (mHasFreeKey) {
+            keys[i++] = FREE_KEY;
+        }
+        for (long key : mTable) {
+            if (key != FREE_KEY) {
+                keys[i++] = key;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return the number of ranges keys are compressed into.
+     */
+    int getRangeCount() {
+        return mRangeCount;
+    }
+
+    boolean containsKey(long key) {
+        return tableContains(key) || findRange(key) >= 0;
+    }
+
+    boolean addKey(long key) {
+        if (containsKey(key)) {
+            return false;
+        }
+        mSize++;
+
+        // Extend an adjacent range, if any. findRange returns the insertion point of key, so the
+        // candidates are the ranges right before and after it.
+        final int index = -(findRange(key) + 1);
+        final boolean extendsPrevious = index > 0 && mRangeEnds[index - 1] == key - 1;
+        final boolean extendsNext = index < mRangeCount && mRangeStarts[index] == key + 1;
+        if (extendsPrevious && extendsNext) {
+            mRangeEnds[index - 1] = mRangeEnds[index];
+            removeRange(index);
+            return true;
+        }
+        if (extendsPrevious) {
+            mRangeEnds[index - 1] = key;
+            absorbTableKeys(index - 1);
+            return true;
+        }
+        if (extendsNext) {
+            mRangeStarts[index] = key;
+            absorbTableKeys(index);
+            return true;
+        }
+
+        // Compress the run of table keys the new key belongs to once it is long enough. Runs in
+        // the table are always shorter than MIN_RANGE_LENGTH, so this is bounded.
+        long start = key;
+        while (start != Long.MIN_VALUE && tableContains(start - 1)) {
+            start--;
+        }
+        long end = key;
+        while (end != Long.MAX_VALUE && tableContains(end + 1)) {
+            end++;
+        }
+        if (end - start + 1 >= MIN_RANGE_LENGTH) {
+            for (long offset = 0; offset <= end - start; offset++) {
+                tableRemove(start + offset);
+            }
+            insertRange(index, start, end);
+        } else {
+            tableAdd(key);
+        }
+        return true;
+    }
+
+    boolean removeKey(long key) {
+        if (tableRemove(key)) {
+            mSize--;
+            return true;
+        }
+        final int index = findRange(key);
+        if (index < 0) {
+            return false;
+        }
+        mSize--;
+        final long start = mRangeStarts[index];
+        final long end = mRangeEnds[index];
+        if (start == end) {
+            removeRange(index);
+        } else if (key == start) {
+            mRangeStarts[index] = key + 1;
+        } else if (key == end) {
+            mRangeEnds[index] = key - 1;
+        } else {
+            mRangeEnds[index] = key - 1;
+            insertRange(index + 1, key + 1, end);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the table keys that became adjacent to the range at index into it. These can't
+     * reach the neighboring ranges, since no table key is adjacent to them.
+     */
+    private void absorbTableKeys(int index) {
+        long start = mRangeStarts[index];
+        while (start != Long.MIN_VALUE && tableRemove(start - 1)) {
+            start--;
+        }
+        mRangeStarts[index] = start;
+        long end = mRangeEnds[index];
+        while (end != Long.MAX_VALUE && tableRemove(end + 1)) {
+            end++;
+        }
+        mRangeEnds[index] = end;
+    }
+
+    private void copyFrom(@NonNull LongKeySet other) {
+        mTable = other.mTable.clone();
+        mHasFreeKey = other.mHasFreeKey;
+        mTableSize = other.mTableSize;
+        mRangeStarts = Arrays.copyOf(other.mRangeStarts, other.mRangeCount);
+        mRangeEnds = Arrays.copyOf(other.mRangeEnds, other.mRangeCount);
+        mRangeCount = other.mRangeCount;
+        mSize = other.mSize;
+    }
+
+    /**
+     * @return index of the range containing key, or (-(insertion point) - 1) if there is none.
+     */
+    private int findRange(long key) {
+        int low = 0;
+        int high = mRangeCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (mRangeEnds[mid] < key) {
+                low = mid + 1;
+            } else if (mRangeStarts[mid] > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void insertRange(int index, long start, long end) {
+        if (mRangeCount == mRangeStarts.length) {
+            final int capacity = Math.max(4, mRangeCount * 2);
+            mRangeStarts = Arrays.copyOf(mRangeStarts, capacity);
+            mRangeEnds = Arrays.copyOf(mRangeEnds, capacity);
+        }
+        System.arraycopy(mRangeStarts, index, mRangeStarts, index + 1, mRangeCount - index);
+        System.arraycopy(mRangeEnds, index, mRangeEnds, index + 1, mRangeCount - index);
+        mRangeStarts[index] = start;
+        mRangeEnds[index] = end;
+        mRangeCount++;
+    }
+
+    private void removeRange(int index) {
+        System.arraycopy(mRangeStarts, index + 1, mRangeStarts, index, mRangeCount - index - 1);
+        System.arraycopy(mRangeEnds, index + 1, mRangeEnds, index, mRangeCount - index - 1);
+        mRangeCount--;
+    }
+
+    private static int slot(long key, int mask) {
+        // Fibonacci hashing spreads consecutive keys across the table
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private boolean tableContains(long key) {
+        if (key == FREE_KEY) {
+            return mHasFreeKey;
+        }
+        final long[] table = mTable;
+        final int mask = table.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            final long candidate = table[i];
+            if (candidate == key) {
+                return true;
+            }
+            if (candidate == FREE_KEY) {
+                return false;
+            }
+        }
+    }
+
+    private void tableAdd(long key) {
+        mTableSize++;
+        if (key == FREE_KEY) {
+            mHasFreeKey = true;
+            return;
+        }
+        // Keep the load factor under 3/4
+        if (mTableSize * 4 > mTable.length * 3) {
+            resizeTable(mTable.length * 2);
+        }
+        insertIntoTable(mTable, key);
+    }
+
+    private static void insertIntoTable(long[] table, long key) {
+        final int mask = table.length - 1;
+        int i = slot(key, mask);
+        while (table[i] != FREE_KEY) {
+            i = (i + 1) & mask;
+        }
+        table[i] = key;
+    }
+
+    private boolean tableRemove(long key) {
+        if (key == FREE_KEY) {
+            if (!mHasFreeKey) {
+                return false;
+            }
+            mHasFreeKey = false;
+            mTableSize--;
+            return true;
+        }
+        final long[] table = mTable;
+        final int mask = table.length - 1;
+        int i = slot(key, mask);
+        while (table[i] != key) {
+            if (table[i] == FREE_KEY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        tableRemoveAt(i, null);
+        return true;
+    }
+
+    /**
+     * Removes the key in slot i of the table.
+     *
+     * @param iterator the iterator removing the key, if any, which is told about the keys moved
+     *                 to other slots.
+     */
+    private void tableRemoveAt(int i, @Nullable KeyIterator iterator) {
+        final long[] table = mTable;
+        final int mask = table.length - 1;
+        mTableSize--;
+
+        // Shift back the following keys of the probe sequence into the freed slot, so that
+        // lookups never need tombstones.
+        int free = i;
+        for (int j = (i + 1) & mask; table[j] != FREE_KEY; j = (j + 1) & mask) {
+            final int home = slot(table[j], mask);
+            // Move the key if its home slot isn't cyclically within (free, j]
+            if (free <= j ? (home <= free || home > j) : (home <= free && home > j)) {
+                if (iterator != null) {
+                    iterator.onKeyMoved(table[j], j, free);
+                }
+                table[free] = table[j];
+                free = j;
+            }
+        }
+        table[free] = FREE_KEY;
+    }
+
+    private void resizeTable(int capacity) {
+        final long[] oldTable = mTable;
+        final long[] table = new long[capacity];
+        for (long key : oldTable) {
+            if (key != FREE_KEY) {
+                insertIntoTable(table, key);
+            }
+        }
+        mTable = table;
+    }
+
+    /**
+     * Iterates over the ranges, then over the keys of the table, from its last slot to its first.
+     * Only the returned keys are boxed.
+     *
+     * <p>
+     * Removing a key of the table shifts back keys of its probe sequence, which may wrap around
+     * from the first slots, not visited yet, to the last ones, already visited. Such keys are set
+     * aside and returned once the table has been visited.
+     */
+    private final class KeyIterator implements Iterator<Long> {
+        private int mRange;
+        private long mNextInRange = mRangeCount > 0 ? mRangeStarts[0] : 0;
+        private boolean mFreeKeyPending = mHasFreeKey;
+        // Next slot of the table to visit, slots after it have been visited
+        private int mSlot = mTable.length - 1;
+        private int mRemaining = mSize;
+
+        // Keys moved from unvisited slots to visited ones
+        private long[] mMovedKeys;
+        private int mMovedKeyCount;
+
+        private boolean mCanRemove;
+        private long mLastKey;
+        // Whether the last key was returned from a range
+        private boolean mLastInRange;
+        // Slot of the last key in the table, or -1 if it wasn't returned from the table slots
+        private int mLastSlot = -1;
+
+        @Override
+        public boolean hasNext() {
+            return mRemaining > 0;
+        }
+
+        @Override
+        public Long next() {
+            if (mRemaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            mRemaining--;
+            mCanRemove = true;
+            mLastInRange = false;
+            mLastSlot = -1;
+            if (mRange < mRangeCount) {
+                final long key = mNextInRange;
+                if (key == mRangeEnds[mRange]) {
+                    mRange++;
+                    if (mRange < mRangeCount) {
+                        mNextInRange = mRangeStarts[mRange];
+                    }
+                } else {
+                    mNextInRange++;
+                }
+                mLastInRange = true;
+                mLastKey = key;
+                return key;
+            }
+            if (mFreeKeyPending) {
+                mFreeKeyPending = false;
+                mLastKey = FREE_KEY;
+                return FREE_KEY;
+            }
+            while (mSlot >= 0 && mTable[mSlot] == FREE_KEY) {
+                mSlot--;
+            }
+            if (mSlot >= 0) {
+                mLastSlot = mSlot;
+                mLastKey = mTable[mSlot--];
+                return mLastKey;
+            }
+            mLastKey = mMovedKeys[--mMovedKeyCount];
+            return mLastKey;
+        }
+
+        @Override
+        public void remove() {
+            if (!mCanRemove) {
+                throw new IllegalStateException();
+            }
+            mCanRemove = false;
+            if (mLastSlot >= 0) {
+                mSize--;
+                tableRemoveAt(mLastSlot, this);
+                return;
+            }
+            removeKey(mLastKey);
+            if (mLastInRange) {
+                // The range of the key was shrunk, split or removed. Continue with the first
+                // range after the key.
+                mRange = -(findRange(mLastKey) + 1);
+                if (mRange < mRangeCount) {
+                    mNextInRange = mRangeStarts[mRange];
+                }
+            }
+        }
+
+        void onKeyMoved(long key, int fromSlot, int toSlot) {
+            if (fromSlot <= mSlot && toSlot > mSlot) {
+                if (mMovedKeys == null) {
+                    mMovedKeys = new long[4];
+                } else if (mMovedKeyCount == mMovedKeys.length) {
+                    mMovedKeys = Arrays.copyOf(mMovedKeys, mMovedKeyCount * 2);
+                }
+                mMovedKeys[mMovedKeyCount++] = key;
+            }
+        }
+    }
+}
@@ -76,6 +76,14 @@ public class Selection<K> implements Iterable<K> {
         mProvisionalSelection = new LinkedHashSet<>();
     }
 
+    /**
+     * Used by {@link StorageStrategy} to back selections with storage specific to the key type.
+     */
+    Selection(@NonNull Set<K> selection, @NonNull Set<K> provisionalSelection) {
+        mSelection = selection;
+        mProvisionalSelection = provisionalSelection;
+    }
+
     /**
      * @return true if the position is currently selected.
      */
@@ -87,6 +95,10 @@ public class Selection<K> implements Iterable<K> {
      * Returns an {@link Iterator} that iterators over the selection, *excluding*
      * any provisional selection.
      *
+     * <p>
+     * Keys are returned in the order they were selected, except for selections of trackers
+     * using {@link StorageStrategy#createLongStorage()}, whose iteration order is unspecified.
+     *
      * {@inheritDoc}
      */
     @Override
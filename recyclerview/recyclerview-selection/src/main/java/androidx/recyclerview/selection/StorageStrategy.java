@@ -83,6 +83,20 @@ public abstract class StorageStrategy<K> {
         return mType.getCanonicalName();
     }
 
+    /**
+     * Creates an empty {@link Selection}, backed by storage suited to the key type.
+     */
+    @NonNull Selection<K> createSelection() {
+        return new Selection<>();
+    }
+
+    /**
+     * Creates an empty {@link MutableSelection}, backed by storage suited to the key type.
+     */
+    @NonNull MutableSelection<K> createMutableSelection() {
+        return new MutableSelection<>();
+    }
+
     /**
      * @return StorageStrategy suitable for use with {@link Parcelable} keys
      * (like {@link android.net.Uri}).
@@ -151,6 +165,16 @@ public abstract class StorageStrategy<K> {
             super(Long.class);
         }
 
+        @Override
+        @NonNull Selection<Long> createSelection() {
+            return new Selection<Long>(new LongKeySet(), new LongKeySet());
+        }
+
+        @Override
+        @NonNull MutableSelection<Long> createMutableSelection() {
+            return new MutableSelection<Long>(new LongKeySet(), new LongKeySet());
+        }
+
         @Override
         public @Nullable Selection<Long> asSelection(@NonNull Bundle state) {
             String keyType = state.getString(SELECTION_KEY_TYPE, null);
@@ -163,11 +187,11 @@ public abstract class StorageStrategy<K> {
                 return null;
             }
 
-            Selection<Long> selection = new Selection<>();
+            LongKeySet keys = new LongKeySet();
             for (long key : stored) {
-                selection.mSelection.add(key);
+                keys.addKey(key);
             }
-            return selection;
+            return new Selection<Long>(keys, new LongKeySet());
         }
 
         @Override
@@ -176,10 +200,15 @@ public abstract class StorageStrategy<K> {
             Bundle bundle = new Bundle();
             bundle.putString(SELECTION_KEY_TYPE, getKeyTypeName());
 
-            long[] value = new long[selection.size()];
-            int i = 0;
-            for (Long key : selection) {
-                value[i++] = key;
+            long[] value;
+            if (selection.mSelection instanceof LongKeySet) {
+                value = ((LongKeySet) selection.mSelection).toLongArray();
+            } else {
+                value = new long[selection.size()];
+                int i = 0;
+                for (Long key : selection) {
+                    value[i++] = key;
+                }
             }
             bundle.putLongArray(SELECTION_ENTRIES, value);
 
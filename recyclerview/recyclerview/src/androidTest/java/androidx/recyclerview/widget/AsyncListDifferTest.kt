@@ -22,6 +22,7 @@ import androidx.testutils.TestExecutor
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertNotSame
 import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
 import org.junit.Assert.fail
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -39,13 +40,16 @@ class AsyncListDifferTest {
     private val mBackgroundThread = TestExecutor()
 
     private fun createDiffer(
-        listUpdateCallback: ListUpdateCallback = IGNORE_CALLBACK
+        listUpdateCallback: ListUpdateCallback = IGNORE_CALLBACK,
+        diffCallback: DiffUtil.ItemCallback<String> = STRING_DIFF_CALLBACK,
+        coalesceSubmissions: Boolean = false
     ): AsyncListDiffer<String> {
         return AsyncListDiffer(
             listUpdateCallback,
-            AsyncDifferConfig.Builder(STRING_DIFF_CALLBACK)
+            AsyncDifferConfig.Builder(diffCallback)
                 .setMainThreadExecutor(mMainThread)
                 .setBackgroundThreadExecutor(mBackgroundThread)
+                .setCoalesceSubmissions(coalesceSubmissions)
                 .build()
         )
     }
@@ -346,6 +350,118 @@ class AsyncListDifferTest {
         verifyNoMoreInteractions(listener)
     }
 
+    @Test
+    fun supersededDiffCancelled() {
+        val comparedItems = mutableListOf<String>()
+        val diffCallback = object : DiffUtil.ItemCallback<String>() {
+            override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                comparedItems.add(newItem)
+                return STRING_DIFF_CALLBACK.areItemsTheSame(oldItem, newItem)
+            }
+
+            override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                return STRING_DIFF_CALLBACK.areContentsTheSame(oldItem, newItem)
+            }
+        }
+        val differ = createDiffer(diffCallback = diffCallback)
+        differ.submitList(listOf("a", "b"))
+        assertEquals(0, differ.submittedDiffCount)
+
+        val superseded = mock(Runnable::class.java)
+        val committed = mock(Runnable::class.java)
+        differ.submitList(listOf("x", "y"), superseded)
+        differ.submitList(listOf("a", "c"), committed)
+        drain()
+
+        // the first diff is abandoned before comparing any item
+        assertTrue(comparedItems.none { it == "x" || it == "y" })
+        assertEquals(listOf("a", "c"), differ.currentList)
+        verifyZeroInteractions(superseded)
+        verify(committed).run()
+        assertEquals(2, differ.submittedDiffCount)
+        assertEquals(1, differ.cancelledDiffCount)
+        assertEquals(1, differ.appliedDiffCount)
+    }
+
+    @Test
+    fun supersededWhileRunning() {
+        val differAccessor = arrayOf<AsyncListDiffer<String>?>(null)
+        val diffCallback = object : DiffUtil.ItemCallback<String>() {
+            override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                if (newItem == "x") {
+                    // a newer list arrives while this diff is running
+                    differAccessor[0]!!.submitList(listOf("a", "c"))
+                }
+                return STRING_DIFF_CALLBACK.areItemsTheSame(oldItem, newItem)
+            }
+
+            override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                return STRING_DIFF_CALLBACK.areContentsTheSame(oldItem, newItem)
+            }
+        }
+        val differ = createDiffer(diffCallback = diffCallback)
+        differAccessor[0] = differ
+        differ.submitList(listOf("a", "b"))
+
+        differ.submitList(listOf("x", "y"))
+        drain()
+
+        assertEquals(listOf("a", "c"), differ.currentList)
+        assertEquals(2, differ.submittedDiffCount)
+        assertEquals(1, differ.cancelledDiffCount)
+        assertEquals(1, differ.appliedDiffCount)
+    }
+
+    @Test
+    fun coalesceSubmissions() {
+        val callback = mock(ListUpdateCallback::class.java)
+        val differ = createDiffer(callback, coalesceSubmissions = true)
+        differ.submitList(listOf("a", "b"))
+        verify(callback).onInserted(0, 2)
+
+        val first = mock(Runnable::class.java)
+        val second = mock(Runnable::class.java)
+        val third = mock(Runnable::class.java)
+        differ.submitList(listOf("a", "b", "c"), first)
+        differ.submitList(listOf("a", "b", "c", "d"), second)
+        differ.submitList(listOf("a", "b", "c", "d", "e"), third)
+
+        // only the first diff is started, the latest list waits for it
+        var backgroundTasks = 0
+        while (mBackgroundThread.executeAll()) {
+            backgroundTasks++
+            mMainThread.executeAll()
+        }
+        assertEquals(2, backgroundTasks)
+
+        assertEquals(listOf("a", "b", "c", "d", "e"), differ.currentList)
+        verify(callback).onInserted(2, 3)
+        verifyNoMoreInteractions(callback)
+        verifyZeroInteractions(first, second)
+        verify(third).run()
+        assertEquals(3, differ.submittedDiffCount)
+        assertEquals(2, differ.cancelledDiffCount)
+        assertEquals(1, differ.appliedDiffCount)
+    }
+
+    @Test
+    fun coalesceSubmissionsFastPathDropsPending() {
+        val differ = createDiffer(coalesceSubmissions = true)
+        differ.submitList(listOf("a", "b"))
+
+        val pending = mock(Runnable::class.java)
+        differ.submitList(listOf("a", "c"))
+        differ.submitList(listOf("a", "d"), pending)
+        differ.submitList(null)
+        drain()
+
+        assertEquals(emptyList<String>(), differ.currentList)
+        verifyZeroInteractions(pending)
+        assertEquals(2, differ.submittedDiffCount)
+        assertEquals(2, differ.cancelledDiffCount)
+        assertEquals(0, differ.appliedDiffCount)
+    }
+
     private fun drain() {
         var executed: Boolean
         do {
@@ -23,7 +23,10 @@ import static org.junit.Assert.assertTrue;
 
 import android.content.Context;
 import android.os.Build;
+import android.view.View;
+import android.view.ViewGroup;
 
+import androidx.annotation.NonNull;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.SdkSuppress;
@@ -182,4 +185,129 @@ public class GapWorkerTest {
             recyclerView.onDetachedFromWindow();
         }
     }
+
+    @Test
+    public void preinflate() {
+        RecyclerView recyclerView = createPreinflateRecyclerView();
+        recyclerView.getRecycledViewPool().putRecycledView(
+                recyclerView.getAdapter().createViewHolder(recyclerView, 1));
+        recyclerView.preinflateViewHolders(1, 3);
+        recyclerView.preinflateViewHolders(2, 2);
+        assertTrue(recyclerView.hasPendingPreinflation());
+
+        GapWorker gapWorker = new GapWorker();
+        assertFalse(gapWorker.preinflateWithDeadline(recyclerView, RecyclerView.FOREVER_NS));
+
+        assertFalse(recyclerView.hasPendingPreinflation());
+        assertEquals(3, recyclerView.getRecycledViewPool().getRecycledViewCount(1));
+        assertEquals(2, recyclerView.getRecycledViewPool().getRecycledViewCount(2));
+        assertEquals(4, recyclerView.getPreinflatedViewHolderCount());
+    }
+
+    @Test
+    public void preinflateCancel() {
+        RecyclerView recyclerView = createPreinflateRecyclerView();
+        recyclerView.preinflateViewHolders(1, 3);
+        recyclerView.preinflateViewHolders(1, 0);
+
+        assertFalse(recyclerView.hasPendingPreinflation());
+    }
+
+    @Test
+    public void preinflateBoundedByPoolCapacity() {
+        RecyclerView recyclerView = createPreinflateRecyclerView();
+        recyclerView.getRecycledViewPool().setMaxRecycledViews(1, 2);
+        recyclerView.preinflateViewHolders(1, 10);
+
+        GapWorker gapWorker = new GapWorker();
+        assertFalse(gapWorker.preinflateWithDeadline(recyclerView, RecyclerView.FOREVER_NS));
+
+        assertEquals(2, recyclerView.getRecycledViewPool().getRecycledViewCount(1));
+        assertEquals(2, recyclerView.getPreinflatedViewHolderCount());
+    }
+
+    @Test
+    public void preinflateBoundedByRequestWhenPoolDiscards() {
+        RecyclerView recyclerView = createPreinflateRecyclerView();
+        recyclerView.setRecycledViewPool(new RecyclerView.RecycledViewPool() {
+            @Override
+            public void putRecycledView(RecyclerView.ViewHolder scrap) {
+                // drop on floor
+            }
+        });
+        recyclerView.preinflateViewHolders(1, 3);
+
+        GapWorker gapWorker = new GapWorker();
+        assertFalse(gapWorker.preinflateWithDeadline(recyclerView, RecyclerView.FOREVER_NS));
+
+        assertEquals(3, recyclerView.getPreinflatedViewHolderCount());
+    }
+
+    @Test
+    public void preinflateRespectsDeadline() {
+        RecyclerView recyclerView = createPreinflateRecyclerView();
+        recyclerView.getRecycledViewPool().factorInCreateTime(1, 1_000_000);
+        recyclerView.preinflateViewHolders(1, 3);
+
+        GapWorker gapWorker = new GapWorker();
+        gapWorker.mFrameIntervalNs = 16_000_000;
+        assertTrue(gapWorker.preinflateWithDeadline(recyclerView, recyclerView.getNanoTime()));
+
+        assertTrue(recyclerView.hasPendingPreinflation());
+        assertEquals(0, recyclerView.getRecycledViewPool().getRecycledViewCount(1));
+        assertEquals(0, recyclerView.getPreinflatedViewHolderCount());
+        assertEquals(0, recyclerView.getPreinflationTimeNanos());
+    }
+
+    @Test
+    public void preinflateWithoutAdapter() {
+        RecyclerView recyclerView = new RecyclerView(getContext());
+        recyclerView.preinflateViewHolders(1, 3);
+
+        GapWorker gapWorker = new GapWorker();
+        // no progress can be made without an adapter, so it doesn't count as pending work
+        assertFalse(gapWorker.preinflateWithDeadline(recyclerView, RecyclerView.FOREVER_NS));
+        assertTrue(recyclerView.hasPendingPreinflation());
+        assertEquals(0, recyclerView.getPreinflatedViewHolderCount());
+    }
+
+    @Test
+    public void preinflateLongerThanFrameCreatesOnePerCall() {
+        RecyclerView recyclerView = createPreinflateRecyclerView();
+        recyclerView.getRecycledViewPool().factorInCreateTime(1, 100_000_000);
+        recyclerView.preinflateViewHolders(1, 3);
+
+        GapWorker gapWorker = new GapWorker();
+        gapWorker.mFrameIntervalNs = 16_000_000;
+        // the view type never fits in a frame, so one is created per call to make progress
+        assertTrue(gapWorker.preinflateWithDeadline(recyclerView, recyclerView.getNanoTime()));
+        assertEquals(1, recyclerView.getPreinflatedViewHolderCount());
+        assertTrue(gapWorker.preinflateWithDeadline(recyclerView, recyclerView.getNanoTime()));
+        assertEquals(2, recyclerView.getPreinflatedViewHolderCount());
+        assertFalse(gapWorker.preinflateWithDeadline(recyclerView, recyclerView.getNanoTime()));
+        assertEquals(3, recyclerView.getPreinflatedViewHolderCount());
+        assertFalse(recyclerView.hasPendingPreinflation());
+    }
+
+    private RecyclerView createPreinflateRecyclerView() {
+        RecyclerView recyclerView = new RecyclerView(getContext());
+        recyclerView.setAdapter(new RecyclerView.Adapter<RecyclerView.ViewHolder>() {
+            @NonNull
+            @Override
+            public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent,
+                    int viewType) {
+                return new RecyclerView.ViewHolder(new View(parent.getContext())) {};
+            }
+
+            @Override
+            public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+            }
+
+            @Override
+            public int getItemCount() {
+                return 0;
+            }
+        });
+        return recyclerView;
+    }
 }
@@ -19,10 +19,13 @@ package androidx.recyclerview.widget;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.view.View;
 import android.view.ViewGroup;
@@ -138,6 +141,155 @@ public class RecycledViewPoolTest {
         assertThat(pool.getRecycledViewCount(1), is(equalTo(clears ? 0 : 1)));
     }
 
+    @Test
+    public void adaptiveSizing_disabledByDefault() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        assertFalse(pool.isAdaptiveSizingEnabled());
+        pool.factorInCreateTime(0, 2_000_000);
+
+        churn(pool, 0);
+        churn(pool, 0);
+
+        assertEquals(5, pool.getMaxRecycledViews(0));
+    }
+
+    @Test
+    public void adaptiveSizing_growsOnChurn() {
+        RecyclerView.RecycledViewPool pool = createAdaptivePool(2_000_000);
+
+        // filling the pool without needing the discarded holder again doesn't grow it
+        fill(pool, 0, 6);
+        assertEquals(5, pool.getRecycledViewCount(0));
+        assertEquals(5, pool.getMaxRecycledViews(0));
+
+        churn(pool, 0);
+        assertEquals(6, pool.getMaxRecycledViews(0));
+        fill(pool, 0, 6);
+        assertEquals(6, pool.getRecycledViewCount(0));
+    }
+
+    @Test
+    public void adaptiveSizing_growthBoundedByCreateCost() {
+        RecyclerView.RecycledViewPool pool = createAdaptivePool(500_000);
+        pool.factorInCreateTime(1, 100_000);
+        for (int i = 0; i < 5; i++) {
+            churn(pool, 0);
+            churn(pool, 1);
+        }
+
+        assertEquals(7, pool.getMaxRecycledViews(0));
+        // too cheap to be worth pooling more
+        assertEquals(5, pool.getMaxRecycledViews(1));
+    }
+
+    @Test
+    public void adaptiveSizing_growsFasterWhileFlinging() {
+        RecyclerView.RecycledViewPool pool = createAdaptivePool(2_000_000);
+        pool.onFling(12000);
+
+        churn(pool, 0);
+
+        assertEquals(8, pool.getMaxRecycledViews(0));
+    }
+
+    @Test
+    public void adaptiveSizing_respectsDisabledType() {
+        RecyclerView.RecycledViewPool pool = createAdaptivePool(2_000_000);
+        pool.setMaxRecycledViews(0, 0);
+
+        churn(pool, 0);
+
+        assertEquals(0, pool.getMaxRecycledViews(0));
+    }
+
+    @Test
+    public void adaptiveSizing_shrinksUnusedCapacityWhenIdle() {
+        RecyclerView.RecycledViewPool pool = createAdaptivePool(2_000_000);
+        RecyclerView first = new RecyclerView(ApplicationProvider.getApplicationContext());
+        RecyclerView second = new RecyclerView(ApplicationProvider.getApplicationContext());
+        churn(pool, 0);
+        churn(pool, 0);
+        churn(pool, 0);
+        assertEquals(8, pool.getMaxRecycledViews(0));
+        scroll(pool, first);
+
+        // only 2 of the 8 pooled holders are used during the next scroll
+        fill(pool, 0, 8);
+        pool.onScrollStateChanged(first, RecyclerView.SCROLL_STATE_DRAGGING);
+        pool.onScrollStateChanged(second, RecyclerView.SCROLL_STATE_SETTLING);
+        RecyclerView.ViewHolder a = pool.getRecycledView(0);
+        RecyclerView.ViewHolder b = pool.getRecycledView(0);
+        pool.putRecycledView(a);
+        pool.putRecycledView(b);
+        pool.onScrollStateChanged(first, RecyclerView.SCROLL_STATE_IDLE);
+        assertEquals(8, pool.getMaxRecycledViews(0));
+        pool.onScrollStateChanged(second, RecyclerView.SCROLL_STATE_IDLE);
+
+        assertEquals(5, pool.getMaxRecycledViews(0));
+        assertEquals(5, pool.getRecycledViewCount(0));
+    }
+
+    @Test
+    public void adaptiveSizing_disable() {
+        RecyclerView.RecycledViewPool pool = createAdaptivePool(2_000_000);
+        churn(pool, 0);
+        fill(pool, 0, 6);
+
+        pool.setAdaptiveSizingEnabled(false);
+
+        assertFalse(pool.isAdaptiveSizingEnabled());
+        assertEquals(5, pool.getMaxRecycledViews(0));
+        assertEquals(5, pool.getRecycledViewCount(0));
+    }
+
+    @Test
+    public void onTrimMemory() {
+        RecyclerView.RecycledViewPool pool = createAdaptivePool(2_000_000);
+        churn(pool, 0);
+        fill(pool, 0, 6);
+        fill(pool, 1, 1);
+
+        pool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals(6, pool.getRecycledViewCount(0));
+
+        pool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertTrue(pool.isAdaptiveSizingEnabled());
+        assertEquals(5, pool.getMaxRecycledViews(0));
+        assertEquals(5, pool.getRecycledViewCount(0));
+        assertEquals(1, pool.getRecycledViewCount(1));
+
+        pool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertEquals(0, pool.size());
+    }
+
+    private static RecyclerView.RecycledViewPool createAdaptivePool(long createTimeNs) {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setAdaptiveSizingEnabled(true);
+        pool.factorInCreateTime(0, createTimeNs);
+        return pool;
+    }
+
+    private void fill(RecyclerView.RecycledViewPool pool, int viewType, int count) {
+        for (int i = 0; i < count; i++) {
+            pool.putRecycledView(makeHolder(viewType));
+        }
+    }
+
+    /**
+     * Overflows the pool for the given type, then drains it until the discarded holder is missed.
+     */
+    private void churn(RecyclerView.RecycledViewPool pool, int viewType) {
+        fill(pool, viewType, pool.getMaxRecycledViews(viewType) + 1);
+        while (pool.getRecycledView(viewType) != null) {
+            // drain
+        }
+    }
+
+    private static void scroll(RecyclerView.RecycledViewPool pool, RecyclerView recyclerView) {
+        pool.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_DRAGGING);
+        pool.onScrollStateChanged(recyclerView, RecyclerView.SCROLL_STATE_IDLE);
+    }
+
     private static class MockViewHolder extends RecyclerView.ViewHolder {
         MockViewHolder(Context context) {
             super(new View(context));
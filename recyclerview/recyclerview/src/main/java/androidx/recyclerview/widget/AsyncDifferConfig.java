@@ -39,15 +39,18 @@ public final class AsyncDifferConfig<T> {
     private final Executor mBackgroundThreadExecutor;
     @NonNull
     private final DiffUtil.ItemCallback<T> mDiffCallback;
+    private final boolean mCoalesceSubmissions;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     AsyncDifferConfig(
             @Nullable Executor mainThreadExecutor,
             @NonNull Executor backgroundThreadExecutor,
-            @NonNull DiffUtil.ItemCallback<T> diffCallback) {
+            @NonNull DiffUtil.ItemCallback<T> diffCallback,
+            boolean coalesceSubmissions) {
         mMainThreadExecutor = mainThreadExecutor;
         mBackgroundThreadExecutor = backgroundThreadExecutor;
         mDiffCallback = diffCallback;
+        mCoalesceSubmissions = coalesceSubmissions;
     }
 
     /** @hide */
@@ -70,6 +73,15 @@ public final class AsyncDifferConfig<T> {
         return mDiffCallback;
     }
 
+    /**
+     * Returns whether lists submitted while a diff is running are coalesced into a single diff.
+     *
+     * @see Builder#setCoalesceSubmissions(boolean)
+     */
+    public boolean shouldCoalesceSubmissions() {
+        return mCoalesceSubmissions;
+    }
+
     /**
      * Builder class for {@link AsyncDifferConfig}.
      *
@@ -80,6 +92,7 @@ public final class AsyncDifferConfig<T> {
         private Executor mMainThreadExecutor;
         private Executor mBackgroundThreadExecutor;
         private final DiffUtil.ItemCallback<T> mDiffCallback;
+        private boolean mCoalesceSubmissions;
 
         public Builder(@NonNull DiffUtil.ItemCallback<T> diffCallback) {
             mDiffCallback = diffCallback;
@@ -120,6 +133,26 @@ public final class AsyncDifferConfig<T> {
             return this;
         }
 
+        /**
+         * Sets whether to coalesce the lists submitted while a diff is running.
+         * <p>
+         * When enabled, at most one diff runs at a time. Lists submitted meanwhile are not diffed
+         * on their own: once the running diff finishes, a single diff is calculated against the
+         * latest of them, and the others are dropped along with their commit callbacks. This
+         * avoids queueing up diffs when lists are submitted in bursts, for example on every
+         * keystroke of a search box.
+         * <p>
+         * Defaults to {@code false}.
+         *
+         * @param coalesceSubmissions Whether to coalesce submitted lists.
+         * @return this
+         */
+        @NonNull
+        public Builder<T> setCoalesceSubmissions(boolean coalesceSubmissions) {
+            mCoalesceSubmissions = coalesceSubmissions;
+            return this;
+        }
+
         /**
          * Creates a {@link AsyncListDiffer} with the given parameters.
          *
@@ -138,7 +171,8 @@ public final class AsyncDifferConfig<T> {
             return new AsyncDifferConfig<>(
                     mMainThreadExecutor,
                     mBackgroundThreadExecutor,
-                    mDiffCallback);
+                    mDiffCallback,
+                    mCoalesceSubmissions);
         }
 
         // TODO: remove the below once supportlib has its own appropriate executors
@@ -196,9 +196,21 @@ public class AsyncListDiffer<T> {
     @NonNull
     private List<T> mReadOnlyList = Collections.emptyList();
 
-    // Max generation of currently scheduled runnable
+    // Max generation of currently scheduled runnable. Volatile, since it is also read by running
+    // diffs on the background thread to notice that they have been superseded.
     @SuppressWarnings("WeakerAccess") /* synthetic access */
-    int mMaxScheduledGeneration;
+    volatile int mMaxScheduledGeneration;
+
+    // Number of diffs started on the background executor whose result hasn't been handled yet
+    private int mRunningDiffCount;
+
+    // Latest submission waiting for the running diff to finish, when coalescing submissions
+    @Nullable
+    private PendingDiff<T> mPendingDiff;
+
+    private int mSubmittedDiffCount;
+    private int mCancelledDiffCount;
+    private int mAppliedDiffCount;
 
     /**
      * Get the current List - any diffing to present this list has already been computed and
@@ -250,9 +262,15 @@ public class AsyncListDiffer<T> {
     @SuppressWarnings("WeakerAccess")
     public void submitList(@Nullable final List<T> newList,
             @Nullable final Runnable commitCallback) {
-        // incrementing generation means any currently-running diffs are discarded when they finish
+        // incrementing generation means any currently-running diffs are cancelled
         final int runGeneration = ++mMaxScheduledGeneration;
 
+        if (mPendingDiff != null) {
+            // superseded before it even started
+            mPendingDiff = null;
+            mCancelledDiffCount++;
+        }
+
         if (newList == mList) {
             // nothing to do (Note - still had to inc generation, since may have ongoing work)
             if (commitCallback != null) {
@@ -285,77 +303,129 @@ public class AsyncListDiffer<T> {
             return;
         }
 
+        mSubmittedDiffCount++;
+        if (mConfig.shouldCoalesceSubmissions() && mRunningDiffCount > 0) {
+            // the running diff has just been cancelled, diff against this list once it returns
+            mPendingDiff = new PendingDiff<>(newList, commitCallback, runGeneration);
+            return;
+        }
+        startDiff(newList, commitCallback, runGeneration);
+    }
+
+    private void startDiff(@NonNull final List<T> newList,
+            @Nullable final Runnable commitCallback, final int runGeneration) {
         final List<T> oldList = mList;
+        mRunningDiffCount++;
         mConfig.getBackgroundThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
-                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                DiffUtil.DiffResult diffResult;
+                try {
+                    diffResult = calculateDiff(oldList, newList, runGeneration);
+                } catch (DiffCancelledException e) {
+                    diffResult = null;
+                }
+                final DiffUtil.DiffResult result = diffResult;
+                mMainThreadExecutor.execute(new Runnable() {
                     @Override
-                    public int getOldListSize() {
-                        return oldList.size();
+                    public void run() {
+                        onDiffFinished(newList, result, commitCallback, runGeneration);
                     }
+                });
+            }
+        });
+    }
 
-                    @Override
-                    public int getNewListSize() {
-                        return newList.size();
-                    }
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    @NonNull
+    DiffUtil.DiffResult calculateDiff(@NonNull final List<T> oldList,
+            @NonNull final List<T> newList, final int runGeneration) {
+        return DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
 
-                    @Override
-                    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-                        T oldItem = oldList.get(oldItemPosition);
-                        T newItem = newList.get(newItemPosition);
-                        if (oldItem != null && newItem != null) {
-                            return mConfig.getDiffCallback().areItemsTheSame(oldItem, newItem);
-                        }
-                        // If both items are null we consider them the same.
-                        return oldItem == null && newItem == null;
-                    }
+            @Override
+            public int getNewListSize() {
+                return newList.size();
+            }
 
-                    @Override
-                    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-                        T oldItem = oldList.get(oldItemPosition);
-                        T newItem = newList.get(newItemPosition);
-                        if (oldItem != null && newItem != null) {
-                            return mConfig.getDiffCallback().areContentsTheSame(oldItem, newItem);
-                        }
-                        if (oldItem == null && newItem == null) {
-                            return true;
-                        }
-                        // There is an implementation bug if we reach this point. Per the docs, this
-                        // method should only be invoked when areItemsTheSame returns true. That
-                        // only occurs when both items are non-null or both are null and both of
-                        // those cases are handled above.
-                        throw new AssertionError();
-                    }
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                throwIfCancelled(runGeneration);
+                T oldItem = oldList.get(oldItemPosition);
+                T newItem = newList.get(newItemPosition);
+                if (oldItem != null && newItem != null) {
+                    return mConfig.getDiffCallback().areItemsTheSame(oldItem, newItem);
+                }
+                // If both items are null we consider them the same.
+                return oldItem == null && newItem == null;
+            }
 
-                    @Nullable
-                    @Override
-                    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
-                        T oldItem = oldList.get(oldItemPosition);
-                        T newItem = newList.get(newItemPosition);
-                        if (oldItem != null && newItem != null) {
-                            return mConfig.getDiffCallback().getChangePayload(oldItem, newItem);
-                        }
-                        // There is an implementation bug if we reach this point. Per the docs, this
-                        // method should only be invoked when areItemsTheSame returns true AND
-                        // areContentsTheSame returns false. That only occurs when both items are
-                        // non-null which is the only case handled above.
-                        throw new AssertionError();
-                    }
-                });
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                throwIfCancelled(runGeneration);
+                T oldItem = oldList.get(oldItemPosition);
+                T newItem = newList.get(newItemPosition);
+                if (oldItem != null && newItem != null) {
+                    return mConfig.getDiffCallback().areContentsTheSame(oldItem, newItem);
+                }
+                if (oldItem == null && newItem == null) {
+                    return true;
+                }
+                // There is an implementation bug if we reach this point. Per the docs, this
+                // method should only be invoked when areItemsTheSame returns true. That
+                // only occurs when both items are non-null or both are null and both of
+                // those cases are handled above.
+                throw new AssertionError();
+            }
 
-                mMainThreadExecutor.execute(new Runnable() {
-                    @Override
-                    public void run() {
-                        if (mMaxScheduledGeneration == runGeneration) {
-                            latchList(newList, result, commitCallback);
-                        }
-                    }
-                });
+            @Nullable
+            @Override
+            public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+                T oldItem = oldList.get(oldItemPosition);
+                T newItem = newList.get(newItemPosition);
+                if (oldItem != null && newItem != null) {
+                    return mConfig.getDiffCallback().getChangePayload(oldItem, newItem);
+                }
+                // There is an implementation bug if we reach this point. Per the docs, this
+                // method should only be invoked when areItemsTheSame returns true AND
+                // areContentsTheSame returns false. That only occurs when both items are
+                // non-null which is the only case handled above.
+                throw new AssertionError();
             }
         });
     }
 
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void throwIfCancelled(int runGeneration) {
+        if (mMaxScheduledGeneration != runGeneration) {
+            throw DiffCancelledException.INSTANCE;
+        }
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void onDiffFinished(
+            @NonNull List<T> newList,
+            @Nullable DiffUtil.DiffResult diffResult,
+            @Nullable Runnable commitCallback,
+            int runGeneration) {
+        mRunningDiffCount--;
+        if (diffResult != null && mMaxScheduledGeneration == runGeneration) {
+            mAppliedDiffCount++;
+            latchList(newList, diffResult, commitCallback);
+        } else {
+            mCancelledDiffCount++;
+        }
+        final PendingDiff<T> pendingDiff = mPendingDiff;
+        if (pendingDiff != null && mRunningDiffCount == 0) {
+            mPendingDiff = null;
+            startDiff(pendingDiff.mNewList, pendingDiff.mCommitCallback,
+                    pendingDiff.mGeneration);
+        }
+    }
+
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     void latchList(
             @NonNull List<T> newList,
@@ -369,6 +439,42 @@ public class AsyncListDiffer<T> {
         onCurrentListChanged(previousList, commitCallback);
     }
 
+    /**
+     * Returns the number of diffs that had to be calculated on the background thread, since this
+     * AsyncListDiffer was created.
+     * <p>
+     * Submissions handled immediately, such as the first list, a <code>null</code> list or the
+     * current list, aren't counted. Every submitted diff is eventually either
+     * {@link #getAppliedDiffCount() applied} or {@link #getCancelledDiffCount() cancelled}.
+     *
+     * @return Number of submitted diffs.
+     */
+    public int getSubmittedDiffCount() {
+        return mSubmittedDiffCount;
+    }
+
+    /**
+     * Returns the number of submitted diffs that were dropped because a newer list was submitted,
+     * either while they were running or before they started.
+     *
+     * @return Number of cancelled diffs.
+     * @see #getSubmittedDiffCount()
+     */
+    public int getCancelledDiffCount() {
+        return mCancelledDiffCount;
+    }
+
+    /**
+     * Returns the number of submitted diffs whose result was dispatched to the
+     * {@link ListUpdateCallback}.
+     *
+     * @return Number of applied diffs.
+     * @see #getSubmittedDiffCount()
+     */
+    public int getAppliedDiffCount() {
+        return mAppliedDiffCount;
+    }
+
     private void onCurrentListChanged(@NonNull List<T> previousList,
             @Nullable Runnable commitCallback) {
         // current list is always mReadOnlyList
@@ -380,6 +486,33 @@ public class AsyncListDiffer<T> {
         }
     }
 
+    private static final class PendingDiff<T> {
+        @NonNull
+        final List<T> mNewList;
+        @Nullable
+        final Runnable mCommitCallback;
+        final int mGeneration;
+
+        PendingDiff(@NonNull List<T> newList, @Nullable Runnable commitCallback, int generation) {
+            mNewList = newList;
+            mCommitCallback = commitCallback;
+            mGeneration = generation;
+        }
+    }
+
+    /**
+     * Thrown from the diff callback to unwind a diff that has been superseded by a newer list.
+     * Shared and stackless, as it never escapes the background runnable.
+     */
+    private static final class DiffCancelledException extends RuntimeException {
+        static final DiffCancelledException INSTANCE = new DiffCancelledException();
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
     /**
      * Add a ListListener to receive updates when the current List changes.
      *
@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
@@ -75,6 +76,10 @@ import java.util.List;
  * </ul>
  * <p>
  * Due to implementation constraints, the max size of the list can be 2^26.
+ * <p>
+ * For large lists whose items have stable keys, {@link #calculateKeyedDiff(KeyedCallback)}
+ * matches items by key in linear expected time instead, at the cost of not always finding the
+ * minimal number of updates.
  *
  * @see ListAdapter
  * @see AsyncListDiffer
@@ -91,6 +96,9 @@ public class DiffUtil {
         }
     };
 
+    // Marks a key that more than one item of a list has.
+    private static final int DUPLICATE_KEY = -1;
+
     // Myers' algorithm uses two lists as axis labels. In DiffUtil's implementation, `x` axis is
     // used for old list and `y` axis is used for new list.
 
@@ -179,6 +187,192 @@ public class DiffUtil {
                 detectMoves);
     }
 
+    /**
+     * Calculates the list of update operations that can convert one list into the other one, by
+     * matching items through their keys.
+     *
+     * @param cb The callback that acts as a gateway to the backing list data
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     * @see #calculateKeyedDiff(KeyedCallback, boolean)
+     */
+    @NonNull
+    public static DiffResult calculateKeyedDiff(@NonNull KeyedCallback cb) {
+        return calculateKeyedDiff(cb, true);
+    }
+
+    /**
+     * Calculates the list of update operations that can convert one list into the other one, by
+     * matching items through their keys.
+     * <p>
+     * Items whose key is unique in both lists are paired first. The longest sequence of pairs
+     * that keeps its order in both lists stays in place, and the other pairs are moves. Items
+     * next to a pair are then compared with {@link KeyedCallback#areItemsTheSame(int, int)},
+     * which lets items with duplicate or {@code null} keys stay in place too. Any other item is
+     * removed or added.
+     * <p>
+     * This takes O(N log N) time in the worst case where N is the size of the lists, and close
+     * to O(N) when most items keep their order. Unlike {@link #calculateDiff(Callback, boolean)},
+     * the number of updates is not always minimal when keys are duplicated.
+     *
+     * @param cb          The callback that acts as a gateway to the backing list data
+     * @param detectMoves True if DiffUtil should dispatch moves for items whose position changed,
+     *                    false to dispatch them as a removal and an addition.
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     */
+    @NonNull
+    public static DiffResult calculateKeyedDiff(@NonNull KeyedCallback cb, boolean detectMoves) {
+        final int oldSize = cb.getOldListSize();
+        final int newSize = cb.getNewListSize();
+
+        // positions of the items that stay in place in the other list
+        final int[] oldToNew = new int[oldSize];
+        final int[] newToOld = new int[newSize];
+        Arrays.fill(oldToNew, DiffResult.NO_POSITION);
+        Arrays.fill(newToOld, DiffResult.NO_POSITION);
+        // positions of the items that move in the new list
+        final int[] oldMoves = new int[oldSize];
+        final boolean[] newMoved = new boolean[newSize];
+        Arrays.fill(oldMoves, DiffResult.NO_POSITION);
+
+        // Pair the items whose key is unique in both lists, in the order of the new list.
+        final HashMap<Object, Integer> oldPositions = mapUniqueKeys(cb, oldSize, true);
+        final HashMap<Object, Integer> newPositions = mapUniqueKeys(cb, newSize, false);
+        final int[] pairOld = new int[Math.min(oldSize, newSize)];
+        final int[] pairNew = new int[pairOld.length];
+        int pairCount = 0;
+        for (int newPos = 0; newPos < newSize; newPos++) {
+            final Object key = cb.getNewItemKey(newPos);
+            if (key == null) {
+                continue;
+            }
+            final Integer uniqueNewPos = newPositions.get(key);
+            final Integer oldPos = oldPositions.get(key);
+            if (uniqueNewPos != null && uniqueNewPos == newPos
+                    && oldPos != null && oldPos != DUPLICATE_KEY) {
+                pairOld[pairCount] = oldPos;
+                pairNew[pairCount] = newPos;
+                pairCount++;
+            }
+        }
+
+        // The longest increasing subsequence of old positions stays in place.
+        final int[] tails = new int[pairCount];
+        final int[] previous = new int[pairCount];
+        int length = 0;
+        for (int pair = 0; pair < pairCount; pair++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (pairOld[tails[mid]] < pairOld[pair]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[pair] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = pair;
+            if (low == length) {
+                length++;
+            }
+        }
+        for (int pair = length > 0 ? tails[length - 1] : -1; pair != -1; pair = previous[pair]) {
+            oldToNew[pairOld[pair]] = pairNew[pair];
+            newToOld[pairNew[pair]] = pairOld[pair];
+        }
+        for (int pair = 0; pair < pairCount; pair++) {
+            if (oldToNew[pairOld[pair]] == DiffResult.NO_POSITION) {
+                oldMoves[pairOld[pair]] = pairNew[pair];
+                newMoved[pairNew[pair]] = true;
+            }
+        }
+
+        // Extend the matches forward and backward to the unpaired items next to them.
+        for (int oldPos = -1; oldPos < oldSize; oldPos++) {
+            if (oldPos >= 0 && oldToNew[oldPos] == DiffResult.NO_POSITION) {
+                continue;
+            }
+            int newPos = oldPos >= 0 ? oldToNew[oldPos] : -1;
+            while (oldPos + 1 < oldSize && newPos + 1 < newSize
+                    && isUnmatched(oldPos + 1, newPos + 1, oldToNew, newToOld, oldMoves, newMoved)
+                    && cb.areItemsTheSame(oldPos + 1, newPos + 1)) {
+                oldPos++;
+                newPos++;
+                oldToNew[oldPos] = newPos;
+                newToOld[newPos] = oldPos;
+            }
+        }
+        for (int oldPos = oldSize; oldPos >= 0; oldPos--) {
+            if (oldPos < oldSize && oldToNew[oldPos] == DiffResult.NO_POSITION) {
+                continue;
+            }
+            int newPos = oldPos < oldSize ? oldToNew[oldPos] : newSize;
+            while (oldPos > 0 && newPos > 0
+                    && isUnmatched(oldPos - 1, newPos - 1, oldToNew, newToOld, oldMoves, newMoved)
+                    && cb.areItemsTheSame(oldPos - 1, newPos - 1)) {
+                oldPos--;
+                newPos--;
+                oldToNew[oldPos] = newPos;
+                newToOld[newPos] = oldPos;
+            }
+        }
+
+        // Items that stay in place form the diagonals, already sorted by old position.
+        final List<Diagonal> diagonals = new ArrayList<>();
+        int diagonalX = 0;
+        int diagonalY = 0;
+        int diagonalSize = 0;
+        for (int oldPos = 0; oldPos < oldSize; oldPos++) {
+            final int newPos = oldToNew[oldPos];
+            if (newPos == DiffResult.NO_POSITION) {
+                continue;
+            }
+            if (diagonalSize > 0 && oldPos == diagonalX + diagonalSize
+                    && newPos == diagonalY + diagonalSize) {
+                diagonalSize++;
+            } else {
+                if (diagonalSize > 0) {
+                    diagonals.add(new Diagonal(diagonalX, diagonalY, diagonalSize));
+                }
+                diagonalX = oldPos;
+                diagonalY = newPos;
+                diagonalSize = 1;
+            }
+        }
+        if (diagonalSize > 0) {
+            diagonals.add(new Diagonal(diagonalX, diagonalY, diagonalSize));
+        }
+
+        return new DiffResult(cb, diagonals, new int[oldSize], new int[newSize], detectMoves,
+                oldMoves);
+    }
+
+    /**
+     * Maps the keys of the items of the old or new list to their position, or to
+     * {@link #DUPLICATE_KEY} if several items have the same key.
+     */
+    private static HashMap<Object, Integer> mapUniqueKeys(KeyedCallback cb, int size,
+            boolean oldList) {
+        final HashMap<Object, Integer> positions = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+        for (int pos = 0; pos < size; pos++) {
+            final Object key = oldList ? cb.getOldItemKey(pos) : cb.getNewItemKey(pos);
+            if (key != null && positions.put(key, pos) != null) {
+                positions.put(key, DUPLICATE_KEY);
+            }
+        }
+        return positions;
+    }
+
+    private static boolean isUnmatched(int oldPos, int newPos, int[] oldToNew, int[] newToOld,
+            int[] oldMoves, boolean[] newMoved) {
+        return oldToNew[oldPos] == DiffResult.NO_POSITION
+                && oldMoves[oldPos] == DiffResult.NO_POSITION
+                && newToOld[newPos] == DiffResult.NO_POSITION
+                && !newMoved[newPos];
+    }
+
     /**
      * Finds a middle snake in the given range.
      */
@@ -397,6 +591,43 @@ public class DiffUtil {
         }
     }
 
+    /**
+     * A {@link Callback} whose items can be identified by a stable key, used by
+     * {@link DiffUtil#calculateKeyedDiff(KeyedCallback, boolean)}.
+     * <p>
+     * Keys are compared with {@link Object#equals(Object)} and {@link Object#hashCode()}. An item
+     * with a {@code null} key is only matched if {@link #areItemsTheSame(int, int)} returns
+     * {@code true} for it and an item next to its match.
+     */
+    public abstract static class KeyedCallback extends Callback {
+        /**
+         * Returns the key of an item of the old list.
+         *
+         * @param oldItemPosition The position of the item in the old list
+         * @return The key of the item, or {@code null} if it has none.
+         */
+        @Nullable
+        public abstract Object getOldItemKey(int oldItemPosition);
+
+        /**
+         * Returns the key of an item of the new list.
+         *
+         * @param newItemPosition The position of the item in the new list
+         * @return The key of the item, or {@code null} if it has none.
+         */
+        @Nullable
+        public abstract Object getNewItemKey(int newItemPosition);
+
+        /**
+         * Default implementation returns whether both items have the same non-null key.
+         */
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            final Object oldKey = getOldItemKey(oldItemPosition);
+            return oldKey != null && oldKey.equals(getNewItemKey(newItemPosition));
+        }
+    }
+
     /**
      * Callback for calculating the diff between two non-null items in a list.
      * <p>
@@ -653,6 +884,11 @@ public class DiffUtil {
 
         private final boolean mDetectMoves;
 
+        // For a keyed diff, the position in the new list that each item of the old list moves
+        // to, or NO_POSITION.
+        @Nullable
+        private final int[] mOldMoves;
+
         /**
          * @param callback        The callback that was used to calculate the diff
          * @param diagonals       Matches between the two lists
@@ -662,7 +898,17 @@ public class DiffUtil {
          */
         DiffResult(Callback callback, List<Diagonal> diagonals, int[] oldItemStatuses,
                 int[] newItemStatuses, boolean detectMoves) {
+            this(callback, diagonals, oldItemStatuses, newItemStatuses, detectMoves, null);
+        }
+
+        /**
+         * @param oldMoves The position in the new list that each item of the old list moves to,
+         *                 or {@code NO_POSITION}, when already known
+         */
+        DiffResult(Callback callback, List<Diagonal> diagonals, int[] oldItemStatuses,
+                int[] newItemStatuses, boolean detectMoves, @Nullable int[] oldMoves) {
             mDiagonals = diagonals;
+            mOldMoves = oldMoves;
             mOldItemStatuses = oldItemStatuses;
             mNewItemStatuses = newItemStatuses;
             Arrays.fill(mOldItemStatuses, 0);
@@ -707,9 +953,27 @@ public class DiffUtil {
             }
             // now all matches are marked, lets look for moves
             if (mDetectMoves) {
-                // traverse each addition / removal from the end of the list, find matching
-                // addition removal from before
-                findMoveMatches();
+                if (mOldMoves != null) {
+                    markKnownMoves(mOldMoves);
+                } else {
+                    // traverse each addition / removal from the end of the list, find matching
+                    // addition removal from before
+                    findMoveMatches();
+                }
+            }
+        }
+
+        private void markKnownMoves(int[] oldMoves) {
+            for (int posX = 0; posX < mOldListSize; posX++) {
+                final int posY = oldMoves[posX];
+                if (posY != NO_POSITION && mOldItemStatuses[posX] == 0
+                        && mNewItemStatuses[posY] == 0) {
+                    boolean contentsMatching = mCallback.areContentsTheSame(posX, posY);
+                    final int changeFlag = contentsMatching ? FLAG_MOVED_NOT_CHANGED
+                            : FLAG_MOVED_CHANGED;
+                    mOldItemStatuses[posX] = (posY << FLAG_OFFSET) | changeFlag;
+                    mNewItemStatuses[posY] = (posX << FLAG_OFFSET) | changeFlag;
+                }
             }
         }
 
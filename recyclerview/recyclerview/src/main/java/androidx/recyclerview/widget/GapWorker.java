@@ -16,11 +16,16 @@
 package androidx.recyclerview.widget;
 
 import android.annotation.SuppressLint;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.SparseIntArray;
 import android.view.View;
 
 import androidx.annotation.Nullable;
 import androidx.core.os.TraceCompat;
+import androidx.core.view.ViewCompat;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -51,6 +56,43 @@ final class GapWorker implements Runnable {
         }
     }
 
+    /**
+     * Whether {@link #mPreinflateIdleHandler} is registered with this thread's message queue.
+     */
+    boolean mPreinflateScheduled;
+
+    /**
+     * Creates the ViewHolders requested by {@link RecyclerView#preinflateViewHolders(int, int)}
+     * whenever the thread goes idle, until there are none left.
+     */
+    private final MessageQueue.IdleHandler mPreinflateIdleHandler =
+            new MessageQueue.IdleHandler() {
+                @Override
+                public boolean queueIdle() {
+                    mPreinflateScheduled = preinflate();
+                    return mPreinflateScheduled;
+                }
+            };
+
+    /**
+     * Posted for the next frame when pre-inflation ran out of time, so that the thread goes idle
+     * again after that frame even if nothing else happens.
+     */
+    private final Runnable mPreinflateWakeUp = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    /**
+     * The number of pre-inflation passes in a row that didn't create any ViewHolder. Past
+     * {@link #MAX_PREINFLATE_PASSES_WITHOUT_PROGRESS}, no more wake-ups are posted, and the
+     * pending requests wait for the thread to go idle for other reasons.
+     */
+    int mPreinflatePassesWithoutProgress;
+
+    static final int MAX_PREINFLATE_PASSES_WITHOUT_PROGRESS = 3;
+
     /**
      * Temporary storage for prefetch Tasks that execute in {@link #prefetch(long)}. Task objects
      * are pooled in the ArrayList, and never removed to avoid allocations, but always cleared
@@ -187,6 +229,17 @@ final class GapWorker implements Runnable {
         recyclerView.mPrefetchRegistry.setPrefetchVector(prefetchDx, prefetchDy);
     }
 
+    /**
+     * Schedule the pending pre-inflation requests of the RecyclerView to be processed once the
+     * thread is idle.
+     */
+    void postPreinflation(RecyclerView recyclerView) {
+        if (recyclerView.isAttachedToWindow() && !mPreinflateScheduled) {
+            mPreinflateScheduled = true;
+            Looper.myQueue().addIdleHandler(mPreinflateIdleHandler);
+        }
+    }
+
     static Comparator<Task> sTaskComparator = new Comparator<Task>() {
         @Override
         public int compare(Task lhs, Task rhs) {
@@ -363,6 +416,124 @@ final class GapWorker implements Runnable {
         }
     }
 
+    /**
+     * Creates pre-inflated ViewHolders for the RecyclerView until its requests are fulfilled, or
+     * the next ViewHolder isn't expected to be created before the deadline.
+     * <p>
+     * A ViewHolder whose type takes longer than a whole frame to create can never be expected
+     * to be created in time, so one of them is created per call regardless of the deadline.
+     *
+     * @return true if the RecyclerView still has pending requests that a later call, with more
+     * time before the deadline, can make progress on
+     */
+    boolean preinflateWithDeadline(RecyclerView view, long deadlineNs) {
+        final RecyclerView.Adapter<?> adapter = view.mAdapter;
+        if (adapter == null) {
+            // nothing can be created until an adapter is set, which isn't worth waking up for
+            return false;
+        }
+        boolean created = false;
+        final SparseIntArray requests = view.mPreinflateRequests;
+        final RecyclerView.RecycledViewPool pool = view.getRecycledViewPool();
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            final int viewType = requests.keyAt(i);
+            final int targetCount = Math.min(requests.valueAt(i),
+                    pool.getMaxRecycledViews(viewType));
+            // The request allows at most its count of ViewHolders to be created, so that a pool
+            // that doesn't keep them can't have us create ViewHolders forever
+            int remainingCreates = requests.valueAt(i);
+            while (remainingCreates > 0 && pool.getRecycledViewCount(viewType) < targetCount) {
+                final long start = view.getNanoTime();
+                if (!pool.willCreateInTime(viewType, start, deadlineNs)
+                        && (created || pool.willCreateInTime(viewType, 0, mFrameIntervalNs))) {
+                    requests.put(viewType, remainingCreates);
+                    return true;
+                }
+                created = true;
+                final RecyclerView.ViewHolder holder = adapter.createViewHolder(view, viewType);
+                final RecyclerView innerView = RecyclerView.findNestedRecyclerView(holder.itemView);
+                if (innerView != null) {
+                    holder.mNestedRecyclerView = new WeakReference<>(innerView);
+                }
+                final long end = view.getNanoTime();
+                pool.factorInCreateTime(viewType, end - start);
+                view.mRecycler.addViewHolderToRecycledViewPool(holder, false);
+                view.mPreinflatedViewHolderCount++;
+                view.mPreinflationTimeNs += end - start;
+                remainingCreates--;
+            }
+            requests.removeAt(i);
+        }
+        return false;
+    }
+
+    /**
+     * Processes pre-inflation requests of the idle, visible RecyclerViews, within the time left
+     * before the next frame.
+     *
+     * @return true if some RecyclerView still has pending requests
+     */
+    boolean preinflate() {
+        final int size = mRecyclerViews.size();
+        boolean pending = false;
+        long latestFrameVsyncMs = 0;
+        for (int i = 0; i < size; i++) {
+            RecyclerView view = mRecyclerViews.get(i);
+            pending |= view.hasPendingPreinflation();
+            if (view.getWindowVisibility() == View.VISIBLE) {
+                latestFrameVsyncMs = Math.max(view.getDrawingTime(), latestFrameVsyncMs);
+            }
+        }
+        if (!pending || latestFrameVsyncMs == 0) {
+            // nothing to do, or wait until a frame is drawn to know when the next one is due
+            return pending;
+        }
+
+        RecyclerView wakeUpView = null;
+        int createdCount = 0;
+        try {
+            TraceCompat.beginSection(RecyclerView.TRACE_PREINFLATE_TAG);
+            final long nowNs = mRecyclerViews.get(0).getNanoTime();
+            long deadlineNs = TimeUnit.MILLISECONDS.toNanos(latestFrameVsyncMs) + mFrameIntervalNs;
+            if (deadlineNs < nowNs && mFrameIntervalNs > 0) {
+                // no frame was drawn lately, so the next one is due on the next vsync
+                deadlineNs += ((nowNs - deadlineNs) / mFrameIntervalNs + 1) * mFrameIntervalNs;
+            }
+            for (int i = 0; i < size; i++) {
+                RecyclerView view = mRecyclerViews.get(i);
+                if (view.hasPendingPreinflation()
+                        && view.getWindowVisibility() == View.VISIBLE
+                        && view.getScrollState() == RecyclerView.SCROLL_STATE_IDLE) {
+                    final int countBefore = view.mPreinflatedViewHolderCount;
+                    if (preinflateWithDeadline(view, deadlineNs)) {
+                        wakeUpView = view;
+                    }
+                    createdCount += view.mPreinflatedViewHolderCount - countBefore;
+                }
+            }
+        } finally {
+            TraceCompat.endSection();
+        }
+        if (createdCount > 0) {
+            mPreinflatePassesWithoutProgress = 0;
+        } else {
+            mPreinflatePassesWithoutProgress++;
+        }
+        // Only wake up for the next frame while it can make progress, so that requests that
+        // keep failing to fit don't wake the thread up on every frame
+        if (wakeUpView != null
+                && mPreinflatePassesWithoutProgress <= MAX_PREINFLATE_PASSES_WITHOUT_PROGRESS) {
+            ViewCompat.postOnAnimation(wakeUpView, mPreinflateWakeUp);
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (mRecyclerViews.get(i).hasPendingPreinflation()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     void prefetch(long deadlineNs) {
         buildTaskList();
         flushTasksWithDeadline(deadlineNs);
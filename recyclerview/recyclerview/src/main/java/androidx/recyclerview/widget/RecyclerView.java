@@ -25,6 +25,7 @@ import static androidx.core.view.ViewCompat.TYPE_TOUCH;
 
 import android.animation.LayoutTransition;
 import android.annotation.SuppressLint;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
@@ -45,6 +46,7 @@ import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.Display;
 import android.view.FocusFinder;
 import android.view.InputDevice;
@@ -370,6 +372,12 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
      */
     static final String TRACE_NESTED_PREFETCH_TAG = "RV Nested Prefetch";
 
+    /**
+     * RecyclerView is creating the ViewHolders requested by
+     * {@link #preinflateViewHolders(int, int)} while the UI thread is idle.
+     */
+    static final String TRACE_PREINFLATE_TAG = "RV Preinflate";
+
     /**
      * RecyclerView is creating a new View.
      * If too many of these present in Systrace:
@@ -614,6 +622,14 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
     GapWorker.LayoutPrefetchRegistryImpl mPrefetchRegistry =
             ALLOW_THREAD_GAP_WORK ? new GapWorker.LayoutPrefetchRegistryImpl() : null;
 
+    /**
+     * Pending {@link #preinflateViewHolders(int, int)} requests, mapping each view type to the
+     * number of ViewHolders that may still be created for it. Consumed by {@link GapWorker}.
+     */
+    final SparseIntArray mPreinflateRequests = new SparseIntArray();
+    int mPreinflatedViewHolderCount;
+    long mPreinflationTimeNs;
+
     final State mState = new State();
 
     private OnScrollListener mScrollListener;
@@ -1629,6 +1645,64 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         mRecycler.setRecycledViewPool(pool);
     }
 
+    /**
+     * Requests that the {@link #getRecycledViewPool() recycled view pool} be warmed up with
+     * ViewHolders of the given view type, created while the UI thread is idle between frames.
+     * <p>
+     * Prefetch only creates ViewHolders for the positions the LayoutManager expects to show next
+     * while scrolling, so the first scroll through a list with many view types may still have to
+     * create a ViewHolder of each new type in the middle of a frame. Pre-inflating them ahead of
+     * time, for example right after the first layout, avoids that.
+     * <p>
+     * ViewHolders are created with the current {@link Adapter} until the pool holds
+     * {@code count} of them, or as many as it can {@link RecycledViewPool#getMaxRecycledViews(int)
+     * hold}, and at most {@code count} are created for a request. Like prefetch, a ViewHolder is
+     * only created if its average create time fits before the next frame is due, and nothing is
+     * created while this RecyclerView is scrolling or not visible. Pre-inflation relies on the
+     * same frame timing as prefetch and does nothing on platform versions where prefetch is
+     * disabled.
+     *
+     * @param viewType View type of the ViewHolders to create.
+     * @param count    Number of ViewHolders of that type the pool should hold. 0 cancels a
+     *                 pending request for the type.
+     * @see #getPreinflatedViewHolderCount()
+     * @see #getPreinflationTimeNanos()
+     */
+    public void preinflateViewHolders(int viewType, int count) {
+        if (count <= 0) {
+            mPreinflateRequests.delete(viewType);
+            return;
+        }
+        mPreinflateRequests.put(viewType, count);
+        if (mGapWorker != null) {
+            mGapWorker.postPreinflation(this);
+        }
+    }
+
+    /**
+     * Returns the number of ViewHolders this RecyclerView created in response to
+     * {@link #preinflateViewHolders(int, int)}.
+     *
+     * @return Number of pre-inflated ViewHolders.
+     */
+    public int getPreinflatedViewHolderCount() {
+        return mPreinflatedViewHolderCount;
+    }
+
+    /**
+     * Returns the total time this RecyclerView spent creating ViewHolders in response to
+     * {@link #preinflateViewHolders(int, int)}.
+     *
+     * @return Time spent pre-inflating, in nanoseconds.
+     */
+    public long getPreinflationTimeNanos() {
+        return mPreinflationTimeNs;
+    }
+
+    boolean hasPendingPreinflation() {
+        return mPreinflateRequests.size() != 0;
+    }
+
     /**
      * Sets a new {@link ViewCacheExtension} to be used by the Recycler.
      *
@@ -1676,6 +1750,9 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         if (state != SCROLL_STATE_SETTLING) {
             stopScrollersInternal();
         }
+        if (mRecycler.mRecyclerPool != null) {
+            mRecycler.mRecyclerPool.onScrollStateChanged(this, state);
+        }
         dispatchOnScrollStateChanged(state);
     }
 
@@ -2812,6 +2889,10 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
                 velocityX = Math.max(-mMaxFlingVelocity, Math.min(velocityX, mMaxFlingVelocity));
                 velocityY = Math.max(-mMaxFlingVelocity, Math.min(velocityY, mMaxFlingVelocity));
                 mViewFlinger.fling(velocityX, velocityY);
+                if (mRecycler.mRecyclerPool != null) {
+                    mRecycler.mRecyclerPool.onFling(
+                            Math.max(Math.abs(velocityX), Math.abs(velocityY)));
+                }
                 return true;
             }
         }
@@ -3409,6 +3490,9 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
                 GapWorker.sGapWorker.set(mGapWorker);
             }
             mGapWorker.add(this);
+            if (hasPendingPreinflation()) {
+                mGapWorker.postPreinflation(this);
+            }
         }
     }
 
@@ -6172,10 +6256,40 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
      * and use {@link RecyclerView#setRecycledViewPool(RecycledViewPool)}.
      * <p>
      * RecyclerView automatically creates a pool for itself if you don't provide one.
+     * <p>
+     * By default the pool holds up to 5 ViewHolders of each view type, unless changed with
+     * {@link #setMaxRecycledViews(int, int)}. With {@link #setAdaptiveSizingEnabled(boolean)
+     * adaptive sizing}, the pool instead grows the capacity of the view types that are being
+     * discarded and created again while scrolling, and gives the extra capacity back once it stops
+     * being used or {@link #onTrimMemory(int) memory is low}.
      */
     public static class RecycledViewPool {
         private static final int DEFAULT_MAX_SCRAP = 5;
 
+        /**
+         * Upper bound of the capacity that adaptive sizing adds on top of the max scrap of a type.
+         */
+        private static final int ADAPTIVE_MAX_EXTRA_SCRAP = 20;
+
+        /**
+         * Average create time that allows adaptive sizing to keep one more ViewHolder of a type.
+         * Cheap types aren't worth the memory of a larger pool.
+         */
+        private static final long ADAPTIVE_CREATE_NS_PER_EXTRA_SCRAP = 250000;
+
+        /**
+         * Extra capacity allowed for types whose create time is unknown, because frame deadline
+         * timing isn't available on this platform version.
+         */
+        private static final int ADAPTIVE_UNKNOWN_COST_EXTRA_SCRAP = 5;
+
+        /**
+         * Fling velocity, in pixels per second, that makes adaptive sizing grow a churning type
+         * by one more ViewHolder at a time.
+         */
+        private static final int ADAPTIVE_FLING_VELOCITY_PER_STEP = 4000;
+        private static final int ADAPTIVE_MAX_GROWTH_STEP = 3;
+
         /**
          * Tracks both pooled holders, as well as create/bind timing metadata for the given type.
          *
@@ -6195,10 +6309,38 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             int mMaxScrap = DEFAULT_MAX_SCRAP;
             long mCreateRunningAverageNs = 0;
             long mBindRunningAverageNs = 0;
+
+            // Adaptive sizing state, unused unless mAdaptiveSizing is set.
+
+            // Capacity added on top of mMaxScrap
+            int mAdaptiveExtraScrap = 0;
+            // Whether a holder was discarded because the pool was full, since the last miss
+            boolean mDiscardedSinceMiss = false;
+            // Fewest holders left in the heap since all RecyclerViews went idle, or -1 if the type
+            // wasn't requested since then
+            int mMinScrapSinceIdle = -1;
+
+            int getCapacity() {
+                return mMaxScrap + mAdaptiveExtraScrap;
+            }
         }
 
         SparseArray<ScrapData> mScrap = new SparseArray<>();
 
+        boolean mAdaptiveSizing = false;
+
+        /**
+         * RecyclerViews using this pool that are currently scrolling, tracked for adaptive sizing
+         * only. The pool gives unused capacity back once all of them are idle.
+         */
+        Set<RecyclerView> mScrollingRecyclerViews =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+
+        /**
+         * Highest fling velocity, in pixels per second, since all RecyclerViews went idle.
+         */
+        int mFlingVelocity = 0;
+
         /**
          * Attach counts for clearing (that is, emptying the pool when there are no adapters
          * attached) and for PoolingContainer release are tracked separately to maintain the
@@ -6250,11 +6392,92 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             ScrapData scrapData = getScrapDataForType(viewType);
             scrapData.mMaxScrap = max;
             final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
-            while (scrapHeap.size() > max) {
+            while (scrapHeap.size() > scrapData.getCapacity()) {
                 scrapHeap.remove(scrapHeap.size() - 1);
             }
         }
 
+        /**
+         * Returns the maximum number of ViewHolders of the given view type the pool currently
+         * holds before discarding.
+         * <p>
+         * This is the value set with {@link #setMaxRecycledViews(int, int)}, plus any capacity
+         * added by {@link #setAdaptiveSizingEnabled(boolean) adaptive sizing}.
+         *
+         * @param viewType ViewHolder Type
+         * @return Maximum number of ViewHolders of that type.
+         */
+        public int getMaxRecycledViews(int viewType) {
+            return getScrapDataForType(viewType).getCapacity();
+        }
+
+        /**
+         * Enables or disables adaptive sizing of the pool.
+         * <p>
+         * With adaptive sizing, a view type whose ViewHolders are discarded because the pool is
+         * full, and then created again shortly after, gets more capacity. How much is driven by
+         * the cost of creating ViewHolders of that type, so that cheap views don't take up memory,
+         * and by the fling velocity of the RecyclerViews using the pool. Once all of them stop
+         * scrolling, capacity that went unused is given back. The capacity set with
+         * {@link #setMaxRecycledViews(int, int)} is the minimum, and a type whose maximum is 0 is
+         * never pooled.
+         * <p>
+         * Statistics are gathered per view type across all RecyclerViews using the pool, which
+         * makes adaptive sizing most useful with a pool shared by many RecyclerViews, such as
+         * nested carousels. Forward {@link ComponentCallbacks2#onTrimMemory(int)} to
+         * {@link #onTrimMemory(int)} so the pool can shrink when memory is low.
+         * <p>
+         * Disabled by default. Disabling it discards the ViewHolders held by adaptive capacity.
+         *
+         * @param enabled Whether to enable adaptive sizing.
+         */
+        public void setAdaptiveSizingEnabled(boolean enabled) {
+            if (mAdaptiveSizing == enabled) {
+                return;
+            }
+            mAdaptiveSizing = enabled;
+            mScrollingRecyclerViews.clear();
+            mFlingVelocity = 0;
+            for (int i = 0; i < mScrap.size(); i++) {
+                ScrapData scrapData = mScrap.valueAt(i);
+                scrapData.mAdaptiveExtraScrap = 0;
+                scrapData.mDiscardedSinceMiss = false;
+                scrapData.mMinScrapSinceIdle = -1;
+                trimToCapacity(scrapData);
+            }
+        }
+
+        /**
+         * Returns whether adaptive sizing is enabled.
+         *
+         * @see #setAdaptiveSizingEnabled(boolean)
+         */
+        public boolean isAdaptiveSizingEnabled() {
+            return mAdaptiveSizing;
+        }
+
+        /**
+         * Releases pooled ViewHolders in response to a memory trim signal.
+         * <p>
+         * Meant to be called from {@link ComponentCallbacks2#onTrimMemory(int)}. When memory runs
+         * low, the capacity added by {@link #setAdaptiveSizingEnabled(boolean) adaptive sizing}
+         * is discarded. Once the app is in the background, the pool is {@link #clear() cleared}.
+         *
+         * @param level The trim level passed to {@link ComponentCallbacks2#onTrimMemory(int)}.
+         */
+        public void onTrimMemory(int level) {
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+                clear();
+            }
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+                for (int i = 0; i < mScrap.size(); i++) {
+                    ScrapData scrapData = mScrap.valueAt(i);
+                    scrapData.mAdaptiveExtraScrap = 0;
+                    trimToCapacity(scrapData);
+                }
+            }
+        }
+
         /**
          * Returns the current number of Views held by the RecycledViewPool of the given view type.
          */
@@ -6277,13 +6500,57 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
                 final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
                 for (int i = scrapHeap.size() - 1; i >= 0; i--) {
                     if (!scrapHeap.get(i).isAttachedToTransitionOverlay()) {
-                        return scrapHeap.remove(i);
+                        final ViewHolder holder = scrapHeap.remove(i);
+                        if (mAdaptiveSizing) {
+                            onRecycledViewRequested(scrapData, true);
+                        }
+                        return holder;
                     }
                 }
             }
+            if (mAdaptiveSizing) {
+                onRecycledViewRequested(getScrapDataForType(viewType), false);
+            }
             return null;
         }
 
+        private void onRecycledViewRequested(@NonNull ScrapData scrapData, boolean served) {
+            final int remaining = served ? scrapData.mScrapHeap.size() : 0;
+            if (scrapData.mMinScrapSinceIdle < 0 || remaining < scrapData.mMinScrapSinceIdle) {
+                scrapData.mMinScrapSinceIdle = remaining;
+            }
+            if (!served && scrapData.mDiscardedSinceMiss) {
+                // A holder of this type was thrown away and now has to be created again
+                scrapData.mDiscardedSinceMiss = false;
+                if (scrapData.mMaxScrap > 0) {
+                    scrapData.mAdaptiveExtraScrap = Math.min(getAdaptiveExtraScrapLimit(scrapData),
+                            scrapData.mAdaptiveExtraScrap + getAdaptiveGrowthStep());
+                }
+            }
+        }
+
+        private int getAdaptiveExtraScrapLimit(@NonNull ScrapData scrapData) {
+            final long createNs = scrapData.mCreateRunningAverageNs;
+            if (createNs == 0) {
+                return ADAPTIVE_UNKNOWN_COST_EXTRA_SCRAP;
+            }
+            return (int) Math.min(ADAPTIVE_MAX_EXTRA_SCRAP,
+                    createNs / ADAPTIVE_CREATE_NS_PER_EXTRA_SCRAP);
+        }
+
+        private int getAdaptiveGrowthStep() {
+            return Math.min(ADAPTIVE_MAX_GROWTH_STEP,
+                    1 + mFlingVelocity / ADAPTIVE_FLING_VELOCITY_PER_STEP);
+        }
+
+        private void trimToCapacity(@NonNull ScrapData scrapData) {
+            final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
+            while (scrapHeap.size() > scrapData.getCapacity()) {
+                ViewHolder scrap = scrapHeap.remove(scrapHeap.size() - 1);
+                PoolingContainer.callPoolingContainerOnRelease(scrap.itemView);
+            }
+        }
+
         /**
          * Total number of ViewHolders held by the pool.
          *
@@ -6309,8 +6576,12 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
          */
         public void putRecycledView(ViewHolder scrap) {
             final int viewType = scrap.getItemViewType();
-            final ArrayList<ViewHolder> scrapHeap = getScrapDataForType(viewType).mScrapHeap;
-            if (mScrap.get(viewType).mMaxScrap <= scrapHeap.size()) {
+            final ScrapData scrapData = getScrapDataForType(viewType);
+            final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
+            if (scrapData.getCapacity() <= scrapHeap.size()) {
+                if (mAdaptiveSizing) {
+                    scrapData.mDiscardedSinceMiss = true;
+                }
                 PoolingContainer.callPoolingContainerOnRelease(scrap.itemView);
                 return;
             }
@@ -6350,6 +6621,43 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             return expectedDurationNs == 0 || (approxCurrentNs + expectedDurationNs < deadlineNs);
         }
 
+        void onScrollStateChanged(@NonNull RecyclerView recyclerView, int state) {
+            if (!mAdaptiveSizing) {
+                return;
+            }
+            if (state != SCROLL_STATE_IDLE) {
+                mScrollingRecyclerViews.add(recyclerView);
+            } else if (mScrollingRecyclerViews.remove(recyclerView)
+                    && mScrollingRecyclerViews.isEmpty()) {
+                onAllRecyclerViewsIdle();
+            }
+        }
+
+        void onFling(int velocity) {
+            if (mAdaptiveSizing && velocity > mFlingVelocity) {
+                mFlingVelocity = velocity;
+            }
+        }
+
+        /**
+         * Gives back half of the capacity that stayed unused during the last scroll, for each type
+         * that was requested. Types that weren't requested may still be needed by another
+         * RecyclerView, so they are kept as they are until memory is trimmed.
+         */
+        private void onAllRecyclerViewsIdle() {
+            mFlingVelocity = 0;
+            for (int i = 0; i < mScrap.size(); i++) {
+                ScrapData scrapData = mScrap.valueAt(i);
+                final int unused = scrapData.mMinScrapSinceIdle;
+                if (unused > 0 && scrapData.mAdaptiveExtraScrap > 0) {
+                    scrapData.mAdaptiveExtraScrap -=
+                            Math.min(scrapData.mAdaptiveExtraScrap, (unused + 1) / 2);
+                    trimToCapacity(scrapData);
+                }
+                scrapData.mMinScrapSinceIdle = -1;
+            }
+        }
+
         void attach() {
             mAttachCountForClearing++;
         }
@@ -7476,11 +7784,15 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             poolingContainerDetach(mAdapter);
             if (mRecyclerPool != null) {
                 mRecyclerPool.detach();
+                mRecyclerPool.onScrollStateChanged(RecyclerView.this, SCROLL_STATE_IDLE);
             }
             mRecyclerPool = pool;
             if (mRecyclerPool != null && getAdapter() != null) {
                 mRecyclerPool.attach();
             }
+            if (mRecyclerPool != null) {
+                mRecyclerPool.onScrollStateChanged(RecyclerView.this, mScrollState);
+            }
             maybeSendPoolingContainerAttach();
         }
 
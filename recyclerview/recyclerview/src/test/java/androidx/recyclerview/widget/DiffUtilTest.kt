@@ -42,6 +42,8 @@ class DiffUtilTest {
         newList = after,
         assertCalls = true
     )
+    private val keyedCallback = KeyedItemListCallback(callback, before, after)
+    private var keyed = false
 
     init {
         Item.idCounter = 0
@@ -361,7 +363,47 @@ class DiffUtilTest {
         calculate().convertNewPositionToOld(2)
     }
 
-    private fun calculate() = DiffUtil.calculateDiff(callback, true)
+    private fun calculate() = if (keyed) {
+        DiffUtil.calculateKeyedDiff(keyedCallback, true)
+    } else {
+        DiffUtil.calculateDiff(callback, true)
+    }
+
+    @Test
+    fun keyedNoChange() {
+        keyed = true
+        initWithSize(5)
+        check()
+    }
+
+    @Test
+    fun keyedMoves() {
+        keyed = true
+        initWithSize(20)
+        move(0, 19)
+        move(10, 5)
+        update(3)
+        updateWithPayload(12)
+        add(7)
+        delete(15)
+        check()
+    }
+
+    @Test
+    fun keyedDuplicate() {
+        keyed = true
+        before.addAll(listOf(Item(false), Item(false)))
+        after.addAll(listOf(before[0], before[1], Item(true), before[1]))
+        check()
+    }
+
+    @Test
+    fun keyedRandom() {
+        keyed = true
+        for (i in 0..19) {
+            testRandom(i * 5, 10)
+        }
+    }
 
     @Test
     fun duplicate() {
@@ -731,6 +773,26 @@ class DiffUtilTest {
         }
     }
 
+    private class KeyedItemListCallback(
+        private val delegate: ItemListCallback,
+        private val oldList: List<Item>,
+        private val newList: List<Item>
+    ) : DiffUtil.KeyedCallback() {
+        override fun getOldListSize() = delegate.oldListSize
+
+        override fun getNewListSize() = delegate.newListSize
+
+        override fun getOldItemKey(oldItemPosition: Int) = oldList[oldItemPosition].id
+
+        override fun getNewItemKey(newItemPosition: Int) = newList[newItemPosition].id
+
+        override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+            delegate.areContentsTheSame(oldItemPosition, newItemPosition)
+
+        override fun getChangePayload(oldItemPosition: Int, newItemPosition: Int) =
+            delegate.getChangePayload(oldItemPosition, newItemPosition)
+    }
+
     companion object {
         private val sRand = Random(System.nanoTime())
     }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.database.Cursor
+import android.os.Build
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.paging.PagingSource
+import androidx.paging.PagingSource.LoadParams
+import androidx.paging.PagingSource.LoadResult
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.room.RoomSQLiteQuery
+import androidx.room.paging.KeysetPagingSource
+import androidx.room.paging.LimitOffsetPagingSource
+import androidx.room.util.getColumnIndexOrThrow
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import androidx.testutils.generateAllEnumerations
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Compares loading a page at increasing depths of a list with [LimitOffsetPagingSource], whose
+ * cost grows with the offset, and [KeysetPagingSource], whose cost should not.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN) // TODO Fix me for API 15 - b/120098504
+class PagingSourceBenchmark(private val depth: Int, private val mode: Mode) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = ApplicationProvider.getApplicationContext() as android.content.Context
+
+    private lateinit var db: TestDatabase
+
+    @Before
+    fun setup() {
+        for (postfix in arrayOf("", "-wal", "-shm")) {
+            val dbFile = context.getDatabasePath(DB_NAME + postfix)
+            if (dbFile.exists()) {
+                assertTrue(dbFile.delete())
+            }
+        }
+        db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .build()
+        db.runInTransaction {
+            val dao = db.getMessageDao()
+            for (id in 0 until ROW_COUNT) {
+                dao.insert(Message(id, "message $id"))
+            }
+        }
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+    }
+
+    @Test
+    fun appendAtDepth() {
+        when (mode) {
+            Mode.LIMIT_OFFSET -> {
+                val pagingSource = LimitOffsetMessages(db)
+                // The initial load computes the item count, later loads reuse it.
+                load(pagingSource, LoadParams.Refresh(null, PAGE_SIZE, false))
+                measureAppend(pagingSource, depth)
+            }
+            Mode.KEYSET -> {
+                val pagingSource = KeysetMessages(db)
+                measureAppend(pagingSource, KeysetPagingSource.Key(depth - 1))
+            }
+        }
+    }
+
+    private fun <Key : Any> measureAppend(pagingSource: PagingSource<Key, Message>, key: Key) {
+        val params = LoadParams.Append(key, PAGE_SIZE, false)
+        benchmarkRule.measureRepeated {
+            val page = load(pagingSource, params)
+            assertEquals(depth, page.data.first().id)
+        }
+    }
+
+    private fun <Key : Any> load(
+        pagingSource: PagingSource<Key, Message>,
+        params: LoadParams<Key>
+    ): LoadResult.Page<Key, Message> = runBlocking {
+        pagingSource.load(params) as LoadResult.Page
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "depth={0}, mode={1}")
+        fun data(): List<Array<Any>> =
+            generateAllEnumerations(
+                listOf(0, 1_000, 10_000, 100_000),
+                listOf(Mode.LIMIT_OFFSET, Mode.KEYSET)
+            )
+
+        private const val DB_NAME = "paging-source-benchmark-test"
+        private const val PAGE_SIZE = 20
+        private const val ROW_COUNT = 100_000 + PAGE_SIZE
+        private const val QUERY = "SELECT * FROM Message"
+    }
+
+    enum class Mode {
+        LIMIT_OFFSET,
+        KEYSET
+    }
+
+    class LimitOffsetMessages(db: RoomDatabase) : LimitOffsetPagingSource<Message>(
+        sourceQuery = RoomSQLiteQuery.acquire("$QUERY ORDER BY id ASC", 0),
+        db = db,
+        tables = arrayOf("Message")
+    ) {
+        override fun convertRows(cursor: Cursor): List<Message> = cursor.toMessages()
+    }
+
+    class KeysetMessages(db: RoomDatabase) : KeysetPagingSource<Message>(
+        sourceQuery = RoomSQLiteQuery.acquire(QUERY, 0),
+        db = db,
+        keyColumns = arrayOf("id"),
+        tables = arrayOf("Message")
+    ) {
+        override fun convertRows(cursor: Cursor): List<Message> = cursor.toMessages()
+    }
+
+    @Database(entities = [Message::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getMessageDao(): MessageDao
+    }
+
+    @Entity
+    data class Message(@PrimaryKey val id: Int, val text: String)
+
+    @Dao
+    interface MessageDao {
+        @Insert
+        fun insert(message: Message)
+    }
+}
+
+private fun Cursor.toMessages(): List<PagingSourceBenchmark.Message> {
+    val idIndex = getColumnIndexOrThrow(this, "id")
+    val textIndex = getColumnIndexOrThrow(this, "text")
+    val data = mutableListOf<PagingSourceBenchmark.Message>()
+    while (moveToNext()) {
+        data.add(PagingSourceBenchmark.Message(getInt(idIndex), getString(textIndex)))
+    }
+    return data
+}
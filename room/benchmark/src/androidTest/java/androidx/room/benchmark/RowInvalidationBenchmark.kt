@@ -0,0 +1,167 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.os.Build
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.InvalidationTracker
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.room.Update
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import androidx.testutils.generateAllEnumerations
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Measures a write heavy load on a table with many single row observers, as when a list and a
+ * few detail screens observe the same table, with and without row level invalidation.
+ *
+ * Each observer re-executes its query when invalidated. Besides the time, the number of query
+ * re-executions per write is logged, which is what row level invalidation brings down.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN) // TODO Fix me for API 15 - b/120098504
+class RowInvalidationBenchmark(private val observerCount: Int, private val rowLevel: Boolean) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = ApplicationProvider.getApplicationContext() as android.content.Context
+
+    private lateinit var db: TestDatabase
+
+    @Before
+    fun setup() {
+        for (postfix in arrayOf("", "-wal", "-shm")) {
+            val dbFile = context.getDatabasePath(DB_NAME + postfix)
+            if (dbFile.exists()) {
+                assertTrue(dbFile.delete())
+            }
+        }
+        // Run invalidation checks on the writing thread, so that all observers ran by the time
+        // a transaction returns.
+        db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .setQueryExecutor { it.run() }
+            .build()
+        db.getUserDao().insert(List(ROW_COUNT) { User(it, "name$it") })
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+    }
+
+    @Suppress("UnsafeOptInUsageError")
+    @Test
+    fun writeHeavyLoad() {
+        var queryCount = 0L
+        val observers = List(observerCount) { i ->
+            val observedId = i * (ROW_COUNT / observerCount)
+            object : InvalidationTracker.Observer("User") {
+                override fun onInvalidated(tables: Set<String>) {
+                    db.getUserDao().load(observedId)
+                    queryCount++
+                }
+
+                override fun getRowFilter(): InvalidationTracker.RowFilter? = if (rowLevel) {
+                    // User has an integer primary key, so the id is the rowid.
+                    InvalidationTracker.RowFilter { _, rowId -> rowId == observedId.toLong() }
+                } else {
+                    null
+                }
+            }
+        }
+        observers.forEach { db.invalidationTracker.addObserver(it) }
+
+        var writeCount = 0L
+        var nextId = 0
+        benchmarkRule.measureRepeated {
+            // Each transaction updates a single row, as when syncing items one by one.
+            db.runInTransaction {
+                db.getUserDao().update(User(nextId, "name${writeCount}"))
+            }
+            nextId = (nextId + 1) % ROW_COUNT
+            writeCount++
+        }
+
+        observers.forEach { db.invalidationTracker.removeObserver(it) }
+        if (rowLevel) {
+            // Every observed row was written about writeCount / ROW_COUNT times.
+            assertTrue(queryCount <= (writeCount / ROW_COUNT + 1) * observerCount)
+        } else {
+            assertEquals(writeCount * observerCount, queryCount)
+        }
+        Log.d(
+            LOG_TAG,
+            "observers=$observerCount, rowLevel=$rowLevel: $writeCount writes caused " +
+                "$queryCount query re-executions"
+        )
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "observerCount={0}, rowLevel={1}")
+        fun data(): List<Array<Any>> =
+            generateAllEnumerations(
+                listOf(1, 10, 100),
+                listOf(false, true)
+            )
+
+        private const val DB_NAME = "row-invalidation-benchmark-test"
+        private const val ROW_COUNT = 1000
+        private const val LOG_TAG = "RowInvalidationBenchmark"
+    }
+
+    @Database(entities = [User::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getUserDao(): UserDao
+    }
+
+    @Entity
+    data class User(@PrimaryKey val id: Int, val name: String)
+
+    @Dao
+    interface UserDao {
+        @Insert
+        fun insert(users: List<User>)
+
+        @Update
+        fun update(user: User)
+
+        @Query("SELECT * FROM User WHERE id = :id")
+        fun load(id: Int): User?
+    }
+}
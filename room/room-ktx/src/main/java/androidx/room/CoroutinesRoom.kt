@@ -108,6 +108,17 @@ public class CoroutinesRoom private constructor() {
             inTransaction: Boolean,
             tableNames: Array<String>,
             callable: Callable<R>
+        ): Flow<@JvmSuppressWildcards R> = createFlow(db, inTransaction, tableNames, null, callable)
+
+        @Suppress("UnsafeOptInUsageError")
+        @ExperimentalRoomApi
+        @JvmStatic
+        public fun <R> createFlow(
+            db: RoomDatabase,
+            inTransaction: Boolean,
+            tableNames: Array<String>,
+            rowFilter: InvalidationTracker.RowFilter?,
+            callable: Callable<R>
         ): Flow<@JvmSuppressWildcards R> = flow {
             coroutineScope {
                 // Observer channel receives signals from the invalidation tracker to emit queries.
@@ -116,6 +127,8 @@ public class CoroutinesRoom private constructor() {
                     override fun onInvalidated(tables: Set<String>) {
                         observerChannel.trySend(Unit)
                     }
+
+                    override fun getRowFilter() = rowFilter
                 }
                 observerChannel.trySend(Unit) // Initial signal to perform first query.
                 val queryContext = coroutineContext[TransactionElement]?.transactionDispatcher
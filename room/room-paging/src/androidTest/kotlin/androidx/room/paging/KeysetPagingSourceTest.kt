@@ -0,0 +1,357 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.paging
+
+import android.database.Cursor
+import androidx.arch.core.executor.testing.CountingTaskExecutorRule
+import androidx.paging.PagingConfig
+import androidx.paging.PagingSource.LoadParams
+import androidx.paging.PagingSource.LoadResult
+import androidx.paging.PagingSource.LoadResult.Page.Companion.COUNT_UNDEFINED
+import androidx.paging.testing.TestPager
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.room.RoomSQLiteQuery
+import androidx.room.paging.KeysetPagingSource.Key
+import androidx.room.util.getColumnIndexOrThrow
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import com.google.common.truth.Truth.assertThat
+import java.util.concurrent.TimeUnit
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+@SmallTest
+class KeysetPagingSourceTest {
+
+    @JvmField
+    @Rule
+    val countingTaskExecutorRule = CountingTaskExecutorRule()
+
+    private lateinit var database: LimitOffsetTestDb
+    private lateinit var dao: TestItemDao
+
+    @Before
+    fun init() {
+        database = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            LimitOffsetTestDb::class.java,
+        ).build()
+        dao = database.dao
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+        // At the end of all tests, query executor should be idle (transaction thread released).
+        countingTaskExecutorRule.drainTasks(500, TimeUnit.MILLISECONDS)
+        assertThat(countingTaskExecutorRule.isIdle).isTrue()
+    }
+
+    @Test
+    fun load_initialLoad() = runPagingSourceTest { pager, pagingSource ->
+        dao.addAllItems(ITEMS_LIST)
+        val result = pager.refresh() as LoadResult.Page
+        assertThat(result.data).containsExactlyElementsIn(
+            ITEMS_LIST.subList(0, 15)
+        ).inOrder()
+        assertThat(result.prevKey).isNull()
+        assertThat(result.nextKey).isEqualTo(Key(14L))
+        assertThat(result.itemsBefore).isEqualTo(COUNT_UNDEFINED)
+        assertThat(result.itemsAfter).isEqualTo(COUNT_UNDEFINED)
+        // no count query without countItems
+        assertThat(pagingSource.itemCount.get()).isEqualTo(-1)
+    }
+
+    @Test
+    fun load_initialEmptyLoad() = runPagingSourceTest { pager, _ ->
+        val result = pager.refresh() as LoadResult.Page
+        assertTrue(result.data.isEmpty())
+        assertThat(result.prevKey).isNull()
+        assertThat(result.nextKey).isNull()
+    }
+
+    @Test
+    fun load_initialLoadWithInitialKey() = runPagingSourceTest { pager, _ ->
+        dao.addAllItems(ITEMS_LIST)
+        val result = pager.refresh(initialKey = Key(20)) as LoadResult.Page
+        // the initial key is inclusive
+        assertThat(result.data).containsExactlyElementsIn(
+            ITEMS_LIST.subList(20, 35)
+        ).inOrder()
+        assertThat(result.prevKey).isEqualTo(Key(20L))
+        assertThat(result.nextKey).isEqualTo(Key(34L))
+    }
+
+    @Test
+    fun load_initialKeyAfterLastItem_returnsLastPage() = runPagingSourceTest { pager, _ ->
+        dao.addAllItems(ITEMS_LIST)
+        val result = pager.refresh(initialKey = Key(150)) as LoadResult.Page
+        assertThat(result.data).containsExactlyElementsIn(
+            ITEMS_LIST.subList(85, 100)
+        ).inOrder()
+        assertThat(result.prevKey).isEqualTo(Key(85L))
+        assertThat(result.nextKey).isNull()
+    }
+
+    @Test
+    fun load_withQueryArguments() = runPagingSourceTest(
+        KeysetPagingSourceImpl(
+            db = database,
+            queryString = "SELECT * FROM TestItem WHERE id > ? AND id < ?",
+            args = intArrayOf(50, 58)
+        )
+    ) { pager, _ ->
+        dao.addAllItems(ITEMS_LIST)
+        val result = pager.refresh(initialKey = Key(53)) as LoadResult.Page
+        assertThat(result.data).containsExactlyElementsIn(
+            ITEMS_LIST.subList(53, 58)
+        ).inOrder()
+        assertThat(result.nextKey).isNull()
+    }
+
+    @Test
+    fun load_consecutiveAppend() = runPagingSourceTest { pager, _ ->
+        dao.addAllItems(ITEMS_LIST)
+        val result1 = pager.run {
+            refresh(initialKey = Key(15))
+            append() as LoadResult.Page
+        }
+        assertThat(result1.data).containsExactlyElementsIn(
+            ITEMS_LIST.subList(30, 35)
+        ).inOrder()
+        assertThat(result1.prevKey).isEqualTo(Key(30L))
+        assertThat(result1.nextKey).isEqualTo(Key(34L))
+
+        val result2 = pager.append() as LoadResult.Page
+        assertThat(result2.data).containsExactlyElementsIn(
+            ITEMS_LIST.subList(35, 40)
+        ).inOrder()
+    }
+
+    @Test
+    fun append_availableItemsLessThanLoadSize() = runPagingSourceTest { pager, _ ->
+        dao.addAllItems(ITEMS_LIST)
+        val result = pager.run {
+            refresh(initialKey = Key(82))
+            append() as LoadResult.Page
+        }
+        assertThat(result.data).containsExactlyElementsIn(
+            ITEMS_LIST.subList(97, 100)
+        ).inOrder()
+        assertThat(result.nextKey).isNull()
+    }
+
+    @Test
+    fun append_afterItemsBeforeKeyDeleted() = runBlocking {
+        dao.addAllItems(ITEMS_LIST)
+        // Unlike offsets, keys still point at the right place after rows before them change.
+        dao.deleteTestItems(0, 20)
+        dao.deleteTestItems(31, 32)
+        val result = KeysetPagingSourceImpl(database).load(
+            LoadParams.Append(key = Key(29L), loadSize = 5, placeholdersEnabled = true)
+        ) as LoadResult.Page
+        assertThat(result.data.map { it.id }).containsExactly(30, 33, 34, 35, 36).inOrder()
+    }
+
+    @Test
+    fun load_consecutivePrepend() = runPagingSourceTest { pager, _ ->
+        dao.addAllItems(ITEMS_LIST)
+        val result1 = pager.run {
+            refresh(initialKey = Key(20))
+            prepend() as LoadResult.Page
+        }
+        assertThat(result1.data).containsExactlyElementsIn(
+            ITEMS_LIST.subList(15, 20)
+        ).inOrder()
+        assertThat(result1.prevKey).isEqualTo(Key(15L))
+        assertThat(result1.nextKey).isEqualTo(Key(19L))
+
+        val result2 = pager.prepend() as LoadResult.Page
+        assertThat(result2.data).containsExactlyElementsIn(
+            ITEMS_LIST.subList(10, 15)
+        ).inOrder()
+    }
+
+    @Test
+    fun prepend_availableItemsLessThanLoadSize() = runPagingSourceTest { pager, _ ->
+        dao.addAllItems(ITEMS_LIST)
+        val result = pager.run {
+            refresh(initialKey = Key(3))
+            prepend() as LoadResult.Page
+        }
+        assertThat(result.data).containsExactlyElementsIn(
+            ITEMS_LIST.subList(0, 3)
+        ).inOrder()
+        assertThat(result.prevKey).isNull()
+        assertThat(result.nextKey).isEqualTo(Key(2L))
+    }
+
+    @Test
+    fun append_invalidResult() = runPagingSourceTest { pager, pagingSource ->
+        dao.addAllItems(ITEMS_LIST)
+        pager.refresh(initialKey = Key(15))
+        // invalidate pagingSource to imitate invalidation from running refreshVersionSync
+        pagingSource.invalidate()
+        val result = pager.append()
+        assertThat(result).isInstanceOf(LoadResult.Invalid::class.java)
+    }
+
+    @Test
+    fun dbInsert_pagingSourceInvalidates() = runPagingSourceTest { pager, pagingSource ->
+        dao.addAllItems(ITEMS_LIST)
+        // load once to register db observers
+        pager.refresh()
+        assertFalse(pagingSource.invalid)
+        dao.addTestItem(TestItem(101))
+        countingTaskExecutorRule.drainTasks(500, TimeUnit.MILLISECONDS)
+        assertTrue(pagingSource.invalid)
+    }
+
+    @Test
+    fun countItems_itemsBeforeAndAfter() = runPagingSourceTest(
+        KeysetPagingSourceImpl(db = database, countItems = true)
+    ) { pager, pagingSource ->
+        dao.addAllItems(ITEMS_LIST)
+        val result = pager.refresh(initialKey = Key(40)) as LoadResult.Page
+        assertThat(pagingSource.itemCount.get()).isEqualTo(100)
+        assertThat(result.itemsBefore).isEqualTo(40)
+        assertThat(result.itemsAfter).isEqualTo(45)
+        // only refreshes are counted
+        val appended = pager.append() as LoadResult.Page
+        assertThat(appended.itemsAfter).isEqualTo(COUNT_UNDEFINED)
+    }
+
+    @Test
+    fun countItems_initialKeyAfterLastItem() = runPagingSourceTest(
+        KeysetPagingSourceImpl(db = database, countItems = true)
+    ) { pager, _ ->
+        dao.addAllItems(ITEMS_LIST)
+        val result = pager.refresh(initialKey = Key(150)) as LoadResult.Page
+        assertThat(result.itemsBefore).isEqualTo(85)
+        assertThat(result.itemsAfter).isEqualTo(0)
+    }
+
+    @Test
+    fun descending() = runPagingSourceTest(
+        KeysetPagingSourceImpl(db = database, descending = true, countItems = true)
+    ) { pager, _ ->
+        dao.addAllItems(ITEMS_LIST)
+        val result = pager.refresh(initialKey = Key(60)) as LoadResult.Page
+        assertThat(result.data.map { it.id }).isEqualTo((60 downTo 46).toList())
+        assertThat(result.itemsBefore).isEqualTo(39)
+        val appended = pager.append() as LoadResult.Page
+        assertThat(appended.data.map { it.id }).isEqualTo((45 downTo 41).toList())
+        val prepended = pager.prepend() as LoadResult.Page
+        assertThat(prepended.data.map { it.id }).isEqualTo((65 downTo 61).toList())
+    }
+
+    @Test
+    fun multipleKeyColumns() = runPagingSourceTest(
+        KeysetPagingSourceImpl(
+            db = database,
+            queryString = "SELECT *, id % 10 AS bucket FROM TestItem",
+            keyColumns = arrayOf("bucket", "id")
+        )
+    ) { pager, _ ->
+        dao.addAllItems(ITEMS_LIST)
+        val sorted = ITEMS_LIST.sortedWith(compareBy({ it.id % 10 }, { it.id }))
+        val result = pager.refresh(initialKey = Key(3, 53)) as LoadResult.Page
+        val start = sorted.indexOfFirst { it.id == 53 }
+        assertThat(result.data).isEqualTo(sorted.subList(start, start + 15))
+        val appended = pager.append() as LoadResult.Page
+        assertThat(appended.data).isEqualTo(sorted.subList(start + 15, start + 20))
+        val prepended = pager.prepend() as LoadResult.Page
+        assertThat(prepended.data).isEqualTo(sorted.subList(start - 5, start))
+    }
+
+    @Test
+    fun getRefreshKey() = runPagingSourceTest { pager, pagingSource ->
+        dao.addAllItems(ITEMS_LIST)
+        pager.run {
+            refresh(initialKey = Key(20))
+            append()
+        }
+        val state = pager.getPagingState(17)
+        // anchor is in the appended page, which starts at item 35
+        assertThat(pagingSource.getRefreshKey(state)).isEqualTo(Key(35L))
+    }
+
+    @Test
+    fun test_jumpSupport() {
+        val pagingSource = KeysetPagingSourceImpl(database)
+        assertFalse(pagingSource.jumpingSupported)
+    }
+
+    private fun runPagingSourceTest(
+        pagingSource: KeysetPagingSourceImpl = KeysetPagingSourceImpl(database),
+        config: PagingConfig = CONFIG,
+        block: suspend (
+            pager: TestPager<Key, TestItem>,
+            pagingSource: KeysetPagingSourceImpl
+        ) -> Unit
+    ) {
+        runBlocking {
+            block(TestPager(pagingSource, config), pagingSource)
+        }
+    }
+}
+
+class KeysetPagingSourceImpl(
+    db: RoomDatabase,
+    queryString: String = "SELECT * FROM TestItem",
+    args: IntArray = IntArray(0),
+    keyColumns: Array<String> = arrayOf("id"),
+    descending: Boolean = false,
+    countItems: Boolean = false,
+) : KeysetPagingSource<TestItem>(
+    sourceQuery = RoomSQLiteQuery.acquire(queryString, args.size).apply {
+        args.forEachIndexed { i, arg -> bindLong(i + 1, arg.toLong()) }
+    },
+    db = db,
+    keyColumns = keyColumns,
+    descending = descending,
+    countItems = countItems,
+    tables = arrayOf("TestItem")
+) {
+
+    override fun convertRows(cursor: Cursor): List<TestItem> {
+        val cursorIndexOfId = getColumnIndexOrThrow(cursor, "id")
+        val data = mutableListOf<TestItem>()
+        while (cursor.moveToNext()) {
+            val tmpId = cursor.getInt(cursorIndexOfId)
+            data.add(TestItem(tmpId))
+        }
+        return data
+    }
+}
+
+private val CONFIG = PagingConfig(
+    pageSize = 5,
+    enablePlaceholders = true,
+    initialLoadSize = 15
+)
+
+private val ITEMS_LIST = List(100) { TestItem(id = it) }
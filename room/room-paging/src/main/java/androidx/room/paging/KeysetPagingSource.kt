@@ -0,0 +1,183 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.paging
+
+import android.database.Cursor
+import androidx.annotation.NonNull
+import androidx.annotation.RestrictTo
+import androidx.paging.PagingSource
+import androidx.paging.PagingSource.LoadResult.Page.Companion.COUNT_UNDEFINED
+import androidx.paging.PagingState
+import androidx.room.RoomDatabase
+import androidx.room.RoomSQLiteQuery
+import androidx.room.getQueryDispatcher
+import androidx.room.paging.util.INITIAL_ITEM_COUNT
+import androidx.room.paging.util.INVALID
+import androidx.room.paging.util.ThreadSafeInvalidationObserver
+import androidx.room.paging.util.queryDatabaseByKey
+import androidx.room.paging.util.queryItemCount
+import androidx.room.paging.util.queryItemCountBeforeKey
+import androidx.room.withTransaction
+import androidx.sqlite.db.SupportSQLiteQuery
+import java.util.concurrent.atomic.AtomicInteger
+import kotlinx.coroutines.withContext
+
+/**
+ * An implementation of [PagingSource] to perform keyset (seek) queries.
+ *
+ * Instead of skipping `OFFSET` rows, each page starts after the sort key of the last loaded item,
+ * e.g. `WHERE id > ? ORDER BY id LIMIT n`, so loading a page costs the same regardless of how
+ * deep in the list it is, provided the key columns are indexed.
+ *
+ * The key columns must be columns of the [sourceQuery] result that together are unique and
+ * not null. Items are ordered by them, ascending or [descending], and any `ORDER BY` of the
+ * source query is ignored.
+ *
+ * Item counts are only computed if [countItems] is true, on refresh, in which case the
+ * [PagingSource] reports placeholders. Otherwise no `COUNT(*)` query is ever run.
+ *
+ * Registers observers on tables lazily and automatically invalidates itself when data changes.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+abstract class KeysetPagingSource<Value : Any>(
+    private val sourceQuery: RoomSQLiteQuery,
+    private val db: RoomDatabase,
+    private val keyColumns: Array<String>,
+    private val descending: Boolean = false,
+    private val countItems: Boolean = false,
+    vararg tables: String,
+) : PagingSource<KeysetPagingSource.Key, Value>() {
+
+    constructor(
+        supportSQLiteQuery: SupportSQLiteQuery,
+        db: RoomDatabase,
+        keyColumns: Array<String>,
+        descending: Boolean = false,
+        countItems: Boolean = false,
+        vararg tables: String,
+    ) : this(
+        sourceQuery = RoomSQLiteQuery.copyFrom(supportSQLiteQuery),
+        db = db,
+        keyColumns = keyColumns,
+        descending = descending,
+        countItems = countItems,
+        tables = tables,
+    )
+
+    init {
+        require(keyColumns.isNotEmpty()) { "At least one key column is required" }
+    }
+
+    internal val itemCount: AtomicInteger = AtomicInteger(INITIAL_ITEM_COUNT)
+
+    private val observer = ThreadSafeInvalidationObserver(
+        tables = tables,
+        onInvalidated = ::invalidate
+    )
+
+    override suspend fun load(params: LoadParams<Key>): LoadResult<Key, Value> {
+        return withContext(db.getQueryDispatcher()) {
+            observer.registerIfNecessary(db)
+            if (params is LoadParams.Refresh && countItems) {
+                countedRefresh(params)
+            } else {
+                uncountedLoad(params)
+            }
+        }
+    }
+
+    /**
+     * Executes the count queries and the db query within a transaction, so that the counts
+     * match the loaded data. The total count is only computed once per generation.
+     */
+    private suspend fun countedRefresh(params: LoadParams<Key>): LoadResult<Key, Value> {
+        return db.withTransaction {
+            var tempCount = itemCount.get()
+            if (tempCount == INITIAL_ITEM_COUNT) {
+                tempCount = queryItemCount(sourceQuery, db)
+                itemCount.set(tempCount)
+            }
+            val key = params.key
+            val itemsBefore = if (key == null) {
+                0
+            } else {
+                queryItemCountBeforeKey(sourceQuery, db, keyColumns, descending, key.values)
+            }
+            queryDatabaseByKey(
+                params = params,
+                sourceQuery = sourceQuery,
+                db = db,
+                keyColumns = keyColumns,
+                descending = descending,
+                itemsBefore = itemsBefore,
+                itemCount = tempCount,
+                convertRows = ::convertRows
+            )
+        }
+    }
+
+    private suspend fun uncountedLoad(params: LoadParams<Key>): LoadResult<Key, Value> {
+        val loadResult = queryDatabaseByKey(
+            params = params,
+            sourceQuery = sourceQuery,
+            db = db,
+            keyColumns = keyColumns,
+            descending = descending,
+            itemsBefore = COUNT_UNDEFINED,
+            itemCount = COUNT_UNDEFINED,
+            convertRows = ::convertRows
+        )
+        // manually check if database has been updated. If so, the observer's
+        // invalidation callback will invalidate this paging source
+        db.invalidationTracker.refreshVersionsSync()
+        @Suppress("UNCHECKED_CAST")
+        return if (invalid) INVALID as LoadResult.Invalid<Key, Value> else loadResult
+    }
+
+    @NonNull
+    protected abstract fun convertRows(cursor: Cursor): List<Value>
+
+    /**
+     * Returns the key of the first item of the page closest to the anchor position, so that
+     * the refresh starts loading at that item. This is the page's prevKey, which is only null
+     * if there are no items before the page, in which case the refresh starts at the beginning.
+     */
+    override fun getRefreshKey(state: PagingState<Key, Value>): Key? {
+        val anchorPosition = state.anchorPosition ?: return null
+        return state.closestPageToPosition(anchorPosition)?.prevKey
+    }
+
+    /**
+     * The sort key of an item: the values of its key columns, in order.
+     *
+     * A key loaded from the database is used as an exclusive bound by appends and prepends and
+     * as an inclusive bound by refreshes.
+     */
+    class Key(vararg values: Any) {
+        internal val values: Array<out Any> = values
+
+        override fun equals(other: Any?): Boolean {
+            if (this === other) return true
+            if (other !is Key) return false
+            return values.contentDeepEquals(other.values)
+        }
+
+        override fun hashCode(): Int = values.contentDeepHashCode()
+
+        override fun toString(): String = "Key(${values.contentDeepToString()})"
+    }
+}
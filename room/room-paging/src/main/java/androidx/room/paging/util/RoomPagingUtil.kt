@@ -26,9 +26,12 @@ import androidx.paging.PagingSource.LoadParams.Prepend
 import androidx.paging.PagingSource.LoadParams.Append
 import androidx.paging.PagingSource.LoadParams.Refresh
 import androidx.paging.PagingSource.LoadResult
+import androidx.paging.PagingSource.LoadResult.Page.Companion.COUNT_UNDEFINED
 import androidx.paging.PagingState
 import androidx.room.RoomDatabase
 import androidx.room.RoomSQLiteQuery
+import androidx.room.paging.KeysetPagingSource.Key
+import androidx.room.util.getColumnIndexOrThrow
 
 /**
  * A [LoadResult] that can be returned to trigger a new generation of PagingSource
@@ -209,3 +212,284 @@ fun <Value : Any> PagingState<Int, Value>.getClippedRefreshKey(): Int? {
         else -> maxOf(0, anchorPosition - (config.initialLoadSize / 2))
     }
 }
+
+/**
+ * calls RoomDatabase.query() with a keyset query to return a cursor and then calls
+ * convertRows() to extract and return list of data
+ *
+ * Append loads the items after the key, Prepend the items before it and Refresh the items
+ * starting at it, or at the beginning if there is no key. If a Refresh with a key finds no
+ * items, e.g. because the items after the key were deleted, the last page is loaded instead.
+ *
+ * throws [IllegalArgumentException] from CursorUtil if a key column does not exist
+ *
+ * @param params load params to calculate query limit and key
+ *
+ * @param sourceQuery user provided [RoomSQLiteQuery] for database query
+ *
+ * @param db the [RoomDatabase] to query from
+ *
+ * @param keyColumns the columns items are sorted by, which together are unique
+ *
+ * @param descending whether items are sorted in descending order of keys
+ *
+ * @param itemsBefore the number of items before the key of a Refresh, or [COUNT_UNDEFINED]
+ *
+ * @param itemCount the db row count, or [COUNT_UNDEFINED]
+ *
+ * @param cancellationSignal the signal to cancel the query if the query hasn't yet completed
+ *
+ * @param convertRows the function to iterate data with provided [Cursor] to return List<Value>
+ */
+fun <Value : Any> queryDatabaseByKey(
+    params: LoadParams<Key>,
+    sourceQuery: RoomSQLiteQuery,
+    db: RoomDatabase,
+    keyColumns: Array<String>,
+    descending: Boolean,
+    itemsBefore: Int,
+    itemCount: Int,
+    cancellationSignal: CancellationSignal? = null,
+    convertRows: (Cursor) -> List<Value>,
+): LoadResult<Key, Value> {
+    val key = params.key
+    val limit = params.loadSize
+    val backwards = params is Prepend
+    var rows = queryRowsByKey(
+        sourceQuery = sourceQuery,
+        db = db,
+        keyColumns = keyColumns,
+        // reading backwards from the key is reading in the opposite order of keys
+        descending = descending != backwards,
+        key = key,
+        inclusive = params is Refresh,
+        limit = limit,
+        cancellationSignal = cancellationSignal,
+        convertRows = convertRows
+    )
+    if (params is Refresh && key != null && rows.data.isEmpty()) {
+        // There is nothing at or after the key anymore, load the last page.
+        val lastRows = queryRowsByKey(
+            sourceQuery = sourceQuery,
+            db = db,
+            keyColumns = keyColumns,
+            descending = !descending,
+            key = key,
+            inclusive = false,
+            limit = limit,
+            cancellationSignal = cancellationSignal,
+            convertRows = convertRows
+        )
+        val data = lastRows.data.asReversed()
+        return LoadResult.Page(
+            data = data,
+            prevKey = if (data.size < limit) null else lastRows.lastKey,
+            nextKey = null,
+            itemsBefore = if (itemCount == COUNT_UNDEFINED) {
+                COUNT_UNDEFINED
+            } else {
+                maxOf(0, itemCount - data.size)
+            },
+            itemsAfter = if (itemCount == COUNT_UNDEFINED) COUNT_UNDEFINED else 0
+        )
+    }
+    if (backwards) {
+        rows = KeyedRows(rows.data.asReversed(), rows.lastKey, rows.firstKey)
+    }
+    val data = rows.data
+    val reachedEnd = data.size < limit
+    val prevKey = when (params) {
+        is Prepend -> if (reachedEnd) null else rows.firstKey
+        is Append -> rows.firstKey
+        is Refresh -> if (key == null || itemsBefore == 0) null else rows.firstKey
+    }
+    val nextKey = when (params) {
+        is Prepend -> rows.lastKey
+        else -> if (reachedEnd) null else rows.lastKey
+    }
+    return LoadResult.Page(
+        data = data,
+        prevKey = prevKey,
+        nextKey = nextKey,
+        itemsBefore = itemsBefore,
+        itemsAfter = if (itemCount == COUNT_UNDEFINED || itemsBefore == COUNT_UNDEFINED) {
+            COUNT_UNDEFINED
+        } else {
+            maxOf(0, itemCount - itemsBefore - data.size)
+        }
+    )
+}
+
+/**
+ * returns count of items sorted before [key], to calculate itemsBefore of a keyset Refresh
+ *
+ * throws error when the column value is null, the column type is not an integral type,
+ * or the integer value is outside the range [Integer.MIN_VALUE, Integer.MAX_VALUE]
+ */
+fun queryItemCountBeforeKey(
+    sourceQuery: RoomSQLiteQuery,
+    db: RoomDatabase,
+    keyColumns: Array<String>,
+    descending: Boolean,
+    key: Array<out Any>
+): Int {
+    val args = mutableListOf<Any>()
+    val condition = keyCondition(
+        keyColumns = keyColumns,
+        key = key,
+        greater = descending,
+        inclusive = false,
+        args = args
+    )
+    val countQuery = "SELECT COUNT(*) FROM ( ${sourceQuery.sql} ) WHERE $condition"
+    val sqLiteQuery = acquireWithKeyArguments(countQuery, sourceQuery, args)
+    val cursor: Cursor = db.query(sqLiteQuery)
+    try {
+        if (cursor.moveToFirst()) {
+            return cursor.getInt(0)
+        }
+        return 0
+    } finally {
+        cursor.close()
+        sqLiteQuery.release()
+    }
+}
+
+/**
+ * Rows loaded by a keyset query along with the keys of the first and the last one, in the order
+ * they were read.
+ */
+private class KeyedRows<Value : Any>(
+    val data: List<Value>,
+    val firstKey: Key?,
+    val lastKey: Key?
+)
+
+private fun <Value : Any> queryRowsByKey(
+    sourceQuery: RoomSQLiteQuery,
+    db: RoomDatabase,
+    keyColumns: Array<String>,
+    descending: Boolean,
+    key: Key?,
+    inclusive: Boolean,
+    limit: Int,
+    cancellationSignal: CancellationSignal?,
+    convertRows: (Cursor) -> List<Value>,
+): KeyedRows<Value> {
+    val args = mutableListOf<Any>()
+    val keysetQuery = buildString {
+        append("SELECT * FROM ( ").append(sourceQuery.sql).append(" )")
+        if (key != null) {
+            append(" WHERE ")
+            append(keyCondition(keyColumns, key.values, !descending, inclusive, args))
+        }
+        append(" ORDER BY ")
+        keyColumns.forEachIndexed { i, column ->
+            if (i > 0) append(", ")
+            append('`').append(column).append('`')
+            append(if (descending) " DESC" else " ASC")
+        }
+        append(" LIMIT ").append(limit)
+    }
+    val sqLiteQuery = acquireWithKeyArguments(keysetQuery, sourceQuery, args)
+    val cursor = db.query(sqLiteQuery, cancellationSignal)
+    try {
+        val data = convertRows(cursor)
+        if (data.isEmpty() || !cursor.moveToFirst()) {
+            return KeyedRows(data, null, null)
+        }
+        val columnIndices = IntArray(keyColumns.size) {
+            getColumnIndexOrThrow(cursor, keyColumns[it])
+        }
+        val firstKey = readKey(cursor, keyColumns, columnIndices)
+        cursor.moveToLast()
+        val lastKey = readKey(cursor, keyColumns, columnIndices)
+        return KeyedRows(data, firstKey, lastKey)
+    } finally {
+        cursor.close()
+        sqLiteQuery.release()
+    }
+}
+
+/**
+ * Returns a condition selecting the rows whose key is greater (or less) than [key], comparing
+ * columns in order. Row values, i.e. `(a, b) > (?, ?)`, are not available before SQLite 3.15,
+ * so the comparison is expanded. It is prefixed with a range on the first column so that an
+ * index on it can be used.
+ */
+private fun keyCondition(
+    keyColumns: Array<String>,
+    key: Array<out Any>,
+    greater: Boolean,
+    inclusive: Boolean,
+    args: MutableList<Any>
+): String {
+    require(key.size == keyColumns.size) {
+        "Key has ${key.size} values but there are ${keyColumns.size} key columns"
+    }
+    val strict = if (greater) ">" else "<"
+    val last = if (inclusive) "$strict=" else strict
+    if (keyColumns.size == 1) {
+        args.add(key[0])
+        return "`${keyColumns[0]}` $last ?"
+    }
+    return buildString {
+        append('`').append(keyColumns[0]).append("` ").append(strict).append("= ? AND (")
+        args.add(key[0])
+        keyColumns.forEachIndexed { i, column ->
+            val isLast = i == keyColumns.lastIndex
+            append('`').append(column).append("` ")
+            append(if (isLast) last else strict).append(" ?")
+            args.add(key[i])
+            if (!isLast) {
+                append(" OR (`").append(column).append("` = ? AND (")
+                args.add(key[i])
+            }
+        }
+        repeat(keyColumns.size - 1) { append("))") }
+        append(')')
+    }
+}
+
+private fun acquireWithKeyArguments(
+    query: String,
+    sourceQuery: RoomSQLiteQuery,
+    args: List<Any>
+): RoomSQLiteQuery {
+    val sqLiteQuery = RoomSQLiteQuery.acquire(query, sourceQuery.argCount + args.size)
+    sqLiteQuery.copyArgumentsFrom(sourceQuery)
+    args.forEachIndexed { i, arg ->
+        val index = sourceQuery.argCount + i + 1
+        when (arg) {
+            is Long -> sqLiteQuery.bindLong(index, arg)
+            is Int -> sqLiteQuery.bindLong(index, arg.toLong())
+            is Short -> sqLiteQuery.bindLong(index, arg.toLong())
+            is Byte -> sqLiteQuery.bindLong(index, arg.toLong())
+            is Double -> sqLiteQuery.bindDouble(index, arg)
+            is Float -> sqLiteQuery.bindDouble(index, arg.toDouble())
+            is String -> sqLiteQuery.bindString(index, arg)
+            is ByteArray -> sqLiteQuery.bindBlob(index, arg)
+            else -> {
+                sqLiteQuery.release()
+                throw IllegalArgumentException(
+                    "Unsupported key value type ${arg.javaClass.name}"
+                )
+            }
+        }
+    }
+    return sqLiteQuery
+}
+
+private fun readKey(cursor: Cursor, keyColumns: Array<String>, columnIndices: IntArray): Key {
+    val values = Array<Any>(columnIndices.size) { i ->
+        val index = columnIndices[i]
+        when (cursor.getType(index)) {
+            Cursor.FIELD_TYPE_INTEGER -> cursor.getLong(index)
+            Cursor.FIELD_TYPE_FLOAT -> cursor.getDouble(index)
+            Cursor.FIELD_TYPE_STRING -> cursor.getString(index)
+            Cursor.FIELD_TYPE_BLOB -> cursor.getBlob(index)
+            else -> throw IllegalStateException("Key column '${keyColumns[i]}' is null")
+        }
+    }
+    return Key(*values)
+}
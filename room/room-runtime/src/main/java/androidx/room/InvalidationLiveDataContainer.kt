@@ -28,20 +28,23 @@ import java.util.concurrent.Callable
  * We keep a strong reference to active LiveData instances to avoid garbage collection in case
  * developer does not hold onto the returned LiveData.
  */
+@Suppress("UnsafeOptInUsageError")
 internal class InvalidationLiveDataContainer(private val database: RoomDatabase) {
     internal val liveDataSet: MutableSet<LiveData<*>> = Collections.newSetFromMap(IdentityHashMap())
 
     fun <T> create(
         tableNames: Array<out String>,
         inTransaction: Boolean,
-        computeFunction: Callable<T>
+        computeFunction: Callable<T>,
+        rowFilter: InvalidationTracker.RowFilter? = null
     ): LiveData<T> {
         return RoomTrackingLiveData(
             database,
             this,
             inTransaction,
             computeFunction,
-            tableNames
+            tableNames,
+            rowFilter
         )
     }
 
@@ -53,6 +53,10 @@ import java.util.concurrent.atomic.AtomicBoolean
 // memory table table, flipping the invalidated flag ON.
 // * When multi-instance invalidation is turned on, MultiInstanceInvalidationClient will be created.
 // It works as an Observer, and notifies other instances of table invalidation.
+// * Tables watched by at least one Observer with a RowFilter get row level triggers instead, which
+// additionally record the rowids they touch into a second memory table (room_row_modification_log).
+// The number of recorded writes per table is capped (room_row_modification_count), past that the
+// whole table is considered changed. Observers without a RowFilter are notified as before.
 open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX) constructor(
     internal val database: RoomDatabase,
     private val shadowTablesMap: Map<String, String>,
@@ -156,6 +160,8 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
             database.execSQL("PRAGMA temp_store = MEMORY;")
             database.execSQL("PRAGMA recursive_triggers='ON';")
             database.execSQL(CREATE_TRACKING_TABLE_SQL)
+            database.execSQL(CREATE_ROW_TRACKING_TABLE_SQL)
+            database.execSQL(CREATE_ROW_COUNT_TABLE_SQL)
             syncTriggers(database)
             cleanupStatement = database.compileStatement(RESET_UPDATED_TABLES_SQL)
             initialized = true
@@ -201,9 +207,19 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
     }
 
     private fun startTrackingTable(db: SupportSQLiteDatabase, tableId: Int) {
+        startTrackingTable(db, tableId, trackRows = false)
+    }
+
+    private fun startTrackingTable(db: SupportSQLiteDatabase, tableId: Int, trackRows: Boolean) {
         db.execSQL(
             "INSERT OR IGNORE INTO $UPDATE_TABLE_NAME VALUES($tableId, 0)"
         )
+        if (trackRows) {
+            // Rows written while the table was not tracked by row are unknown, the table's
+            // invalidated flag covers them.
+            db.execSQL("DELETE FROM $ROW_UPDATE_TABLE_NAME WHERE $TABLE_ID_COLUMN_NAME = $tableId")
+            db.execSQL("INSERT OR REPLACE INTO $ROW_COUNT_TABLE_NAME VALUES($tableId, 0)")
+        }
         val tableName = tablesNames[tableId]
         for (trigger in TRIGGERS) {
             val sql = buildString {
@@ -221,12 +237,40 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
                 append(" = ").append(tableId)
                 append(" AND ").append(INVALIDATED_COLUMN_NAME)
                 append(" = 0")
+                if (trackRows) {
+                    appendRowTracking(tableId, trigger)
+                }
                 append("; END")
             }
             db.execSQL(sql)
         }
     }
 
+    private fun StringBuilder.appendRowTracking(tableId: Int, trigger: String) {
+        append("; UPDATE ").append(ROW_COUNT_TABLE_NAME)
+        append(" SET ").append(ROW_COUNT_COLUMN_NAME)
+        append(" = ").append(ROW_COUNT_COLUMN_NAME).append(" + 1")
+        append(" WHERE ").append(TABLE_ID_COLUMN_NAME)
+        append(" = ").append(tableId)
+        append(" AND ").append(ROW_COUNT_COLUMN_NAME)
+        append(" <= ").append(MAX_TRACKED_ROWS)
+        // An UPDATE may change the rowid, so both the old and the new one are recorded.
+        val rows = when (trigger) {
+            "INSERT" -> arrayOf("NEW")
+            "DELETE" -> arrayOf("OLD")
+            else -> arrayOf("OLD", "NEW")
+        }
+        for (row in rows) {
+            append("; INSERT OR IGNORE INTO ").append(ROW_UPDATE_TABLE_NAME)
+            append(" SELECT ").append(tableId).append(", ").append(row).append(".rowid")
+            append(" WHERE (SELECT ").append(ROW_COUNT_COLUMN_NAME)
+            append(" FROM ").append(ROW_COUNT_TABLE_NAME)
+            append(" WHERE ").append(TABLE_ID_COLUMN_NAME)
+            append(" = ").append(tableId)
+            append(") <= ").append(MAX_TRACKED_ROWS)
+        }
+    }
+
     /**
      * Adds the given observer to the observers list and it will be notified if any table it
      * observes changes.
@@ -253,16 +297,20 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
                 ?: throw IllegalArgumentException("There is no table with name $tableName")
         }.toIntArray()
 
+        @Suppress("UnsafeOptInUsageError")
         val wrapper = ObserverWrapper(
             observer = observer,
             tableIds = tableIds,
-            tableNames = tableNames
+            tableNames = tableNames,
+            rowFilter = observer.getRowFilter()
         )
 
         val currentObserver = synchronized(observerMap) {
             observerMap.putIfAbsent(observer, wrapper)
         }
-        if (currentObserver == null && observedTableTracker.onAdded(*tableIds)) {
+        if (currentObserver == null &&
+            observedTableTracker.onAdded(tableIds, wrapper.observesRows)
+        ) {
             syncTriggers()
         }
     }
@@ -323,7 +371,9 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
         val wrapper = synchronized(observerMap) {
             observerMap.remove(observer)
         }
-        if (wrapper != null && observedTableTracker.onRemoved(tableIds = wrapper.tableIds)) {
+        if (wrapper != null &&
+            observedTableTracker.onRemoved(wrapper.tableIds, wrapper.observesRows)
+        ) {
             syncTriggers()
         }
     }
@@ -350,7 +400,7 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
         override fun run() {
             val closeLock = database.getCloseLock()
             closeLock.lock()
-            val invalidatedTableIds: Set<Int> =
+            val changes: TableChanges =
                 try {
                     if (!ensureInitialization()) {
                         return
@@ -370,42 +420,42 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
                     // in order to avoid a recursive loop after endTransaction.
                     val db = database.openHelper.writableDatabase
                     db.beginTransactionNonExclusive()
-                    val invalidatedTableIds: Set<Int>
+                    val changes: TableChanges
                     try {
-                        invalidatedTableIds = checkUpdatedTable()
+                        changes = checkUpdatedTable()
                         db.setTransactionSuccessful()
                     } finally {
                         db.endTransaction()
                     }
-                    invalidatedTableIds
+                    changes
                 } catch (ex: IllegalStateException) {
                     // may happen if db is closed. just log.
                     Log.e(
                         LOG_TAG, "Cannot run invalidation tracker. Is the db closed?",
                         ex
                     )
-                    emptySet()
+                    TableChanges.NONE
                 } catch (ex: SQLiteException) {
                     Log.e(
                         LOG_TAG, "Cannot run invalidation tracker. Is the db closed?",
                         ex
                     )
-                    emptySet()
+                    TableChanges.NONE
                 } finally {
                     closeLock.unlock()
                     autoCloser?.decrementCountAndScheduleClose()
                 }
 
-            if (invalidatedTableIds.isNotEmpty()) {
+            if (changes.tableIds.isNotEmpty()) {
                 synchronized(observerMap) {
                     observerMap.forEach {
-                        it.value.notifyByTableInvalidStatus(invalidatedTableIds)
+                        it.value.notifyByTableInvalidStatus(changes.tableIds, changes.rowIds)
                     }
                 }
             }
         }
 
-        private fun checkUpdatedTable(): Set<Int> {
+        private fun checkUpdatedTable(): TableChanges {
             val invalidatedTableIds = buildSet {
                 database.query(SimpleSQLiteQuery(SELECT_UPDATED_TABLES_SQL)).useCursor { cursor ->
                     while (cursor.moveToNext()) {
@@ -413,13 +463,52 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
                     }
                 }
             }
-            if (invalidatedTableIds.isNotEmpty()) {
-                checkNotNull(cleanupStatement)
-                val statement = cleanupStatement
-                requireNotNull(statement)
-                statement.executeUpdateDelete()
+            if (invalidatedTableIds.isEmpty()) {
+                return TableChanges.NONE
+            }
+            checkNotNull(cleanupStatement)
+            val statement = cleanupStatement
+            requireNotNull(statement)
+            statement.executeUpdateDelete()
+            val rowIds = if (observedTableTracker.tracksRows) {
+                checkUpdatedRows()
+            } else {
+                emptyMap()
             }
-            return invalidatedTableIds
+            return TableChanges(invalidatedTableIds, rowIds)
+        }
+
+        /**
+         * Reads and clears the rows recorded by row level triggers. Tables whose writes exceeded
+         * [MAX_TRACKED_ROWS] are left out of the result, so they count as fully changed.
+         */
+        private fun checkUpdatedRows(): Map<Int, Set<Long>> {
+            val rowIds = mutableMapOf<Int, MutableSet<Long>>()
+            database.query(SimpleSQLiteQuery(SELECT_UPDATED_ROWS_SQL)).useCursor { cursor ->
+                while (cursor.moveToNext()) {
+                    rowIds.getOrPut(cursor.getInt(0)) { mutableSetOf() }.add(cursor.getLong(1))
+                }
+            }
+            database.query(SimpleSQLiteQuery(SELECT_OVERFLOWED_TABLES_SQL)).useCursor { cursor ->
+                while (cursor.moveToNext()) {
+                    rowIds.remove(cursor.getInt(0))
+                }
+            }
+            val db = database.openHelper.writableDatabase
+            db.execSQL(RESET_UPDATED_ROWS_SQL)
+            db.execSQL(RESET_ROW_COUNTS_SQL)
+            return rowIds
+        }
+    }
+
+    /**
+     * The outcome of a refresh: the ids of the invalidated tables and, for those tracked by row,
+     * the rowids that were written. An invalidated table without an entry in [rowIds] may have
+     * had any of its rows changed.
+     */
+    private class TableChanges(val tableIds: Set<Int>, val rowIds: Map<Int, Set<Long>>) {
+        companion object {
+            val NONE = TableChanges(emptySet(), emptyMap())
         }
     }
 
@@ -499,6 +588,14 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
                                     startTrackingTable(database, tableId)
                                 ObservedTableTracker.REMOVE ->
                                     stopTrackingTable(database, tableId)
+                                ObservedTableTracker.ADD_ROWS -> {
+                                    stopTrackingTable(database, tableId)
+                                    startTrackingTable(database, tableId, trackRows = true)
+                                }
+                                ObservedTableTracker.REMOVE_ROWS -> {
+                                    stopTrackingTable(database, tableId)
+                                    startTrackingTable(database, tableId, trackRows = false)
+                                }
                             }
                         }
                         database.setTransactionSuccessful()
@@ -580,17 +677,51 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
         )
     }
 
+    /**
+     * Creates a LiveData that computes the given function once and for every other write to
+     * the rows accepted by the given [RowFilter].
+     *
+     * Holds a strong reference to the created LiveData as long as it is active.
+     *
+     * @param tableNames      The list of tables to observe
+     * @param inTransaction   True if the computeFunction will be done in a transaction, false
+     * otherwise.
+     * @param rowFilter       The rows of the tables the computeFunction depends on
+     * @param computeFunction The function that calculates the value
+     * @param T             The return type
+     * @return A new LiveData that computes the given function when rows it depends on are
+     * written.
+     * @hide
+     */
+    @ExperimentalRoomApi
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    open fun <T> createLiveData(
+        tableNames: Array<out String>,
+        inTransaction: Boolean,
+        rowFilter: RowFilter,
+        computeFunction: Callable<T>
+    ): LiveData<T> {
+        return invalidationLiveDataContainer.create(
+            validateAndResolveTableNames(tableNames), inTransaction, computeFunction, rowFilter
+        )
+    }
+
     /**
      * Wraps an observer and keeps the table information.
      *
      * Internally table ids are used which may change from database to database so the table
      * related information is kept here rather than in the Observer.
      */
+    @Suppress("UnsafeOptInUsageError")
     internal class ObserverWrapper(
         internal val observer: Observer,
         internal val tableIds: IntArray,
-        private val tableNames: Array<out String>
+        private val tableNames: Array<out String>,
+        private val rowFilter: RowFilter? = null
     ) {
+        internal val observesRows: Boolean
+            get() = rowFilter != null
+
         private val singleTableSet = if (tableNames.isNotEmpty()) {
             setOf(tableNames[0])
         } else {
@@ -606,18 +737,23 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
          * based on the given invalid status set.
          *
          * @param invalidatedTablesIds The table ids of the tables that are invalidated.
+         * @param changedRowIds The rowids written in the invalidated tables that are tracked by
+         * row. Only used if the observer has a [RowFilter].
          */
-        internal fun notifyByTableInvalidStatus(invalidatedTablesIds: Set<Int?>) {
+        internal fun notifyByTableInvalidStatus(
+            invalidatedTablesIds: Set<Int?>,
+            changedRowIds: Map<Int, Set<Long>> = emptyMap()
+        ) {
             val invalidatedTables = when (tableIds.size) {
                 0 -> emptySet()
-                1 -> if (invalidatedTablesIds.contains(tableIds[0])) {
+                1 -> if (isInvalidated(0, invalidatedTablesIds, changedRowIds)) {
                     singleTableSet // Optimization for a single-table observer
                 } else {
                     emptySet()
                 }
                 else -> buildSet {
-                    tableIds.forEachIndexed { idx, tableId ->
-                        if (invalidatedTablesIds.contains(tableId)) {
+                    tableIds.indices.forEach { idx ->
+                        if (isInvalidated(idx, invalidatedTablesIds, changedRowIds)) {
                             add(tableNames[idx])
                         }
                     }
@@ -629,6 +765,21 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
             }
         }
 
+        private fun isInvalidated(
+            idx: Int,
+            invalidatedTablesIds: Set<Int?>,
+            changedRowIds: Map<Int, Set<Long>>
+        ): Boolean {
+            val tableId = tableIds[idx]
+            if (!invalidatedTablesIds.contains(tableId)) {
+                return false
+            }
+            val filter = rowFilter ?: return true
+            val rowIds = changedRowIds[tableId] ?: return true
+            val tableName = tableNames[idx]
+            return rowIds.any { filter.isObserving(tableName, it) }
+        }
+
         /**
          * Notifies the underlying [.mObserver] if it observes any of the specified
          * `tables`.
@@ -686,10 +837,49 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
          */
         abstract fun onInvalidated(tables: Set<String>)
 
+        /**
+         * Returns the [RowFilter] deciding which rows of the observed tables this observer depends
+         * on, or `null` if it depends on the whole tables, which is the default.
+         *
+         * When an observer has a filter, [InvalidationTracker] records the rowids written in the
+         * observed tables and only calls [onInvalidated] for a table if the filter accepts one of
+         * them. This makes writes to those tables more expensive, so it only pays off for
+         * observers of a few rows of frequently written tables. The observed tables must have a
+         * rowid, i.e. not be `WITHOUT ROWID` tables.
+         *
+         * This is called once, when the observer is added.
+         */
+        @ExperimentalRoomApi
+        open fun getRowFilter(): RowFilter? = null
+
         internal open val isRemote: Boolean
             get() = false
     }
 
+    /**
+     * Decides whether a write to a row of an observed table affects an [Observer].
+     *
+     * If too many rows of a table are written between two invalidation checks, the individual
+     * rows are not known anymore and the observers of the table are notified without consulting
+     * their filter.
+     *
+     * @see Observer.getRowFilter
+     */
+    @ExperimentalRoomApi
+    fun interface RowFilter {
+        /**
+         * Returns whether the observer depends on the row with the given rowid.
+         *
+         * This is called on the thread checking for invalidations, while holding the tracker's
+         * lock, so it should return quickly and not access the database.
+         *
+         * @param table The name of the table that was written. This is the name of an underlying
+         * table when observing views.
+         * @param rowId The rowid of the written row.
+         */
+        fun isObserving(table: String, rowId: Long): Boolean
+    }
+
     /**
      * Keeps a list of tables we should observe. Invalidation tracker lazily syncs this list w/
      * triggers in the database.
@@ -700,9 +890,17 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
         // number of observers per table
         val tableObservers = LongArray(tableCount)
 
+        // number of observers with a row filter per table
+        val tableRowObservers = LongArray(tableCount)
+
         // trigger state for each table at last sync
         // this field is updated when syncAndGet is called.
-        private val triggerStates = BooleanArray(tableCount)
+        private val triggerStates = IntArray(tableCount)
+
+        // whether any table had row level triggers at last sync
+        @Volatile
+        var tracksRows = false
+            private set
 
         // when sync is called, this field is returned. It includes actions as ADD, REMOVE, NO_OP
         private val triggerStateChanges = IntArray(tableCount)
@@ -712,7 +910,12 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
         /**
          * @return true if # of triggers is affected.
          */
-        fun onAdded(vararg tableIds: Int): Boolean {
+        fun onAdded(vararg tableIds: Int): Boolean = onAdded(tableIds, observesRows = false)
+
+        /**
+         * @return true if # of triggers or their kind is affected.
+         */
+        fun onAdded(tableIds: IntArray, observesRows: Boolean): Boolean {
             var needTriggerSync = false
             synchronized(this) {
                 tableIds.forEach { tableId ->
@@ -722,6 +925,14 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
                         needsSync = true
                         needTriggerSync = true
                     }
+                    if (observesRows) {
+                        val prevRowObserverCount = tableRowObservers[tableId]
+                        tableRowObservers[tableId] = prevRowObserverCount + 1
+                        if (prevRowObserverCount == 0L) {
+                            needsSync = true
+                            needTriggerSync = true
+                        }
+                    }
                 }
             }
             return needTriggerSync
@@ -730,7 +941,12 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
         /**
          * @return true if # of triggers is affected.
          */
-        fun onRemoved(vararg tableIds: Int): Boolean {
+        fun onRemoved(vararg tableIds: Int): Boolean = onRemoved(tableIds, observesRows = false)
+
+        /**
+         * @return true if # of triggers or their kind is affected.
+         */
+        fun onRemoved(tableIds: IntArray, observesRows: Boolean): Boolean {
             var needTriggerSync = false
             synchronized(this) {
                 tableIds.forEach { tableId ->
@@ -740,6 +956,14 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
                         needsSync = true
                         needTriggerSync = true
                     }
+                    if (observesRows) {
+                        val prevRowObserverCount = tableRowObservers[tableId]
+                        tableRowObservers[tableId] = prevRowObserverCount - 1
+                        if (prevRowObserverCount == 1L) {
+                            needsSync = true
+                            needTriggerSync = true
+                        }
+                    }
                 }
             }
             return needTriggerSync
@@ -751,7 +975,8 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
          */
         fun resetTriggerState() {
             synchronized(this) {
-                Arrays.fill(triggerStates, false)
+                Arrays.fill(triggerStates, STATE_OFF)
+                tracksRows = false
                 needsSync = true
             }
         }
@@ -769,15 +994,24 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
                 if (!needsSync) {
                     return null
                 }
+                var anyRows = false
                 tableObservers.forEachIndexed { i, observerCount ->
-                    val newState = observerCount > 0
-                    if (newState != triggerStates[i]) {
-                        triggerStateChanges[i] = if (newState) ADD else REMOVE
-                    } else {
-                        triggerStateChanges[i] = NO_OP
+                    val newState = when {
+                        observerCount == 0L -> STATE_OFF
+                        tableRowObservers[i] > 0 -> STATE_ROWS
+                        else -> STATE_TABLE
+                    }
+                    triggerStateChanges[i] = when {
+                        newState == triggerStates[i] -> NO_OP
+                        newState == STATE_OFF -> REMOVE
+                        newState == STATE_ROWS -> ADD_ROWS
+                        triggerStates[i] == STATE_ROWS -> REMOVE_ROWS
+                        else -> ADD
                     }
                     triggerStates[i] = newState
+                    anyRows = anyRows || newState == STATE_ROWS
                 }
+                tracksRows = anyRows
                 needsSync = false
                 return triggerStateChanges.clone()
             }
@@ -787,6 +1021,12 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
             const val NO_OP = 0 // don't change trigger state for this table
             const val ADD = 1 // add triggers for this table
             const val REMOVE = 2 // remove triggers for this table
+            const val ADD_ROWS = 3 // replace triggers for this table with row level ones
+            const val REMOVE_ROWS = 4 // replace row level triggers for this table with table ones
+
+            private const val STATE_OFF = 0
+            private const val STATE_TABLE = 1
+            private const val STATE_ROWS = 2
         }
     }
 
@@ -800,6 +1040,10 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
         delegate: Observer
     ) : Observer(delegate.tables) {
         val delegateRef: WeakReference<Observer> = WeakReference(delegate)
+
+        @Suppress("UnsafeOptInUsageError")
+        private val observesRows = delegate.getRowFilter() != null
+
         override fun onInvalidated(tables: Set<String>) {
             val observer = delegateRef.get()
             if (observer == null) {
@@ -808,6 +1052,18 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
                 observer.onInvalidated(tables)
             }
         }
+
+        @Suppress("UnsafeOptInUsageError")
+        override fun getRowFilter(): RowFilter? {
+            if (!observesRows) {
+                return null
+            }
+            // Don't hold on to the delegate's filter, it may reference the delegate. Once the
+            // delegate is gone, accept every row so that onInvalidated removes this observer.
+            return RowFilter { table, rowId ->
+                delegateRef.get()?.getRowFilter()?.isObserving(table, rowId) ?: true
+            }
+        }
     }
 
     companion object {
@@ -819,6 +1075,38 @@ open class InvalidationTracker @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX
             "CREATE TEMP TABLE $UPDATE_TABLE_NAME ($TABLE_ID_COLUMN_NAME INTEGER PRIMARY KEY, " +
                 "$INVALIDATED_COLUMN_NAME INTEGER NOT NULL DEFAULT 0)"
 
+        private const val ROW_UPDATE_TABLE_NAME = "room_row_modification_log"
+        private const val ROW_ID_COLUMN_NAME = "row_id"
+        private const val ROW_COUNT_TABLE_NAME = "room_row_modification_count"
+        private const val ROW_COUNT_COLUMN_NAME = "row_count"
+
+        /**
+         * Number of writes per table recorded by row level triggers between two refreshes, past
+         * which the whole table is considered changed.
+         */
+        @VisibleForTesting
+        internal const val MAX_TRACKED_ROWS = 1000
+        private const val CREATE_ROW_TRACKING_TABLE_SQL =
+            "CREATE TEMP TABLE $ROW_UPDATE_TABLE_NAME ($TABLE_ID_COLUMN_NAME INTEGER NOT NULL, " +
+                "$ROW_ID_COLUMN_NAME INTEGER NOT NULL, " +
+                "PRIMARY KEY($TABLE_ID_COLUMN_NAME, $ROW_ID_COLUMN_NAME))"
+        private const val CREATE_ROW_COUNT_TABLE_SQL =
+            "CREATE TEMP TABLE $ROW_COUNT_TABLE_NAME ($TABLE_ID_COLUMN_NAME INTEGER PRIMARY KEY, " +
+                "$ROW_COUNT_COLUMN_NAME INTEGER NOT NULL DEFAULT 0)"
+
+        @VisibleForTesting
+        internal const val SELECT_UPDATED_ROWS_SQL =
+            "SELECT $TABLE_ID_COLUMN_NAME, $ROW_ID_COLUMN_NAME FROM $ROW_UPDATE_TABLE_NAME;"
+
+        @VisibleForTesting
+        internal const val SELECT_OVERFLOWED_TABLES_SQL =
+            "SELECT $TABLE_ID_COLUMN_NAME FROM $ROW_COUNT_TABLE_NAME " +
+                "WHERE $ROW_COUNT_COLUMN_NAME > $MAX_TRACKED_ROWS;"
+        private const val RESET_UPDATED_ROWS_SQL = "DELETE FROM $ROW_UPDATE_TABLE_NAME"
+        private const val RESET_ROW_COUNTS_SQL =
+            "UPDATE $ROW_COUNT_TABLE_NAME SET $ROW_COUNT_COLUMN_NAME = 0 " +
+                "WHERE $ROW_COUNT_COLUMN_NAME > 0"
+
         @VisibleForTesting
         internal const val RESET_UPDATED_TABLES_SQL =
             "UPDATE $UPDATE_TABLE_NAME SET $INVALIDATED_COLUMN_NAME = 0 " +
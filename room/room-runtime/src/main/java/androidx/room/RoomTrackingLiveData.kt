@@ -37,19 +37,25 @@ import java.util.concurrent.atomic.AtomicBoolean
  *
  * This [LiveData] keeps a weak observer to the [InvalidationTracker] but it is hold
  * strongly by the [InvalidationTracker] as long as it is active.
+ *
+ * If a [InvalidationTracker.RowFilter] is given, only writes to the rows it accepts cause the
+ * value to be recomputed.
  */
-@SuppressLint("RestrictedApi")
+@SuppressLint("RestrictedApi", "UnsafeOptInUsageError")
 internal class RoomTrackingLiveData<T> (
     val database: RoomDatabase,
     private val container: InvalidationLiveDataContainer,
     val inTransaction: Boolean,
     val computeFunction: Callable<T>,
-    tableNames: Array<out String>
+    tableNames: Array<out String>,
+    private val rowFilter: InvalidationTracker.RowFilter? = null
 ) : LiveData<T>() {
     val observer: InvalidationTracker.Observer = object : InvalidationTracker.Observer(tableNames) {
         override fun onInvalidated(tables: Set<String>) {
             ArchTaskExecutor.getInstance().executeOnMainThread(invalidationRunnable)
         }
+
+        override fun getRowFilter() = rowFilter
     }
     val invalid = AtomicBoolean(true)
     val computing = AtomicBoolean(false)
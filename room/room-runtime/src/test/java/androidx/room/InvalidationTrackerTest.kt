@@ -239,6 +239,74 @@ class InvalidationTrackerTest {
         assertThat(observer.await()).isEqualTo(false)
     }
 
+    @Test
+    fun createRowTriggers() {
+        val observer = RowObserver(1, "a") { _, rowId -> rowId == 5L }
+        val sqlCaptor = argumentCaptor<String>()
+        mTracker.addObserver(observer)
+        verify(mSqliteDb, times(9)).execSQL(sqlCaptor.capture())
+        assertThat(sqlCaptor.allValues.take(5)).isEqualTo(
+            listOf(
+                "DROP TRIGGER IF EXISTS `room_table_modification_trigger_a_UPDATE`",
+                "DROP TRIGGER IF EXISTS `room_table_modification_trigger_a_DELETE`",
+                "DROP TRIGGER IF EXISTS `room_table_modification_trigger_a_INSERT`",
+                "INSERT OR IGNORE INTO room_table_modification_log VALUES(0, 0)",
+                "DELETE FROM room_row_modification_log WHERE table_id = 0"
+            )
+        )
+        assertThat(sqlCaptor.allValues[7]).isEqualTo(
+            "CREATE TEMP TRIGGER IF NOT EXISTS `room_table_modification_trigger_a_DELETE`" +
+                " AFTER DELETE ON `a` BEGIN UPDATE room_table_modification_log" +
+                " SET invalidated = 1 WHERE table_id = 0 AND invalidated = 0;" +
+                " UPDATE room_row_modification_count SET row_count = row_count + 1" +
+                " WHERE table_id = 0 AND row_count <= ${InvalidationTracker.MAX_TRACKED_ROWS};" +
+                " INSERT OR IGNORE INTO room_row_modification_log SELECT 0, OLD.rowid" +
+                " WHERE (SELECT row_count FROM room_row_modification_count WHERE table_id = 0)" +
+                " <= ${InvalidationTracker.MAX_TRACKED_ROWS}; END"
+        )
+        assertThat(sqlCaptor.allValues[6]).contains("SELECT 0, NEW.rowid")
+        assertThat(sqlCaptor.allValues[6]).contains("SELECT 0, OLD.rowid")
+    }
+
+    @Test
+    fun observeRows() {
+        val observer = RowObserver(1, "a") { _, rowId -> rowId == 5L }
+        mTracker.addObserver(observer)
+        setInvalidatedTables(0)
+        setChangedRows(intArrayOf(0, 0), longArrayOf(3, 4))
+        refreshSync()
+        assertThat(observer.await()).isEqualTo(false)
+        setInvalidatedTables(0)
+        setChangedRows(intArrayOf(0, 0), longArrayOf(4, 5))
+        refreshSync()
+        assertThat(observer.await()).isEqualTo(true)
+        assertThat(observer.invalidatedTables).containsExactly("a")
+    }
+
+    @Test
+    fun observeRowsOverflow() {
+        val observer = RowObserver(1, "a") { _, _ -> false }
+        mTracker.addObserver(observer)
+        setInvalidatedTables(0)
+        setChangedRows(intArrayOf(0), longArrayOf(3), overflowedTableIds = intArrayOf(0))
+        refreshSync()
+        assertThat(observer.await()).isEqualTo(true)
+        assertThat(observer.invalidatedTables).containsExactly("a")
+    }
+
+    @Test
+    fun observeRowsAndTable() {
+        val rowObserver = RowObserver(1, "a") { _, _ -> false }
+        val tableObserver = LatchObserver(1, "a")
+        mTracker.addObserver(rowObserver)
+        mTracker.addObserver(tableObserver)
+        setInvalidatedTables(0)
+        setChangedRows(intArrayOf(0), longArrayOf(3))
+        refreshSync()
+        assertThat(tableObserver.await()).isEqualTo(true)
+        assertThat(rowObserver.await()).isEqualTo(false)
+    }
+
     @Test
     fun locale() {
         val observer = LatchObserver(1, "I")
@@ -439,6 +507,36 @@ class InvalidationTrackerTest {
         )
     }
 
+    /**
+     * Setup Cursor results to return the given (tableId, rowId) pairs as the changed rows of
+     * tables tracked by row.
+     */
+    private fun setChangedRows(
+        tableIds: IntArray,
+        rowIds: LongArray,
+        overflowedTableIds: IntArray = IntArray(0)
+    ) {
+        drainTasks()
+        val rowCursor: Cursor = mock()
+        val index = AtomicInteger(-1)
+        whenever(rowCursor.moveToNext()).thenAnswer { index.addAndGet(1) < tableIds.size }
+        whenever(rowCursor.getInt(0)).thenAnswer { tableIds[index.get()] }
+        whenever(rowCursor.getLong(1)).thenAnswer { rowIds[index.get()] }
+        doReturn(rowCursor).whenever(mRoomDatabase).query(
+            query = argThat<SimpleSQLiteQuery> { argument ->
+                argument.sql == InvalidationTracker.SELECT_UPDATED_ROWS_SQL
+            },
+            signal = isNull(),
+        )
+        val overflowCursor = createCursorWithValues(*overflowedTableIds)
+        doReturn(overflowCursor).whenever(mRoomDatabase).query(
+            query = argThat<SimpleSQLiteQuery> { argument ->
+                argument.sql == InvalidationTracker.SELECT_OVERFLOWED_TABLES_SQL
+            },
+            signal = isNull(),
+        )
+    }
+
     private fun createCursorWithValues(vararg tableIds: Int): Cursor {
         val cursor: Cursor = mock()
         val index = AtomicInteger(-1)
@@ -480,6 +578,28 @@ class InvalidationTrackerTest {
         }
     }
 
+    internal class RowObserver(
+        count: Int,
+        vararg tableNames: String,
+        private val rowFilter: InvalidationTracker.RowFilter
+    ) : InvalidationTracker.Observer(arrayOf(*tableNames)) {
+        private val mLatch = CountDownLatch(count)
+
+        var invalidatedTables: Set<String>? = null
+            private set
+
+        fun await(): Boolean {
+            return mLatch.await(3, TimeUnit.SECONDS)
+        }
+
+        override fun onInvalidated(tables: Set<String>) {
+            invalidatedTables = tables
+            mLatch.countDown()
+        }
+
+        override fun getRowFilter() = rowFilter
+    }
+
     companion object {
         /**
          * Tries to trigger garbage collection by allocating in the heap until an element is
@@ -103,6 +103,79 @@ class ObservedTableTrackerTest {
         )
     }
 
+    @Test
+    fun addRowObserver() {
+        mTracker.onAdded(intArrayOf(2, 3), observesRows = true)
+        assertThat(mTracker.tracksRows).isFalse()
+        assertThat(
+            mTracker.getTablesToSync()
+        ).isEqualTo(
+            createResponse(
+                2,
+                InvalidationTracker.ObservedTableTracker.ADD_ROWS,
+                3,
+                InvalidationTracker.ObservedTableTracker.ADD_ROWS
+            )
+        )
+        assertThat(mTracker.tracksRows).isTrue()
+    }
+
+    @Test
+    fun switchBetweenTableAndRowTriggers() {
+        initState(2)
+        mTracker.onAdded(intArrayOf(2), observesRows = true)
+        assertThat(
+            mTracker.getTablesToSync()
+        ).isEqualTo(
+            createResponse(2, InvalidationTracker.ObservedTableTracker.ADD_ROWS)
+        )
+        // Another row observer doesn't change anything.
+        assertThat(mTracker.onAdded(intArrayOf(2), observesRows = true)).isFalse()
+        assertThat(mTracker.onRemoved(intArrayOf(2), observesRows = true)).isFalse()
+        assertNull(
+            mTracker.getTablesToSync()
+        )
+        mTracker.onRemoved(intArrayOf(2), observesRows = true)
+        assertThat(
+            mTracker.getTablesToSync()
+        ).isEqualTo(
+            createResponse(2, InvalidationTracker.ObservedTableTracker.REMOVE_ROWS)
+        )
+        assertThat(mTracker.tracksRows).isFalse()
+        mTracker.onRemoved(2)
+        assertThat(
+            mTracker.getTablesToSync()
+        ).isEqualTo(
+            createResponse(2, InvalidationTracker.ObservedTableTracker.REMOVE)
+        )
+    }
+
+    @Test
+    fun removeLastRowObserver() {
+        mTracker.onAdded(intArrayOf(1), observesRows = true)
+        mTracker.getTablesToSync()
+        mTracker.onRemoved(intArrayOf(1), observesRows = true)
+        assertThat(
+            mTracker.getTablesToSync()
+        ).isEqualTo(
+            createResponse(1, InvalidationTracker.ObservedTableTracker.REMOVE)
+        )
+        assertThat(mTracker.tracksRows).isFalse()
+    }
+
+    @Test
+    fun resetTriggerStateWithRowObserver() {
+        mTracker.onAdded(intArrayOf(1), observesRows = true)
+        mTracker.getTablesToSync()
+        mTracker.resetTriggerState()
+        assertThat(mTracker.tracksRows).isFalse()
+        assertThat(
+            mTracker.getTablesToSync()
+        ).isEqualTo(
+            createResponse(1, InvalidationTracker.ObservedTableTracker.ADD_ROWS)
+        )
+    }
+
     private fun initState(vararg tableIds: Int) {
         mTracker.onAdded(*tableIds)
         mTracker.getTablesToSync()
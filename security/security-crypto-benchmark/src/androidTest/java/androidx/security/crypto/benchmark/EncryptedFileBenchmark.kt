@@ -0,0 +1,158 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.security.crypto.benchmark
+
+import android.content.Context
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.security.crypto.EncryptedFile
+import androidx.security.crypto.EncryptedFileChannel
+import androidx.security.crypto.MasterKey
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import java.io.File
+import java.nio.ByteBuffer
+import java.util.Random
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+@SdkSuppress(minSdkVersion = 24)
+class EncryptedFileBenchmark {
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context: Context = ApplicationProvider.getApplicationContext()
+
+    private val file = File(context.filesDir, FILE_NAME)
+
+    private lateinit var encryptedFile: EncryptedFile
+
+    @Before
+    fun setUp() {
+        file.delete()
+        val masterKey = MasterKey.Builder(context)
+            .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
+            .build()
+        encryptedFile = EncryptedFile.Builder(
+            context,
+            file,
+            masterKey,
+            EncryptedFile.FileEncryptionScheme.AES256_GCM_HKDF_4KB
+        ).build()
+        val content = ByteArray(FILE_SIZE)
+        Random(0).nextBytes(content)
+        encryptedFile.openFileOutput().use { it.write(content) }
+    }
+
+    @After
+    fun tearDown() {
+        file.delete()
+    }
+
+    @Test
+    fun sequentialRead_inputStream() {
+        val buffer = ByteArray(READ_SIZE)
+        benchmarkRule.measureRepeated {
+            encryptedFile.openFileInput().use { inputStream ->
+                while (inputStream.read(buffer) >= 0) {
+                    // Reads everything.
+                }
+            }
+        }
+    }
+
+    @Test
+    fun sequentialRead_channel() {
+        val buffer = ByteBuffer.allocate(READ_SIZE)
+        benchmarkRule.measureRepeated {
+            encryptedFile.openFileChannel().use { channel ->
+                while (channel.read(buffer) >= 0) {
+                    buffer.clear()
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the last block of the file, which a stream can only reach by decrypting everything
+     * before it.
+     */
+    @Test
+    fun tailRead_inputStream() {
+        val buffer = ByteArray(READ_SIZE)
+        benchmarkRule.measureRepeated {
+            encryptedFile.openFileInput().use { inputStream ->
+                var remaining = (FILE_SIZE - READ_SIZE).toLong()
+                while (remaining > 0) {
+                    remaining -= inputStream.skip(remaining)
+                }
+                inputStream.read(buffer)
+            }
+        }
+    }
+
+    @Test
+    fun tailRead_channel() {
+        val buffer = ByteBuffer.allocate(READ_SIZE)
+        benchmarkRule.measureRepeated {
+            encryptedFile.openFileChannel().use { channel ->
+                channel.read(buffer, (FILE_SIZE - READ_SIZE).toLong())
+                buffer.clear()
+            }
+        }
+    }
+
+    @Test
+    fun randomRead_channel() {
+        encryptedFile.openFileChannel().use { channel -> measureRandomReads(channel) }
+    }
+
+    /**
+     * Random reads within a range of the file that fits in the cache, so that after the first
+     * reads they are served from memory.
+     */
+    @Test
+    fun randomRead_cachedChannel() {
+        encryptedFile.openFileChannel(CACHED_BLOCKS).use { channel ->
+            measureRandomReads(channel)
+        }
+    }
+
+    private fun measureRandomReads(channel: EncryptedFileChannel) {
+        val random = Random(0)
+        val buffer = ByteBuffer.allocate(READ_SIZE)
+        val range = CACHED_BLOCKS * READ_SIZE - READ_SIZE
+        benchmarkRule.measureRepeated {
+            channel.read(buffer, random.nextInt(range).toLong())
+            buffer.clear()
+        }
+    }
+
+    companion object {
+        private const val FILE_NAME = "encrypted_file_benchmark"
+        private const val FILE_SIZE = 8 * 1024 * 1024
+        private const val READ_SIZE = 4096
+        private const val CACHED_BLOCKS = 64
+    }
+}
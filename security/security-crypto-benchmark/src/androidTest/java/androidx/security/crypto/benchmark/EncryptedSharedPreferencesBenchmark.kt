@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.security.crypto.benchmark
+
+import android.content.Context
+import android.content.SharedPreferences
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.security.crypto.EncryptedSharedPreferences
+import androidx.security.crypto.MasterKey
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class EncryptedSharedPreferencesBenchmark {
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context: Context = ApplicationProvider.getApplicationContext()
+
+    private lateinit var sharedPreferences: SharedPreferences
+
+    @Before
+    fun setUp() {
+        val masterKey = MasterKey.Builder(context)
+            .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
+            .build()
+        sharedPreferences = EncryptedSharedPreferences.create(
+            context,
+            PREFS_FILE,
+            masterKey,
+            EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
+            EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM
+        )
+        val editor = sharedPreferences.edit()
+        for (i in 0 until ENTRY_COUNT) {
+            editor.putString("key$i", "value $i")
+        }
+        editor.commit()
+    }
+
+    @After
+    fun tearDown() {
+        // Also removes the keysets, which are stored in the same file.
+        context.getSharedPreferences(PREFS_FILE, Context.MODE_PRIVATE).edit().clear().commit()
+    }
+
+    /**
+     * Reads a value that was just rewritten, so that its new cipher text has to be decrypted.
+     */
+    @Test
+    fun getString_cold() {
+        var i = 0
+        benchmarkRule.measureRepeated {
+            runWithTimingDisabled {
+                sharedPreferences.edit().putString(KEY, "value ${i++}").commit()
+            }
+            sharedPreferences.getString(KEY, null)
+        }
+    }
+
+    @Test
+    fun getString_warm() {
+        sharedPreferences.edit().putString(KEY, "value").commit()
+        sharedPreferences.getString(KEY, null)
+        benchmarkRule.measureRepeated {
+            sharedPreferences.getString(KEY, null)
+        }
+    }
+
+    @Test
+    fun getInt_warm() {
+        sharedPreferences.edit().putInt(KEY, 42).commit()
+        sharedPreferences.getInt(KEY, 0)
+        benchmarkRule.measureRepeated {
+            sharedPreferences.getInt(KEY, 0)
+        }
+    }
+
+    /**
+     * Reads all the entries after rewriting one of them, so that one value has to be decrypted.
+     */
+    @Test
+    fun getAll_oneChanged() {
+        var i = 0
+        sharedPreferences.all
+        benchmarkRule.measureRepeated {
+            runWithTimingDisabled {
+                sharedPreferences.edit().putString(KEY, "value ${i++}").commit()
+            }
+            sharedPreferences.all
+        }
+    }
+
+    @Test
+    fun getAll_warm() {
+        sharedPreferences.all
+        benchmarkRule.measureRepeated {
+            sharedPreferences.all
+        }
+    }
+
+    companion object {
+        private const val PREFS_FILE = "encrypted_shared_preferences_benchmark"
+        private const val ENTRY_COUNT = 50
+        private const val KEY = "benchmarkKey"
+    }
+}
@@ -18,6 +18,8 @@ package androidx.security.crypto;
 
 import static androidx.security.crypto.MasterKey.KEYSTORE_PATH_URI;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -29,6 +31,7 @@ import androidx.annotation.NonNull;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.MediumTest;
+import androidx.test.filters.SdkSuppress;
 
 import com.google.crypto.tink.KeysetHandle;
 import com.google.crypto.tink.StreamingAead;
@@ -49,8 +52,16 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.security.KeyStore;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @MediumTest
 @RunWith(AndroidJUnit4.class)
@@ -72,7 +83,8 @@ public class EncryptedFileTest {
         TINK_TEST_FILE("tink_test_file"),
         NON_EXISTING("non-existing.data"),
         ENCRYPTED_FILE_1("encrypted_file_1"),
-        ENCRYPTED_FILE_2("encrypted_file_2");
+        ENCRYPTED_FILE_2("encrypted_file_2"),
+        LARGE_FILE("large_file");
 
         private final String mText;
 
@@ -481,4 +493,90 @@ public class EncryptedFileTest {
             }
         }
     }
+
+    @SdkSuppress(minSdkVersion = 24)
+    @Test
+    public void testFileChannelReads() throws Exception {
+        byte[] content = writeLargeFile();
+        EncryptedFile encryptedFile = largeFile();
+
+        for (int cachedBlocks : new int[] {0, 4}) {
+            try (EncryptedFileChannel channel = encryptedFile.openFileChannel(cachedBlocks)) {
+                assertEquals(content.length, channel.size());
+
+                // Reads the tail, across segment boundaries.
+                int tailLength = 10000;
+                channel.position(content.length - tailLength);
+                ByteBuffer tail = ByteBuffer.allocate(tailLength + 100);
+                assertEquals(tailLength, channel.read(tail));
+                assertArrayEquals(
+                        Arrays.copyOfRange(content, content.length - tailLength, content.length),
+                        Arrays.copyOf(tail.array(), tailLength));
+                assertEquals(content.length, channel.position());
+                assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+
+                // Reads the head, twice, with positional reads.
+                for (int i = 0; i < 2; i++) {
+                    ByteBuffer head = ByteBuffer.allocate(5000);
+                    assertEquals(5000, channel.read(head, 0));
+                    assertArrayEquals(Arrays.copyOf(content, 5000), head.array());
+                }
+                assertEquals(content.length, channel.position());
+            }
+        }
+    }
+
+    @SdkSuppress(minSdkVersion = 24)
+    @Test
+    public void testFileChannelConcurrentReads() throws Exception {
+        final byte[] content = writeLargeFile();
+        final EncryptedFileChannel channel = largeFile().openFileChannel(8);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                final long seed = thread;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        Random random = new Random(seed);
+                        for (int i = 0; i < 50; i++) {
+                            int position = random.nextInt(content.length);
+                            int length = Math.min(random.nextInt(10000),
+                                    content.length - position);
+                            ByteBuffer buffer = ByteBuffer.allocate(length);
+                            channel.read(buffer, position);
+                            assertArrayEquals(
+                                    Arrays.copyOfRange(content, position, position + length),
+                                    buffer.array());
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            channel.close();
+        }
+    }
+
+    private EncryptedFile largeFile() throws Exception {
+        return new EncryptedFile.Builder(mContext,
+                new File(mContext.getFilesDir(), TestFileName.LARGE_FILE.toString()),
+                mMasterKey,
+                EncryptedFile.FileEncryptionScheme.AES256_GCM_HKDF_4KB)
+                .build();
+    }
+
+    private byte[] writeLargeFile() throws Exception {
+        byte[] content = new byte[100000];
+        new Random(0).nextBytes(content);
+        OutputStream outputStream = largeFile().openFileOutput();
+        outputStream.write(content);
+        outputStream.close();
+        return content;
+    }
 }
@@ -559,4 +559,53 @@ public class EncryptedSharedPreferencesTest {
                 invokedCallbacks.contains(stringRemove));
     }
 
+    @Test
+    public void testCachedValuesFollowWritesOfOtherInstances() throws Exception {
+        SharedPreferences sharedPreferences = EncryptedSharedPreferences
+                .create(mContext,
+                        PREFS_FILE,
+                        mMasterKey,
+                        EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
+                        EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM);
+        SharedPreferences otherSharedPreferences = EncryptedSharedPreferences
+                .create(mContext,
+                        PREFS_FILE,
+                        mMasterKey,
+                        EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
+                        EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM);
+
+        final String key = "CachedTest";
+        sharedPreferences.edit().putInt(key, 1).commit();
+        // Reads twice so that the second read comes from the cache.
+        Assert.assertEquals(1, sharedPreferences.getInt(key, 0));
+        Assert.assertEquals(1, sharedPreferences.getInt(key, 0));
+
+        otherSharedPreferences.edit().putInt(key, 2).commit();
+        Assert.assertEquals(2, sharedPreferences.getInt(key, 0));
+        Assert.assertEquals(2, sharedPreferences.getAll().get(key));
+
+        otherSharedPreferences.edit().remove(key).commit();
+        Assert.assertEquals(0, sharedPreferences.getInt(key, 0));
+        Assert.assertFalse(sharedPreferences.contains(key));
+    }
+
+    @Test
+    public void testCachedStringSetCannotBeModified() throws Exception {
+        SharedPreferences sharedPreferences = EncryptedSharedPreferences
+                .create(mContext,
+                        PREFS_FILE,
+                        mMasterKey,
+                        EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
+                        EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM);
+
+        final String key = "StringSetTest";
+        Set<String> values = new ArraySet<>();
+        values.add("A");
+        values.add("B");
+        sharedPreferences.edit().putStringSet(key, values).commit();
+
+        sharedPreferences.getStringSet(key, null).add("C");
+        Assert.assertEquals(values, sharedPreferences.getStringSet(key, null));
+    }
+
 }
@@ -24,6 +24,7 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
 
 import com.google.crypto.tink.KeyTemplate;
 import com.google.crypto.tink.KeyTemplates;
@@ -288,6 +289,52 @@ public final class EncryptedFile {
         return new EncryptedFileInputStream(fileInputStream.getFD(), decryptingStream);
     }
 
+    /**
+     * Opens a read only channel over the plain text of the file, which decrypts only the
+     * segments that reads touch and supports concurrent positional reads, see
+     * {@link EncryptedFileChannel}.
+     *
+     * <p>Please ensure that the same master key and keyset are  used to decrypt or it
+     * will cause failures.
+     *
+     * @return The channel to read previously encrypted data.
+     * @throws FileNotFoundException when the file was not found
+     * @throws IOException           when other I/O errors occur
+     */
+    @RequiresApi(24)
+    @NonNull
+    public EncryptedFileChannel openFileChannel() throws IOException {
+        return openFileChannel(0);
+    }
+
+    /**
+     * Opens a read only channel over the plain text of the file, which decrypts only the
+     * segments that reads touch and supports concurrent positional reads, see
+     * {@link EncryptedFileChannel}.
+     *
+     * <p>Please ensure that the same master key and keyset are  used to decrypt or it
+     * will cause failures.
+     *
+     * @param cachedBlocks The number of most recently read 4 KiB blocks of decrypted data to
+     *                     keep in memory, or 0 to keep none.
+     * @return The channel to read previously encrypted data.
+     * @throws FileNotFoundException when the file was not found
+     * @throws IOException           when other I/O errors occur
+     */
+    @RequiresApi(24)
+    @NonNull
+    public EncryptedFileChannel openFileChannel(int cachedBlocks) throws IOException {
+        if (cachedBlocks < 0) {
+            throw new IllegalArgumentException("Negative cachedBlocks: " + cachedBlocks);
+        }
+        if (!mFile.exists()) {
+            throw new FileNotFoundException("file doesn't exist: " + mFile.getName());
+        }
+        FileChannel fileChannel = new FileInputStream(mFile).getChannel();
+        return new EncryptedFileChannel(fileChannel, mStreamingAead,
+                mFile.getName().getBytes(UTF_8), cachedBlocks);
+    }
+
     /**
      * Encrypted file output stream
      */
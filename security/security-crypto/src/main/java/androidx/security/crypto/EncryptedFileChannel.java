@@ -0,0 +1,372 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.security.crypto;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.collection.LruCache;
+
+import com.google.crypto.tink.StreamingAead;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.security.GeneralSecurityException;
+import java.util.ArrayDeque;
+
+/**
+ * A read only {@link SeekableByteChannel} over the plain text of an {@link EncryptedFile}.
+ * <br />
+ * <br />
+ * The file content is encrypted in segments, and reads only decrypt the segments they touch, so
+ * reading the end of a large file does not decrypt everything before it.
+ * <br />
+ * <br />
+ * Besides the usual reads at the channel's {@link #position()}, {@link #read(ByteBuffer, long)}
+ * reads at a given position without changing it. Such positional reads are safe to issue
+ * concurrently from multiple threads, and decrypt in parallel.
+ * <br />
+ * <br />
+ * The channel can optionally keep the most recently read blocks of decrypted data in memory,
+ * so that reading them again does not decrypt them again, see
+ * {@link EncryptedFile#openFileChannel(int)}.
+ */
+@RequiresApi(24)
+public final class EncryptedFileChannel implements SeekableByteChannel {
+
+    /**
+     * The size of the blocks of plain text kept in the cache.
+     */
+    static final int BLOCK_SIZE = 4096;
+
+    private final FileChannel mFileChannel;
+    private final StreamingAead mStreamingAead;
+    private final byte[] mAssociatedData;
+
+    // The decrypted blocks, by index, or null if disabled.
+    @Nullable
+    private final LruCache<Long, byte[]> mBlocks;
+
+    // The decrypting channels not in use. Guarded by this.
+    private final ArrayDeque<SeekableByteChannel> mIdleChannels = new ArrayDeque<>();
+
+    private final Object mPositionLock = new Object();
+
+    // Guarded by mPositionLock.
+    private long mPosition;
+
+    private volatile boolean mClosed;
+
+    // The plain text size, or -1 if not known yet.
+    private volatile long mSize = -1;
+
+    EncryptedFileChannel(
+            @NonNull FileChannel fileChannel,
+            @NonNull StreamingAead streamingAead,
+            @NonNull byte[] associatedData,
+            int cachedBlocks) {
+        mFileChannel = fileChannel;
+        mStreamingAead = streamingAead;
+        mAssociatedData = associatedData;
+        mBlocks = cachedBlocks > 0 ? new LruCache<Long, byte[]>(cachedBlocks) : null;
+    }
+
+    /**
+     * Reads a sequence of bytes from this channel into the given buffer, starting at the current
+     * position, then updates the position with the number of bytes read.
+     *
+     * @return The number of bytes read, or -1 if the position is at the end of the file.
+     * @throws IOException when the file can not be read or its content can not be authenticated
+     */
+    @Override
+    public int read(@NonNull ByteBuffer dst) throws IOException {
+        synchronized (mPositionLock) {
+            int read = read(dst, mPosition);
+            if (read > 0) {
+                mPosition += read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Reads a sequence of bytes from this channel into the given buffer, starting at the given
+     * position. The position of the channel is not updated.
+     *
+     * <p>Reads may be issued concurrently from multiple threads.
+     *
+     * @param dst      The buffer into which bytes are to be transferred.
+     * @param position The position in the plain text at which the transfer is to begin.
+     * @return The number of bytes read, or -1 if the given position is at or past the end of the
+     * file.
+     * @throws IOException when the file can not be read or its content can not be authenticated
+     */
+    public int read(@NonNull ByteBuffer dst, long position) throws IOException {
+        ensureOpen();
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position: " + position);
+        }
+        long size = size();
+        if (position >= size) {
+            return dst.hasRemaining() ? -1 : 0;
+        }
+        int length = (int) Math.min(dst.remaining(), size - position);
+        if (mBlocks == null) {
+            ByteBuffer slice = dst.duplicate();
+            slice.limit(slice.position() + length);
+            readFully(slice, position);
+            dst.position(slice.position());
+        } else {
+            int remaining = length;
+            long blockPosition = position;
+            while (remaining > 0) {
+                long index = blockPosition / BLOCK_SIZE;
+                int offset = (int) (blockPosition % BLOCK_SIZE);
+                byte[] block = getBlock(index, size);
+                int count = Math.min(remaining, block.length - offset);
+                dst.put(block, offset, count);
+                remaining -= count;
+                blockPosition += count;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * This channel is read only.
+     *
+     * @throws NonWritableChannelException always
+     */
+    @Override
+    public int write(@NonNull ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        synchronized (mPositionLock) {
+            return mPosition;
+        }
+    }
+
+    @NonNull
+    @Override
+    public EncryptedFileChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        synchronized (mPositionLock) {
+            mPosition = newPosition;
+        }
+        return this;
+    }
+
+    /**
+     * Returns the size of the plain text of the file.
+     *
+     * @throws IOException when the file can not be read or its content can not be authenticated
+     */
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        long size = mSize;
+        if (size < 0) {
+            SeekableByteChannel channel = acquireChannel();
+            boolean succeeded = false;
+            try {
+                size = channel.size();
+                succeeded = true;
+            } finally {
+                releaseChannel(channel, succeeded);
+            }
+            mSize = size;
+        }
+        return size;
+    }
+
+    /**
+     * This channel is read only.
+     *
+     * @throws NonWritableChannelException always
+     */
+    @NonNull
+    @Override
+    public EncryptedFileChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !mClosed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+            for (SeekableByteChannel channel : mIdleChannels) {
+                channel.close();
+            }
+            mIdleChannels.clear();
+        }
+        if (mBlocks != null) {
+            mBlocks.evictAll();
+        }
+        mFileChannel.close();
+    }
+
+    @NonNull
+    private byte[] getBlock(long index, long size) throws IOException {
+        byte[] block = mBlocks.get(index);
+        if (block == null) {
+            long start = index * BLOCK_SIZE;
+            block = new byte[(int) Math.min(BLOCK_SIZE, size - start)];
+            readFully(ByteBuffer.wrap(block), start);
+            mBlocks.put(index, block);
+        }
+        return block;
+    }
+
+    /**
+     * Fills the given buffer with the plain text at the given position, which must not go past
+     * the end of the file.
+     */
+    private void readFully(@NonNull ByteBuffer dst, long position) throws IOException {
+        SeekableByteChannel channel = acquireChannel();
+        boolean succeeded = false;
+        try {
+            channel.position(position);
+            while (dst.hasRemaining()) {
+                if (channel.read(dst) < 0) {
+                    throw new IOException("Unexpected end of file: " + position);
+                }
+            }
+            succeeded = true;
+        } finally {
+            releaseChannel(channel, succeeded);
+        }
+    }
+
+    /**
+     * Returns an idle decrypting channel, or a new one if they are all in use.
+     */
+    @NonNull
+    private SeekableByteChannel acquireChannel() throws IOException {
+        synchronized (this) {
+            ensureOpen();
+            SeekableByteChannel channel = mIdleChannels.poll();
+            if (channel != null) {
+                return channel;
+            }
+        }
+        try {
+            return mStreamingAead.newSeekableDecryptingChannel(
+                    new PositionalReadChannel(mFileChannel), mAssociatedData);
+        } catch (GeneralSecurityException ex) {
+            throw new IOException("Could not decrypt file: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Returns the given decrypting channel to the idle ones, unless it failed, in which case its
+     * state is unknown and it is closed.
+     */
+    private void releaseChannel(@NonNull SeekableByteChannel channel, boolean succeeded)
+            throws IOException {
+        synchronized (this) {
+            if (succeeded && !mClosed) {
+                mIdleChannels.add(channel);
+                return;
+            }
+        }
+        channel.close();
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (mClosed) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * A {@link SeekableByteChannel} with its own position over a shared {@link FileChannel},
+     * which it reads with positional reads, so that several of them can read the file
+     * concurrently.
+     */
+    private static final class PositionalReadChannel implements SeekableByteChannel {
+        private final FileChannel mFileChannel;
+        private long mPosition;
+
+        PositionalReadChannel(FileChannel fileChannel) {
+            mFileChannel = fileChannel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int read = mFileChannel.read(dst, mPosition);
+            if (read > 0) {
+                mPosition += read;
+            }
+            return read;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() {
+            return mPosition;
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) {
+            mPosition = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return mFileChannel.size();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return mFileChannel.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // The file channel is shared, it is closed by the EncryptedFileChannel.
+        }
+    }
+}
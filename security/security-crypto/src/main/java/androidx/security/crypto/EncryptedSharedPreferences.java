@@ -43,10 +43,17 @@ import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -87,6 +94,25 @@ public final class EncryptedSharedPreferences implements SharedPreferences {
 
     private static final String NULL_VALUE = "__NULL__";
 
+    /**
+     * The maximum number of memoized key encryptions and decryptions, past which they are
+     * forgotten, so that looking up many distinct keys does not grow the caches unbounded.
+     */
+    private static final int MAX_CACHED_KEYS = 1024;
+
+    /**
+     * How long the thread decrypting entries in the background is kept once it has nothing left
+     * to do.
+     */
+    private static final long WARM_UP_THREAD_KEEP_ALIVE_SECONDS = 10;
+
+    // Decrypts the entries of opened files in the background. Created on first use, guarded by
+    // the class.
+    private static Executor sWarmUpExecutor;
+
+    // The files whose entries were decrypted in the background. Guarded by the class.
+    private static final Set<String> sWarmedUpFiles = new HashSet<>();
+
     final SharedPreferences mSharedPreferences;
     final CopyOnWriteArrayList<OnSharedPreferenceChangeListener> mListeners;
     final String mFileName;
@@ -95,6 +121,32 @@ public final class EncryptedSharedPreferences implements SharedPreferences {
     final Aead mValueAead;
     final DeterministicAead mKeyDeterministicAead;
 
+    // Key encryption is deterministic, so encrypted keys are memoized in both directions.
+    private final Map<String, String> mEncryptedKeys = new ConcurrentHashMap<>();
+    private final Map<String, String> mDecryptedKeys = new ConcurrentHashMap<>();
+
+    /**
+     * The decrypted values, by encrypted key. An entry is only used while the underlying
+     * preferences still hold the cipher text it was decrypted from.
+     */
+    private final Map<String, DecryptedValue> mDecryptedValues = new ConcurrentHashMap<>();
+
+    // The underlying preferences only hold weak references to their listeners.
+    private final OnSharedPreferenceChangeListener mInvalidationListener =
+            new OnSharedPreferenceChangeListener() {
+                @Override
+                public void onSharedPreferenceChanged(
+                        @NonNull SharedPreferences sharedPreferences,
+                        @Nullable String encryptedKey) {
+                    if (encryptedKey == null) {
+                        // The preferences were cleared.
+                        mDecryptedValues.clear();
+                    } else {
+                        mDecryptedValues.remove(encryptedKey);
+                    }
+                }
+            };
+
     EncryptedSharedPreferences(@NonNull String name,
             @NonNull String masterKeyAlias,
             @NonNull SharedPreferences sharedPreferences,
@@ -106,6 +158,7 @@ public final class EncryptedSharedPreferences implements SharedPreferences {
         mValueAead = aead;
         mKeyDeterministicAead = deterministicAead;
         mListeners = new CopyOnWriteArrayList<>();
+        mSharedPreferences.registerOnSharedPreferenceChangeListener(mInvalidationListener);
     }
 
     /**
@@ -176,9 +229,44 @@ public final class EncryptedSharedPreferences implements SharedPreferences {
         DeterministicAead daead = daeadKeysetHandle.getPrimitive(DeterministicAead.class);
         Aead aead = aeadKeysetHandle.getPrimitive(Aead.class);
 
-        return new EncryptedSharedPreferences(fileName, masterKeyAlias,
-                applicationContext.getSharedPreferences(fileName, Context.MODE_PRIVATE), aead,
-                daead);
+        final EncryptedSharedPreferences encryptedSharedPreferences =
+                new EncryptedSharedPreferences(fileName, masterKeyAlias,
+                        applicationContext.getSharedPreferences(fileName, Context.MODE_PRIVATE),
+                        aead, daead);
+        warmUp(encryptedSharedPreferences);
+        return encryptedSharedPreferences;
+    }
+
+    /**
+     * Decrypts all the entries of the given preferences once, in the background, so that reads
+     * are served from memory. This is only done for the first instance opened for a file: later
+     * ones fill their caches as they are read.
+     */
+    private static synchronized void warmUp(
+            @NonNull final EncryptedSharedPreferences encryptedSharedPreferences) {
+        if (!sWarmedUpFiles.add(encryptedSharedPreferences.mFileName)) {
+            return;
+        }
+        if (sWarmUpExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                    WARM_UP_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull Runnable runnable) {
+                            Thread thread = new Thread(runnable, "EncryptedSharedPreferences");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            sWarmUpExecutor = executor;
+        }
+        sWarmUpExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                encryptedSharedPreferences.decryptAll();
+            }
+        });
     }
 
     /**
@@ -412,10 +500,10 @@ public final class EncryptedSharedPreferences implements SharedPreferences {
     public Map<String, ?> getAll() {
         Map<String, ? super Object> allEntries = new HashMap<>();
         for (Map.Entry<String, ?> entry : mSharedPreferences.getAll().entrySet()) {
-            if (!isReservedKey(entry.getKey())) {
-                String decryptedKey = decryptKey(entry.getKey());
-                allEntries.put(decryptedKey,
-                        getDecryptedObject(decryptedKey));
+            if (!isReservedKey(entry.getKey()) && entry.getValue() instanceof String) {
+                String encryptedKey = entry.getKey();
+                allEntries.put(decryptKey(encryptedKey),
+                        copyIfMutable(getDecryptedValue(encryptedKey, (String) entry.getValue())));
             }
         }
         return allEntries;
@@ -542,13 +630,64 @@ public final class EncryptedSharedPreferences implements SharedPreferences {
             key = NULL_VALUE;
         }
 
-        try {
-            String encryptedKey = encryptKey(key);
-            String encryptedValue = mSharedPreferences.getString(encryptedKey, null);
-            if (encryptedValue == null) {
-                return null;
+        String encryptedKey = encryptKey(key);
+        String encryptedValue = mSharedPreferences.getString(encryptedKey, null);
+        if (encryptedValue == null) {
+            return null;
+        }
+        return copyIfMutable(getDecryptedValue(encryptedKey, encryptedValue));
+    }
+
+    /**
+     * Decrypts all the entries of the underlying preferences in one batch, so that later reads
+     * are served from memory. Entries that fail to decrypt are left for the reads to report.
+     */
+    void decryptAll() {
+        for (Map.Entry<String, ?> entry : mSharedPreferences.getAll().entrySet()) {
+            if (!isReservedKey(entry.getKey()) && entry.getValue() instanceof String) {
+                try {
+                    decryptKey(entry.getKey());
+                    getDecryptedValue(entry.getKey(), (String) entry.getValue());
+                } catch (RuntimeException ex) {
+                    // Entries that are not valid cipher text (e.g. a plain pref stored in the
+                    // same file) are skipped; the read of this entry surfaces the failure again.
+                }
             }
+        }
+    }
 
+    /**
+     * Returns the decrypted value of the given cipher text, from the cache if it was already
+     * decrypted.
+     */
+    @Nullable
+    private Object getDecryptedValue(@NonNull String encryptedKey,
+            @NonNull String encryptedValue) {
+        DecryptedValue cached = mDecryptedValues.get(encryptedKey);
+        if (cached != null && cached.mCipherText.equals(encryptedValue)) {
+            return cached.mValue;
+        }
+        Object value = decryptValue(encryptedKey, encryptedValue);
+        mDecryptedValues.put(encryptedKey, new DecryptedValue(encryptedValue, value));
+        return value;
+    }
+
+    /**
+     * Returns a copy of the given value if it is a string set, so that callers cannot modify
+     * the cached one.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static Object copyIfMutable(@Nullable Object value) {
+        if (value instanceof ArraySet) {
+            return new ArraySet<>((ArraySet<String>) value);
+        }
+        return value;
+    }
+
+    @Nullable
+    private Object decryptValue(@NonNull String encryptedKey, @NonNull String encryptedValue) {
+        try {
             byte[] cipherText = Base64.decode(encryptedValue, Base64.DEFAULT);
             byte[] value = mValueAead.decrypt(cipherText, encryptedKey.getBytes(UTF_8));
             ByteBuffer buffer = ByteBuffer.wrap(value);
@@ -607,28 +746,61 @@ public final class EncryptedSharedPreferences implements SharedPreferences {
         if (key == null) {
             key = NULL_VALUE;
         }
+        String encryptedKey = mEncryptedKeys.get(key);
+        if (encryptedKey != null) {
+            return encryptedKey;
+        }
         try {
             byte[] encryptedKeyBytes = mKeyDeterministicAead.encryptDeterministically(
                     key.getBytes(UTF_8),
                     mFileName.getBytes());
-            return Base64.encode(encryptedKeyBytes);
+            encryptedKey = Base64.encode(encryptedKeyBytes);
+            cacheKey(key, encryptedKey);
+            return encryptedKey;
         } catch (GeneralSecurityException ex) {
             throw new SecurityException("Could not encrypt key. " + ex.getMessage(), ex);
         }
     }
 
     String decryptKey(String encryptedKey) {
-        try {
-            byte[] clearText = mKeyDeterministicAead.decryptDeterministically(
-                    Base64.decode(encryptedKey, Base64.DEFAULT),
-                    mFileName.getBytes());
-            String key = new String(clearText, UTF_8);
-            if (key.equals(NULL_VALUE)) {
-                key = null;
+        String key = mDecryptedKeys.get(encryptedKey);
+        if (key == null) {
+            try {
+                byte[] clearText = mKeyDeterministicAead.decryptDeterministically(
+                        Base64.decode(encryptedKey, Base64.DEFAULT),
+                        mFileName.getBytes());
+                key = new String(clearText, UTF_8);
+                cacheKey(key, encryptedKey);
+            } catch (GeneralSecurityException ex) {
+                throw new SecurityException("Could not decrypt key. " + ex.getMessage(), ex);
             }
-            return key;
-        } catch (GeneralSecurityException ex) {
-            throw new SecurityException("Could not decrypt key. " + ex.getMessage(), ex);
+        }
+        if (key.equals(NULL_VALUE)) {
+            key = null;
+        }
+        return key;
+    }
+
+    private void cacheKey(@NonNull String key, @NonNull String encryptedKey) {
+        if (mEncryptedKeys.size() >= MAX_CACHED_KEYS) {
+            mEncryptedKeys.clear();
+            mDecryptedKeys.clear();
+        }
+        mEncryptedKeys.put(key, encryptedKey);
+        mDecryptedKeys.put(encryptedKey, key);
+    }
+
+    /**
+     * A decrypted value, along with the cipher text it was decrypted from.
+     */
+    private static final class DecryptedValue {
+        final String mCipherText;
+        @Nullable
+        final Object mValue;
+
+        DecryptedValue(@NonNull String cipherText, @Nullable Object value) {
+            mCipherText = cipherText;
+            mValue = value;
         }
     }
 
@@ -17,17 +17,22 @@
 package androidx.startup
 
 import android.content.Context
+import android.os.Bundle
 import androidx.test.core.app.ApplicationProvider
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import androidx.test.filters.MediumTest
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.CoreMatchers.containsString
+import org.hamcrest.CoreMatchers.startsWith
 import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
 import org.junit.Assert.assertTrue
 import org.junit.Assert.fail
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
+import java.util.concurrent.CountDownLatch
 
 @RunWith(AndroidJUnit4::class)
 @MediumTest
@@ -75,4 +80,103 @@ class AppInitializerTest {
             assertThat(exception.localizedMessage, containsString("Cycle detected."))
         }
     }
+
+    @Test
+    fun parallelInitialization() {
+        val startup = context.getString(R.string.androidx_startup)
+        val metadata = Bundle()
+        metadata.putString(ConcurrentInitializerWithDependency::class.java.name, startup)
+        metadata.putString(InitializerWithDependency::class.java.name, startup)
+        metadata.putInt(AppInitializer.PARALLELISM_KEY, 2)
+        appInitializer.discoverAndInitialize(metadata)
+        assertThat(appInitializer.mDiscovered.size, `is`(2))
+        assertThat(appInitializer.mInitialized.size, `is`(3))
+        assertTrue(appInitializer.mInitialized.containsKey(InitializerNoDependencies::class.java))
+        assertTrue(appInitializer.mInitialized.containsKey(InitializerWithDependency::class.java))
+        val threadName = appInitializer.initializeComponent(
+            ConcurrentInitializerWithDependency::class.java
+        )
+        assertThat(threadName, startsWith("androidx.startup-"))
+    }
+
+    @Test
+    fun parallelInitializationWithCyclicDependencies() {
+        val metadata = Bundle()
+        metadata.putString(
+            CyclicDependencyInitializer::class.java.name,
+            context.getString(R.string.androidx_startup)
+        )
+        metadata.putInt(AppInitializer.PARALLELISM_KEY, 2)
+        try {
+            appInitializer.discoverAndInitialize(metadata)
+            fail()
+        } catch (exception: StartupException) {
+            assertThat(exception.localizedMessage, containsString("Cycle detected."))
+        }
+    }
+
+    @Test
+    fun parallelInitializationRespectsDependencies() {
+        ConcurrentInitializationOrder.initialized.clear()
+        val metadata = Bundle()
+        metadata.putString(
+            ConcurrentLeafInitializer::class.java.name,
+            context.getString(R.string.androidx_startup)
+        )
+        metadata.putInt(AppInitializer.PARALLELISM_KEY, 4)
+        appInitializer.discoverAndInitialize(metadata)
+        assertEquals(
+            listOf(
+                ConcurrentRootInitializer::class.java,
+                ConcurrentMiddleInitializer::class.java,
+                ConcurrentLeafInitializer::class.java
+            ),
+            ConcurrentInitializationOrder.initialized
+        )
+    }
+
+    @Test
+    fun parallelInitializationPropagatesFailures() {
+        val startup = context.getString(R.string.androidx_startup)
+        val metadata = Bundle()
+        metadata.putString(FailingConcurrentInitializer::class.java.name, startup)
+        metadata.putString(InitializerWithDependency::class.java.name, startup)
+        metadata.putInt(AppInitializer.PARALLELISM_KEY, 2)
+        try {
+            appInitializer.discoverAndInitialize(metadata)
+            fail()
+        } catch (exception: StartupException) {
+            assertThat(
+                exception.localizedMessage,
+                containsString(FailingConcurrentInitializer.MESSAGE)
+            )
+        }
+        assertFalse(
+            appInitializer.mInitialized.containsKey(FailingConcurrentInitializer::class.java)
+        )
+    }
+
+    @Test
+    fun parallelInitializationWithInitializeComponentInCreate() {
+        AppInitializer.setDelegate(appInitializer)
+        initializingLatch = CountDownLatch(2)
+        val startup = context.getString(R.string.androidx_startup)
+        val metadata = Bundle()
+        metadata.putString(InitializingConcurrentInitializerA::class.java.name, startup)
+        metadata.putString(InitializingConcurrentInitializerB::class.java.name, startup)
+        metadata.putString(InitializedConcurrentInitializer::class.java.name, startup)
+        // Both initializing initializers may hold the only two threads while they initialize
+        // the third one, which then has to run on one of them.
+        metadata.putInt(AppInitializer.PARALLELISM_KEY, 2)
+        appInitializer.discoverAndInitialize(metadata)
+        assertThat(appInitializer.mInitialized.size, `is`(3))
+        assertEquals(
+            InitializedConcurrentInitializer.VALUE,
+            appInitializer.initializeComponent(InitializingConcurrentInitializerA::class.java)
+        )
+        assertEquals(
+            InitializedConcurrentInitializer.VALUE,
+            appInitializer.initializeComponent(InitializingConcurrentInitializerB::class.java)
+        )
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.startup
+
+import android.content.Context
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Records the order in which the concurrent test initializers are created.
+ */
+object ConcurrentInitializationOrder {
+    val initialized: MutableList<Class<*>> = Collections.synchronizedList(mutableListOf())
+}
+
+/**
+ * Concurrent initializer at the root of a chain of dependencies.
+ */
+class ConcurrentRootInitializer : ConcurrentInitializer<Unit> {
+    override fun create(context: Context) {
+        // Gives the dependents a chance to run too early if ordering is broken.
+        Thread.sleep(50)
+        ConcurrentInitializationOrder.initialized.add(javaClass)
+    }
+
+    override fun dependencies(): List<Class<out Initializer<*>>> = emptyList()
+}
+
+/**
+ * Concurrent initializer depending on [ConcurrentRootInitializer].
+ */
+class ConcurrentMiddleInitializer : ConcurrentInitializer<Unit> {
+    override fun create(context: Context) {
+        ConcurrentInitializationOrder.initialized.add(javaClass)
+    }
+
+    override fun dependencies(): List<Class<out Initializer<*>>> {
+        return listOf(ConcurrentRootInitializer::class.java)
+    }
+}
+
+/**
+ * Concurrent initializer depending on [ConcurrentMiddleInitializer].
+ */
+class ConcurrentLeafInitializer : ConcurrentInitializer<Unit> {
+    override fun create(context: Context) {
+        ConcurrentInitializationOrder.initialized.add(javaClass)
+    }
+
+    override fun dependencies(): List<Class<out Initializer<*>>> {
+        return listOf(ConcurrentMiddleInitializer::class.java)
+    }
+}
+
+/**
+ * Concurrent initializer that fails.
+ */
+class FailingConcurrentInitializer : ConcurrentInitializer<Unit> {
+    override fun create(context: Context) {
+        throw IllegalStateException(MESSAGE)
+    }
+
+    override fun dependencies(): List<Class<out Initializer<*>>> = emptyList()
+
+    companion object {
+        const val MESSAGE = "Failed on purpose"
+    }
+}
+
+/**
+ * Concurrent initializer initialized by [InitializingConcurrentInitializerA] and
+ * [InitializingConcurrentInitializerB] without being one of their dependencies.
+ */
+class InitializedConcurrentInitializer : ConcurrentInitializer<String> {
+    override fun create(context: Context): String = VALUE
+
+    override fun dependencies(): List<Class<out Initializer<*>>> = emptyList()
+
+    companion object {
+        const val VALUE = "initialized"
+    }
+}
+
+/**
+ * Concurrent initializer that initializes [InitializedConcurrentInitializer] once
+ * [InitializingConcurrentInitializerB] runs too, so that both hold an executor thread.
+ */
+class InitializingConcurrentInitializerA : ConcurrentInitializer<String> {
+    override fun create(context: Context): String = initializeOther(context)
+
+    override fun dependencies(): List<Class<out Initializer<*>>> = emptyList()
+}
+
+/**
+ * Same as [InitializingConcurrentInitializerA].
+ */
+class InitializingConcurrentInitializerB : ConcurrentInitializer<String> {
+    override fun create(context: Context): String = initializeOther(context)
+
+    override fun dependencies(): List<Class<out Initializer<*>>> = emptyList()
+}
+
+/**
+ * Counts down when each of the initializing initializers starts. It is reset by the tests.
+ */
+var initializingLatch = CountDownLatch(2)
+
+private fun initializeOther(context: Context): String {
+    initializingLatch.countDown()
+    // Times out if the other one never starts, e.g. when it's queued behind this one.
+    initializingLatch.await(1, TimeUnit.SECONDS)
+    return AppInitializer.getInstance(context)
+        .initializeComponent(InitializedConcurrentInitializer::class.java)
+}
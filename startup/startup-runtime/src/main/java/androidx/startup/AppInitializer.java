@@ -33,6 +33,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An {@link AppInitializer} can be used to initialize all discovered
@@ -46,6 +51,15 @@ public final class AppInitializer {
     // Tracing
     private static final String SECTION_NAME = "Startup";
 
+    /**
+     * The <code>&lt;meta-data&gt;</code> key of the {@link InitializationProvider} setting the
+     * number of threads used to initialize {@link ConcurrentInitializer}s. Values lower than 2
+     * initialize everything serially, on the main thread.
+     */
+    static final String PARALLELISM_KEY = "androidx.startup.parallelism";
+
+    private static final long KEEP_ALIVE_SECONDS = 1;
+
     /**
      * The {@link AppInitializer} instance.
      */
@@ -65,6 +79,12 @@ public final class AppInitializer {
     @NonNull
     final Context mContext;
 
+    /**
+     * The graph being initialized in parallel, if any.
+     */
+    @Nullable
+    private volatile InitializerGraph mGraph;
+
     /**
      * Creates an instance of {@link AppInitializer}
      *
@@ -131,6 +151,17 @@ public final class AppInitializer {
     @NonNull
     @SuppressWarnings({"unchecked", "TypeParameterUnusedInFormals"})
     <T> T doInitialize(@NonNull Class<? extends Initializer<?>> component) {
+        InitializerGraph graph = mGraph;
+        if (graph != null) {
+            InitializerGraph.Node node = graph.getNode(component);
+            if (node != null) {
+                return (T) graph.await(node);
+            }
+            // The nodes this component depends on may need initializers that take sLock, so
+            // they are awaited before taking it. They are then already initialized when
+            // doInitialize() below gets to them.
+            awaitGraphDependencies(graph, component, new HashSet<Class<?>>());
+        }
         Object result;
         synchronized (sLock) {
             result = mInitialized.get(component);
@@ -141,6 +172,35 @@ public final class AppInitializer {
         return (T) result;
     }
 
+    /**
+     * Awaits the nodes of the given graph that the component transitively depends on, without
+     * initializing the components that are not part of the graph.
+     */
+    private void awaitGraphDependencies(
+            @NonNull InitializerGraph graph,
+            @NonNull Class<? extends Initializer<?>> component,
+            @NonNull Set<Class<?>> visited) {
+        if (!visited.add(component)) {
+            // Already visited, or a cycle that doInitialize() reports.
+            return;
+        }
+        List<Class<? extends Initializer<?>>> dependencies;
+        try {
+            Object instance = component.getDeclaredConstructor().newInstance();
+            dependencies = ((Initializer<?>) instance).dependencies();
+        } catch (Throwable throwable) {
+            throw new StartupException(throwable);
+        }
+        for (Class<? extends Initializer<?>> clazz : dependencies) {
+            InitializerGraph.Node node = graph.getNode(clazz);
+            if (node != null) {
+                graph.await(node);
+            } else {
+                awaitGraphDependencies(graph, clazz, visited);
+            }
+        }
+    }
+
     @NonNull
     @SuppressWarnings({"unchecked", "TypeParameterUnusedInFormals"})
     private <T> T doInitialize(
@@ -168,8 +228,13 @@ public final class AppInitializer {
                             initializer.dependencies();
 
                     if (!dependencies.isEmpty()) {
+                        InitializerGraph graph = mGraph;
                         for (Class<? extends Initializer<?>> clazz : dependencies) {
-                            if (!mInitialized.containsKey(clazz)) {
+                            InitializerGraph.Node node =
+                                    graph != null ? graph.getNode(clazz) : null;
+                            if (node != null) {
+                                graph.await(node);
+                            } else if (!mInitialized.containsKey(clazz)) {
                                 doInitialize(clazz, initializing);
                             }
                         }
@@ -220,6 +285,9 @@ public final class AppInitializer {
                 Set<Class<?>> initializing = new HashSet<>();
                 Set<String> keys = metadata.keySet();
                 for (String key : keys) {
+                    if (PARALLELISM_KEY.equals(key)) {
+                        continue;
+                    }
                     String value = metadata.getString(key, null);
                     if (startup.equals(value)) {
                         Class<?> clazz = Class.forName(key);
@@ -235,12 +303,65 @@ public final class AppInitializer {
                 }
                 // Initialize only after discovery is complete. This way, the check for
                 // isEagerlyInitialized is correct.
-                for (Class<? extends Initializer<?>> component : mDiscovered) {
-                    doInitialize(component, initializing);
+                int parallelism = metadata.getInt(PARALLELISM_KEY, 1);
+                if (parallelism > 1) {
+                    initializeInParallel(parallelism);
+                } else {
+                    for (Class<? extends Initializer<?>> component : mDiscovered) {
+                        doInitialize(component, initializing);
+                    }
                 }
             }
         } catch (ClassNotFoundException exception) {
             throw new StartupException(exception);
         }
     }
+
+    /**
+     * Initializes the discovered components by building their dependency graph once, then
+     * initializing independent {@link ConcurrentInitializer}s concurrently on up to
+     * <code>parallelism</code> threads. All other initializers run on the calling thread.
+     */
+    private void initializeInParallel(int parallelism) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        return new Thread(
+                                runnable, "androidx.startup-" + mCount.incrementAndGet()
+                        );
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        try {
+            InitializerGraph graph;
+            synchronized (sLock) {
+                try {
+                    graph = InitializerGraph.build(mContext, executor, mDiscovered, mInitialized);
+                } catch (Throwable throwable) {
+                    throw new StartupException(throwable);
+                }
+                mGraph = graph;
+            }
+            // Initializers may initialize other components, so the lock must not be held here.
+            Map<Class<?>, Object> results = graph.initialize();
+            synchronized (sLock) {
+                for (Map.Entry<Class<?>, Object> entry : results.entrySet()) {
+                    if (!mInitialized.containsKey(entry.getKey())) {
+                        mInitialized.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        } finally {
+            mGraph = null;
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.startup;
+
+/**
+ * An {@link Initializer} that does not need to run on the main thread.
+ *
+ * When parallel initialization is enabled for the {@link InitializationProvider}, by adding
+ * <code>&lt;meta-data android:name="androidx.startup.parallelism" android:value="4" /&gt;</code>
+ * to it, the {@link #create} method of a {@link ConcurrentInitializer} is called on a background
+ * thread, concurrently with initializers it does not depend on. Its dependencies are still
+ * initialized before it. Other initializers keep running on the main thread.
+ *
+ * Otherwise a {@link ConcurrentInitializer} behaves like any other {@link Initializer}.
+ *
+ * @param <T> The type of the component being initialized.
+ */
+public interface ConcurrentInitializer<T> extends Initializer<T> {
+}
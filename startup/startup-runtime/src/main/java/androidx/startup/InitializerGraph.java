@@ -0,0 +1,456 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.startup;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.tracing.Trace;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * The dependency graph of a set of {@link Initializer}s, which initializes independent
+ * {@link ConcurrentInitializer}s concurrently.
+ *
+ * The graph is built once, then {@link #initialize} creates every node after its dependencies:
+ * {@link ConcurrentInitializer}s on the given {@link Executor} and all the others on the calling
+ * thread, which waits until all nodes are initialized.
+ */
+final class InitializerGraph {
+
+    /**
+     * A node of the graph, i.e. an initializer along with its dependencies.
+     */
+    static final class Node {
+        @NonNull
+        final Class<? extends Initializer<?>> mComponent;
+        @NonNull
+        final Initializer<?> mInitializer;
+        @NonNull
+        final List<Node> mDependencies = new ArrayList<>();
+        @NonNull
+        final List<Node> mDependents = new ArrayList<>();
+
+        // The number of dependencies not initialized yet. Guarded by the graph.
+        int mPendingDependencies;
+        // Whether a thread claimed the node to initialize it. Guarded by the graph.
+        boolean mStarted;
+        // Guarded by the graph.
+        boolean mInitialized;
+        // Guarded by the graph.
+        @Nullable
+        Object mResult;
+        // Guarded by the graph.
+        long mDurationMillis;
+
+        Node(@NonNull Class<? extends Initializer<?>> component,
+                @NonNull Initializer<?> initializer) {
+            mComponent = component;
+            mInitializer = initializer;
+        }
+
+        boolean isConcurrent() {
+            return mInitializer instanceof ConcurrentInitializer;
+        }
+    }
+
+    @NonNull
+    private final Context mContext;
+
+    @NonNull
+    private final Executor mExecutor;
+
+    @NonNull
+    private final Map<Class<?>, Node> mNodes;
+
+    /**
+     * The node being initialized by the current thread, to detect cycles when an initializer
+     * initializes another one that depends on it.
+     */
+    private final ThreadLocal<Node> mCurrentNode = new ThreadLocal<>();
+
+    // The nodes to initialize on the initializing thread. Guarded by this.
+    private final ArrayDeque<Node> mReadyNodes = new ArrayDeque<>();
+
+    // Guarded by this.
+    private int mInitializedCount;
+
+    // Guarded by this.
+    @Nullable
+    private Throwable mFailure;
+
+    @Nullable
+    private volatile Thread mInitializingThread;
+
+    private InitializerGraph(
+            @NonNull Context context,
+            @NonNull Executor executor,
+            @NonNull Map<Class<?>, Node> nodes) {
+        mContext = context;
+        mExecutor = executor;
+        mNodes = nodes;
+    }
+
+    /**
+     * Builds the graph of the given components and their transitive dependencies, leaving out
+     * the already initialized ones.
+     *
+     * @param context  The application {@link Context}
+     * @param executor The {@link Executor} that initializes {@link ConcurrentInitializer}s
+     * @throws IllegalStateException if there is a dependency cycle
+     */
+    @NonNull
+    static InitializerGraph build(
+            @NonNull Context context,
+            @NonNull Executor executor,
+            @NonNull Set<Class<? extends Initializer<?>>> components,
+            @NonNull Map<Class<?>, Object> initialized) throws ReflectiveOperationException {
+        Map<Class<?>, Node> nodes = new LinkedHashMap<>();
+        Set<Class<?>> visiting = new HashSet<>();
+        for (Class<? extends Initializer<?>> component : components) {
+            addNode(component, initialized, nodes, visiting);
+        }
+        return new InitializerGraph(context, executor, nodes);
+    }
+
+    @Nullable
+    private static Node addNode(
+            @NonNull Class<? extends Initializer<?>> component,
+            @NonNull Map<Class<?>, Object> initialized,
+            @NonNull Map<Class<?>, Node> nodes,
+            @NonNull Set<Class<?>> visiting) throws ReflectiveOperationException {
+        if (visiting.contains(component)) {
+            String message = String.format(
+                    "Cannot initialize %s. Cycle detected.", component.getName()
+            );
+            throw new IllegalStateException(message);
+        }
+        if (initialized.containsKey(component)) {
+            return null;
+        }
+        Node node = nodes.get(component);
+        if (node != null) {
+            return node;
+        }
+        visiting.add(component);
+        Initializer<?> initializer =
+                (Initializer<?>) component.getDeclaredConstructor().newInstance();
+        node = new Node(component, initializer);
+        for (Class<? extends Initializer<?>> clazz : initializer.dependencies()) {
+            Node dependency = addNode(clazz, initialized, nodes, visiting);
+            if (dependency != null && !node.mDependencies.contains(dependency)) {
+                node.mDependencies.add(dependency);
+                dependency.mDependents.add(node);
+            }
+        }
+        node.mPendingDependencies = node.mDependencies.size();
+        visiting.remove(component);
+        nodes.put(component, node);
+        return node;
+    }
+
+    /**
+     * Returns the node of the given component, or <code>null</code> if it is not part of the
+     * graph.
+     */
+    @Nullable
+    Node getNode(@NonNull Class<?> component) {
+        return mNodes.get(component);
+    }
+
+    /**
+     * Initializes all the nodes of the graph.
+     *
+     * @return The initialized components.
+     * @throws StartupException if an initializer failed
+     */
+    @NonNull
+    Map<Class<?>, Object> initialize() {
+        mInitializingThread = Thread.currentThread();
+        try {
+            synchronized (this) {
+                for (Node node : mNodes.values()) {
+                    if (node.mPendingDependencies == 0) {
+                        schedule(node);
+                    }
+                }
+            }
+            while (true) {
+                Node node;
+                synchronized (this) {
+                    node = nextReadyNode(null);
+                    if (node == null) {
+                        break;
+                    }
+                }
+                run(node);
+            }
+        } finally {
+            mInitializingThread = null;
+        }
+        Map<Class<?>, Object> results = new LinkedHashMap<>();
+        synchronized (this) {
+            for (Node node : mNodes.values()) {
+                results.put(node.mComponent, node.mResult);
+            }
+        }
+        traceCriticalPath();
+        return results;
+    }
+
+    /**
+     * Waits until the given node is initialized and returns its result. Called when an
+     * initializer initializes another one of the graph it does not declare as a dependency.
+     *
+     * Nodes that have not started yet and may run on the calling thread are initialized on it
+     * rather than waited for, along with their dependencies. Otherwise initializers running on
+     * the executor and initializing each other could use up all its threads while the nodes they
+     * wait for are still queued.
+     */
+    @NonNull
+    Object await(@NonNull Node node) {
+        Node current = mCurrentNode.get();
+        if (current != null && dependsOn(node, current)) {
+            String message = String.format(
+                    "Cannot initialize %s. Cycle detected.", node.mComponent.getName()
+            );
+            throw new StartupException(new IllegalStateException(message));
+        }
+        boolean isInitializingThread = Thread.currentThread() == mInitializingThread;
+        // Once the dependencies are initialized, the node is either claimed by another thread or
+        // ready to be claimed.
+        for (Node dependency : node.mDependencies) {
+            await(dependency);
+        }
+        while (true) {
+            Node next;
+            synchronized (this) {
+                if (mFailure != null) {
+                    throw new StartupException(mFailure);
+                }
+                if (node.mInitialized) {
+                    // Non-null, as the initializer's create() is @NonNull.
+                    return node.mResult;
+                }
+                if (!node.mStarted && (node.isConcurrent() || isInitializingThread)) {
+                    next = node;
+                } else if (isInitializingThread) {
+                    // Keep running the nodes bound to this thread, the awaited node may be one
+                    // of them or depend on them.
+                    next = nextReadyNode(node);
+                } else {
+                    waitForChange();
+                    next = null;
+                }
+            }
+            if (next != null) {
+                run(next);
+            }
+        }
+    }
+
+    /**
+     * Returns the next node to run on the initializing thread, waiting for one if there is
+     * none. Returns <code>null</code> once all nodes, or the given awaited node, are initialized.
+     */
+    @Nullable
+    private Node nextReadyNode(@Nullable Node awaited) {
+        while (true) {
+            if (mFailure != null) {
+                throw new StartupException(mFailure);
+            }
+            if (mInitializedCount == mNodes.size()
+                    || (awaited != null && awaited.mInitialized)) {
+                return null;
+            }
+            Node node = mReadyNodes.poll();
+            if (node != null) {
+                return node;
+            }
+            waitForChange();
+        }
+    }
+
+    private void waitForChange() {
+        if (mFailure != null) {
+            throw new StartupException(mFailure);
+        }
+        try {
+            wait();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new StartupException(exception);
+        }
+    }
+
+    private void schedule(@NonNull final Node node) {
+        if (node.isConcurrent()) {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    InitializerGraph.this.run(node);
+                }
+            });
+        } else {
+            mReadyNodes.add(node);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Initializes the given node on the calling thread, unless it was already claimed by another
+     * thread, or an initializer failed.
+     */
+    private void run(@NonNull Node node) {
+        synchronized (this) {
+            if (mFailure != null || node.mStarted) {
+                return;
+            }
+            node.mStarted = true;
+        }
+        Node previous = mCurrentNode.get();
+        mCurrentNode.set(node);
+        Object result = null;
+        Throwable failure = null;
+        long start = SystemClock.uptimeMillis();
+        try {
+            // Use the simpleName here because section names would get too big otherwise.
+            Trace.beginSection(node.mComponent.getSimpleName());
+            if (StartupLogger.DEBUG) {
+                StartupLogger.i(String.format("Initializing %s", node.mComponent.getName()));
+            }
+            result = node.mInitializer.create(mContext);
+            if (StartupLogger.DEBUG) {
+                StartupLogger.i(String.format("Initialized %s", node.mComponent.getName()));
+            }
+        } catch (Throwable throwable) {
+            failure = throwable;
+        } finally {
+            Trace.endSection();
+            mCurrentNode.set(previous);
+        }
+        long duration = SystemClock.uptimeMillis() - start;
+        synchronized (this) {
+            if (failure != null) {
+                if (mFailure == null) {
+                    mFailure = failure;
+                }
+            } else {
+                node.mResult = result;
+                node.mDurationMillis = duration;
+                node.mInitialized = true;
+                mInitializedCount++;
+                for (Node dependent : node.mDependents) {
+                    dependent.mPendingDependencies--;
+                    if (dependent.mPendingDependencies == 0) {
+                        schedule(dependent);
+                    }
+                }
+            }
+            notifyAll();
+        }
+    }
+
+    private static boolean dependsOn(@NonNull Node node, @NonNull Node dependency) {
+        if (node == dependency) {
+            return true;
+        }
+        for (Node child : node.mDependencies) {
+            if (dependsOn(child, dependency)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Emits the critical path, i.e. the chain of dependencies with the longest total
+     * initialization time, as trace sections, along with the time of each of its initializers.
+     */
+    private void traceCriticalPath() {
+        if (!Trace.isEnabled() && !StartupLogger.DEBUG) {
+            return;
+        }
+        Map<Node, Long> pathDurations = new LinkedHashMap<>();
+        Map<Node, Node> predecessors = new LinkedHashMap<>();
+        Node last = null;
+        long longest = -1;
+        synchronized (this) {
+            for (Node node : mNodes.values()) {
+                long duration = pathDuration(node, pathDurations, predecessors);
+                if (duration > longest) {
+                    longest = duration;
+                    last = node;
+                }
+            }
+        }
+        List<Node> path = new ArrayList<>();
+        for (Node node = last; node != null; node = predecessors.get(node)) {
+            path.add(0, node);
+        }
+        try {
+            Trace.beginSection(String.format("Startup critical path (%d ms)", longest));
+            for (Node node : path) {
+                String section = String.format(
+                        "%s (%d ms)", node.mComponent.getSimpleName(), node.mDurationMillis
+                );
+                Trace.beginSection(section);
+                Trace.endSection();
+                if (StartupLogger.DEBUG) {
+                    StartupLogger.i(String.format("Critical path: %s", section));
+                }
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private static long pathDuration(
+            @NonNull Node node,
+            @NonNull Map<Node, Long> pathDurations,
+            @NonNull Map<Node, Node> predecessors) {
+        Long known = pathDurations.get(node);
+        if (known != null) {
+            return known;
+        }
+        long longestDependency = 0;
+        Node predecessor = null;
+        for (Node dependency : node.mDependencies) {
+            long duration = pathDuration(dependency, pathDurations, predecessors);
+            if (predecessor == null || duration > longestDependency) {
+                longestDependency = duration;
+                predecessor = dependency;
+            }
+        }
+        if (predecessor != null) {
+            predecessors.put(node, predecessor);
+        }
+        long duration = longestDependency + node.mDurationMillis;
+        pathDurations.put(node, duration);
+        return duration;
+    }
+}
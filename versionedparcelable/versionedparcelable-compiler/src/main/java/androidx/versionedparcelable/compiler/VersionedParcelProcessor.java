@@ -20,6 +20,7 @@ import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
@@ -73,10 +74,13 @@ public class VersionedParcelProcessor extends AbstractProcessor {
     private static final ClassName RESTRICT_TO_SCOPE = RESTRICT_TO.nestedClass("Scope");
     private static final ClassName VERSIONED_PARCEL =
             ClassName.get("androidx.versionedparcelable", "VersionedParcel");
+    private static final ClassName VERSIONED_PARCELIZER =
+            ClassName.get("androidx.versionedparcelable", "VersionedParcelizer");
 
     private static final String GEN_SUFFIX = "Parcelizer";
     private static final String READ = "read";
     private static final String WRITE = "write";
+    private static final String PARCELIZER = "PARCELIZER";
 
     private Messager mMessager;
     private ProcessingEnvironment mEnv;
@@ -306,9 +310,11 @@ public class VersionedParcelProcessor extends AbstractProcessor {
         readBuilder.addStatement("return obj");
         genClass.addMethod(readBuilder.build());
         genClass.addMethod(writeBuilder.build());
+        String pkg = getPkg(versionedParcelable);
+        genClass.addField(createParcelizerField(
+                ClassName.get(pkg, versionedParcelable.getSimpleName() + GEN_SUFFIX), type));
         try {
             TypeSpec typeSpec = genClass.build();
-            String pkg = getPkg(versionedParcelable);
             JavaFile.builder(pkg,
                     typeSpec).build().writeTo(mEnv.getFiler());
             if (jetifyAs != null && jetifyAs.length() > 0) {
@@ -346,6 +352,37 @@ public class VersionedParcelProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Creates the {@code PARCELIZER} field, through which VersionedParcel calls the static read
+     * and write methods of the generated class without reflection.
+     */
+    private FieldSpec createParcelizerField(ClassName genClass, TypeName type) {
+        TypeName parcelizerType = ParameterizedTypeName.get(VERSIONED_PARCELIZER, type);
+        TypeSpec parcelizer = TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(parcelizerType)
+                .addMethod(MethodSpec
+                        .methodBuilder(READ)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(type)
+                        .addParameter(VERSIONED_PARCEL, "parcel")
+                        .addStatement("return $T.read(parcel)", genClass)
+                        .build())
+                .addMethod(MethodSpec
+                        .methodBuilder(WRITE)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(type, "obj")
+                        .addParameter(VERSIONED_PARCEL, "parcel")
+                        .addStatement("$T.write(obj, parcel)", genClass)
+                        .build())
+                .build();
+        return FieldSpec.builder(parcelizerType, PARCELIZER)
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                .initializer("$L", parcelizer)
+                .build();
+    }
+
     private String strip(String s) {
         if (!s.startsWith("\"")) return s;
         return s.substring(1, s.length() - 1);
@@ -76,6 +76,31 @@ public class VersionedParcelStreamTest {
                 createInputParcel().readException(null, 0).getClass());
     }
 
+    @Test
+    public void testMultipleFields() {
+        mOutputParcel.writeString("A longer first string", 0);
+        mOutputParcel.writeInt(42, 1);
+        mOutputParcel.writeString("Short", 2);
+        VersionedParcelStream input = createInputParcel();
+        assertEquals("A longer first string", input.readString(null, 0));
+        assertEquals(42, input.readInt(0, 1));
+        assertEquals("Short", input.readString(null, 2));
+    }
+
+    @Test
+    public void testBufferedOutput() {
+        VersionedParcelStream outputParcel = new VersionedParcelStream(null, mOutput, true);
+        outputParcel.writeString("My string", 0);
+        outputParcel.writeInt(42, 1);
+        outputParcel.closeField();
+        assertEquals(0, mOutput.size());
+        outputParcel.flush();
+
+        VersionedParcelStream input = createInputParcel();
+        assertEquals("My string", input.readString(null, 0));
+        assertEquals(42, input.readInt(0, 1));
+    }
+
     private VersionedParcelStream createInputParcel() {
         mOutputParcel.closeField();
         return new VersionedParcelStream(new ByteArrayInputStream(mOutput.toByteArray()), null);
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static androidx.versionedparcelable.ParcelUtils.fromInputStream;
+import static androidx.versionedparcelable.ParcelUtils.fromParcelable;
+import static androidx.versionedparcelable.ParcelUtils.toOutputStream;
+import static androidx.versionedparcelable.ParcelUtils.toParcelable;
+
+import static org.junit.Assert.assertEquals;
+
+import android.os.Parcel;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+@RunWith(Parameterized.class)
+@SmallTest
+public class VersionedParcelizerTest {
+
+    @Parameterized.Parameters
+    public static Iterable<? extends Object[]> data() {
+        return Arrays.asList(new Object[][]{{false}, {true}});
+    }
+
+    private boolean mUseStream;
+
+    public VersionedParcelizerTest(boolean useStream) {
+        mUseStream = useStream;
+    }
+
+    @Before
+    public void setUp() {
+        WithParcelizerFieldParcelizer.sParcelizerCalls = 0;
+        WithoutParcelizerFieldParcelizer.sCalls = 0;
+    }
+
+    @SuppressWarnings("deprecation")
+    private VersionedParcelable parcelCopy(VersionedParcelable obj) {
+        if (mUseStream) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            toOutputStream(obj, outputStream);
+            byte[] buf = outputStream.toByteArray();
+            ByteArrayInputStream inputStream = new ByteArrayInputStream(buf);
+            return fromInputStream(inputStream);
+        } else {
+            Parcel p = Parcel.obtain();
+            p.writeParcelable(toParcelable(obj), 0);
+            p.setDataPosition(0);
+            return fromParcelable(p.readParcelable(getClass().getClassLoader()));
+        }
+    }
+
+    @Test
+    public void testParcelizerField() {
+        WithParcelizerField obj = new WithParcelizerField();
+        obj.mValue = 42;
+
+        WithParcelizerField other = (WithParcelizerField) parcelCopy(obj);
+        assertEquals(42, other.mValue);
+        // Both the write and the read went through the PARCELIZER field.
+        assertEquals(2, WithParcelizerFieldParcelizer.sParcelizerCalls);
+
+        other = (WithParcelizerField) parcelCopy(other);
+        assertEquals(42, other.mValue);
+        assertEquals(4, WithParcelizerFieldParcelizer.sParcelizerCalls);
+    }
+
+    @Test
+    public void testWithoutParcelizerField_fallsBackToStaticMethods() {
+        WithoutParcelizerField obj = new WithoutParcelizerField();
+        obj.mValue = "42";
+
+        WithoutParcelizerField other = (WithoutParcelizerField) parcelCopy(obj);
+        assertEquals("42", other.mValue);
+        assertEquals(2, WithoutParcelizerFieldParcelizer.sCalls);
+
+        other = (WithoutParcelizerField) parcelCopy(other);
+        assertEquals("42", other.mValue);
+        assertEquals(4, WithoutParcelizerFieldParcelizer.sCalls);
+    }
+
+    @Test
+    public void testProcessedParcelizer() {
+        Processed obj = new Processed();
+        obj.mValue = 42;
+
+        Processed other = (Processed) parcelCopy(obj);
+        assertEquals(42, other.mValue);
+        assertEquals(ProcessedParcelizer.class,
+                ProcessedParcelizer.PARCELIZER.getClass().getEnclosingClass());
+    }
+
+    /**
+     * Written by the hand-written {@link WithParcelizerFieldParcelizer}.
+     */
+    public static class WithParcelizerField implements VersionedParcelable {
+        public int mValue;
+    }
+
+    /**
+     * Written by the hand-written {@link WithoutParcelizerFieldParcelizer}.
+     */
+    public static class WithoutParcelizerField implements VersionedParcelable {
+        public String mValue;
+    }
+
+    @VersionedParcelize(allowSerialization = true,
+            ignoreParcelables = true)
+    public static class Processed implements VersionedParcelable {
+        @ParcelField(1)
+        public int mValue;
+    }
+}
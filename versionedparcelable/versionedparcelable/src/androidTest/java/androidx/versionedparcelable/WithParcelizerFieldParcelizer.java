@@ -0,0 +1,58 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import androidx.annotation.NonNull;
+import androidx.versionedparcelable.VersionedParcelizerTest.WithParcelizerField;
+
+/**
+ * Parcelizer of {@link WithParcelizerField}, shaped like the ones generated by the annotation
+ * processor, that counts the calls made through its {@code PARCELIZER} field.
+ */
+public final class WithParcelizerFieldParcelizer {
+
+    static int sParcelizerCalls;
+
+    public static final VersionedParcelizer<WithParcelizerField> PARCELIZER =
+            new VersionedParcelizer<WithParcelizerField>() {
+                @NonNull
+                @Override
+                public WithParcelizerField read(@NonNull VersionedParcel parcel) {
+                    sParcelizerCalls++;
+                    return WithParcelizerFieldParcelizer.read(parcel);
+                }
+
+                @Override
+                public void write(@NonNull WithParcelizerField obj,
+                        @NonNull VersionedParcel parcel) {
+                    sParcelizerCalls++;
+                    WithParcelizerFieldParcelizer.write(obj, parcel);
+                }
+            };
+
+    @NonNull
+    public static WithParcelizerField read(@NonNull VersionedParcel parcel) {
+        WithParcelizerField obj = new WithParcelizerField();
+        obj.mValue = parcel.readInt(obj.mValue, 1);
+        return obj;
+    }
+
+    public static void write(@NonNull WithParcelizerField obj, @NonNull VersionedParcel parcel) {
+        parcel.setSerializationFlags(true, true);
+        parcel.writeInt(obj.mValue, 1);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import androidx.annotation.NonNull;
+import androidx.versionedparcelable.VersionedParcelizerTest.WithoutParcelizerField;
+
+/**
+ * Parcelizer of {@link WithoutParcelizerField}, shaped like the ones generated by older versions
+ * of the annotation processor, without a {@code PARCELIZER} field. Counts the calls made to it.
+ */
+public final class WithoutParcelizerFieldParcelizer {
+
+    static int sCalls;
+
+    @NonNull
+    public static WithoutParcelizerField read(@NonNull VersionedParcel parcel) {
+        sCalls++;
+        WithoutParcelizerField obj = new WithoutParcelizerField();
+        obj.mValue = parcel.readString(obj.mValue, 1);
+        return obj;
+    }
+
+    public static void write(@NonNull WithoutParcelizerField obj,
+            @NonNull VersionedParcel parcel) {
+        sCalls++;
+        parcel.setSerializationFlags(true, true);
+        parcel.writeString(obj.mValue, 1);
+    }
+}
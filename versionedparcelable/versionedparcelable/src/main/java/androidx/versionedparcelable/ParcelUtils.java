@@ -75,9 +75,10 @@ public class ParcelUtils {
             @Nullable VersionedParcelable obj,
             @NonNull OutputStream output
     ) {
-        VersionedParcelStream stream = new VersionedParcelStream(null, output);
+        VersionedParcelStream stream = new VersionedParcelStream(null, output, true);
         stream.writeVersionedParcelable(obj);
         stream.closeField();
+        stream.flush();
     }
 
     /**
@@ -81,21 +81,32 @@ public abstract class VersionedParcel {
     private static final int TYPE_INTEGER = 7;
     private static final int TYPE_FLOAT = 8;
 
-    @NonNull
-    final SimpleArrayMap<String, Method> mReadCache;
-    @NonNull
-    final SimpleArrayMap<String, Method> mWriteCache;
-    @NonNull
-    final SimpleArrayMap<String, Class<?>> mParcelizerCache;
+    /**
+     * Name of the field holding the {@link VersionedParcelizer} of generated parcelizer classes.
+     */
+    private static final String PARCELIZER_FIELD = "PARCELIZER";
 
-    VersionedParcel(
-            @NonNull SimpleArrayMap<String, Method> readCache,
-            @NonNull SimpleArrayMap<String, Method> writeCache,
-            @NonNull SimpleArrayMap<String, Class<?>> parcelizerCache
-    ) {
-        mReadCache = readCache;
-        mWriteCache = writeCache;
-        mParcelizerCache = parcelizerCache;
+    /**
+     * Parcelizers by their generated class, shared by all parcels of the process. Keyed by class
+     * rather than by name, since classes loaded by different class loaders may share a name.
+     */
+    private static final SimpleArrayMap<Class<?>, VersionedParcelizer<?>> sParcelizers =
+            new SimpleArrayMap<>();
+
+    /**
+     * Generated parcelizer classes by the {@link VersionedParcelable} class they write.
+     */
+    private static final SimpleArrayMap<Class<?>, Class<?>> sParcelizerClasses =
+            new SimpleArrayMap<>();
+
+    /**
+     * Generated parcelizer classes by the name read from parcels, as loaded by the class loader
+     * of VersionedParcel, within which names are unique.
+     */
+    private static final SimpleArrayMap<String, Class<?>> sReadParcelizerClasses =
+            new SimpleArrayMap<>();
+
+    VersionedParcel() {
     }
 
     /**
@@ -1593,91 +1604,159 @@ public abstract class VersionedParcel {
             @NonNull String parcelCls,
             @NonNull VersionedParcel versionedParcel
     ) {
+        VersionedParcelizer<T> parcelizer;
         try {
-            Method m = getReadMethod(parcelCls);
-            return (T) m.invoke(null, versionedParcel);
+            parcelizer = (VersionedParcelizer<T>) getParcelizer(parcelCls);
         } catch (IllegalAccessException e) {
             throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
-            }
-            if (cause instanceof Error) {
-                throw (Error) cause;
-            }
-            throw new RuntimeException(e);
         } catch (NoSuchMethodException e) {
             throw new RuntimeException(e);
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
+        return parcelizer.read(versionedParcel);
     }
 
     /**
      */
+    @SuppressWarnings("unchecked")
     protected <T extends VersionedParcelable> void writeToParcel(
             @NonNull T val,
             @NonNull VersionedParcel versionedParcel
     ) {
+        VersionedParcelizer<T> parcelizer;
         try {
-            Method m = getWriteMethod(val.getClass());
-            m.invoke(null, val, versionedParcel);
+            parcelizer = (VersionedParcelizer<T>) getParcelizer(findParcelClass(val.getClass()));
         } catch (IllegalAccessException e) {
             throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
-            }
-            if (cause instanceof Error) {
-                throw (Error) cause;
-            }
-            throw new RuntimeException(e);
         } catch (NoSuchMethodException e) {
             throw new RuntimeException(e);
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
+        parcelizer.write(val, versionedParcel);
+    }
+
+    @NonNull
+    private static VersionedParcelizer<?> getParcelizer(@NonNull String parcelCls)
+            throws IllegalAccessException, NoSuchMethodException, ClassNotFoundException {
+        Class<?> cls;
+        synchronized (sReadParcelizerClasses) {
+            cls = sReadParcelizerClasses.get(parcelCls);
+        }
+        if (cls == null) {
+            cls = Class.forName(parcelCls, true, VersionedParcel.class.getClassLoader());
+            synchronized (sReadParcelizerClasses) {
+                sReadParcelizerClasses.put(parcelCls, cls);
+            }
+        }
+        return getParcelizer(cls);
     }
 
     @NonNull
-    private Method getReadMethod(@NonNull String parcelCls) throws IllegalAccessException,
-            NoSuchMethodException, ClassNotFoundException {
-        Method m = mReadCache.get(parcelCls);
-        if (m == null) {
-            Class<?> cls = Class.forName(parcelCls, true, VersionedParcel.class.getClassLoader());
-            m = cls.getDeclaredMethod("read", VersionedParcel.class);
-            mReadCache.put(parcelCls, m);
+    private static VersionedParcelizer<?> getParcelizer(@NonNull Class<?> parcelCls)
+            throws IllegalAccessException, NoSuchMethodException {
+        VersionedParcelizer<?> parcelizer;
+        synchronized (sParcelizers) {
+            parcelizer = sParcelizers.get(parcelCls);
+        }
+        if (parcelizer == null) {
+            parcelizer = createParcelizer(parcelCls);
         }
-        return m;
+        return parcelizer;
     }
 
     @NonNull
-    private Method getWriteMethod(@NonNull Class<?> baseCls) throws IllegalAccessException,
-            NoSuchMethodException, ClassNotFoundException {
-        Method m = mWriteCache.get(baseCls.getName());
-        if (m == null) {
-            Class<?> cls = findParcelClass(baseCls);
-            m = cls.getDeclaredMethod("write", baseCls, VersionedParcel.class);
-            mWriteCache.put(baseCls.getName(), m);
+    private static VersionedParcelizer<?> createParcelizer(@NonNull Class<?> parcelCls)
+            throws IllegalAccessException, NoSuchMethodException {
+        VersionedParcelizer<?> parcelizer;
+        try {
+            parcelizer = (VersionedParcelizer<?>) parcelCls.getField(PARCELIZER_FIELD).get(null);
+        } catch (NoSuchFieldException e) {
+            // Generated by an older version of the annotation processor.
+            parcelizer = new ReflectiveParcelizer(parcelCls);
+        }
+        synchronized (sParcelizers) {
+            sParcelizers.put(parcelCls, parcelizer);
         }
-        return m;
+        return parcelizer;
     }
 
     @NonNull
-    private Class<?> findParcelClass(@NonNull Class<?> cls)
+    private static Class<?> findParcelClass(@NonNull Class<?> cls)
             throws ClassNotFoundException {
-        Class<?> ret = mParcelizerCache.get(cls.getName());
+        Class<?> ret;
+        synchronized (sParcelizerClasses) {
+            ret = sParcelizerClasses.get(cls);
+        }
         if (ret == null) {
             String pkg = cls.getPackage().getName();
             String c = String.format("%s.%sParcelizer", pkg, cls.getSimpleName());
             ret = Class.forName(c, false, cls.getClassLoader());
-            mParcelizerCache.put(cls.getName(), ret);
+            synchronized (sParcelizerClasses) {
+                sParcelizerClasses.put(cls, ret);
+            }
         }
         return ret;
     }
 
+    /**
+     * Calls the static {@code read} and {@code write} methods of a parcelizer class that has no
+     * {@code PARCELIZER} field.
+     */
+    private static final class ReflectiveParcelizer
+            implements VersionedParcelizer<VersionedParcelable> {
+        @NonNull
+        private final Method mReadMethod;
+        @NonNull
+        private final Method mWriteMethod;
+
+        ReflectiveParcelizer(@NonNull Class<?> cls) throws NoSuchMethodException {
+            mReadMethod = cls.getDeclaredMethod("read", VersionedParcel.class);
+            Method writeMethod = null;
+            for (Method m : cls.getDeclaredMethods()) {
+                if (m.getName().equals("write") && m.getParameterTypes().length == 2) {
+                    writeMethod = m;
+                    break;
+                }
+            }
+            if (writeMethod == null) {
+                throw new NoSuchMethodException(cls.getName() + ".write");
+            }
+            mWriteMethod = writeMethod;
+        }
+
+        @NonNull
+        @Override
+        public VersionedParcelable read(@NonNull VersionedParcel parcel) {
+            return (VersionedParcelable) invoke(mReadMethod, parcel);
+        }
+
+        @Override
+        public void write(@NonNull VersionedParcelable obj, @NonNull VersionedParcel parcel) {
+            invoke(mWriteMethod, obj, parcel);
+        }
+
+        @Nullable
+        private static Object invoke(@NonNull Method m, @NonNull Object... args) {
+            try {
+                // null obj because the methods are static.
+                return m.invoke(null, args);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
     /**
      */
     public static class ParcelException extends RuntimeException {
@@ -28,9 +28,6 @@ import android.util.SparseIntArray;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
-import androidx.collection.SimpleArrayMap;
-
-import java.lang.reflect.Method;
 
 /**
  * @hide
@@ -54,20 +51,14 @@ class VersionedParcelParcel extends VersionedParcel {
     private int mFieldId = -1;
 
     VersionedParcelParcel(@NonNull Parcel p) {
-        this(p, p.dataPosition(), p.dataSize(), "", new SimpleArrayMap<String, Method>(),
-                new SimpleArrayMap<String, Method>(),
-                new SimpleArrayMap<String, Class<?>>());
+        this(p, p.dataPosition(), p.dataSize(), "");
     }
 
     private VersionedParcelParcel(
             @NonNull Parcel p,
             int offset,
             int end,
-            @NonNull String prefix,
-            @NonNull SimpleArrayMap<String, Method> readCache,
-            @NonNull SimpleArrayMap<String, Method> writeCache,
-            @NonNull SimpleArrayMap<String, Class<?>> parcelizerCache) {
-        super(readCache, writeCache, parcelizerCache);
+            @NonNull String prefix) {
         mParcel = p;
         mOffset = offset;
         mEnd = end;
@@ -127,8 +118,7 @@ class VersionedParcelParcel extends VersionedParcel {
                     + mParcel.dataPosition() + " - " + (mNextRead == mOffset ? mEnd : mNextRead));
         }
         return new VersionedParcelParcel(mParcel, mParcel.dataPosition(),
-                mNextRead == mOffset ? mEnd : mNextRead, mPrefix + "  ", mReadCache, mWriteCache,
-                mParcelizerCache);
+                mNextRead == mOffset ? mEnd : mNextRead, mPrefix + "  ");
     }
 
     @Override
@@ -24,8 +24,8 @@ import android.os.Parcelable;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
-import androidx.collection.SimpleArrayMap;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -33,8 +33,8 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.reflect.Method;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Set;
 
 /**
@@ -74,6 +74,8 @@ class VersionedParcelStream extends VersionedParcel {
     private DataOutputStream mCurrentOutput;
     @Nullable
     private FieldBuffer mFieldBuffer;
+    @NonNull
+    private final SharedBuffers mSharedBuffers;
     private boolean mIgnoreParcelables;
 
     int mCount = 0;
@@ -81,18 +83,27 @@ class VersionedParcelStream extends VersionedParcel {
     int mFieldSize = -1;
 
     VersionedParcelStream(@Nullable InputStream input, @Nullable OutputStream output) {
-        this(input, output, new SimpleArrayMap<String, Method>(),
-                new SimpleArrayMap<String, Method>(), new SimpleArrayMap<String, Class<?>>());
+        this(input, output, false);
+    }
+
+    /**
+     * @param bufferOutput whether to buffer the writes to {@code output}, in which case
+     *                     {@link #flush()} must be called once done. Reads from {@code input} are
+     *                     never buffered since reading ahead would consume the bytes that follow
+     *                     the parcel.
+     */
+    VersionedParcelStream(@Nullable InputStream input, @Nullable OutputStream output,
+            boolean bufferOutput) {
+        this(input, output != null && bufferOutput ? new BufferedOutputStream(output) : output,
+                new SharedBuffers());
     }
 
     private VersionedParcelStream(
             @Nullable InputStream input,
             @Nullable OutputStream output,
-            @NonNull SimpleArrayMap<String, Method> readCache,
-            @NonNull SimpleArrayMap<String, Method> writeCache,
-            @NonNull SimpleArrayMap<String, Class<?>> parcelizerCache
+            @NonNull SharedBuffers sharedBuffers
     ) {
-        super(readCache, writeCache, parcelizerCache);
+        mSharedBuffers = sharedBuffers;
         mMasterInput = input != null ? new DataInputStream(new FilterInputStream(input) {
             @Override
             public int read() throws IOException {
@@ -158,14 +169,27 @@ class VersionedParcelStream extends VersionedParcel {
             } catch (IOException e) {
                 throw new ParcelException(e);
             }
+            mSharedBuffers.releaseFieldBuffer(mFieldBuffer);
             mFieldBuffer = null;
         }
     }
 
+    /**
+     * Flushes the output written so far to the underlying {@link OutputStream}.
+     */
+    void flush() {
+        if (mMasterOutput != null) {
+            try {
+                mMasterOutput.flush();
+            } catch (IOException e) {
+                throw new ParcelException(e);
+            }
+        }
+    }
+
     @Override
     protected @NonNull VersionedParcel createSubParcel() {
-        return new VersionedParcelStream(mCurrentInput, mCurrentOutput, mReadCache, mWriteCache,
-                mParcelizerCache);
+        return new VersionedParcelStream(mCurrentInput, mCurrentOutput, mSharedBuffers);
     }
 
     @Override
@@ -200,7 +224,7 @@ class VersionedParcelStream extends VersionedParcel {
     @Override
     public void setOutputField(int fieldId) {
         closeField();
-        mFieldBuffer = new FieldBuffer(fieldId, mMasterOutput);
+        mFieldBuffer = mSharedBuffers.acquireFieldBuffer(fieldId, mMasterOutput);
         mCurrentOutput = mFieldBuffer.mDataStream;
     }
 
@@ -378,9 +402,9 @@ class VersionedParcelStream extends VersionedParcel {
         try {
             int len = mCurrentInput.readInt();
             if (len > 0) {
-                byte[] bytes = new byte[len];
-                mCurrentInput.readFully(bytes);
-                return new String(bytes, UTF_16);
+                byte[] bytes = mSharedBuffers.getScratch(len);
+                mCurrentInput.readFully(bytes, 0, len);
+                return new String(bytes, 0, len, UTF_16);
             } else {
                 return null;
             }
@@ -555,32 +579,67 @@ class VersionedParcelStream extends VersionedParcel {
         }
     }
 
-    // This uses extra buffers at the moment, but makes the code really clean.
-    // TODO: Use less buffers
+    /**
+     * Buffers shared by a parcel and all its sub-parcels, which only use one at a time.
+     */
+    private static class SharedBuffers {
+        private final ArrayList<FieldBuffer> mFieldBufferPool = new ArrayList<>();
+        @NonNull
+        private byte[] mScratch = new byte[0];
+
+        @NonNull
+        FieldBuffer acquireFieldBuffer(int fieldId, @NonNull DataOutputStream target) {
+            int size = mFieldBufferPool.size();
+            FieldBuffer buffer = size > 0 ? mFieldBufferPool.remove(size - 1) : new FieldBuffer();
+            buffer.reset(fieldId, target);
+            return buffer;
+        }
+
+        void releaseFieldBuffer(@NonNull FieldBuffer buffer) {
+            mFieldBufferPool.add(buffer);
+        }
+
+        /**
+         * Returns a temporary array of at least {@code length} bytes, only valid until the next
+         * call.
+         */
+        @NonNull
+        byte[] getScratch(int length) {
+            if (mScratch.length < length) {
+                mScratch = new byte[Math.max(length, mScratch.length * 2)];
+            }
+            return mScratch;
+        }
+    }
+
+    // This uses extra buffers at the moment, but makes the code really clean. The buffers are
+    // reused through SharedBuffers once their field is flushed.
     private static class FieldBuffer {
 
         @NonNull
         final ByteArrayOutputStream mOutput = new ByteArrayOutputStream();
         @NonNull
         final DataOutputStream mDataStream = new DataOutputStream(mOutput);
-        private final int mFieldId;
-        @NonNull
-        private final DataOutputStream mTarget;
+        private int mFieldId;
+        @Nullable
+        private DataOutputStream mTarget;
 
-        FieldBuffer(int fieldId, @NonNull DataOutputStream target) {
+        void reset(int fieldId, @NonNull DataOutputStream target) {
+            mOutput.reset();
             mFieldId = fieldId;
             mTarget = target;
         }
 
         void flushField() throws IOException {
+            DataOutputStream target = mTarget;
             mDataStream.flush();
             int size = mOutput.size();
             int fieldInfo = (mFieldId << 16) | (size >= 0xffff ? 0xffff : size);
-            mTarget.writeInt(fieldInfo);
+            target.writeInt(fieldInfo);
             if (size >= 0xffff) {
-                mTarget.writeInt(size);
+                target.writeInt(size);
             }
-            mOutput.writeTo(mTarget);
+            mOutput.writeTo(target);
         }
     }
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP_PREFIX;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Reads and writes one type of {@link VersionedParcelable}.
+ *
+ * <p>The {@code *Parcelizer} class generated for each {@link VersionedParcelize} type exposes an
+ * instance as its {@code PARCELIZER} field, which {@link VersionedParcel} looks up once and then
+ * calls directly.
+ *
+ * @param <T> the type read and written
+ * @hide
+ */
+@RestrictTo(LIBRARY_GROUP_PREFIX)
+public interface VersionedParcelizer<T extends VersionedParcelable> {
+
+    /**
+     * Reads an object from the fields of the given parcel.
+     */
+    @NonNull
+    T read(@NonNull VersionedParcel parcel);
+
+    /**
+     * Writes the fields of an object to the given parcel.
+     */
+    void write(@NonNull T obj, @NonNull VersionedParcel parcel);
+}
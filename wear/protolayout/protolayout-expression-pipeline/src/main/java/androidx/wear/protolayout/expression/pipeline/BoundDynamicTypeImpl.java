@@ -68,7 +68,7 @@ class BoundDynamicTypeImpl implements BoundDynamicType {
 
     @Override
     public int getDynamicNodeCount() {
-        return mNodes.size();
+        return mNodes.stream().mapToInt(SharedDynamicDataNode::countDynamicNodes).sum();
     }
 
     @Override
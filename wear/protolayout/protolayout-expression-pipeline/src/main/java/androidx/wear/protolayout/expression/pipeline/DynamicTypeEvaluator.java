@@ -81,7 +81,10 @@ import androidx.wear.protolayout.expression.proto.FixedProto.FixedInt32;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.Executor;
 
@@ -93,6 +96,9 @@ import java.util.concurrent.Executor;
  *
  * <p>Data source can include animations which will then emit value transitions.
  *
+ * <p>Identical dynamic subexpressions bound by the same evaluator share their nodes, so that for
+ * example a sensor or state source used by several dynamic types is only observed once.
+ *
  * <p>In order to evaluate dynamic types, the caller needs to add any number of pending dynamic
  * types with {@link #bind} methods and then call {@link BoundDynamicType#startEvaluation()} on each
  * of them to start evaluation. Starting evaluation can be done for batches of dynamic types.
@@ -114,6 +120,16 @@ public class DynamicTypeEvaluator implements AutoCloseable {
     private final boolean mEnableAnimations;
     @NonNull private final QuotaManager mAnimationQuotaManager;
 
+    // Nodes can be bound from a background thread, while they are destroyed from the UI thread.
+    @NonNull private final Object mSharedNodesLock = new Object();
+
+    // Guarded by mSharedNodesLock.
+    @NonNull
+    private final Map<SharedNodeKey, SharedDynamicDataNode<?>> mSharedNodes = new HashMap<>();
+
+    // Guarded by mSharedNodesLock.
+    private int mSavedDynamicNodeCount = 0;
+
     @NonNull
     private static final QuotaManager DISABLED_ANIMATIONS_QUOTA_MANAGER =
             new QuotaManager() {
@@ -626,6 +642,35 @@ public class DynamicTypeEvaluator implements AutoCloseable {
             @NonNull DynamicTypeValueReceiver<String> consumer,
             @NonNull ULocale locale,
             @NonNull List<DynamicDataNode<?>> resultBuilder) {
+        switch (stringSource.getInnerCase()) {
+            case FIXED:
+                // Fixed values are cheaper to bind again than to share.
+                bindNodes(stringSource, consumer, locale, resultBuilder);
+                break;
+            default:
+                bindShared(
+                        new SharedNodeKey(stringSource, locale),
+                        consumer,
+                        resultBuilder,
+                        (sharedConsumer, sharedResultBuilder) ->
+                                bindNodes(
+                                        stringSource,
+                                        sharedConsumer,
+                                        locale,
+                                        sharedResultBuilder));
+                break;
+        }
+    }
+
+    /**
+     * Binds the nodes for {@code stringSource}, without looking it up in the shared nodes. Its
+     * subexpressions can still be shared.
+     */
+    private void bindNodes(
+            @NonNull DynamicString stringSource,
+            @NonNull DynamicTypeValueReceiver<String> consumer,
+            @NonNull ULocale locale,
+            @NonNull List<DynamicDataNode<?>> resultBuilder) {
         DynamicDataNode<?> node;
 
         switch (stringSource.getInnerCase()) {
@@ -723,6 +768,38 @@ public class DynamicTypeEvaluator implements AutoCloseable {
             @NonNull DynamicTypeValueReceiver<Integer> consumer,
             @NonNull List<DynamicDataNode<?>> resultBuilder,
             @NonNull Optional<Integer> animationFallbackValue) {
+        switch (int32Source.getInnerCase()) {
+            case FIXED:
+            case ANIMATABLE_FIXED:
+            case ANIMATABLE_DYNAMIC:
+                // Fixed values are cheaper to bind again than to share, and animations are
+                // driven by the dynamic type they are bound to.
+                bindNodes(int32Source, consumer, resultBuilder, animationFallbackValue);
+                break;
+            default:
+                bindShared(
+                        new SharedNodeKey(int32Source),
+                        consumer,
+                        resultBuilder,
+                        (sharedConsumer, sharedResultBuilder) ->
+                                bindNodes(
+                                        int32Source,
+                                        sharedConsumer,
+                                        sharedResultBuilder,
+                                        animationFallbackValue));
+                break;
+        }
+    }
+
+    /**
+     * Binds the nodes for {@code int32Source}, without looking it up in the shared nodes. Its
+     * subexpressions can still be shared.
+     */
+    private void bindNodes(
+            @NonNull DynamicInt32 int32Source,
+            @NonNull DynamicTypeValueReceiver<Integer> consumer,
+            @NonNull List<DynamicDataNode<?>> resultBuilder,
+            @NonNull Optional<Integer> animationFallbackValue) {
         DynamicDataNode<Integer> node;
 
         switch (int32Source.getInnerCase()) {
@@ -880,6 +957,22 @@ public class DynamicTypeEvaluator implements AutoCloseable {
             @NonNull DynamicDuration durationSource,
             @NonNull DynamicTypeValueReceiver<Duration> consumer,
             @NonNull List<DynamicDataNode<?>> resultBuilder) {
+        bindShared(
+                new SharedNodeKey(durationSource),
+                consumer,
+                resultBuilder,
+                (sharedConsumer, sharedResultBuilder) ->
+                        bindNodes(durationSource, sharedConsumer, sharedResultBuilder));
+    }
+
+    /**
+     * Binds the nodes for {@code durationSource}, without looking it up in the shared nodes. Its
+     * subexpressions can still be shared.
+     */
+    private void bindNodes(
+            @NonNull DynamicDuration durationSource,
+            @NonNull DynamicTypeValueReceiver<Duration> consumer,
+            @NonNull List<DynamicDataNode<?>> resultBuilder) {
         DynamicDataNode<?> node;
 
         switch (durationSource.getInnerCase()) {
@@ -913,6 +1006,30 @@ public class DynamicTypeEvaluator implements AutoCloseable {
             @NonNull DynamicInstant instantSource,
             @NonNull DynamicTypeValueReceiver<Instant> consumer,
             @NonNull List<DynamicDataNode<?>> resultBuilder) {
+        switch (instantSource.getInnerCase()) {
+            case FIXED:
+                // Fixed values are cheaper to bind again than to share.
+                bindNodes(instantSource, consumer, resultBuilder);
+                break;
+            default:
+                bindShared(
+                        new SharedNodeKey(instantSource),
+                        consumer,
+                        resultBuilder,
+                        (sharedConsumer, sharedResultBuilder) ->
+                                bindNodes(instantSource, sharedConsumer, sharedResultBuilder));
+                break;
+        }
+    }
+
+    /**
+     * Binds the nodes for {@code instantSource}, without looking it up in the shared nodes. Its
+     * subexpressions can still be shared.
+     */
+    private void bindNodes(
+            @NonNull DynamicInstant instantSource,
+            @NonNull DynamicTypeValueReceiver<Instant> consumer,
+            @NonNull List<DynamicDataNode<?>> resultBuilder) {
         DynamicDataNode<?> node;
 
         switch (instantSource.getInnerCase()) {
@@ -942,6 +1059,38 @@ public class DynamicTypeEvaluator implements AutoCloseable {
             @NonNull DynamicTypeValueReceiver<Float> consumer,
             @NonNull List<DynamicDataNode<?>> resultBuilder,
             @NonNull Optional<Float> animationFallbackValue) {
+        switch (floatSource.getInnerCase()) {
+            case FIXED:
+            case ANIMATABLE_FIXED:
+            case ANIMATABLE_DYNAMIC:
+                // Fixed values are cheaper to bind again than to share, and animations are
+                // driven by the dynamic type they are bound to.
+                bindNodes(floatSource, consumer, resultBuilder, animationFallbackValue);
+                break;
+            default:
+                bindShared(
+                        new SharedNodeKey(floatSource),
+                        consumer,
+                        resultBuilder,
+                        (sharedConsumer, sharedResultBuilder) ->
+                                bindNodes(
+                                        floatSource,
+                                        sharedConsumer,
+                                        sharedResultBuilder,
+                                        animationFallbackValue));
+                break;
+        }
+    }
+
+    /**
+     * Binds the nodes for {@code floatSource}, without looking it up in the shared nodes. Its
+     * subexpressions can still be shared.
+     */
+    private void bindNodes(
+            @NonNull DynamicFloat floatSource,
+            @NonNull DynamicTypeValueReceiver<Float> consumer,
+            @NonNull List<DynamicDataNode<?>> resultBuilder,
+            @NonNull Optional<Float> animationFallbackValue) {
         DynamicDataNode<?> node;
 
         switch (floatSource.getInnerCase()) {
@@ -1079,6 +1228,38 @@ public class DynamicTypeEvaluator implements AutoCloseable {
             @NonNull DynamicTypeValueReceiver<Integer> consumer,
             @NonNull List<DynamicDataNode<?>> resultBuilder,
             @NonNull Optional<Integer> animationFallbackValue) {
+        switch (colorSource.getInnerCase()) {
+            case FIXED:
+            case ANIMATABLE_FIXED:
+            case ANIMATABLE_DYNAMIC:
+                // Fixed values are cheaper to bind again than to share, and animations are
+                // driven by the dynamic type they are bound to.
+                bindNodes(colorSource, consumer, resultBuilder, animationFallbackValue);
+                break;
+            default:
+                bindShared(
+                        new SharedNodeKey(colorSource),
+                        consumer,
+                        resultBuilder,
+                        (sharedConsumer, sharedResultBuilder) ->
+                                bindNodes(
+                                        colorSource,
+                                        sharedConsumer,
+                                        sharedResultBuilder,
+                                        animationFallbackValue));
+                break;
+        }
+    }
+
+    /**
+     * Binds the nodes for {@code colorSource}, without looking it up in the shared nodes. Its
+     * subexpressions can still be shared.
+     */
+    private void bindNodes(
+            @NonNull DynamicColor colorSource,
+            @NonNull DynamicTypeValueReceiver<Integer> consumer,
+            @NonNull List<DynamicDataNode<?>> resultBuilder,
+            @NonNull Optional<Integer> animationFallbackValue) {
         DynamicDataNode<?> node;
 
         switch (colorSource.getInnerCase()) {
@@ -1161,6 +1342,30 @@ public class DynamicTypeEvaluator implements AutoCloseable {
             @NonNull DynamicBool boolSource,
             @NonNull DynamicTypeValueReceiver<Boolean> consumer,
             @NonNull List<DynamicDataNode<?>> resultBuilder) {
+        switch (boolSource.getInnerCase()) {
+            case FIXED:
+                // Fixed values are cheaper to bind again than to share.
+                bindNodes(boolSource, consumer, resultBuilder);
+                break;
+            default:
+                bindShared(
+                        new SharedNodeKey(boolSource),
+                        consumer,
+                        resultBuilder,
+                        (sharedConsumer, sharedResultBuilder) ->
+                                bindNodes(boolSource, sharedConsumer, sharedResultBuilder));
+                break;
+        }
+    }
+
+    /**
+     * Binds the nodes for {@code boolSource}, without looking it up in the shared nodes. Its
+     * subexpressions can still be shared.
+     */
+    private void bindNodes(
+            @NonNull DynamicBool boolSource,
+            @NonNull DynamicTypeValueReceiver<Boolean> consumer,
+            @NonNull List<DynamicDataNode<?>> resultBuilder) {
         DynamicDataNode<?> node;
 
         switch (boolSource.getInnerCase()) {
@@ -1244,6 +1449,79 @@ public class DynamicTypeEvaluator implements AutoCloseable {
         resultBuilder.add(node);
     }
 
+    /**
+     * Binds the subtree for the dynamic type that {@code key} was created from, reusing the nodes
+     * of an identical subtree if one is already bound by this evaluator. Each call adds its own
+     * {@link SharedDynamicDataNode.Lease} to {@code resultBuilder}, so that the shared nodes are
+     * started with the first bound dynamic type using them, and destroyed with the last one.
+     */
+    private <T> void bindShared(
+            @NonNull SharedNodeKey key,
+            @NonNull DynamicTypeValueReceiver<T> consumer,
+            @NonNull List<DynamicDataNode<?>> resultBuilder,
+            @NonNull SubtreeBinder<T> binder) {
+        synchronized (mSharedNodesLock) {
+            @SuppressWarnings("unchecked") // Keys for the same proto type hold the same node type.
+            SharedDynamicDataNode<T> sharedNode =
+                    (SharedDynamicDataNode<T>) mSharedNodes.get(key);
+            if (sharedNode != null) {
+                sharedNode.mLeaseCount++;
+                mSavedDynamicNodeCount += sharedNode.getDynamicNodeCount();
+                resultBuilder.add(sharedNode.newLease(consumer));
+                return;
+            }
+        }
+
+        SharedDynamicDataNode<T> sharedNode =
+                new SharedDynamicDataNode<>(key, this::releaseSharedNode);
+        try {
+            binder.bind(sharedNode, sharedNode.getNodes());
+        } catch (RuntimeException ex) {
+            sharedNode.releaseNestedLeases();
+            throw ex;
+        }
+        sharedNode.onBound();
+
+        if (sharedNode.containsAnimations()) {
+            // Only owned by this dynamic type, like any other node.
+            sharedNode.addPermanentDownstream(consumer);
+            resultBuilder.addAll(sharedNode.getNodes());
+            return;
+        }
+
+        synchronized (mSharedNodesLock) {
+            sharedNode.mLeaseCount = 1;
+            // If an identical subtree was bound concurrently, this one just isn't shared.
+            mSharedNodes.putIfAbsent(key, sharedNode);
+        }
+        resultBuilder.add(sharedNode.newLease(consumer));
+    }
+
+    private boolean releaseSharedNode(@NonNull SharedDynamicDataNode<?> sharedNode) {
+        synchronized (mSharedNodesLock) {
+            sharedNode.mLeaseCount--;
+            if (sharedNode.mLeaseCount > 0) {
+                mSavedDynamicNodeCount -= sharedNode.getDynamicNodeCount();
+                return false;
+            }
+            mSharedNodes.remove(sharedNode.mKey, sharedNode);
+            return true;
+        }
+    }
+
+    /**
+     * Returns how many dynamic nodes the currently bound dynamic types would need in addition to
+     * the existing ones, if identical subexpressions weren't shared between them.
+     *
+     * @hide
+     */
+    @RestrictTo(Scope.LIBRARY_GROUP)
+    public int getSavedDynamicNodeCount() {
+        synchronized (mSharedNodesLock) {
+            return mSavedDynamicNodeCount;
+        }
+    }
+
     /** Enables sending updates on sensor and time. */
     @UiThread
     public void enablePlatformDataSources() {
@@ -1279,6 +1557,52 @@ public class DynamicTypeEvaluator implements AutoCloseable {
         }
     }
 
+    /** Binds the nodes of a dynamic type subtree, with the given consumer for its result. */
+    private interface SubtreeBinder<T> {
+        void bind(
+                @NonNull DynamicTypeValueReceiver<T> consumer,
+                @NonNull List<DynamicDataNode<?>> resultBuilder);
+    }
+
+    /**
+     * Key for sharing the nodes of a dynamic type subtree. Dynamic type protos have structural
+     * {@code equals} and (cached) {@code hashCode}, so identical subtrees get equal keys.
+     */
+    private static final class SharedNodeKey {
+        @NonNull private final Object mProto;
+        @Nullable private final Object mExtra;
+
+        SharedNodeKey(@NonNull Object proto) {
+            this(proto, null);
+        }
+
+        /**
+         * @param extra Anything other than the proto that the bound nodes depend on, such as the
+         *     locale for strings.
+         */
+        SharedNodeKey(@NonNull Object proto, @Nullable Object extra) {
+            this.mProto = proto;
+            this.mExtra = extra;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SharedNodeKey)) {
+                return false;
+            }
+            SharedNodeKey that = (SharedNodeKey) o;
+            return mProto.equals(that.mProto) && Objects.equals(mExtra, that.mExtra);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mProto.hashCode() + Objects.hashCode(mExtra);
+        }
+    }
+
     /**
      * Wraps {@link DynamicTypeValueReceiver} and executes its methods on the given
      * {@link Executor}.
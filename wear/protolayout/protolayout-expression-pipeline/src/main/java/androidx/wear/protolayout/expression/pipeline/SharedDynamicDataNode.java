@@ -0,0 +1,257 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.wear.protolayout.expression.pipeline;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The nodes evaluating one dynamic type subtree, shared between all bound dynamic types that
+ * contain an identical subtree.
+ *
+ * <p>The subtree nodes emit into this node, which relays to the downstream of every started {@link
+ * Lease}. Each bound dynamic type gets its own {@link Lease}; the subtree is started by the first
+ * lease that starts, and destroyed when the last lease is destroyed. A lease that starts after the
+ * subtree has already emitted a value gets that value replayed.
+ *
+ * @param <T> The data type that the shared subtree emits.
+ */
+class SharedDynamicDataNode<T> implements DynamicTypeValueReceiver<T> {
+    /** Releases leases on a {@link SharedDynamicDataNode}. */
+    interface LeaseReleaser {
+        /**
+         * Called when a lease on {@code node} is destroyed. Returns true if that was the last
+         * lease, in which case the subtree should be destroyed.
+         */
+        boolean release(@NonNull SharedDynamicDataNode<?> node);
+    }
+
+    @NonNull final Object mKey;
+    @NonNull private final LeaseReleaser mReleaser;
+    @NonNull private final List<DynamicDataNode<?>> mNodes = new ArrayList<>();
+    @NonNull private final List<DynamicTypeValueReceiver<T>> mDownstreams = new ArrayList<>();
+
+    @NonNull
+    private final List<DynamicTypeValueReceiver<T>> mJoiningDownstreams = new ArrayList<>();
+
+    /** Number of leases on this node. Guarded by the {@link LeaseReleaser}. */
+    int mLeaseCount = 0;
+
+    private int mDynamicNodeCount = 0;
+    private boolean mPreInited = false;
+    private boolean mInited = false;
+    private boolean mHasResult = false;
+    @Nullable private T mLastData;
+
+    SharedDynamicDataNode(@NonNull Object key, @NonNull LeaseReleaser releaser) {
+        this.mKey = key;
+        this.mReleaser = releaser;
+    }
+
+    /** Returns the list that the nodes of the shared subtree should be added to. */
+    @NonNull
+    List<DynamicDataNode<?>> getNodes() {
+        return mNodes;
+    }
+
+    /** Called once all the nodes of the shared subtree have been added to {@link #getNodes()}. */
+    void onBound() {
+        int count = 0;
+        for (DynamicDataNode<?> node : mNodes) {
+            count += countDynamicNodes(node);
+        }
+        mDynamicNodeCount = count;
+    }
+
+    /**
+     * Returns the number of nodes that evaluating this subtree would need without any sharing,
+     * including the nodes of shared subtrees nested in it.
+     */
+    int getDynamicNodeCount() {
+        return mDynamicNodeCount;
+    }
+
+    /**
+     * Returns whether the subtree has any animations. Animations are driven by the bound dynamic
+     * type that owns them (visibility and quota), so those subtrees can't be shared.
+     */
+    boolean containsAnimations() {
+        for (DynamicDataNode<?> node : mNodes) {
+            if (node instanceof AnimatableNode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a downstream receiving all the updates from the subtree, for when the subtree isn't
+     * shared and its nodes are owned by a single bound dynamic type.
+     */
+    void addPermanentDownstream(@NonNull DynamicTypeValueReceiver<T> downstream) {
+        mDownstreams.add(downstream);
+    }
+
+    @NonNull
+    Lease<T> newLease(@NonNull DynamicTypeValueReceiver<T> downstream) {
+        return new Lease<>(this, downstream);
+    }
+
+    /** Releases all the leases nested in this subtree, for a subtree that will never be used. */
+    void releaseNestedLeases() {
+        for (DynamicDataNode<?> node : mNodes) {
+            if (node instanceof Lease) {
+                ((Lease<?>) node).destroy();
+            }
+        }
+    }
+
+    @Override
+    public void onPreUpdate() {
+        for (int i = 0; i < mDownstreams.size(); i++) {
+            mDownstreams.get(i).onPreUpdate();
+        }
+    }
+
+    @Override
+    public void onData(@NonNull T newData) {
+        mHasResult = true;
+        mLastData = newData;
+        mJoiningDownstreams.clear();
+        for (int i = 0; i < mDownstreams.size(); i++) {
+            mDownstreams.get(i).onData(newData);
+        }
+    }
+
+    @Override
+    public void onInvalidated() {
+        mHasResult = true;
+        mLastData = null;
+        mJoiningDownstreams.clear();
+        for (int i = 0; i < mDownstreams.size(); i++) {
+            mDownstreams.get(i).onInvalidated();
+        }
+    }
+
+    @UiThread
+    void preInit(@NonNull DynamicTypeValueReceiver<T> downstream) {
+        mDownstreams.add(downstream);
+        if (!mPreInited) {
+            mPreInited = true;
+            for (DynamicDataNode<?> node : mNodes) {
+                if (node instanceof DynamicDataSourceNode) {
+                    ((DynamicDataSourceNode<?>) node).preInit();
+                }
+            }
+        } else {
+            // The subtree is already running, so its last value is replayed from init().
+            mJoiningDownstreams.add(downstream);
+            downstream.onPreUpdate();
+        }
+    }
+
+    @UiThread
+    void init(@NonNull DynamicTypeValueReceiver<T> downstream) {
+        if (!mInited) {
+            mInited = true;
+            for (DynamicDataNode<?> node : mNodes) {
+                if (node instanceof DynamicDataSourceNode) {
+                    ((DynamicDataSourceNode<?>) node).init();
+                }
+            }
+        } else if (mHasResult && mJoiningDownstreams.remove(downstream)) {
+            T lastData = mLastData;
+            if (lastData != null) {
+                downstream.onData(lastData);
+            } else {
+                downstream.onInvalidated();
+            }
+        }
+    }
+
+    @UiThread
+    void destroy(@NonNull DynamicTypeValueReceiver<T> downstream, boolean started) {
+        if (started) {
+            mDownstreams.remove(downstream);
+            mJoiningDownstreams.remove(downstream);
+        }
+        if (!mReleaser.release(this)) {
+            return;
+        }
+        for (DynamicDataNode<?> node : mNodes) {
+            if (node instanceof DynamicDataSourceNode) {
+                ((DynamicDataSourceNode<?>) node).destroy();
+            }
+        }
+    }
+
+    /** Returns the number of nodes that {@code node} stands for, in an unshared graph. */
+    static int countDynamicNodes(@NonNull DynamicDataNode<?> node) {
+        if (node instanceof Lease) {
+            return ((Lease<?>) node).mSharedNode.getDynamicNodeCount();
+        }
+        return 1;
+    }
+
+    /** The reference to a {@link SharedDynamicDataNode} held by one bound dynamic type. */
+    static final class Lease<T> implements DynamicDataSourceNode<T> {
+        @NonNull final SharedDynamicDataNode<T> mSharedNode;
+        @NonNull private final DynamicTypeValueReceiver<T> mDownstream;
+        private boolean mStarted = false;
+        private boolean mDestroyed = false;
+
+        Lease(
+                @NonNull SharedDynamicDataNode<T> sharedNode,
+                @NonNull DynamicTypeValueReceiver<T> downstream) {
+            this.mSharedNode = sharedNode;
+            this.mDownstream = downstream;
+        }
+
+        @Override
+        @UiThread
+        public void preInit() {
+            if (mStarted || mDestroyed) {
+                return;
+            }
+            mStarted = true;
+            mSharedNode.preInit(mDownstream);
+        }
+
+        @Override
+        @UiThread
+        public void init() {
+            if (!mStarted || mDestroyed) {
+                return;
+            }
+            mSharedNode.init(mDownstream);
+        }
+
+        @Override
+        @UiThread
+        public void destroy() {
+            if (mDestroyed) {
+                return;
+            }
+            mDestroyed = true;
+            mSharedNode.destroy(mDownstream, mStarted);
+        }
+    }
+}
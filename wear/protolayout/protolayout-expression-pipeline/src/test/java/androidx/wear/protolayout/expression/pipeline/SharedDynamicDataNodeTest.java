@@ -0,0 +1,173 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.wear.protolayout.expression.pipeline;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.icu.util.ULocale;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.wear.protolayout.expression.DynamicBuilders.DynamicInt32;
+import androidx.wear.protolayout.expression.proto.DynamicProto.DynamicString;
+import androidx.wear.protolayout.expression.proto.FixedProto.FixedInt32;
+import androidx.wear.protolayout.expression.proto.StateEntryProto.StateEntryValue;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class SharedDynamicDataNodeTest {
+    private static final String STATE_KEY = "state_int";
+
+    private final ObservableStateStore mStateStore =
+            spy(new ObservableStateStore(ImmutableMap.of(STATE_KEY, intStateEntry(15))));
+    private final DynamicTypeEvaluator mEvaluator =
+            new DynamicTypeEvaluator(
+                    /* platformDataSourcesInitiallyEnabled= */ true,
+                    /* sensorGateway= */ null,
+                    mStateStore);
+
+    @Test
+    public void identicalExpressions_shareNodes() {
+        List<String> results1 = new ArrayList<>();
+        List<String> results2 = new ArrayList<>();
+
+        BoundDynamicType bound1 = bind(formattedState(), results1);
+        BoundDynamicType bound2 = bind(formattedState(), results2);
+        bound1.startEvaluation();
+        bound2.startEvaluation();
+
+        assertThat(results1).containsExactly("16");
+        assertThat(results2).containsExactly("16");
+        assertThat(bound2.getDynamicNodeCount()).isEqualTo(bound1.getDynamicNodeCount());
+        assertThat(mEvaluator.getSavedDynamicNodeCount())
+                .isEqualTo(bound1.getDynamicNodeCount());
+        verify(mStateStore, times(1)).registerCallback(eq(STATE_KEY), any());
+
+        mStateStore.setStateEntryValuesProto(ImmutableMap.of(STATE_KEY, intStateEntry(20)));
+
+        assertThat(results1).containsExactly("16", "21").inOrder();
+        assertThat(results2).containsExactly("16", "21").inOrder();
+    }
+
+    @Test
+    public void identicalSubexpressions_shareNodes() {
+        List<String> results1 = new ArrayList<>();
+        List<String> results2 = new ArrayList<>();
+
+        BoundDynamicType bound1 = bind(formattedState(), results1);
+        BoundDynamicType bound2 =
+                bind(
+                        DynamicInt32.fromState(STATE_KEY)
+                                .plus(1)
+                                .times(2)
+                                .format()
+                                .toDynamicStringProto(),
+                        results2);
+        bound1.startEvaluation();
+        bound2.startEvaluation();
+
+        assertThat(results1).containsExactly("16");
+        assertThat(results2).containsExactly("32");
+        // The state source and the addition are shared.
+        assertThat(mEvaluator.getSavedDynamicNodeCount()).isGreaterThan(0);
+        verify(mStateStore, times(1)).registerCallback(eq(STATE_KEY), any());
+    }
+
+    @Test
+    public void differentExpressions_notShared() {
+        bind(formattedState(), new ArrayList<>()).startEvaluation();
+        bind(
+                        DynamicInt32.fromState(STATE_KEY).plus(2).format().toDynamicStringProto(),
+                        new ArrayList<>())
+                .startEvaluation();
+
+        assertThat(mEvaluator.getSavedDynamicNodeCount()).isEqualTo(0);
+        verify(mStateStore, times(2)).registerCallback(eq(STATE_KEY), any());
+    }
+
+    @Test
+    public void lateStart_receivesCurrentValue() {
+        List<String> results1 = new ArrayList<>();
+        List<String> results2 = new ArrayList<>();
+
+        bind(formattedState(), results1).startEvaluation();
+        mStateStore.setStateEntryValuesProto(ImmutableMap.of(STATE_KEY, intStateEntry(20)));
+        bind(formattedState(), results2).startEvaluation();
+
+        assertThat(results1).containsExactly("16", "21").inOrder();
+        assertThat(results2).containsExactly("21");
+    }
+
+    @Test
+    public void close_keepsOtherBindingsUpdating() {
+        List<String> results1 = new ArrayList<>();
+        List<String> results2 = new ArrayList<>();
+        BoundDynamicType bound1 = bind(formattedState(), results1);
+        BoundDynamicType bound2 = bind(formattedState(), results2);
+        bound1.startEvaluation();
+        bound2.startEvaluation();
+
+        bound1.close();
+        mStateStore.setStateEntryValuesProto(ImmutableMap.of(STATE_KEY, intStateEntry(20)));
+
+        assertThat(results1).containsExactly("16");
+        assertThat(results2).containsExactly("16", "21").inOrder();
+        assertThat(mEvaluator.getSavedDynamicNodeCount()).isEqualTo(0);
+        verify(mStateStore, times(0)).unregisterCallback(eq(STATE_KEY), any());
+
+        bound2.close();
+
+        verify(mStateStore, times(1)).unregisterCallback(eq(STATE_KEY), any());
+    }
+
+    @Test
+    public void closeAll_thenBindAgain_createsNewNodes() {
+        List<String> results = new ArrayList<>();
+        bind(formattedState(), new ArrayList<>()).close();
+
+        bind(formattedState(), results).startEvaluation();
+
+        assertThat(results).containsExactly("16");
+        assertThat(mEvaluator.getSavedDynamicNodeCount()).isEqualTo(0);
+    }
+
+    private BoundDynamicType bind(DynamicString expression, List<String> results) {
+        return mEvaluator.bind(expression, ULocale.US, new AddToListCallback<>(results));
+    }
+
+    private static DynamicString formattedState() {
+        return DynamicInt32.fromState(STATE_KEY).plus(1).format().toDynamicStringProto();
+    }
+
+    private static StateEntryValue intStateEntry(int value) {
+        return StateEntryValue.newBuilder()
+                .setInt32Val(FixedInt32.newBuilder().setValue(value))
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.wear.protolayout.renderer.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.wear.protolayout.LayoutElementBuilders
+import androidx.wear.protolayout.proto.LayoutElementProto.Layout
+import androidx.wear.protolayout.renderer.common.ProtoLayoutDiffer
+import org.junit.Assert.assertEquals
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Diffs a layout with [FAN_OUT]^[DEPTH] leaves against a copy of it where only a couple of leaves
+ * have changed, which is what a typical tile refresh looks like.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class ProtoLayoutDifferBenchmark {
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val prevLayout = deepLayout(changedLeaves = emptySet())
+    private val newLayout = deepLayout(changedLeaves = setOf(0, LEAF_COUNT / 2))
+
+    @Test
+    fun diffDeepLayout() {
+        val prevFingerprint = prevLayout.fingerprint
+        benchmarkRule.measureRepeated {
+            ProtoLayoutDiffer.getDiff(prevFingerprint, newLayout)
+        }
+    }
+
+    @Test
+    fun diffDeepLayout_withPosIds() {
+        val prevFingerprint = prevLayout.fingerprint
+        benchmarkRule.measureRepeated {
+            val diff = ProtoLayoutDiffer.getDiff(prevFingerprint, newLayout)!!
+            for (node in diff.changedNodes) {
+                node.posId
+            }
+        }
+    }
+
+    @Test
+    fun diffUnchangedLayout() {
+        val prevFingerprint = prevLayout.fingerprint
+        benchmarkRule.measureRepeated {
+            val diff = ProtoLayoutDiffer.getDiff(prevFingerprint, prevLayout)!!
+            assertEquals(0, diff.changedNodes.size)
+        }
+    }
+
+    private fun deepLayout(changedLeaves: Set<Int>): Layout {
+        var nextLeaf = 0
+        fun element(depth: Int): LayoutElementBuilders.LayoutElement {
+            if (depth == DEPTH) {
+                val leaf = nextLeaf++
+                val text = if (leaf in changedLeaves) "Updated $leaf" else "Item $leaf"
+                return LayoutElementBuilders.Text.Builder().setText(text).build()
+            }
+            val children = List(FAN_OUT) { element(depth + 1) }
+            return if (depth % 2 == 0) {
+                LayoutElementBuilders.Column.Builder()
+                    .apply { children.forEach { addContent(it) } }
+                    .build()
+            } else {
+                LayoutElementBuilders.Row.Builder()
+                    .apply { children.forEach { addContent(it) } }
+                    .build()
+            }
+        }
+        return LayoutElementBuilders.Layout.fromLayoutElement(element(0)).toProto()
+    }
+
+    private companion object {
+        const val DEPTH = 6
+        const val FAN_OUT = 4
+        const val LEAF_COUNT = 4096 // FAN_OUT^DEPTH
+    }
+}
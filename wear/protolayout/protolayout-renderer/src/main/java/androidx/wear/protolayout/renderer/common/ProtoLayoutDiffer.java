@@ -16,10 +16,9 @@
 
 package androidx.wear.protolayout.renderer.common;
 
+import static androidx.core.util.Preconditions.checkNotNull;
 import static androidx.core.util.Preconditions.checkState;
 
-import android.annotation.SuppressLint;
-
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
@@ -81,38 +80,93 @@ public class ProtoLayoutDiffer {
 
     static final class InconsistentFingerprintException extends Exception {}
 
-    /** A node in a layout tree. */
+    /**
+     * A node in a layout tree.
+     *
+     * <p>The position of a node is kept as the index of the node in its parent plus a link to the
+     * parent node, so the diff doesn't need to build position ID strings while walking the tree.
+     * Nodes are only created for the path leading to a changed node, and the string position ID is
+     * only built when {@link #getPosId()} is called.
+     */
     private static final class TreeNode {
         @Nullable final LayoutElement mLayoutElement;
         @Nullable final ArcLayoutElement mArcLayoutElement;
         @NonNull final NodeFingerprint mFingerprint;
-        @NonNull final String mPosId;
+        @Nullable final TreeNode mParent;
+        final int mChildIndex;
+        final int mDepth;
+        @Nullable private String mPosId;
 
         private TreeNode(
                 @Nullable LayoutElement layoutElement,
                 @Nullable ArcLayoutElement arcLayoutElement,
                 @NonNull NodeFingerprint fingerprint,
-                @NonNull String posId) {
+                @Nullable TreeNode parent,
+                int childIndex) {
             this.mLayoutElement = layoutElement;
             this.mArcLayoutElement = arcLayoutElement;
             this.mFingerprint = fingerprint;
-            this.mPosId = posId;
+            this.mParent = parent;
+            this.mChildIndex = childIndex;
+            this.mDepth = parent == null ? 0 : parent.mDepth + 1;
         }
 
         @NonNull
-        static TreeNode ofLayoutElement(
+        static TreeNode ofRoot(
                 @NonNull LayoutElement layoutElement,
                 @NonNull NodeFingerprint fingerprint,
                 @NonNull String posId) {
-            return new TreeNode(layoutElement, null, fingerprint, posId);
+            TreeNode node = new TreeNode(layoutElement, null, fingerprint, null, FIRST_CHILD_INDEX);
+            node.mPosId = posId;
+            return node;
+        }
+
+        @NonNull
+        static TreeNode ofLayoutElement(
+                @NonNull LayoutElement layoutElement,
+                @NonNull NodeFingerprint fingerprint,
+                @NonNull TreeNode parent,
+                int childIndex) {
+            return new TreeNode(layoutElement, null, fingerprint, parent, childIndex);
         }
 
         @NonNull
         static TreeNode ofArcLayoutElement(
                 @NonNull ArcLayoutElement arcLayoutElement,
                 @NonNull NodeFingerprint fingerprint,
-                @NonNull String id) {
-            return new TreeNode(null, arcLayoutElement, fingerprint, id);
+                @NonNull TreeNode parent,
+                int childIndex) {
+            return new TreeNode(null, arcLayoutElement, fingerprint, parent, childIndex);
+        }
+
+        /**
+         * Returns the position ID of this node. This is equal to chaining {@link
+         * #createNodePosId} from the closest ancestor that already has a position ID.
+         */
+        @NonNull
+        String getPosId() {
+            String posId = mPosId;
+            if (posId != null) {
+                return posId;
+            }
+            TreeNode ancestor = this;
+            while (ancestor.mPosId == null) {
+                // Only the root node is created without a parent, and it always has a posId.
+                ancestor = checkNotNull(ancestor.mParent);
+            }
+            int[] childIndexes = new int[mDepth - ancestor.mDepth];
+            TreeNode node = this;
+            for (int i = childIndexes.length - 1; i >= 0; i--) {
+                childIndexes[i] = node.mChildIndex;
+                node = checkNotNull(node.mParent);
+            }
+            StringBuilder builder = new StringBuilder(checkNotNull(ancestor.mPosId));
+            for (int childIndex : childIndexes) {
+                appendChildIndex(builder, childIndex);
+            }
+            posId = builder.toString();
+            mPosId = posId;
+            return posId;
         }
 
         @NonNull
@@ -176,7 +230,7 @@ public class ProtoLayoutDiffer {
         @NonNull
         @RestrictTo(Scope.LIBRARY_GROUP)
         public String getPosId() {
-            return mTreeNode.mPosId;
+            return mTreeNode.getPosId();
         }
 
         /**
@@ -224,11 +278,15 @@ public class ProtoLayoutDiffer {
      *     #FIRST_CHILD_INDEX}, and increment by one for each.
      * @hide
      */
-    @SuppressLint("DefaultLocale")
     @NonNull
     @RestrictTo(Scope.LIBRARY_GROUP)
     public static String createNodePosId(@NonNull String parentPosId, int childIndex) {
-        return String.format("%s.%d", parentPosId, childIndex + 1);
+        return appendChildIndex(new StringBuilder(parentPosId), childIndex).toString();
+    }
+
+    @NonNull
+    static StringBuilder appendChildIndex(@NonNull StringBuilder posId, int childIndex) {
+        return posId.append('.').append(childIndex + 1);
     }
 
     /**
@@ -284,13 +342,16 @@ public class ProtoLayoutDiffer {
             return null;
         }
         NodeFingerprint prevRootFingerprint = prevTreeFingerprint.getRoot();
-        TreeNode rootNode =
-                TreeNode.ofLayoutElement(
-                        layout.getRoot(), layout.getFingerprint().getRoot(), ROOT_NODE_ID);
+        NodeFingerprint rootFingerprint = layout.getFingerprint().getRoot();
+        NodeChangeType rootChangeType = getChangeType(prevRootFingerprint, rootFingerprint);
+        if (rootChangeType == NodeChangeType.NO_CHANGE) {
+            return new LayoutDiff(Collections.emptyList());
+        }
+        TreeNode rootNode = TreeNode.ofRoot(layout.getRoot(), rootFingerprint, ROOT_NODE_ID);
 
         List<TreeNodeWithChange> changedNodes = new ArrayList<>();
         try {
-            addChangedNodes(prevRootFingerprint, rootNode, changedNodes);
+            addChangedNodes(rootChangeType, prevRootFingerprint, rootNode, changedNodes);
         } catch (InconsistentFingerprintException ignored) {
             return null;
         }
@@ -306,11 +367,12 @@ public class ProtoLayoutDiffer {
     }
 
     private static void addChangedNodes(
+            @NonNull NodeChangeType changeType,
             @NonNull NodeFingerprint prevNodeFingerprint,
             @NonNull TreeNode node,
             @NonNull List<TreeNodeWithChange> changedNodes)
             throws InconsistentFingerprintException {
-        switch (getChangeType(prevNodeFingerprint, node.mFingerprint)) {
+        switch (changeType) {
             case CHANGE_IN_SELF_ONLY:
                 changedNodes.add(node.withChange(/* isSelfOnlyChange= */ true));
                 break;
@@ -380,98 +442,108 @@ public class ProtoLayoutDiffer {
             @NonNull TreeNode node,
             @NonNull List<TreeNodeWithChange> changedNodes)
             throws InconsistentFingerprintException {
-        List<TreeNode> childList = getChildNodes(node);
-        if (childList.isEmpty()) {
-            return;
-        }
-        // This must have been checked in getChangeType()
-        checkState(childList.size() == prevNodeFingerprint.getChildNodesCount());
-        for (int i = 0; i < childList.size(); i++) {
-            TreeNode childNode = childList.get(i);
-            NodeFingerprint prevChildNodeFingerprint = prevNodeFingerprint.getChildNodes(i);
-            addChangedNodes(prevChildNodeFingerprint, childNode, changedNodes);
-        }
-    }
-
-    @SuppressWarnings("MixedMutabilityReturnType")
-    @NonNull
-    private static List<TreeNode> getChildNodes(@NonNull TreeNode node)
-            throws InconsistentFingerprintException {
         @Nullable LayoutElement layoutElement = node.mLayoutElement;
         if (layoutElement == null) {
             // Only LayoutElement objects (which includes Arc and Span) can have children.
-            return Collections.emptyList();
+            return;
         }
-        NodeFingerprint fingerprint = node.mFingerprint;
         switch (layoutElement.getInnerCase()) {
             case BOX:
-                return getLinearChildNodes(
+                addChangedLinearChildNodes(
                         layoutElement.getBox().getContentsList(),
-                        fingerprint.getChildNodesList(),
-                        node.mPosId);
+                        prevNodeFingerprint,
+                        node,
+                        changedNodes);
+                break;
             case COLUMN:
-                return getLinearChildNodes(
+                addChangedLinearChildNodes(
                         layoutElement.getColumn().getContentsList(),
-                        fingerprint.getChildNodesList(),
-                        node.mPosId);
+                        prevNodeFingerprint,
+                        node,
+                        changedNodes);
+                break;
             case ROW:
-                return getLinearChildNodes(
+                addChangedLinearChildNodes(
                         layoutElement.getRow().getContentsList(),
-                        fingerprint.getChildNodesList(),
-                        node.mPosId);
+                        prevNodeFingerprint,
+                        node,
+                        changedNodes);
+                break;
             case ARC:
-                return getRadialChildNodes(
+                addChangedRadialChildNodes(
                         layoutElement.getArc().getContentsList(),
-                        fingerprint.getChildNodesList(),
-                        node.mPosId);
+                        prevNodeFingerprint,
+                        node,
+                        changedNodes);
+                break;
             default:
-                return Collections.emptyList();
+                break;
         }
     }
 
-    @SuppressWarnings("MixedMutabilityReturnType")
-    @NonNull
-    private static List<TreeNode> getLinearChildNodes(
+    private static void addChangedLinearChildNodes(
             @NonNull List<LayoutElement> childElements,
-            @NonNull List<NodeFingerprint> childElementFingerprints,
-            @NonNull String parentPosId)
+            @NonNull NodeFingerprint prevNodeFingerprint,
+            @NonNull TreeNode node,
+            @NonNull List<TreeNodeWithChange> changedNodes)
             throws InconsistentFingerprintException {
         if (childElements.isEmpty()) {
-            return Collections.emptyList();
+            return;
         }
+        List<NodeFingerprint> childElementFingerprints = node.mFingerprint.getChildNodesList();
         if (childElements.size() != childElementFingerprints.size()) {
             throw new InconsistentFingerprintException();
         }
-        List<TreeNode> nodes = new ArrayList<>(childElements.size());
+        // This must have been checked in getChangeType()
+        checkState(childElements.size() == prevNodeFingerprint.getChildNodesCount());
         for (int i = 0; i < childElements.size(); i++) {
-            String childPosId = createNodePosId(parentPosId, FIRST_CHILD_INDEX + i);
-            nodes.add(
+            NodeFingerprint prevChildNodeFingerprint = prevNodeFingerprint.getChildNodes(i);
+            NodeFingerprint childNodeFingerprint = childElementFingerprints.get(i);
+            NodeChangeType changeType =
+                    getChangeType(prevChildNodeFingerprint, childNodeFingerprint);
+            if (changeType == NodeChangeType.NO_CHANGE) {
+                continue;
+            }
+            TreeNode childNode =
                     TreeNode.ofLayoutElement(
-                            childElements.get(i), childElementFingerprints.get(i), childPosId));
+                            childElements.get(i),
+                            childNodeFingerprint,
+                            node,
+                            FIRST_CHILD_INDEX + i);
+            addChangedNodes(changeType, prevChildNodeFingerprint, childNode, changedNodes);
         }
-        return nodes;
     }
 
-    @SuppressWarnings("MixedMutabilityReturnType")
-    @NonNull
-    private static List<TreeNode> getRadialChildNodes(
+    private static void addChangedRadialChildNodes(
             @NonNull List<ArcLayoutElement> childElements,
-            @NonNull List<NodeFingerprint> childElementFingerprints,
-            @NonNull String parentPosId)
+            @NonNull NodeFingerprint prevNodeFingerprint,
+            @NonNull TreeNode node,
+            @NonNull List<TreeNodeWithChange> changedNodes)
             throws InconsistentFingerprintException {
         if (childElements.isEmpty()) {
-            return Collections.emptyList();
+            return;
         }
+        List<NodeFingerprint> childElementFingerprints = node.mFingerprint.getChildNodesList();
         if (childElements.size() != childElementFingerprints.size()) {
             throw new InconsistentFingerprintException();
         }
-        List<TreeNode> nodes = new ArrayList<>(childElements.size());
+        // This must have been checked in getChangeType()
+        checkState(childElements.size() == prevNodeFingerprint.getChildNodesCount());
         for (int i = 0; i < childElements.size(); i++) {
-            String childPosId = createNodePosId(parentPosId, FIRST_CHILD_INDEX + i);
-            nodes.add(
+            NodeFingerprint prevChildNodeFingerprint = prevNodeFingerprint.getChildNodes(i);
+            NodeFingerprint childNodeFingerprint = childElementFingerprints.get(i);
+            NodeChangeType changeType =
+                    getChangeType(prevChildNodeFingerprint, childNodeFingerprint);
+            if (changeType == NodeChangeType.NO_CHANGE) {
+                continue;
+            }
+            TreeNode childNode =
                     TreeNode.ofArcLayoutElement(
-                            childElements.get(i), childElementFingerprints.get(i), childPosId));
+                            childElements.get(i),
+                            childNodeFingerprint,
+                            node,
+                            FIRST_CHILD_INDEX + i);
+            addChangedNodes(changeType, prevChildNodeFingerprint, childNode, changedNodes);
         }
-        return nodes;
     }
 }
@@ -162,6 +162,18 @@ public class ProtoLayoutDynamicDataPipeline {
         return mPositionIdTree.getAllNodes().stream().mapToInt(NodeInfo::size).sum();
     }
 
+    /**
+     * Returns how many dynamic nodes are saved in this pipeline by sharing identical dynamic
+     * subexpressions between the bound dynamic types, for example the same sensor source or state
+     * key used by several elements of the layout.
+     *
+     * @hide
+     */
+    @RestrictTo(Scope.LIBRARY_GROUP)
+    public int getSavedDynamicNodeCount() {
+        return mEvaluator.getSavedDynamicNodeCount();
+    }
+
     @UiThread
     void clear() {
         mPositionIdTree.clear();
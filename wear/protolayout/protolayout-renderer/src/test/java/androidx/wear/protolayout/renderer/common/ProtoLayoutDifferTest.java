@@ -37,6 +37,7 @@ import androidx.wear.protolayout.proto.LayoutElementProto.LayoutElement;
 import androidx.wear.protolayout.proto.LayoutElementProto.Span;
 import androidx.wear.protolayout.renderer.common.ProtoLayoutDiffer.LayoutDiff;
 import androidx.wear.protolayout.renderer.common.ProtoLayoutDiffer.TreeNodeWithChange;
+import androidx.wear.protolayout.renderer.helper.TestDsl.LayoutNode;
 
 import com.google.common.collect.ImmutableList;
 
@@ -302,6 +303,26 @@ public class ProtoLayoutDifferTest {
         assertThat(changedNode.isSelfOnlyChange()).isTrue();
     }
 
+    @Test
+    public void getChangedNodes_inDeepLayout_posIdsMatchCreateNodePosId() {
+        Layout layout1 = deepLayout("Foo", "Bar");
+        Layout layout2 = deepLayout("Foo", "UPDATED");
+        LayoutDiff diff = ProtoLayoutDiffer.getDiff(layout1.getFingerprint(), layout2);
+        assertThat(diff).isNotNull();
+        assertThat(diff.getChangedNodes()).hasSize(1);
+        TreeNodeWithChange changedNode = diff.getChangedNodes().get(0);
+        assertThat(textValue(changedNode.getLayoutElement())).isEqualTo("UPDATED");
+
+        // The changed text is the second child of the innermost row, which is reached through the
+        // second child of each of the nested columns.
+        String expectedPosId = ProtoLayoutDiffer.ROOT_NODE_ID;
+        for (int i = 0; i < 7; i++) {
+            expectedPosId = ProtoLayoutDiffer.createNodePosId(expectedPosId, 1);
+        }
+        assertThat(changedNode.getPosId()).isEqualTo(expectedPosId);
+        assertThat(changedNode.getPosId()).isEqualTo("pT1.2.2.2.2.2.2.2");
+    }
+
     @Test
     public void isChildOf_forAnActualChild_returnsTrue() {
         String childPosId = "pT1.2.3";
@@ -352,6 +373,14 @@ public class ProtoLayoutDifferTest {
         return shadowNodeBuilder.build();
     }
 
+    private static Layout deepLayout(String firstText, String secondText) {
+        LayoutNode node = row(text(firstText), text(secondText));
+        for (int i = 0; i < 6; i++) {
+            node = column(text("Level " + i), node);
+        }
+        return layout(node);
+    }
+
     private static Layout referenceLayout() {
         return layout(
                 column( // 1
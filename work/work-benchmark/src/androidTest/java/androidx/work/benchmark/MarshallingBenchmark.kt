@@ -31,6 +31,7 @@ import androidx.work.WorkRequest
 import androidx.work.multiprocess.parcelable.ParcelConverters
 import androidx.work.multiprocess.parcelable.ParcelableConstraints
 import androidx.work.multiprocess.parcelable.ParcelableWorkRequest
+import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
@@ -47,6 +48,9 @@ class MarshallingBenchmark {
     lateinit var parcelledConstraints: ParcelableConstraints
 
     lateinit var request: WorkRequest
+    lateinit var data: Data
+    lateinit var compactBytes: ByteArray
+    lateinit var legacyBytes: ByteArray
     lateinit var parcelledWorkRequest: ParcelableWorkRequest
 
     @Before
@@ -80,6 +84,19 @@ class MarshallingBenchmark {
             )
             .build()
 
+        data = Data.Builder()
+            .putString("id", "c2a8f0f4-3c5e-4bb6-9d61-5a0b4bb2b1c7")
+            .putInt("attempt", 3)
+            .putLong("timestamp", 1_600_000_000_000L)
+            .putBoolean("expedited", true)
+            .putDouble("progress", 0.75)
+            .putIntArray("ids", IntArray(64) { it })
+            .putLongArray("timestamps", LongArray(64) { it * 1_000L })
+            .putStringArray("tags", Array(32) { "tag-${it % 4}" })
+            .build()
+        compactBytes = Data.toByteArrayInternal(data)
+        legacyBytes = Data.toByteArrayInternalV0(data)
+
         parcelledConstraints = ParcelableConstraints(constraints)
         parcelledWorkRequest = ParcelableWorkRequest(request)
     }
@@ -103,4 +120,59 @@ class MarshallingBenchmark {
             )
         }
     }
+
+    @Test
+    fun dataSerializedSize() {
+        assertTrue(
+            "compact = ${compactBytes.size}, legacy = ${legacyBytes.size}",
+            compactBytes.size < legacyBytes.size
+        )
+    }
+
+    @Test
+    fun compactDataSerializeBenchmark() {
+        val values = data.keyValueMap
+        benchmarkRule.measureRepeated {
+            // Data.Builder.build() caches the serialized form, so serialize a fresh copy.
+            val fresh = runWithTimingDisabled { Data(values) }
+            Data.toByteArrayInternal(fresh)
+        }
+    }
+
+    @Test
+    fun legacyDataSerializeBenchmark() {
+        val values = data.keyValueMap
+        benchmarkRule.measureRepeated {
+            val fresh = runWithTimingDisabled { Data(values) }
+            Data.toByteArrayInternalV0(fresh)
+        }
+    }
+
+    @Test
+    fun compactDataDeserializeBenchmark() {
+        benchmarkRule.measureRepeated {
+            readAll(Data.fromByteArray(compactBytes))
+        }
+    }
+
+    @Test
+    fun legacyDataDeserializeBenchmark() {
+        benchmarkRule.measureRepeated {
+            readAll(Data.fromByteArray(legacyBytes))
+        }
+    }
+
+    /**
+     * Reads every key of [data], so that lazily decoded values are included in the measurement.
+     */
+    private fun readAll(data: Data) {
+        data.getString("id")
+        data.getInt("attempt", 0)
+        data.getLong("timestamp", 0L)
+        data.getBoolean("expedited", false)
+        data.getDouble("progress", 0.0)
+        data.getIntArray("ids")
+        data.getLongArray("timestamps")
+        data.getStringArray("tags")
+    }
 }
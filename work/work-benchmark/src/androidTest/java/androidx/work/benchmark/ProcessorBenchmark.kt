@@ -0,0 +1,136 @@
+/*
+ * Copyright 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.impl.Processor
+import androidx.work.impl.StartStopToken
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.model.WorkGenerationalId
+import androidx.work.impl.utils.taskexecutor.SerialExecutor
+import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures the throughput of [Processor] state transitions when they are driven from many
+ * threads at the same time, like they are with a large [Configuration] executor.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class ProcessorBenchmark {
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var context: Context
+    private lateinit var database: WorkDatabase
+    private lateinit var processor: Processor
+    private lateinit var threads: ExecutorService
+    private lateinit var tokens: List<StartStopToken>
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        val executor = Executors.newSingleThreadExecutor()
+        database = WorkDatabase.create(context, executor, true)
+        // Workers are never actually run, this only measures the bookkeeping in Processor.
+        val taskExecutor = object : TaskExecutor {
+            val mainExecutor = Executor { runnable -> runnable.run() }
+            val serialExecutor = object : SerialExecutor {
+                override fun execute(command: Runnable) {}
+                override fun hasPendingTasks() = false
+            }
+
+            override fun getMainThreadExecutor(): Executor = mainExecutor
+
+            override fun getSerialTaskExecutor(): SerialExecutor = serialExecutor
+        }
+        val configuration = Configuration.Builder()
+            .setExecutor(executor)
+            .setTaskExecutor(executor)
+            .build()
+        processor = Processor(context, configuration, taskExecutor, database)
+        threads = Executors.newFixedThreadPool(THREADS)
+        tokens = (0 until WORK_COUNT).map {
+            val request = OneTimeWorkRequestBuilder<NoOpWorker>().build()
+            database.workSpecDao().insertWorkSpec(request.workSpec)
+            StartStopToken(WorkGenerationalId(request.stringId, 0))
+        }
+    }
+
+    @After
+    fun tearDown() {
+        threads.shutdownNow()
+        database.close()
+    }
+
+    @Test
+    fun concurrentStartStop() {
+        benchmarkRule.measureRepeated {
+            runConcurrently { token ->
+                processor.startWork(token)
+                processor.isEnqueued(token.id.workSpecId)
+                processor.stopWork(token)
+            }
+        }
+    }
+
+    @Test
+    fun concurrentQueries() {
+        tokens.forEach { processor.startWork(it) }
+        benchmarkRule.measureRepeated {
+            runConcurrently { token ->
+                processor.isEnqueued(token.id.workSpecId)
+                processor.isEnqueuedInForeground(token.id.workSpecId)
+                processor.getRunningWorkSpec(token.id.workSpecId)
+                processor.hasWork()
+            }
+        }
+    }
+
+    private fun runConcurrently(block: (StartStopToken) -> Unit) {
+        val latch = CountDownLatch(THREADS)
+        for (thread in 0 until THREADS) {
+            threads.execute {
+                for (i in thread until tokens.size step THREADS) {
+                    block(tokens[i])
+                }
+                latch.countDown()
+            }
+        }
+        latch.await()
+    }
+
+    companion object {
+        private const val THREADS = 32
+        private const val WORK_COUNT = 256
+    }
+}
@@ -27,12 +27,17 @@ import androidx.room.TypeConverter;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -66,11 +71,26 @@ public final class Data {
     @SuppressWarnings("WeakerAccess") /* synthetic access */
             Map<String, Object> mValues;
 
+    // When this Data was created from a compact payload, values are decoded lazily from it and
+    // mValues is null.
+    @Nullable
+    private LazyValues mLazyValues;
+
+    // The serialized form of this Data, if it is already known.
+    @Nullable
+    private byte[] mSerialized;
+
     Data() {    // stub required for room
     }
 
     public Data(@NonNull Data other) {
-        mValues = new HashMap<>(other.mValues);
+        if (other.mLazyValues != null) {
+            // Data is immutable, so the lazily decoded payload can be shared.
+            mLazyValues = other.mLazyValues;
+        } else {
+            mValues = new HashMap<>(other.mValues);
+        }
+        mSerialized = other.mSerialized;
     }
 
     /**
@@ -89,7 +109,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public boolean getBoolean(@NonNull String key, boolean defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Boolean) {
             return (boolean) value;
         } else {
@@ -105,7 +125,7 @@ public final class Data {
      */
     @Nullable
     public boolean[] getBooleanArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Boolean[]) {
             Boolean[] array = (Boolean[]) value;
             return convertToPrimitiveArray(array);
@@ -122,7 +142,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public byte getByte(@NonNull String key, byte defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Byte) {
             return (byte) value;
         } else {
@@ -138,7 +158,7 @@ public final class Data {
      */
     @Nullable
     public byte[] getByteArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Byte[]) {
             Byte[] array = (Byte[]) value;
             return convertToPrimitiveArray(array);
@@ -155,7 +175,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public int getInt(@NonNull String key, int defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Integer) {
             return (int) value;
         } else {
@@ -171,7 +191,7 @@ public final class Data {
      */
     @Nullable
     public int[] getIntArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Integer[]) {
             Integer[] array = (Integer[]) value;
             return convertToPrimitiveArray(array);
@@ -188,7 +208,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public long getLong(@NonNull String key, long defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Long) {
             return (long) value;
         } else {
@@ -204,7 +224,7 @@ public final class Data {
      */
     @Nullable
     public long[] getLongArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Long[]) {
             Long[] array = (Long[]) value;
             return convertToPrimitiveArray(array);
@@ -221,7 +241,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public float getFloat(@NonNull String key, float defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Float) {
             return (float) value;
         } else {
@@ -237,7 +257,7 @@ public final class Data {
      */
     @Nullable
     public float[] getFloatArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Float[]) {
             Float[] array = (Float[]) value;
             return convertToPrimitiveArray(array);
@@ -254,7 +274,7 @@ public final class Data {
      * @return The value specified by the key if it exists; the default value otherwise
      */
     public double getDouble(@NonNull String key, double defaultValue) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Double) {
             return (double) value;
         } else {
@@ -270,7 +290,7 @@ public final class Data {
      */
     @Nullable
     public double[] getDoubleArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof Double[]) {
             Double[] array = (Double[]) value;
             return convertToPrimitiveArray(array);
@@ -287,7 +307,7 @@ public final class Data {
      */
     @Nullable
     public String getString(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof String) {
             return (String) value;
         } else {
@@ -303,7 +323,7 @@ public final class Data {
      */
     @Nullable
     public String[] getStringArray(@NonNull String key) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         if (value instanceof String[]) {
             return (String[]) value;
         } else {
@@ -319,7 +339,7 @@ public final class Data {
      */
     @NonNull
     public Map<String, Object> getKeyValueMap() {
-        return Collections.unmodifiableMap(mValues);
+        return Collections.unmodifiableMap(getValues());
     }
 
     /**
@@ -333,7 +353,8 @@ public final class Data {
      */
     @NonNull
     public byte[] toByteArray() {
-        return Data.toByteArrayInternal(this);
+        // The internal representation may be shared, so hand out a copy.
+        return Data.toByteArrayInternal(this).clone();
     }
 
     /**
@@ -347,7 +368,7 @@ public final class Data {
      * {@link String} key with the expected type.
      */
     public <T> boolean hasKeyWithValueOfType(@NonNull String key, @NonNull Class<T> klass) {
-        Object value = mValues.get(key);
+        Object value = getValue(key);
         return value != null && klass.isAssignableFrom(value.getClass());
     }
 
@@ -358,11 +379,27 @@ public final class Data {
     @VisibleForTesting
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     public int size() {
-        return mValues.size();
+        return mLazyValues != null ? mLazyValues.size() : mValues.size();
+    }
+
+    @Nullable
+    private Object getValue(@NonNull String key) {
+        return mLazyValues != null ? mLazyValues.get(key) : mValues.get(key);
+    }
+
+    @NonNull
+    Map<String, Object> getValues() {
+        return mLazyValues != null ? mLazyValues.getAll() : mValues;
     }
 
     /**
      * Converts {@link Data} to a byte array for persistent storage.
+     * <p>
+     * The compact tag-length-value format is used whenever all values can be represented in it;
+     * otherwise this falls back to the legacy {@link ObjectOutputStream} based format.
+     * <p>
+     * The returned array may be the one kept by {@code data} to avoid serializing it again, and
+     * must not be modified. Use {@link #toByteArray()} for a copy.
      *
      * @param data The {@link Data} object to convert
      * @return The byte array representation of the input
@@ -374,12 +411,83 @@ public final class Data {
     @TypeConverter
     @NonNull
     public static byte[] toByteArrayInternal(@NonNull Data data) {
+        if (data.mSerialized != null) {
+            return data.mSerialized;
+        }
+        byte[] bytes = toCompactByteArray(data.getValues());
+        if (bytes == null) {
+            bytes = toLegacyByteArray(data.getValues());
+        }
+        return checkSerializedSize(bytes);
+    }
+
+    /**
+     * Converts {@link Data} to a byte array using the legacy {@link ObjectOutputStream} based
+     * format. This only exists so that the two formats can be compared in benchmarks and tests.
+     *
+     * @param data The {@link Data} object to convert
+     * @return The byte array representation of the input
+     * @throws IllegalStateException if the serialized payload is bigger than
+     *                               {@link #MAX_DATA_BYTES}
+     * @hide
+     */
+    @VisibleForTesting
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @NonNull
+    public static byte[] toByteArrayInternalV0(@NonNull Data data) {
+        return checkSerializedSize(toLegacyByteArray(data.getValues()));
+    }
+
+    /**
+     * Converts a byte array to {@link Data}.
+     * <p>
+     * Both the compact format and the legacy {@link ObjectOutputStream} based format are
+     * supported; the format is detected by looking at the stream header. Values in the compact
+     * format are decoded lazily, when they are first accessed, from a copy of {@code bytes}.
+     *
+     * @param bytes The byte array representation to convert
+     * @return An {@link Data} object built from the input
+     * @throws IllegalStateException if bytes is bigger than {@link #MAX_DATA_BYTES}
+     */
+    @TypeConverter
+    @NonNull
+    public static Data fromByteArray(@NonNull byte[] bytes) {
+        if (bytes.length > MAX_DATA_BYTES) {
+            throw new IllegalStateException(
+                    "Data cannot occupy more than " + MAX_DATA_BYTES + " bytes when serialized");
+        }
+        // The returned Data decodes values from, and persists, these bytes later on, so it must
+        // not share them with the caller.
+        bytes = bytes.clone();
+        Data data;
+        if (isCompactFormat(bytes)) {
+            data = new Data();
+            data.mLazyValues = new LazyValues(bytes);
+        } else {
+            data = new Data(fromLegacyByteArray(bytes));
+        }
+        data.mSerialized = bytes;
+        return data;
+    }
+
+    @NonNull
+    private static byte[] checkSerializedSize(@NonNull byte[] bytes) {
+        if (bytes.length > MAX_DATA_BYTES) {
+            throw new IllegalStateException(
+                    "Data cannot occupy more than " + MAX_DATA_BYTES
+                            + " bytes when serialized");
+        }
+        return bytes;
+    }
+
+    @NonNull
+    private static byte[] toLegacyByteArray(@NonNull Map<String, Object> values) {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         ObjectOutputStream objectOutputStream = null;
         try {
             objectOutputStream = new ObjectOutputStream(outputStream);
-            objectOutputStream.writeInt(data.size());
-            for (Map.Entry<String, Object> entry : data.mValues.entrySet()) {
+            objectOutputStream.writeInt(values.size());
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
                 objectOutputStream.writeUTF(entry.getKey());
                 objectOutputStream.writeObject(entry.getValue());
             }
@@ -402,30 +510,11 @@ public final class Data {
                 Log.e(TAG, "Error in Data#toByteArray: ", e);
             }
         }
-
-        if (outputStream.size() > MAX_DATA_BYTES) {
-            throw new IllegalStateException(
-                    "Data cannot occupy more than " + MAX_DATA_BYTES
-                            + " bytes when serialized");
-        }
         return outputStream.toByteArray();
     }
 
-    /**
-     * Converts a byte array to {@link Data}.
-     *
-     * @param bytes The byte array representation to convert
-     * @return An {@link Data} object built from the input
-     * @throws IllegalStateException if bytes is bigger than {@link #MAX_DATA_BYTES}
-     */
-    @TypeConverter
     @NonNull
-    public static Data fromByteArray(@NonNull byte[] bytes) {
-        if (bytes.length > MAX_DATA_BYTES) {
-            throw new IllegalStateException(
-                    "Data cannot occupy more than " + MAX_DATA_BYTES + " bytes when serialized");
-        }
-
+    private static Map<String, Object> fromLegacyByteArray(@NonNull byte[] bytes) {
         Map<String, Object> map = new HashMap<>();
         ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
         ObjectInputStream objectInputStream = null;
@@ -450,7 +539,501 @@ public final class Data {
                 Log.e(TAG, "Error in Data#fromByteArray: ", e);
             }
         }
-        return new Data(map);
+        return map;
+    }
+
+    // Compact format
+    //
+    // header  := COMPACT_MAGIC_0 COMPACT_MAGIC_1 COMPACT_VERSION
+    // data    := header varint(count) entry*
+    // entry   := string(key) byte(type) value
+    // string  := varint(0)                      -> null
+    //          | varint(1) modified-utf8        -> new string, appended to the string table
+    //          | varint(2 + index)              -> string table reference
+    //
+    // Arrays are written as varint(length) followed by the unboxed elements. Java serialization
+    // streams always start with 0xACED, which never collides with the compact header.
+
+    private static final byte COMPACT_MAGIC_0 = (byte) 0xAB;
+    private static final byte COMPACT_MAGIC_1 = (byte) 0xDA;
+    private static final byte COMPACT_VERSION = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_BYTE = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_DOUBLE = 6;
+    private static final byte TYPE_STRING = 7;
+    private static final byte TYPE_BOOLEAN_ARRAY = 8;
+    private static final byte TYPE_BYTE_ARRAY = 9;
+    private static final byte TYPE_INTEGER_ARRAY = 10;
+    private static final byte TYPE_LONG_ARRAY = 11;
+    private static final byte TYPE_FLOAT_ARRAY = 12;
+    private static final byte TYPE_DOUBLE_ARRAY = 13;
+    private static final byte TYPE_STRING_ARRAY = 14;
+
+    private static final int STRING_NULL = 0;
+    private static final int STRING_NEW = 1;
+    private static final int STRING_REFERENCE_BASE = 2;
+
+    static boolean isCompactFormat(@NonNull byte[] bytes) {
+        return bytes.length >= 3
+                && bytes[0] == COMPACT_MAGIC_0
+                && bytes[1] == COMPACT_MAGIC_1;
+    }
+
+    /**
+     * @return the compact representation of the given values, or {@code null} if one of the
+     * values cannot be represented in the compact format (for e.g. a boxed array with a
+     * {@code null} element).
+     */
+    @Nullable
+    private static byte[] toCompactByteArray(@NonNull Map<String, Object> values) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(outputStream);
+        Map<String, Integer> stringTable = new HashMap<>();
+        try {
+            out.writeByte(COMPACT_MAGIC_0);
+            out.writeByte(COMPACT_MAGIC_1);
+            out.writeByte(COMPACT_VERSION);
+            writeVarInt(out, values.size());
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                writeString(out, entry.getKey(), stringTable);
+                if (!writeValue(out, entry.getValue(), stringTable)) {
+                    return null;
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "Error in Data#toByteArray: ", e);
+            return null;
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static boolean writeValue(
+            @NonNull DataOutputStream out,
+            @Nullable Object value,
+            @NonNull Map<String, Integer> stringTable) throws IOException {
+
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(TYPE_BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value, stringTable);
+        } else if (value instanceof String[]) {
+            String[] array = (String[]) value;
+            out.writeByte(TYPE_STRING_ARRAY);
+            writeVarInt(out, array.length);
+            for (String element : array) {
+                writeString(out, element, stringTable);
+            }
+        } else if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            for (Object element : array) {
+                if (element == null) {
+                    // Not representable without boxing; use the legacy format instead.
+                    return false;
+                }
+            }
+            if (value instanceof Boolean[]) {
+                out.writeByte(TYPE_BOOLEAN_ARRAY);
+                writeVarInt(out, array.length);
+                for (Boolean element : (Boolean[]) value) {
+                    out.writeBoolean(element);
+                }
+            } else if (value instanceof Byte[]) {
+                out.writeByte(TYPE_BYTE_ARRAY);
+                writeVarInt(out, array.length);
+                for (Byte element : (Byte[]) value) {
+                    out.writeByte(element);
+                }
+            } else if (value instanceof Integer[]) {
+                out.writeByte(TYPE_INTEGER_ARRAY);
+                writeVarInt(out, array.length);
+                for (Integer element : (Integer[]) value) {
+                    out.writeInt(element);
+                }
+            } else if (value instanceof Long[]) {
+                out.writeByte(TYPE_LONG_ARRAY);
+                writeVarInt(out, array.length);
+                for (Long element : (Long[]) value) {
+                    out.writeLong(element);
+                }
+            } else if (value instanceof Float[]) {
+                out.writeByte(TYPE_FLOAT_ARRAY);
+                writeVarInt(out, array.length);
+                for (Float element : (Float[]) value) {
+                    out.writeFloat(element);
+                }
+            } else if (value instanceof Double[]) {
+                out.writeByte(TYPE_DOUBLE_ARRAY);
+                writeVarInt(out, array.length);
+                for (Double element : (Double[]) value) {
+                    out.writeDouble(element);
+                }
+            } else {
+                return false;
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static void writeString(
+            @NonNull DataOutputStream out,
+            @Nullable String value,
+            @NonNull Map<String, Integer> stringTable) throws IOException {
+
+        if (value == null) {
+            writeVarInt(out, STRING_NULL);
+            return;
+        }
+        Integer index = stringTable.get(value);
+        if (index != null) {
+            writeVarInt(out, STRING_REFERENCE_BASE + index);
+        } else {
+            stringTable.put(value, stringTable.size());
+            writeVarInt(out, STRING_NEW);
+            out.writeUTF(value);
+        }
+    }
+
+    private static void writeVarInt(@NonNull DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Lazily decodes a payload in the compact format.
+     * <p>
+     * The payload is indexed (keys and value offsets) on first access, and individual values are
+     * only decoded and boxed when they are asked for.
+     */
+    private static final class LazyValues {
+        private static final Object NOT_DECODED = new Object();
+
+        private final byte[] mBytes;
+        private int mPosition;
+
+        // Guarded by this
+        private Map<String, Integer> mOffsets;
+        private List<Integer> mStringOffsets;
+        private Map<String, Object> mDecoded;
+        private boolean mFullyDecoded;
+        private boolean mIndexing;
+
+        LazyValues(@NonNull byte[] bytes) {
+            mBytes = bytes;
+        }
+
+        synchronized int size() {
+            ensureIndexed();
+            return mOffsets.size();
+        }
+
+        @Nullable
+        synchronized Object get(@NonNull String key) {
+            ensureIndexed();
+            Object value = mDecoded.containsKey(key) ? mDecoded.get(key) : NOT_DECODED;
+            if (value != NOT_DECODED) {
+                return value;
+            }
+            Integer offset = mOffsets.get(key);
+            if (offset == null) {
+                return null;
+            }
+            value = decodeAt(offset);
+            mDecoded.put(key, value);
+            return value;
+        }
+
+        @NonNull
+        synchronized Map<String, Object> getAll() {
+            ensureIndexed();
+            if (!mFullyDecoded) {
+                for (Map.Entry<String, Integer> entry : mOffsets.entrySet()) {
+                    if (!mDecoded.containsKey(entry.getKey())) {
+                        mDecoded.put(entry.getKey(), decodeAt(entry.getValue()));
+                    }
+                }
+                mFullyDecoded = true;
+            }
+            return mDecoded;
+        }
+
+        private void ensureIndexed() {
+            if (mOffsets != null) {
+                return;
+            }
+            mOffsets = new HashMap<>();
+            mStringOffsets = new ArrayList<>();
+            mDecoded = new HashMap<>();
+            mIndexing = true;
+            try {
+                mPosition = 2;
+                byte version = readByte();
+                if (version != COMPACT_VERSION) {
+                    throw new IOException("Unsupported version " + version);
+                }
+                for (int i = readVarInt(); i > 0; i--) {
+                    String key = readString();
+                    mOffsets.put(key, mPosition);
+                    skipValue();
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Error in Data#fromByteArray: ", e);
+                mOffsets.clear();
+                mStringOffsets.clear();
+            } finally {
+                mIndexing = false;
+            }
+        }
+
+        @Nullable
+        private Object decodeAt(int offset) {
+            mPosition = offset;
+            try {
+                return readValue();
+            } catch (IOException e) {
+                // The payload was already validated when it was indexed.
+                Log.e(TAG, "Error in Data#fromByteArray: ", e);
+                return null;
+            }
+        }
+
+        private void skipValue() throws IOException {
+            byte type = readByte();
+            switch (type) {
+                case TYPE_NULL:
+                    break;
+                case TYPE_BOOLEAN:
+                case TYPE_BYTE:
+                    skip(1);
+                    break;
+                case TYPE_INTEGER:
+                case TYPE_FLOAT:
+                    skip(4);
+                    break;
+                case TYPE_LONG:
+                case TYPE_DOUBLE:
+                    skip(8);
+                    break;
+                case TYPE_STRING:
+                    skipString();
+                    break;
+                case TYPE_BOOLEAN_ARRAY:
+                case TYPE_BYTE_ARRAY:
+                    skip(readVarInt());
+                    break;
+                case TYPE_INTEGER_ARRAY:
+                case TYPE_FLOAT_ARRAY:
+                    skip(readVarInt() * 4L);
+                    break;
+                case TYPE_LONG_ARRAY:
+                case TYPE_DOUBLE_ARRAY:
+                    skip(readVarInt() * 8L);
+                    break;
+                case TYPE_STRING_ARRAY:
+                    for (int i = readVarInt(); i > 0; i--) {
+                        skipString();
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown type " + type);
+            }
+        }
+
+        @Nullable
+        private Object readValue() throws IOException {
+            byte type = readByte();
+            switch (type) {
+                case TYPE_NULL:
+                    return null;
+                case TYPE_BOOLEAN:
+                    return readByte() != 0;
+                case TYPE_BYTE:
+                    return readByte();
+                case TYPE_INTEGER:
+                    return readInt();
+                case TYPE_LONG:
+                    return readLong();
+                case TYPE_FLOAT:
+                    return Float.intBitsToFloat(readInt());
+                case TYPE_DOUBLE:
+                    return Double.longBitsToDouble(readLong());
+                case TYPE_STRING:
+                    return readString();
+                case TYPE_BOOLEAN_ARRAY: {
+                    Boolean[] array = new Boolean[readVarInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = readByte() != 0;
+                    }
+                    return array;
+                }
+                case TYPE_BYTE_ARRAY: {
+                    Byte[] array = new Byte[readVarInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = readByte();
+                    }
+                    return array;
+                }
+                case TYPE_INTEGER_ARRAY: {
+                    Integer[] array = new Integer[readVarInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = readInt();
+                    }
+                    return array;
+                }
+                case TYPE_LONG_ARRAY: {
+                    Long[] array = new Long[readVarInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = readLong();
+                    }
+                    return array;
+                }
+                case TYPE_FLOAT_ARRAY: {
+                    Float[] array = new Float[readVarInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = Float.intBitsToFloat(readInt());
+                    }
+                    return array;
+                }
+                case TYPE_DOUBLE_ARRAY: {
+                    Double[] array = new Double[readVarInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = Double.longBitsToDouble(readLong());
+                    }
+                    return array;
+                }
+                case TYPE_STRING_ARRAY: {
+                    String[] array = new String[readVarInt()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = readString();
+                    }
+                    return array;
+                }
+                default:
+                    throw new IOException("Unknown type " + type);
+            }
+        }
+
+        private void skipString() throws IOException {
+            int tag = readVarInt();
+            if (tag == STRING_NEW) {
+                mStringOffsets.add(mPosition);
+                skip(readUnsignedShort());
+            } else if (tag >= STRING_REFERENCE_BASE) {
+                checkStringReference(tag - STRING_REFERENCE_BASE);
+            }
+        }
+
+        @Nullable
+        private String readString() throws IOException {
+            int tag = readVarInt();
+            if (tag == STRING_NULL) {
+                return null;
+            } else if (tag == STRING_NEW) {
+                if (mIndexing) {
+                    // Remember where this string lives, so that later references can find it.
+                    mStringOffsets.add(mPosition);
+                }
+                return readUtf();
+            } else {
+                int index = tag - STRING_REFERENCE_BASE;
+                checkStringReference(index);
+                int position = mPosition;
+                mPosition = mStringOffsets.get(index);
+                String value = readUtf();
+                mPosition = position;
+                return value;
+            }
+        }
+
+        private void checkStringReference(int index) throws IOException {
+            if (index >= mStringOffsets.size()) {
+                throw new IOException("Invalid string reference " + index);
+            }
+        }
+
+        @NonNull
+        private String readUtf() throws IOException {
+            int length = readUnsignedShort();
+            int start = mPosition - 2;
+            skip(length);
+            // Strings are written with DataOutput#writeUTF, so they use modified UTF-8.
+            return new DataInputStream(new ByteArrayInputStream(mBytes, start, length + 2))
+                    .readUTF();
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private byte readByte() throws IOException {
+            require(1);
+            return mBytes[mPosition++];
+        }
+
+        private int readUnsignedShort() throws IOException {
+            require(2);
+            return ((mBytes[mPosition++] & 0xFF) << 8) | (mBytes[mPosition++] & 0xFF);
+        }
+
+        private int readInt() throws IOException {
+            require(4);
+            return ((mBytes[mPosition++] & 0xFF) << 24)
+                    | ((mBytes[mPosition++] & 0xFF) << 16)
+                    | ((mBytes[mPosition++] & 0xFF) << 8)
+                    | (mBytes[mPosition++] & 0xFF);
+        }
+
+        private long readLong() throws IOException {
+            return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        private void skip(long count) throws IOException {
+            require(count);
+            mPosition += (int) count;
+        }
+
+        private void require(long count) throws IOException {
+            if (count < 0 || mPosition + count > mBytes.length) {
+                throw new EOFException();
+            }
+        }
     }
 
     @Override
@@ -463,14 +1046,16 @@ public final class Data {
         }
 
         Data other = (Data) o;
-        Set<String> keys = mValues.keySet();
-        if (!keys.equals(other.mValues.keySet())) {
+        Map<String, Object> values = getValues();
+        Map<String, Object> otherValues = other.getValues();
+        Set<String> keys = values.keySet();
+        if (!keys.equals(otherValues.keySet())) {
             return false;
         }
 
         for (String key : keys) {
-            Object value = mValues.get(key);
-            Object otherValue = other.mValues.get(key);
+            Object value = values.get(key);
+            Object otherValue = otherValues.get(key);
             boolean equal;
             if (value == null || otherValue == null) {
                 equal = value == otherValue;
@@ -489,17 +1074,18 @@ public final class Data {
 
     @Override
     public int hashCode() {
-        return 31 * mValues.hashCode();
+        return 31 * getValues().hashCode();
     }
 
     @NonNull
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("Data {");
-        if (!mValues.isEmpty()) {
-            for (String key : mValues.keySet()) {
+        Map<String, Object> values = getValues();
+        if (!values.isEmpty()) {
+            for (String key : values.keySet()) {
                 sb.append(key).append(" : ");
-                Object value = mValues.get(key);
+                Object value = values.get(key);
                 if (value instanceof Object[]) {
                     sb.append(Arrays.toString((Object[]) value));
                 } else {
@@ -868,7 +1454,7 @@ public final class Data {
          */
         @NonNull
         public Builder putAll(@NonNull Data data) {
-            putAll(data.mValues);
+            putAll(data.getValues());
             return this;
         }
 
@@ -953,8 +1539,10 @@ public final class Data {
         public Data build() {
             Data data = new Data(mValues);
             // Make sure we catch Data objects that are too large at build() instead of later.  This
-            // method will throw an exception if data is too big.
-            Data.toByteArrayInternal(data);
+            // method will throw an exception if data is too big.  The result is kept around, so
+            // that persisting this Data later does not need to serialize it again. It is never
+            // shared with callers, toByteArray() hands out copies.
+            data.mSerialized = Data.toByteArrayInternal(data);
             return data;
         }
     }
@@ -39,15 +39,22 @@ import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 
 /**
  * A Processor can intelligently schedule and execute work on demand.
+ * <p>
+ * State transitions for a given {@link WorkSpec} id are serialized on a lock stripe that is
+ * picked by that id, so that work with different ids can be started and stopped concurrently.
+ * Read-only queries such as {@link #isEnqueued(String)} and {@link #hasWork()} do not take any
+ * locks.
  *
  * @hide
  */
@@ -55,6 +62,8 @@ import java.util.concurrent.ExecutionException;
 public class Processor implements ExecutionListener, ForegroundProcessor {
     private static final String TAG = Logger.tagWithPrefix("Processor");
     private static final String FOREGROUND_WAKELOCK_TAG = "ProcessorForegroundLck";
+    // Must be a power of 2.
+    private static final int LOCK_STRIPES = 64;
 
     @Nullable
     private PowerManager.WakeLock mForegroundLock;
@@ -70,7 +79,11 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
     private Set<String> mCancelledIds;
 
     private final List<ExecutionListener> mOuterListeners;
-    private final Object mLock;
+    // Guards transitions of a given workSpecId, see getLock(String).
+    private final Object[] mLocks;
+    // Guards the foreground service and mForegroundLock. Can be acquired while holding one of
+    // mLocks, but not the other way around.
+    private final Object mForegroundServiceLock;
 
     public Processor(
             @NonNull Context appContext,
@@ -81,13 +94,17 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
         mConfiguration = configuration;
         mWorkTaskExecutor = workTaskExecutor;
         mWorkDatabase = workDatabase;
-        mEnqueuedWorkMap = new HashMap<>();
-        mForegroundWorkMap = new HashMap<>();
-        mCancelledIds = new HashSet<>();
-        mOuterListeners = new ArrayList<>();
+        mEnqueuedWorkMap = new ConcurrentHashMap<>();
+        mForegroundWorkMap = new ConcurrentHashMap<>();
+        mCancelledIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        mOuterListeners = new CopyOnWriteArrayList<>();
         mForegroundLock = null;
-        mLock = new Object();
-        mWorkRuns = new HashMap<>();
+        mLocks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            mLocks[i] = new Object();
+        }
+        mForegroundServiceLock = new Object();
+        mWorkRuns = new ConcurrentHashMap<>();
     }
 
     /**
@@ -126,7 +143,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
             return false;
         }
         WorkerWrapper workWrapper;
-        synchronized (mLock) {
+        synchronized (getLock(workSpecId)) {
             // Work may get triggered multiple times if they have passing constraints
             // and new work with those constraints are added.
             if (isEnqueued(workSpecId)) {
@@ -185,18 +202,24 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
     @Override
     public void startForeground(@NonNull String workSpecId,
             @NonNull ForegroundInfo foregroundInfo) {
-        synchronized (mLock) {
+        synchronized (getLock(workSpecId)) {
             Logger.get().info(TAG, "Moving WorkSpec (" + workSpecId + ") to the foreground");
-            WorkerWrapper wrapper = mEnqueuedWorkMap.remove(workSpecId);
+            WorkerWrapper wrapper = mEnqueuedWorkMap.get(workSpecId);
             if (wrapper != null) {
-                if (mForegroundLock == null) {
-                    mForegroundLock = WakeLocks.newWakeLock(mAppContext, FOREGROUND_WAKELOCK_TAG);
-                    mForegroundLock.acquire();
+                synchronized (mForegroundServiceLock) {
+                    if (mForegroundLock == null) {
+                        mForegroundLock = WakeLocks.newWakeLock(mAppContext,
+                                FOREGROUND_WAKELOCK_TAG);
+                        mForegroundLock.acquire();
+                    }
+                    // Add to the foreground map before removing it from the enqueued map, so
+                    // lock-free readers never observe the work as not enqueued.
+                    mForegroundWorkMap.put(workSpecId, wrapper);
+                    mEnqueuedWorkMap.remove(workSpecId);
+                    Intent intent = createStartForegroundIntent(mAppContext,
+                            wrapper.getWorkGenerationalId(), foregroundInfo);
+                    ContextCompat.startForegroundService(mAppContext, intent);
                 }
-                mForegroundWorkMap.put(workSpecId, wrapper);
-                Intent intent = createStartForegroundIntent(mAppContext,
-                        wrapper.getWorkGenerationalId(), foregroundInfo);
-                ContextCompat.startForegroundService(mAppContext, intent);
             }
         }
     }
@@ -210,7 +233,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
     public boolean stopForegroundWork(@NonNull StartStopToken token) {
         String id = token.getId().getWorkSpecId();
         WorkerWrapper wrapper = null;
-        synchronized (mLock) {
+        synchronized (getLock(id)) {
             Logger.get().debug(TAG, "Processor stopping foreground work " + id);
             wrapper = mForegroundWorkMap.remove(id);
             if (wrapper != null) {
@@ -233,7 +256,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
     public boolean stopWork(@NonNull StartStopToken runId) {
         String id = runId.getId().getWorkSpecId();
         WorkerWrapper wrapper = null;
-        synchronized (mLock) {
+        synchronized (getLock(id)) {
             // Processor _only_ receives stopWork() requests from the schedulers that originally
             // scheduled the work, and not others. This means others are still notified about
             // completion, but we avoid a accidental "stops" and lot of redundant work when
@@ -266,7 +289,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
     public boolean stopAndCancelWork(@NonNull String id) {
         WorkerWrapper wrapper = null;
         boolean isForegroundWork = false;
-        synchronized (mLock) {
+        synchronized (getLock(id)) {
             Logger.get().debug(TAG, "Processor cancelling " + id);
             mCancelledIds.add(id);
             // Check if running in the context of a foreground service
@@ -293,7 +316,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
 
     @Override
     public void stopForeground(@NonNull String workSpecId) {
-        synchronized (mLock) {
+        synchronized (getLock(workSpecId)) {
             mForegroundWorkMap.remove(workSpecId);
             stopForegroundService();
         }
@@ -306,19 +329,15 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @return {@code true} if the id has already been marked as cancelled
      */
     public boolean isCancelled(@NonNull String id) {
-        synchronized (mLock) {
-            return mCancelledIds.contains(id);
-        }
+        return mCancelledIds.contains(id);
     }
 
     /**
      * @return {@code true} if the processor has work to process.
      */
     public boolean hasWork() {
-        synchronized (mLock) {
-            return !(mEnqueuedWorkMap.isEmpty()
-                    && mForegroundWorkMap.isEmpty());
-        }
+        return !(mEnqueuedWorkMap.isEmpty()
+                && mForegroundWorkMap.isEmpty());
     }
 
     /**
@@ -326,10 +345,10 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @return {@code true} if the id was enqueued in the processor.
      */
     public boolean isEnqueued(@NonNull String workSpecId) {
-        synchronized (mLock) {
-            return mEnqueuedWorkMap.containsKey(workSpecId)
-                    || mForegroundWorkMap.containsKey(workSpecId);
-        }
+        // Check the foreground map second: startForeground() adds to it before removing from
+        // the enqueued map.
+        return mEnqueuedWorkMap.containsKey(workSpecId)
+                || mForegroundWorkMap.containsKey(workSpecId);
     }
 
     /**
@@ -338,9 +357,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      */
     @Override
     public boolean isEnqueuedInForeground(@NonNull String workSpecId) {
-        synchronized (mLock) {
-            return mForegroundWorkMap.containsKey(workSpecId);
-        }
+        return mForegroundWorkMap.containsKey(workSpecId);
     }
 
     /**
@@ -349,9 +366,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @param executionListener The {@link ExecutionListener} to add
      */
     public void addExecutionListener(@NonNull ExecutionListener executionListener) {
-        synchronized (mLock) {
-            mOuterListeners.add(executionListener);
-        }
+        mOuterListeners.add(executionListener);
     }
 
     /**
@@ -360,14 +375,12 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      * @param executionListener The {@link ExecutionListener} to remove
      */
     public void removeExecutionListener(@NonNull ExecutionListener executionListener) {
-        synchronized (mLock) {
-            mOuterListeners.remove(executionListener);
-        }
+        mOuterListeners.remove(executionListener);
     }
 
     @Override
     public void onExecuted(@NonNull final WorkGenerationalId id, boolean needsReschedule) {
-        synchronized (mLock) {
+        synchronized (getLock(id.getWorkSpecId())) {
             WorkerWrapper workerWrapper = mEnqueuedWorkMap.get(id.getWorkSpecId());
             // can be called for another generation, so we shouldn't removed
             if (workerWrapper != null && id.equals(workerWrapper.getWorkGenerationalId())) {
@@ -376,9 +389,11 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
             Logger.get().debug(TAG,
                     getClass().getSimpleName() + " " + id.getWorkSpecId()
                             + " executed; reschedule = " + needsReschedule);
-            for (ExecutionListener executionListener : mOuterListeners) {
-                executionListener.onExecuted(id, needsReschedule);
-            }
+        }
+        // Listeners may call back into the Processor for other ids, which can map to a
+        // different stripe, so they are notified without holding the lock.
+        for (ExecutionListener executionListener : mOuterListeners) {
+            executionListener.onExecuted(id, needsReschedule);
         }
     }
 
@@ -389,16 +404,14 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
      */
     @Nullable
     public WorkSpec getRunningWorkSpec(@NonNull String workSpecId) {
-        synchronized (mLock) {
-            WorkerWrapper workerWrapper = mForegroundWorkMap.get(workSpecId);
-            if (workerWrapper == null) {
-                workerWrapper = mEnqueuedWorkMap.get(workSpecId);
-            }
-            if (workerWrapper != null) {
-                return workerWrapper.getWorkSpec();
-            } else {
-                return null;
-            }
+        WorkerWrapper workerWrapper = mEnqueuedWorkMap.get(workSpecId);
+        if (workerWrapper == null) {
+            workerWrapper = mForegroundWorkMap.get(workSpecId);
+        }
+        if (workerWrapper != null) {
+            return workerWrapper.getWorkSpec();
+        } else {
+            return null;
         }
     }
 
@@ -408,8 +421,17 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
         );
     }
 
+    @NonNull
+    private Object getLock(@NonNull String workSpecId) {
+        // Spread the bits of the hash code, as String hash codes of similar ids tend to differ
+        // only in the lower bits.
+        int hash = workSpecId.hashCode();
+        hash ^= (hash >>> 16);
+        return mLocks[hash & (LOCK_STRIPES - 1)];
+    }
+
     private void stopForegroundService() {
-        synchronized (mLock) {
+        synchronized (mForegroundServiceLock) {
             boolean hasForegroundWork = !mForegroundWorkMap.isEmpty();
             if (!hasForegroundWork) {
                 Intent intent = createStopForegroundIntent(mAppContext);
@@ -27,6 +27,7 @@ import androidx.annotation.NonNull;
 
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -89,6 +90,88 @@ public class DataTest {
         assertThat(restoredData.getIntArray(KEY2), is(equalTo(expectedValue2)));
     }
 
+    @Test
+    public void testDeserializeLegacyFormat() {
+        Data data = createData();
+
+        byte[] byteArray = Data.toByteArrayInternalV0(data);
+        Data restoredData = Data.fromByteArray(byteArray);
+
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testSerializeCompactFormat() {
+        Data data = new Data.Builder()
+                .putString(KEY1, "value")
+                .putStringArray(KEY2, new String[]{"value", null, "other", "value"})
+                .putLongArray("long array", new long[]{1L, 2L, 3L})
+                .putBooleanArray("boolean array", new boolean[]{true, false})
+                .putDouble("double", 1.5)
+                .build();
+
+        byte[] byteArray = Data.toByteArrayInternal(data);
+        Data restoredData = Data.fromByteArray(byteArray);
+
+        assertThat(Data.isCompactFormat(byteArray), is(true));
+        assertThat(byteArray.length < Data.toByteArrayInternalV0(data).length, is(true));
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testDeserializeCompactFormat_lazilyDecodesValues() {
+        Data data = new Data.Builder()
+                .putString(KEY1, "value")
+                .putStringArray(KEY2, new String[]{"other", "value"})
+                .putInt("int", 42)
+                .build();
+
+        byte[] byteArray = Data.toByteArrayInternal(data);
+        Data restoredData = Data.fromByteArray(byteArray);
+
+        assertThat(restoredData.size(), is(3));
+        assertThat(restoredData.getInt("int", 0), is(42));
+        assertThat(restoredData.getStringArray(KEY2), is(new String[]{"other", "value"}));
+        assertThat(restoredData.getString(KEY1), is("value"));
+        assertThat(restoredData.getString("missing"), is(nullValue()));
+        assertThat(restoredData, is(data));
+        // The serialized form is reused when it is persisted again.
+        byte[] restoredByteArray = Data.toByteArrayInternal(restoredData);
+        assertThat(restoredByteArray, is(byteArray));
+        assertThat(Data.toByteArrayInternal(restoredData) == restoredByteArray, is(true));
+        assertThat(restoredData.toByteArray() == restoredByteArray, is(false));
+    }
+
+    @Test
+    public void testDeserializeCompactFormat_copiesByteArray() {
+        Data data = new Data.Builder()
+                .putString(KEY1, "value")
+                .putInt("int", 42)
+                .build();
+
+        byte[] byteArray = Data.toByteArrayInternal(data).clone();
+        Data restoredData = Data.fromByteArray(byteArray);
+        Arrays.fill(byteArray, (byte) 0);
+
+        assertThat(restoredData.getString(KEY1), is("value"));
+        assertThat(restoredData.getInt("int", 0), is(42));
+        assertThat(restoredData, is(data));
+        assertThat(Data.toByteArrayInternal(restoredData), is(Data.toByteArrayInternal(data)));
+    }
+
+    @Test
+    public void testSerializeArrayWithNullElements_usesLegacyFormat() {
+        Map<String, Object> map = new HashMap<>();
+        map.put(KEY1, new Integer[]{1, null, 3});
+        Data data = new Data(map);
+
+        byte[] byteArray = Data.toByteArrayInternal(data);
+        Data restoredData = Data.fromByteArray(byteArray);
+
+        assertThat(Data.isCompactFormat(byteArray), is(false));
+        assertThat(restoredData, is(data));
+    }
+
     @Test
     public void testSerializePastMaxSize() {
         int[] payload = new int[Data.MAX_DATA_BYTES + 1];